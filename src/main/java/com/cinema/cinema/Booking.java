@@ -2,6 +2,7 @@ package com.cinema.cinema;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.function.ObjLongConsumer;
 
 /**
  * The abstract class that CustomerBooking and ManagerBooking inherit from.
@@ -10,13 +11,27 @@ public abstract class Booking {
     private final TicketOffice office;
     private View view;
 
+    // Told how long each command took to evaluate, or null.
+    private ObjLongConsumer<CommandWord> commandTimer;
+
     /**
      * Initialise fields.
      */
     public Booking(View view)
+    {
+        this(view, new TicketOffice());
+    }
+
+    /**
+     * Initialise fields, with a ticket office shared with other bookings, e.g., by the sessions of a
+     * SessionReplayDriver.
+     * @param view The view that we want to run the booking with. Null must not be passed.
+     * @param office The ticket office to book tickets in.
+     */
+    public Booking(View view, TicketOffice office)
     {
         this.view = view;
-        office = new TicketOffice();
+        this.office = office;
         view.start();
     }
 
@@ -25,6 +40,7 @@ public abstract class Booking {
      * Each time the user enters a command, the command is recorded. The way that the command is recorded is
      * defined by the subclass.
      * The evaluation of the command is carried out by the subclass.
+     * This method returns once the user has quit.
      */
     public void start()
     {
@@ -35,10 +51,27 @@ public abstract class Booking {
             String input = getView().getInput();
             recordInputString(input);
             command = CommandConverter.convertToCommand(input, getBookingType());
+            long start = System.nanoTime();
             evaluateCommand(command);
+            if (commandTimer != null) {
+                commandTimer.accept(command.getCommandWord(), System.nanoTime() - start);
+            }
         }
         while (command.getCommandWord() !=  CommandWord.QUIT);
-        System.exit(0);
+        // Write the input still queued by the recorder.
+        if (getInputRecorder() != null) {
+            getInputRecorder().close();
+        }
+    }
+
+    /**
+     * Set a timer, told how long (in nanoseconds) each command took to evaluate, including any time waiting for
+     * further input from the view.
+     * @param commandTimer The timer, or null to stop timing commands.
+     */
+    public void setCommandTimer(ObjLongConsumer<CommandWord> commandTimer)
+    {
+        this.commandTimer = commandTimer;
     }
 
     /**
@@ -100,6 +133,9 @@ public abstract class Booking {
      */
     protected void recordInputString(String inputString)
     {
+        if (getInputRecorder() == null) {
+            return;
+        }
         try {
             getInputRecorder().writeStringToFile(inputString);
         } catch (IOException e) {
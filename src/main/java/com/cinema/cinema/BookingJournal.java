@@ -0,0 +1,156 @@
+package com.cinema.cinema;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * A local file that records seat bookings before they are written to the database. Each booking is a fixed-size
+ * record (screen id, column number, row number), and is forced to the disk before append() returns, so a booking that
+ * has been appended survives a crash. The bookings that have been written to the database are discarded from the
+ * start of the journal.
+ *
+ * If the application crashes while a record is being appended, the incomplete record at the end of the file is
+ * removed when the journal is next opened.
+ * @author hari_rathod
+ * @version 2023.06.29
+ * @see WriteBehindScreenRepository
+ */
+public class BookingJournal {
+
+    // The size of a record in bytes: three ints.
+    public static final int RECORD_SIZE = 3 * Integer.BYTES;
+
+    private final FileChannel channel;
+
+    /**
+     * Open the journal stored in a file, creating the file if it does not exist.
+     * @param path The file the journal is stored in.
+     * @throws IOException If the file could not be opened.
+     */
+    public BookingJournal(Path path) throws IOException
+    {
+        channel = FileChannel.open(path, CREATE, READ, WRITE);
+        long size = channel.size();
+        long completeSize = size - size % RECORD_SIZE;
+        if (completeSize != size) {
+            // The last record was not completely written, so the booking was never acknowledged.
+            channel.truncate(completeSize);
+            channel.force(false);
+        }
+        channel.position(completeSize);
+    }
+
+    /**
+     * Append a booking to the journal, and force it to the disk.
+     * @param screenId The id of the screen.
+     * @param columnNumber The column number of the booked seat.
+     * @param rowNumber The row number of the booked seat.
+     * @return The size of the journal (in bytes) after the booking was appended.
+     * @throws IOException If the booking could not be written.
+     */
+    public synchronized long append(int screenId, int columnNumber, int rowNumber) throws IOException
+    {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE).putInt(screenId).putInt(columnNumber).putInt(rowNumber);
+        record.flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        channel.force(false);
+        return channel.position();
+    }
+
+    /**
+     * Append several bookings of the same screen to the journal with a single write, and force them to the disk once.
+     * @param screenId The id of the screen.
+     * @param seats The booked seats.
+     * @return The size of the journal (in bytes) after the bookings were appended.
+     * @throws IOException If the bookings could not be written.
+     */
+    public synchronized long append(int screenId, List<SeatPosition> seats) throws IOException
+    {
+        ByteBuffer records = ByteBuffer.allocate(seats.size() * RECORD_SIZE);
+        for (SeatPosition seat : seats) {
+            records.putInt(screenId).putInt(seat.getColumnNumber()).putInt(seat.getRowNumber());
+        }
+        records.flip();
+        while (records.hasRemaining()) {
+            channel.write(records);
+        }
+        channel.force(false);
+        return channel.position();
+    }
+
+    /**
+     * Get the size of the journal.
+     * @return The size of the journal in bytes. The journal holds (size / RECORD_SIZE) bookings.
+     * @throws IOException If the size could not be read.
+     */
+    public synchronized long size() throws IOException
+    {
+        return channel.size();
+    }
+
+    /**
+     * Read the bookings at the start of the journal.
+     * @param end The position (in bytes) to read up to, e.g., a size returned by size() or append().
+     * @return The bookings, in the order they were appended. Each booking is a single-seat update.
+     * @throws IOException If the journal could not be read.
+     */
+    public synchronized List<SeatWordUpdate> read(long end) throws IOException
+    {
+        ByteBuffer records = ByteBuffer.allocate((int) Math.min(end, channel.size()));
+        while (records.hasRemaining() && channel.read(records, records.position()) >= 0) {
+            // Keep reading until the buffer is full.
+        }
+        records.flip();
+
+        List<SeatWordUpdate> bookings = new ArrayList<>();
+        while (records.remaining() >= RECORD_SIZE) {
+            bookings.add(new SeatWordUpdate(records.getInt(), records.getInt(), records.getInt()));
+        }
+        return bookings;
+    }
+
+    /**
+     * Discard the bookings at the start of the journal, i.e., the bookings that have been written to the database.
+     * The bookings after them are moved to the start of the file. If the application crashes while they are moved,
+     * some discarded bookings may be kept, so replaying the journal must be idempotent.
+     * @param end The position (in bytes) up to which bookings are discarded.
+     * @throws IOException If the journal could not be written.
+     */
+    public synchronized void discard(long end) throws IOException
+    {
+        long size = channel.size();
+        ByteBuffer remaining = ByteBuffer.allocate((int) Math.max(0, size - end));
+        while (remaining.hasRemaining() && channel.read(remaining, end + remaining.position()) >= 0) {
+            // Keep reading until the buffer is full.
+        }
+        remaining.flip();
+        long remainingSize = remaining.remaining();
+        long position = 0;
+        while (remaining.hasRemaining()) {
+            position += channel.write(remaining, position);
+        }
+        channel.force(false);
+        channel.truncate(remainingSize);
+        channel.force(false);
+        channel.position(remainingSize);
+    }
+
+    /**
+     * Close the journal file.
+     * @throws IOException If the file could not be closed.
+     */
+    public synchronized void close() throws IOException
+    {
+        channel.close();
+    }
+}
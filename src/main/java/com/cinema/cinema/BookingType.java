@@ -5,10 +5,10 @@ import java.util.Arrays;
 /**
  * This enumeration class defines the booking types available in the cinema.
  * @author Hari Rathod
- * @version 2023.04.24
+ * @version 2023.06.28
  */
 public enum BookingType {
-    CUSTOMER(CommandWord.BOOK, CommandWord.BASKET, CommandWord.SAVE),
+    CUSTOMER(CommandWord.BOOK, CommandWord.GROUP, CommandWord.BASKET, CommandWord.SAVE),
     MANAGER(CommandWord.ADD, CommandWord.REMOVE);
 
     private CommandWord[] commandWords;
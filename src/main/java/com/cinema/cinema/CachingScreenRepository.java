@@ -0,0 +1,283 @@
+package com.cinema.cinema;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A read-through cache of screens in front of another ScreenRepository. A screen read by id is kept in memory, and
+ * later reads of the screen are served from memory without reading the storage.
+ *
+ * A cached screen is dropped when the screen is written: every write through a CachingScreenRepository publishes an
+ * invalidation on the ScreenInvalidationBus, which is received by every cache in the process (and in sibling
+ * processes, if a channel is configured). As an invalidation from another process may be lost, or a screen may be
+ * written without a cache, a cached screen older than 'maxStalenessMillis' is revalidated before it is used: only the
+ * version of the stored screen is read, and the cached screen is used again if its version is the same.
+ *
+ * The size of the cache is bounded by the total number of seats of the cached screens, so a few large screens cannot
+ * use more memory than many small ones. When the bound is exceeded, the least recently used screens are evicted.
+ * @author hari_rathod
+ * @version 2023.07.04
+ * @see ScreenInvalidationBus
+ */
+public class CachingScreenRepository implements ScreenRepository, ScreenInvalidationListener {
+
+    private final ScreenRepository storage;
+    private final ScreenInvalidationBus bus;
+    private final long maxSeats;
+    private final long maxStalenessNanos;
+
+    // The cached screens, mapped by id, in order of use (least recently used first).
+    private final LinkedHashMap<Integer, CachedScreen> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    // The total number of seats of the cached screens.
+    private long cachedSeats;
+
+    // The number of invalidations of each screen, mapped by id, so a screen read while it was being written is not
+    // cached. Invalidations of other screens do not stop a screen being cached.
+    private final Map<Integer, Long> invalidationSequences = new HashMap<>();
+
+    // Metrics.
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Create a cache in front of a repository, subscribed to the bus shared by the process.
+     * @param storage The repository the screens are stored in.
+     * @param maxSeats The largest total number of seats of the cached screens.
+     * @param maxStalenessMillis How long (in milliseconds) a cached screen is used before it is revalidated.
+     */
+    public CachingScreenRepository(ScreenRepository storage, long maxSeats, long maxStalenessMillis)
+    {
+        this(storage, ScreenInvalidationBus.getInstance(), maxSeats, maxStalenessMillis);
+    }
+
+    /**
+     * Create a cache in front of a repository.
+     * @param storage The repository the screens are stored in.
+     * @param bus The bus invalidations are published on and received from.
+     * @param maxSeats The largest total number of seats of the cached screens.
+     * @param maxStalenessMillis How long (in milliseconds) a cached screen is used before it is revalidated.
+     */
+    public CachingScreenRepository(ScreenRepository storage, ScreenInvalidationBus bus, long maxSeats,
+                                   long maxStalenessMillis)
+    {
+        this.storage = storage;
+        this.bus = bus;
+        this.maxSeats = maxSeats;
+        this.maxStalenessNanos = maxStalenessMillis * 1_000_000;
+        bus.subscribe(this);
+    }
+
+    @Override
+    public List<Screen> getAllScreens()
+    {
+        return storage.getAllScreens();
+    }
+
+    @Override
+    public List<ScreenSummary> getScreenSummaries(boolean onlyWithScreening)
+    {
+        return storage.getScreenSummaries(onlyWithScreening);
+    }
+
+    /**
+     * Get the screen with matching id, from the cache if it holds an up-to-date copy.
+     * @param id The id of the screen we want to retrieve.
+     * @return A copy of the screen with the matching id.
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     */
+    @Override
+    public Screen getScreenById(int id) throws ScreenIdDoesNotExistException
+    {
+        CachedScreen cached;
+        long sequence;
+        synchronized (this) {
+            cached = cache.get(id);
+            sequence = invalidationSequences.getOrDefault(id, 0L);
+        }
+        if (cached != null) {
+            if (System.nanoTime() - cached.validatedAt < maxStalenessNanos) {
+                hits.incrementAndGet();
+                return cached.screen.copy();
+            }
+            if (storage.getScreenVersion(id) == cached.screen.getVersion()) {
+                revalidations.incrementAndGet();
+                cached.validatedAt = System.nanoTime();
+                return cached.screen.copy();
+            }
+        }
+
+        misses.incrementAndGet();
+        Screen screen = storage.getScreenById(id);
+        put(screen, sequence);
+        return screen.copy();
+    }
+
+    @Override
+    public long getScreenVersion(int id) throws ScreenIdDoesNotExistException
+    {
+        return storage.getScreenVersion(id);
+    }
+
+    @Override
+    public void recordScreen(Screen screen) throws ScreenVersionConflictException
+    {
+        storage.recordScreen(screen);
+        bus.publish(screen.getId());
+    }
+
+    @Override
+    public boolean bookSeat(int id, int columnNumber, int rowNumber) throws ScreenIdDoesNotExistException
+    {
+        boolean booked = storage.bookSeat(id, columnNumber, rowNumber);
+        if (booked) {
+            bus.publish(id);
+        }
+        return booked;
+    }
+
+    @Override
+    public List<SeatPosition> bookSeats(int id, List<SeatPosition> seats) throws ScreenIdDoesNotExistException
+    {
+        List<SeatPosition> unavailable = storage.bookSeats(id, seats);
+        if (unavailable.isEmpty()) {
+            bus.publish(id);
+        }
+        return unavailable;
+    }
+
+    @Override
+    public void updateScreening(int id, String movieTitle, int ticketCost)
+            throws ScreenIdDoesNotExistException, ScreenVersionConflictException
+    {
+        storage.updateScreening(id, movieTitle, ticketCost);
+        bus.publish(id);
+    }
+
+    @Override
+    public void removeScreening(int id) throws ScreenIdDoesNotExistException, ScreenVersionConflictException
+    {
+        storage.removeScreening(id);
+        bus.publish(id);
+    }
+
+    @Override
+    public void deleteScreen(int id) throws ScreenIdDoesNotExistException
+    {
+        storage.deleteScreen(id);
+        bus.publish(id);
+    }
+
+    /**
+     * Drop the cached copy of a screen, as the stored screen has been changed.
+     * @param screenId The id of the screen.
+     */
+    @Override
+    public synchronized void screenInvalidated(int screenId)
+    {
+        invalidationSequences.merge(screenId, 1L, Long::sum);
+        CachedScreen removed = cache.remove(screenId);
+        if (removed != null) {
+            cachedSeats -= removed.screen.getNumberOfSeats();
+            invalidations.incrementAndGet();
+        }
+    }
+
+    /**
+     * Get the number of reads served from the cache without reading the storage.
+     * @return The number of hits.
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of reads that read the screen from the storage.
+     * @return The number of misses.
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * Get the number of screens evicted to keep the cache within its bound.
+     * @return The number of evictions.
+     */
+    public long getEvictions()
+    {
+        return evictions.get();
+    }
+
+    /**
+     * Get the total number of seats of the cached screens.
+     * @return The number of cached seats.
+     */
+    public synchronized long getCachedSeats()
+    {
+        return cachedSeats;
+    }
+
+    /**
+     * Get a summary of the metrics, as a String.
+     * @return A summary of the metrics.
+     */
+    public String getSummary()
+    {
+        return "Hits: " + getHits() + "\n"
+                + "Revalidated hits: " + revalidations.get() + "\n"
+                + "Misses: " + getMisses() + "\n"
+                + "Evictions: " + getEvictions() + "\n"
+                + "Invalidations: " + invalidations.get() + "\n"
+                + "Cached seats: " + getCachedSeats() + " of " + maxSeats + "\n";
+    }
+
+    /**
+     * Add a screen read from the storage to the cache, and evict the least recently used screens if the cache
+     * exceeds its bound. A screen larger than the bound is not cached.
+     * @param screen The screen. The cache keeps its own copy.
+     * @param sequence The invalidation sequence of the screen before it was read. If the screen has been invalidated
+     *                 since, it may already be stale, so it is not cached.
+     */
+    private synchronized void put(Screen screen, long sequence)
+    {
+        int seats = screen.getNumberOfSeats();
+        if (seats > maxSeats || sequence != invalidationSequences.getOrDefault(screen.getId(), 0L)) {
+            return;
+        }
+        CachedScreen replaced = cache.put(screen.getId(), new CachedScreen(screen.copy()));
+        if (replaced != null) {
+            cachedSeats -= replaced.screen.getNumberOfSeats();
+        }
+        cachedSeats += seats;
+
+        Iterator<CachedScreen> leastRecentlyUsed = cache.values().iterator();
+        while (cachedSeats > maxSeats) {
+            cachedSeats -= leastRecentlyUsed.next().screen.getNumberOfSeats();
+            leastRecentlyUsed.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * A cached copy of a screen, and when it was last known to be up to date.
+     */
+    private static class CachedScreen {
+        private final Screen screen;
+        private volatile long validatedAt;
+
+        private CachedScreen(Screen screen)
+        {
+            this.screen = screen;
+            validatedAt = System.nanoTime();
+        }
+    }
+}
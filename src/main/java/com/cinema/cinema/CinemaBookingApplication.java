@@ -55,5 +55,7 @@ public class CinemaBookingApplication {
                 case CUSTOMER -> new CustomerBooking(new GuiViewController()).start();
             }
         }
+        // The booking has finished, so close the application (including the GUI, if it was launched).
+        System.exit(0);
     }
 }
@@ -3,11 +3,11 @@ package com.cinema.cinema;
 /**
  * This enumeration class defines the command words available to the customer.
  * @author Hari Rathod
- * @version 2023.03.30
+ * @version 2023.06.28
  */
 public enum CommandWord {
     HELP("help", null), BOOK("book", "movie title"), LIST("list", "movies"),
-    BASKET("basket", null), SAVE("save", "tickets"), QUIT("finished", null),
+    GROUP("group", "movie title"), BASKET("basket", null), SAVE("save", "tickets"), QUIT("finished", null),
     ADD("add", "movie"), REMOVE("remove", "movie"),
     UNKNOWN(null, null);
 
@@ -0,0 +1,122 @@
+package com.cinema.cinema;
+
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionClosedEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class listens to the events of a MongoDB connection pool, and counts them. The counts show how many
+ * connections are being created and closed (connection churn), and how many are currently in use.
+ * @author hari_rathod
+ * @version 2023.06.02
+ */
+public class ConnectionPoolMetrics implements ConnectionPoolListener {
+    private final AtomicLong connectionsCreated = new AtomicLong();
+    private final AtomicLong connectionsClosed = new AtomicLong();
+    private final AtomicLong checkOuts = new AtomicLong();
+    private final AtomicLong checkIns = new AtomicLong();
+    private final AtomicLong failedCheckOuts = new AtomicLong();
+
+    @Override
+    public void connectionCreated(ConnectionCreatedEvent event)
+    {
+        connectionsCreated.incrementAndGet();
+    }
+
+    @Override
+    public void connectionClosed(ConnectionClosedEvent event)
+    {
+        connectionsClosed.incrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event)
+    {
+        checkOuts.incrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckedIn(ConnectionCheckedInEvent event)
+    {
+        checkIns.incrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event)
+    {
+        failedCheckOuts.incrementAndGet();
+    }
+
+    /**
+     * Get the total number of connections the pool has created.
+     * @return The number of connections created.
+     */
+    public long getConnectionsCreated()
+    {
+        return connectionsCreated.get();
+    }
+
+    /**
+     * Get the total number of connections the pool has closed.
+     * @return The number of connections closed.
+     */
+    public long getConnectionsClosed()
+    {
+        return connectionsClosed.get();
+    }
+
+    /**
+     * Get the number of connections that are currently open.
+     * @return The number of open connections.
+     */
+    public long getOpenConnections()
+    {
+        return connectionsCreated.get() - connectionsClosed.get();
+    }
+
+    /**
+     * Get the total number of times a connection was checked out of the pool, i.e., the number of operations.
+     * @return The number of check outs.
+     */
+    public long getCheckOuts()
+    {
+        return checkOuts.get();
+    }
+
+    /**
+     * Get the number of connections that are currently checked out (in use).
+     * @return The number of connections in use.
+     */
+    public long getConnectionsInUse()
+    {
+        return checkOuts.get() - checkIns.get();
+    }
+
+    /**
+     * Get the number of times an operation failed to get a connection from the pool, e.g., because it waited too long.
+     * @return The number of failed check outs.
+     */
+    public long getFailedCheckOuts()
+    {
+        return failedCheckOuts.get();
+    }
+
+    /**
+     * Get a summary of the metrics, as a String.
+     * @return A summary of the metrics.
+     */
+    public String getSummary()
+    {
+        return "Connections created: " + getConnectionsCreated() + "\n"
+                + "Connections closed: " + getConnectionsClosed() + "\n"
+                + "Connections open: " + getOpenConnections() + "\n"
+                + "Connections in use: " + getConnectionsInUse() + "\n"
+                + "Check outs: " + getCheckOuts() + "\n"
+                + "Failed check outs: " + getFailedCheckOuts() + "\n";
+    }
+}
@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * This class is to be used when the customer is making a booking.
@@ -15,8 +16,12 @@ import java.util.List;
  */
 
 public class CustomerBooking extends Booking {
+    // Entered instead of a seat position to book any available seat.
+    private static final String ANY_SEAT = "any";
+
     private InputRecorder inputRecorder;
-    private final ObjectDataRecorder<Ticket> ticketDataRecorder = new ObjectDataRecorder<>(Filename.TICKET, Ticket.class);
+    // The tickets booked in this session. Each session has its own basket, so concurrent customers do not share a file.
+    private SessionBasket basket;
 
     /**
      * Constructor to initialise fields.
@@ -24,17 +29,36 @@ public class CustomerBooking extends Booking {
      */
     public CustomerBooking(View view) {
         super(view);
+        openBasket();
 
         try {
-            ticketDataRecorder.resetFile();
+            inputRecorder = new InputRecorder("user_input_history.txt");
         } catch (IOException e) {
-            getView().displayError("There was an error resetting ticket history." + e.getMessage());
+            getView().displayError("There was an error handling " + e.getMessage());
         }
+    }
+
+    /**
+     * Constructor for a customer booking that shares a ticket office with other bookings.
+     * @param view The view that we want to run the customer booking with. Null must not be passed.
+     * @param office The ticket office to book tickets in.
+     * @param inputRecorder The InputRecorder to record input in, or null if input should not be recorded.
+     */
+    public CustomerBooking(View view, TicketOffice office, InputRecorder inputRecorder) {
+        super(view, office);
+        openBasket();
+        this.inputRecorder = inputRecorder;
+    }
 
+    /**
+     * Open the basket of this session.
+     */
+    private void openBasket()
+    {
         try {
-            inputRecorder = new InputRecorder("user_input_history.txt");
+            basket = SessionBasketStore.getInstance().open(UUID.randomUUID().toString());
         } catch (IOException e) {
-            getView().displayError("There was an error handling " + e.getMessage());
+            getView().displayError("There was an error creating your basket." + e.getMessage());
         }
     }
 
@@ -70,10 +94,20 @@ public class CustomerBooking extends Booking {
                     getView().displayError("There was an error with your booking.", "Apologies, this is on our side not yours..");
                 }
             }
+            case GROUP -> {
+                try {
+                    bookGroup();
+                } catch (InterruptedException e) {
+                    getView().displayError("There was an error with your booking.", "Apologies, this is on our side not yours..");
+                }
+            }
             case LIST -> list(command);
             case BASKET -> showTickets();
             case SAVE -> saveTickets();
-            case QUIT -> getView().displayWithFormatting("Thanks for visiting, and have a great time!");
+            case QUIT -> {
+                closeBasket();
+                getView().displayWithFormatting("Thanks for visiting, and have a great time!");
+            }
             default -> unknown();
         }
     }
@@ -116,13 +150,22 @@ public class CustomerBooking extends Booking {
 
         // Use regex to check the row and column values entered are parsable integers.
         do {
-            getView().display("Please provide the seat as '<column>, <row>'. Example: 3, 4");
+            getView().display("Please provide the seat as '<column>, <row>', or '" + ANY_SEAT
+                    + "' for any available seat. Example: 3, 4");
             String input = getView().getInput();
             seatPosition = StringSplitter.splitByPunctuation(input);
             if (input.equals(CommandWord.QUIT.getCommandString())) {
                 getView().display("Booking cancelled.");
                 return;
             }
+            if (input.trim().equalsIgnoreCase(ANY_SEAT)) {
+                try {
+                    addToBasket(getOffice().bookRandomTicket(screen));
+                } catch (NoAvailableSeatException | MovieDoesNotExistException e) {
+                    getView().displayError(e.getMessage());
+                }
+                return;
+            }
         } while (seatPosition.length < 2 || (!(NumberMatcher.matchesSingleInteger(seatPosition[0]) && NumberMatcher.matchesSingleInteger(seatPosition[1]))));
 
         int columnNumber = Integer.parseInt(seatPosition[0]);
@@ -136,17 +179,94 @@ public class CustomerBooking extends Booking {
         }
 
         try {
-            Ticket ticket = getOffice().bookTicket(movie, columnNumber, rowNumber);
-            try {
-                // Store the ticket in the tickets data file.
-                ticketDataRecorder.writeToFile(ticket);
-                getView().displayWithFormatting("Ticket successfully added to basket."
-                        + "\nYou have %d tickets in your basket.".formatted(ticketDataRecorder.getNumberOfObjects()));
-            } catch (IOException | ClassNotFoundException e) {
-                getView().displayError("There was an error saving your ticket.");
+            // Book the seat on the screen that was shown, as the movie may be showing on other screens.
+            addToBasket(getOffice().bookTicket(screen, columnNumber, rowNumber));
+        } catch (UnavailableSeatException | MovieDoesNotExistException | InvalidSeatException e) {
+            getView().displayError(e.getMessage());
+        }
+    }
+
+    /**
+     * Books seats together for a group. The user is asked for the movie and the number of seats, and is offered the
+     * best block of adjacent seats in one row (the block closest to the centre of the screen), which is booked if the
+     * user accepts it. The block is held while the user decides, so no other customer can book it in the meantime.
+     * @throws InterruptedException If this thread was interrupted whilst waiting for the user input to be provided
+     * by the View (UI).
+     */
+    private void bookGroup() throws InterruptedException {
+        getView().displayWithFormatting("Which movie would you like to book tickets for?");
+        String movie = getView().getInput();
+
+        String input;
+        do {
+            getView().display("How many seats would you like to book together? Example: 4");
+            input = getView().getInput();
+            if (input.equals(CommandWord.QUIT.getCommandString())) {
+                getView().display("Booking cancelled.");
+                return;
             }
-        } catch (UnavailableSeatException | MovieDoesNotExistException e) {
+        } while (!NumberMatcher.matchesSingleInteger(input.trim()) || Integer.parseInt(input.trim()) < 1);
+        int numberOfSeats = Integer.parseInt(input.trim());
+
+        Screen screen;
+        SeatHold hold;
+        try {
+            screen = getOffice().findScreenForGroup(movie, numberOfSeats);
+            hold = getOffice().holdSeats(screen, screen.findBestBlock(numberOfSeats));
+        } catch (NoAvailableSeatException | MovieDoesNotExistException | InvalidSeatException
+                 | UnavailableSeatException e) {
             getView().displayError(e.getMessage());
+            return;
+        }
+
+        try {
+            SeatPosition firstSeat = hold.getSeats().get(0);
+            SeatPosition lastSeat = hold.getSeats().get(hold.getSeats().size() - 1);
+            getView().displayWithFormatting("The best %d seats together are in row %d, seats %d to %d. Book them? (yes/no)"
+                    .formatted(numberOfSeats, firstSeat.getRowNumber(), firstSeat.getColumnNumber(), lastSeat.getColumnNumber()));
+            if (!getView().getInput().trim().equalsIgnoreCase("yes")) {
+                getView().display("Booking cancelled.");
+                return;
+            }
+
+            // The whole block is booked, or none of it is.
+            try {
+                for (Ticket ticket : getOffice().confirmHold(screen, hold)) {
+                    addToBasket(ticket);
+                }
+            } catch (UnavailableSeatException | MovieDoesNotExistException e) {
+                getView().displayError(e.getMessage());
+            }
+        } finally {
+            // Release the seats if the booking was cancelled. A confirmed hold is not released.
+            getOffice().releaseHold(hold);
+        }
+    }
+
+    /**
+     * Record a booked ticket in the ledger of sold tickets, add it to the basket, and tell the user how many tickets
+     * are in the basket.
+     * @param ticket The ticket.
+     */
+    private void addToBasket(Ticket ticket)
+    {
+        try {
+            TicketLedger.getInstance().record(ticket);
+        } catch (IOException e) {
+            getView().displayError("There was an error recording your ticket.");
+        }
+
+        try {
+            // Store the ticket in the tickets data file.
+            if (basket == null) {
+                throw new IOException("The basket could not be opened.");
+            }
+            basket.add(ticket);
+            getView().displayWithFormatting("Ticket for seat (%d, %d) successfully added to basket."
+                    .formatted(ticket.getSeatNumber(), ticket.getRowNumber())
+                    + "\nYou have %d tickets in your basket.".formatted(basket.size()));
+        } catch (IOException e) {
+            getView().displayError("There was an error saving your ticket.");
         }
     }
 
@@ -183,6 +303,22 @@ public class CustomerBooking extends Booking {
         }
     }
 
+    /**
+     * Delete the basket, as the session has ended. The tickets are kept only if the customer saved them.
+     */
+    private void closeBasket()
+    {
+        if (basket == null) {
+            return;
+        }
+        try {
+            basket.delete();
+        } catch (IOException e) {
+            // The basket is deleted when it expires instead.
+        }
+        basket = null;
+    }
+
     /**
      * Get the details of all tickets in the basket. If there was an error reading the tickets from the file, an error
      * message is displayed to the user.
@@ -190,16 +326,12 @@ public class CustomerBooking extends Booking {
      */
     private String getDetailsOfTicketsInBasket()
     {
-        String details = null;
-        try {
-            List<Ticket> list = ticketDataRecorder.readListOfObjectsFromFile();
-            if (!list.isEmpty()) {
-                details = Ticket.getAllTicketsDetails(list);
-            }
-        } catch (IOException | ClassNotFoundException e) {
+        if (basket == null) {
             getView().displayError("Error getting tickets from basket.");
+            return null;
         }
-        return details;
+        List<Ticket> list = basket.getTickets();
+        return list.isEmpty() ? null : Ticket.getAllTicketsDetails(list);
     }
 
     /**
@@ -0,0 +1,92 @@
+package com.cinema.cinema;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An InvalidationChannel that sends invalidations as UDP datagrams to the other processes on this machine. Each
+ * process listens on its own port of the loopback address, and sends every invalidation to the ports of the others.
+ * A datagram holds only the id of the screen (4 bytes).
+ * @author hari_rathod
+ * @version 2023.06.14
+ */
+public class DatagramInvalidationChannel implements InvalidationChannel {
+
+    private final DatagramSocket socket;
+    private final List<Integer> peerPorts;
+    private Thread receiver;
+
+    /**
+     * Create a channel that listens on a port of the loopback address.
+     * @param port The port this process receives invalidations on.
+     * @param peerPorts The ports the other processes receive invalidations on.
+     * @throws UncheckedIOException If the port could not be opened.
+     */
+    public DatagramInvalidationChannel(int port, List<Integer> peerPorts)
+    {
+        try {
+            socket = new DatagramSocket(port, InetAddress.getLoopbackAddress());
+        } catch (SocketException e) {
+            throw new UncheckedIOException("Could not open invalidation port " + port, e);
+        }
+        this.peerPorts = new ArrayList<>(peerPorts);
+        this.peerPorts.remove((Integer) port);
+    }
+
+    @Override
+    public synchronized void start(ScreenInvalidationListener listener)
+    {
+        if (receiver != null) {
+            return;
+        }
+        receiver = new Thread(() -> receive(listener), "invalidation-receiver");
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    @Override
+    public void send(int screenId)
+    {
+        byte[] message = ByteBuffer.allocate(Integer.BYTES).putInt(screenId).array();
+        for (int peerPort : peerPorts) {
+            try {
+                socket.send(new DatagramPacket(message, message.length, InetAddress.getLoopbackAddress(), peerPort));
+            } catch (IOException e) {
+                // A lost invalidation only delays the refresh of a stale copy, so it does not fail the write.
+            }
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        socket.close();
+    }
+
+    /**
+     * Receive invalidations until the socket is closed.
+     * @param listener The listener that is told about each invalidation.
+     */
+    private void receive(ScreenInvalidationListener listener)
+    {
+        byte[] buffer = new byte[Integer.BYTES];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        while (!socket.isClosed()) {
+            try {
+                socket.receive(packet);
+                if (packet.getLength() == Integer.BYTES) {
+                    listener.screenInvalidated(ByteBuffer.wrap(buffer).getInt());
+                }
+            } catch (IOException e) {
+                // The socket was closed, or a datagram could not be read.
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.cinema.cinema;
+
+/**
+ * This enumeration class defines when the objects written by an ObjectDataRecorder are forced to the storage device,
+ * so they survive a crash of the machine (not only of the application).
+ * @author hari_rathod
+ * @version 2023.06.23
+ */
+public enum Durability {
+    // Writes are left to the operating system, which writes them to the device later. The fastest mode, but writes
+    // from the last few seconds may be lost if the machine crashes.
+    NONE,
+    // Every write is forced to the device before it returns. Nothing is lost, but each write waits for the device.
+    FSYNC,
+    // Writes are forced to the device together, every few milliseconds or every few records, and each write returns
+    // once the group it is in has been forced. Nothing is lost, and concurrent writers share the wait for the device.
+    GROUP_COMMIT
+}
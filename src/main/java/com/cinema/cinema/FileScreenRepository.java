@@ -0,0 +1,240 @@
+package com.cinema.cinema;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * A ScreenRepository that stores the screens in a local file, so the cinema can run without a database.
+ * The screens are loaded into memory when the repository is created. The file is a log of screens, written by an
+ * ObjectDataRecorder (see RecordFormat.LOG): every change appends the changed screen, so a booking writes one screen
+ * rather than every screen, and the last record of each screen is the current one. An incomplete record left by a
+ * crash is truncated, and the appends are made durable as chosen by -Drecorder.durability (see Durability).
+ *
+ * Once the log holds more than twice as many records as there are screens (or a screen is deleted), it is replaced
+ * with one record per screen; the new log is moved over the old one, so a crash leaves one or the other. A file of
+ * screens written by an earlier version (a single List) is converted to a log when it is first read.
+ *
+ * Every change is made to a copy of the stored screen, which replaces the stored screen only once it has been written
+ * to the file, so a failed write leaves the screens in memory as they are in the file.
+ * @author hari_rathod
+ * @version 2023.07.04
+ */
+public class FileScreenRepository implements ScreenRepository {
+
+    // The file the screens are stored in.
+    private final Path path;
+
+    // The screens, mapped by their id. Kept in id order, so the file is written in a stable order.
+    private final Map<Integer, Screen> screens = new TreeMap<>();
+
+    // Appends the changed screens to the file.
+    private final ObjectDataRecorder<Screen> recorder;
+
+    // The number of records in the file, including the records of screens that have been changed since.
+    private long records;
+
+    /**
+     * Create a repository that stores screens in the file Filename.SCREEN_STORE.
+     * @throws UncheckedIOException If the existing file could not be read.
+     */
+    public FileScreenRepository()
+    {
+        this(Path.of(Filename.SCREEN_STORE.toString()));
+    }
+
+    /**
+     * Create a repository that stores screens in the provided file. If the file exists, the screens in it are loaded.
+     * @param path The file to store the screens in.
+     * @throws UncheckedIOException If the existing file could not be read.
+     */
+    public FileScreenRepository(Path path)
+    {
+        this.path = path;
+        recorder = new ObjectDataRecorder<>(path, Screen.class, RecordFormat.LOG,
+                new SerializationCodec<>(Screen.class), ObjectDataRecorder.getDefaultDurability());
+        if (Files.exists(path)) {
+            load();
+        }
+    }
+
+    @Override
+    public synchronized List<Screen> getAllScreens()
+    {
+        List<Screen> allScreens = new ArrayList<>();
+        for (Screen screen : screens.values()) {
+            allScreens.add(screen.copy());
+        }
+        return allScreens;
+    }
+
+    @Override
+    public synchronized List<ScreenSummary> getScreenSummaries(boolean onlyWithScreening)
+    {
+        return screens.values().stream()
+                .filter(screen -> !onlyWithScreening || screen.hasMovieScreening())
+                .map(ScreenSummary::new)
+                .toList();
+    }
+
+    @Override
+    public synchronized Screen getScreenById(int id) throws ScreenIdDoesNotExistException
+    {
+        return getStoredScreen(id).copy();
+    }
+
+    @Override
+    public synchronized long getScreenVersion(int id) throws ScreenIdDoesNotExistException
+    {
+        return getStoredScreen(id).getVersion();
+    }
+
+    @Override
+    public synchronized void recordScreen(Screen screen) throws ScreenVersionConflictException
+    {
+        Screen copy = screen.copy();
+        Screen stored = screens.get(screen.getId());
+        if (stored != null) {
+            if (stored.getVersion() != screen.getVersion()) {
+                throw new ScreenVersionConflictException(screen.getId(), screen.getVersion());
+            }
+            copy.setVersion(stored.getVersion() + 1);
+        }
+        save(copy);
+        screen.setVersion(copy.getVersion());
+    }
+
+    @Override
+    public synchronized boolean bookSeat(int id, int columnNumber, int rowNumber) throws ScreenIdDoesNotExistException
+    {
+        Screen screen = getStoredScreen(id).copy();
+        try {
+            screen.book(columnNumber, rowNumber);
+        } catch (UnavailableSeatException e) {
+            return false;
+        }
+        screen.setVersion(screen.getVersion() + 1);
+        save(screen);
+        return true;
+    }
+
+    @Override
+    public synchronized List<SeatPosition> bookSeats(int id, List<SeatPosition> seats)
+            throws ScreenIdDoesNotExistException
+    {
+        Screen screen = getStoredScreen(id).copy();
+        List<SeatPosition> unavailable = screen.bookSeats(seats);
+        if (unavailable.isEmpty()) {
+            // The whole booking is saved with one record.
+            screen.setVersion(screen.getVersion() + seats.size());
+            save(screen);
+        }
+        return unavailable;
+    }
+
+    @Override
+    public synchronized void updateScreening(int id, String movieTitle, int ticketCost) throws ScreenIdDoesNotExistException
+    {
+        Screen screen = getStoredScreen(id).copy();
+        screen.addNewMovie(movieTitle, ticketCost);
+        screen.setVersion(screen.getVersion() + 1);
+        save(screen);
+    }
+
+    @Override
+    public synchronized void removeScreening(int id) throws ScreenIdDoesNotExistException
+    {
+        Screen screen = getStoredScreen(id).copy();
+        screen.removeMovie();
+        screen.setVersion(screen.getVersion() + 1);
+        save(screen);
+    }
+
+    @Override
+    public synchronized void deleteScreen(int id) throws ScreenIdDoesNotExistException
+    {
+        getStoredScreen(id);
+        // A log has no record for a deleted screen, so the file is replaced with the remaining screens.
+        List<Screen> remaining = new ArrayList<>(screens.values());
+        remaining.removeIf(screen -> screen.getId() == id);
+        saveAll(remaining);
+        screens.remove(id);
+    }
+
+    /**
+     * Get the stored screen (not a copy) with matching id.
+     * @param id The id of the screen.
+     * @return The stored screen.
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     */
+    private Screen getStoredScreen(int id) throws ScreenIdDoesNotExistException
+    {
+        Screen screen = screens.get(id);
+        if (screen == null) {
+            throw new ScreenIdDoesNotExistException("Screen with id %d does not exist".formatted(id));
+        }
+        return screen;
+    }
+
+    /**
+     * Load the screens from the file into memory. The records are read one at a time, and the last record of each
+     * screen is kept.
+     * @throws UncheckedIOException If the file could not be read, or does not contain screens.
+     */
+    private void load()
+    {
+        try (Stream<Screen> stored = recorder.streamObjectsFromFile()) {
+            stored.forEach(screen -> {
+                screens.put(screen.getId(), screen);
+                records++;
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read screens from " + path, e);
+        } catch (ClassNotFoundException e) {
+            throw new UncheckedIOException(new IOException("File %s does not contain screens.".formatted(path), e));
+        }
+    }
+
+    /**
+     * Append a changed screen to the file, and then replace the stored screen with it. If the file then holds more
+     * than twice as many records as there are screens, it is replaced with one record per screen.
+     * @param screen The changed copy of the screen.
+     * @throws UncheckedIOException If the file could not be written.
+     */
+    private void save(Screen screen)
+    {
+        try {
+            recorder.writeToFile(screen);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write screens to " + path, e);
+        } catch (ClassNotFoundException e) {
+            throw new UncheckedIOException(new IOException("File %s does not contain screens.".formatted(path), e));
+        }
+        screens.put(screen.getId(), screen);
+        records++;
+        if (records > 2L * screens.size()) {
+            saveAll(new ArrayList<>(screens.values()));
+        }
+    }
+
+    /**
+     * Replace the file with one record for every screen.
+     * @param stored The screens to store.
+     * @throws UncheckedIOException If the file could not be written.
+     */
+    private void saveAll(List<Screen> stored)
+    {
+        try {
+            recorder.writeAllToFile(stored);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write screens to " + path, e);
+        }
+        records = stored.size();
+    }
+}
@@ -1,7 +1,7 @@
 package com.cinema.cinema;
 
 public enum Filename {
-    TICKET("tickets.ser"), SCREEN("screens.ser");
+    TICKET("tickets.ser"), SCREEN("screens.ser"), SCREEN_STORE("screen_store.ser"), BOOKING_JOURNAL("booking_journal.bin");
     private final String FILENAME;
     Filename(String filename)
     {
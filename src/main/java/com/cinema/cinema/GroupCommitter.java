@@ -0,0 +1,187 @@
+package com.cinema.cinema;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Forces the writes of many writers to the storage device together (group commit). A writer writes its data, calls
+ * register(), and then awaitDurable(...) with the sequence number it was given. A background thread forces the file
+ * once 'intervalMillis' have passed, or 'maxRecords' writes are waiting, and then wakes every writer whose data was
+ * written before the file was forced.
+ * @author hari_rathod
+ * @version 2023.07.04
+ * @see Durability
+ */
+public class GroupCommitter implements Closeable {
+
+    // How long (in milliseconds) to wait at least before forcing again after a force failed, so a persistent error
+    // does not keep the background thread busy.
+    private static final long RETRY_DELAY_MILLIS = 100;
+
+    /**
+     * Forces the written data to the storage device.
+     */
+    public interface Sync {
+        void force() throws IOException;
+    }
+
+    private final Sync sync;
+    private final long intervalMillis;
+    private final int maxRecords;
+    private final Thread committer;
+
+    // The sequence number of the last registered write, and of the last write known to be on the device.
+    private long registered;
+    private long durable;
+
+    // When (System.currentTimeMillis()) the oldest write not yet on the device was registered.
+    private long oldestWaitingSince;
+
+    // The error of the last failed force, and the sequence number of the last write it should have made durable.
+    private IOException failure;
+    private long failedUpTo;
+
+    // When (System.currentTimeMillis()) the file may be forced again, after a failed force. 0 after a successful one.
+    private long retryAt;
+
+    private boolean closed;
+
+    /**
+     * Create a group committer, and start its background thread.
+     * @param name The name of the background thread.
+     * @param sync Forces the written data to the device.
+     * @param intervalMillis The longest time (in milliseconds) a write waits for the next force, or 0 to force as soon
+     *                       as a write is waiting. Writes registered while the file is being forced still wait for
+     *                       the next force together, so with 0 the group is every write made during one force.
+     * @param maxRecords The number of waiting writes that starts a force before the interval has passed.
+     */
+    public GroupCommitter(String name, Sync sync, long intervalMillis, int maxRecords)
+    {
+        this.sync = sync;
+        this.intervalMillis = Math.max(0, intervalMillis);
+        this.maxRecords = Math.max(1, maxRecords);
+        committer = new Thread(this::run, name);
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /**
+     * Register a write, which must already have been written (but not forced).
+     * @return The sequence number of the write, to be passed to awaitDurable(...).
+     */
+    public synchronized long register()
+    {
+        registered++;
+        if (registered - durable == 1) {
+            oldestWaitingSince = System.currentTimeMillis();
+            notifyAll();
+        }
+        if (registered - durable >= maxRecords) {
+            notifyAll();
+        }
+        return registered;
+    }
+
+    /**
+     * Wait until a write has been forced to the device.
+     * @param sequence The sequence number of the write, from register().
+     * @throws IOException If the force that should have made the write durable failed, or the committer was closed.
+     * @throws InterruptedException If the thread was interrupted while waiting.
+     */
+    public synchronized void awaitDurable(long sequence) throws IOException, InterruptedException
+    {
+        while (durable < sequence) {
+            if (failure != null && failedUpTo >= sequence) {
+                throw failure;
+            }
+            if (closed) {
+                throw new IOException("The group committer has been closed.");
+            }
+            wait();
+        }
+    }
+
+    /**
+     * Force every registered write, and stop the background thread.
+     */
+    @Override
+    public void close()
+    {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The loop of the background thread: wait until the oldest waiting write has waited for the interval, or enough
+     * writes are waiting, then force the file. After a failed force, the file is not forced again for the interval,
+     * or RETRY_DELAY_MILLIS if that is longer.
+     */
+    private void run()
+    {
+        while (true) {
+            long target;
+            synchronized (this) {
+                while (!closed) {
+                    long now = System.currentTimeMillis();
+                    long remaining;
+                    if (now < retryAt) {
+                        // The last force failed, so wait before forcing again.
+                        remaining = retryAt - now;
+                    } else if (registered == durable) {
+                        // With no writes waiting, wait until one is registered.
+                        remaining = 0;
+                    } else if (registered - durable >= maxRecords) {
+                        break;
+                    } else {
+                        remaining = oldestWaitingSince + intervalMillis - now;
+                        if (remaining <= 0) {
+                            break;
+                        }
+                    }
+                    try {
+                        wait(remaining);
+                    } catch (InterruptedException e) {
+                        closed = true;
+                    }
+                }
+                target = registered;
+                if (target == durable) {
+                    if (closed) {
+                        return;
+                    }
+                    continue;
+                }
+            }
+
+            IOException error = null;
+            try {
+                sync.force();
+            } catch (IOException e) {
+                error = e;
+            }
+            synchronized (this) {
+                if (error == null) {
+                    durable = target;
+                    oldestWaitingSince = System.currentTimeMillis();
+                    retryAt = 0;
+                } else {
+                    // The writes are forced again after the retry delay; the writers waiting now are told it failed.
+                    failure = error;
+                    failedUpTo = target;
+                    retryAt = System.currentTimeMillis() + Math.max(intervalMillis, RETRY_DELAY_MILLIS);
+                }
+                notifyAll();
+                if (closed && error != null) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.cinema.cinema;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A ScreenRepository that keeps the screens in memory. Nothing is stored persistently, so this repository is useful
+ * for tests, and for running (or load testing) the booking logic without a database.
+ * Copies of the screens are stored and returned, so the screens behave in the same way as screens stored in a database.
+ * Seats are booked in the stored screens without locking them (see SeatMap), so bookings of different seats, even in
+ * the same screen, never wait for each other. Writes that replace a stored screen wait for bookings in progress, so a
+ * booking is never made in a screen that has just been replaced.
+ * @author hari_rathod
+ * @version 2023.06.30
+ */
+public class InMemoryScreenRepository implements ScreenRepository {
+
+    // The stored screens, mapped by their id.
+    private final ConcurrentMap<Integer, Screen> screens = new ConcurrentHashMap<>();
+    // Held (shared) by bookings, and held exclusively while stored screens are replaced or removed.
+    private final ReadWriteLock replaceLock = new ReentrantReadWriteLock();
+
+    /**
+     * Get all screens from memory.
+     * @return A list of copies of all the screens.
+     */
+    @Override
+    public List<Screen> getAllScreens()
+    {
+        List<Screen> allScreens = new ArrayList<>();
+        for (Screen screen : screens.values()) {
+            allScreens.add(screen.copy());
+        }
+        return allScreens;
+    }
+
+    /**
+     * Get the summaries of the screens, in order of id.
+     * @param onlyWithScreening If true, only the screens that are showing a movie are summarised.
+     * @return The summaries of the screens.
+     */
+    @Override
+    public List<ScreenSummary> getScreenSummaries(boolean onlyWithScreening)
+    {
+        return screens.values().stream()
+                .sorted(Comparator.comparingInt(Screen::getId))
+                .filter(screen -> !onlyWithScreening || screen.hasMovieScreening())
+                .map(ScreenSummary::new)
+                .toList();
+    }
+
+    /**
+     * Get the screen with matching id.
+     * @param id The id of the screen we want to retrieve.
+     * @return A copy of the screen with the matching id.
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     */
+    @Override
+    public Screen getScreenById(int id) throws ScreenIdDoesNotExistException
+    {
+        return getStoredScreen(id).copy();
+    }
+
+    /**
+     * Get the version of the screen with matching id.
+     * @param id The id of the screen.
+     * @return The version of the screen.
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     */
+    @Override
+    public long getScreenVersion(int id) throws ScreenIdDoesNotExistException
+    {
+        return getStoredScreen(id).getVersion();
+    }
+
+    /**
+     * Record a copy of the screen in memory, overwriting the screen with the same id if its version is the version of
+     * the provided screen.
+     * @param screen The screen to be recorded. On success, its version is set to the version of the stored screen.
+     * @throws ScreenVersionConflictException If the stored screen has been changed since the provided screen was read.
+     */
+    @Override
+    public void recordScreen(Screen screen) throws ScreenVersionConflictException
+    {
+        boolean[] conflict = new boolean[1];
+        Screen recorded;
+        replaceLock.writeLock().lock();
+        try {
+            recorded = screens.compute(screen.getId(), (key, stored) -> {
+                if (stored == null) {
+                    return screen.copy();
+                }
+                if (stored.getVersion() != screen.getVersion()) {
+                    conflict[0] = true;
+                    return stored;
+                }
+                Screen copy = screen.copy();
+                copy.setVersion(stored.getVersion() + 1);
+                return copy;
+            });
+        } finally {
+            replaceLock.writeLock().unlock();
+        }
+        if (conflict[0]) {
+            throw new ScreenVersionConflictException(screen.getId(), screen.getVersion());
+        }
+        screen.setVersion(recorded.getVersion());
+    }
+
+    /**
+     * Book a single seat in a screen, but only if the seat is available. The seat is checked and booked by a single
+     * compare-and-set, so concurrent bookings of the same seat cannot both succeed.
+     * @param id The id of the screen.
+     * @param columnNumber The column number of the seat to book. 1 is the number of the first column.
+     * @param rowNumber The row number of the seat to book. 1 is the number of the first row.
+     * @return True if the seat was booked, false if the seat was unavailable (already booked).
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     */
+    @Override
+    public boolean bookSeat(int id, int columnNumber, int rowNumber) throws ScreenIdDoesNotExistException
+    {
+        replaceLock.readLock().lock();
+        try {
+            Screen stored = getStoredScreen(id);
+            stored.book(columnNumber, rowNumber);
+            stored.incrementVersion(1);
+            return true;
+        } catch (UnavailableSeatException e) {
+            return false;
+        } finally {
+            replaceLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Book several seats in a screen, but only if every one of them is available: either all the seats are booked or
+     * none of them are (see SeatMap.claim(...)).
+     * @param id The id of the screen.
+     * @param seats The seats to book. The seats must be within the screen, and must not be repeated.
+     * @return The seats that were unavailable (already booked). If the list is empty, every seat was booked.
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     */
+    @Override
+    public List<SeatPosition> bookSeats(int id, List<SeatPosition> seats) throws ScreenIdDoesNotExistException
+    {
+        replaceLock.readLock().lock();
+        try {
+            Screen stored = getStoredScreen(id);
+            List<SeatPosition> unavailable = stored.bookSeats(seats);
+            if (unavailable.isEmpty()) {
+                // The database increases the version once for every seat booked, so the stored screen does the same.
+                stored.incrementVersion(seats.size());
+            }
+            return unavailable;
+        } finally {
+            replaceLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Update the movie screening in a screen. This does not clear the seats in the screen. The stored screen is
+     * replaced atomically, so the update never conflicts with another writer.
+     * @param id The id of the screen to be updated.
+     * @param movieTitle The title of the movie.
+     * @param ticketCost The cost of a ticket to watch this movie.
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     */
+    @Override
+    public void updateScreening(int id, String movieTitle, int ticketCost) throws ScreenIdDoesNotExistException
+    {
+        Screen updated;
+        replaceLock.writeLock().lock();
+        try {
+            updated = screens.computeIfPresent(id, (key, screen) -> {
+                Screen copy = screen.copy();
+                copy.addNewMovie(movieTitle, ticketCost);
+                copy.setVersion(screen.getVersion() + 1);
+                return copy;
+            });
+        } finally {
+            replaceLock.writeLock().unlock();
+        }
+        if (updated == null) {
+            throw new ScreenIdDoesNotExistException("Screen with id %d does not exist".formatted(id));
+        }
+    }
+
+    /**
+     * Remove the movie screening from a screen and empty the screen. The stored screen is replaced atomically, so the
+     * update never conflicts with another writer.
+     * @param id The id of the screen to remove the movie screening from.
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     */
+    @Override
+    public void removeScreening(int id) throws ScreenIdDoesNotExistException
+    {
+        Screen updated;
+        replaceLock.writeLock().lock();
+        try {
+            updated = screens.computeIfPresent(id, (key, screen) -> {
+                Screen copy = screen.copy();
+                copy.removeMovie();
+                copy.setVersion(screen.getVersion() + 1);
+                return copy;
+            });
+        } finally {
+            replaceLock.writeLock().unlock();
+        }
+        if (updated == null) {
+            throw new ScreenIdDoesNotExistException("Screen with id %d does not exist".formatted(id));
+        }
+    }
+
+    /**
+     * Delete a screen from memory.
+     * @param id The id of the screen that is to be removed (deleted).
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     */
+    @Override
+    public void deleteScreen(int id) throws ScreenIdDoesNotExistException
+    {
+        Screen removed;
+        replaceLock.writeLock().lock();
+        try {
+            removed = screens.remove(id);
+        } finally {
+            replaceLock.writeLock().unlock();
+        }
+        if (removed == null) {
+            throw new ScreenIdDoesNotExistException("Screen with id %d does not exist".formatted(id));
+        }
+    }
+
+    /**
+     * Get the stored screen (not a copy) with matching id.
+     * @param id The id of the screen.
+     * @return The stored screen.
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     */
+    private Screen getStoredScreen(int id) throws ScreenIdDoesNotExistException
+    {
+        Screen screen = screens.get(id);
+        if (screen == null) {
+            throw new ScreenIdDoesNotExistException("Screen with id %d does not exist".formatted(id));
+        }
+        return screen;
+    }
+}
@@ -1,33 +1,276 @@
 package com.cinema.cinema;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * This class records the history of user input in a file.
+ *
+ * Strings are not written by the thread that records them: they are added to a bounded queue, and a background thread
+ * writes every queued string in one batch to the file, which it keeps open. When the queue is full, the OverflowPolicy
+ * chooses whether the recording thread waits or the string is dropped.
+ *
+ * When the file grows past 'rotateBytes', or has been written to for longer than 'rotateMillis', it is rotated: it is
+ * compressed to '<file>.<time>.gz', and a new file is started. Only the newest 'maxArchives' compressed files are kept.
+ *
+ * An InputRecorder created with only a file name is configured by the following system properties:
+ *          -Dinput.queueCapacity     The number of strings that can be queued (default 1024).
+ *          -Dinput.overflow          BLOCK or DROP (default BLOCK).
+ *          -Dinput.rotateBytes       The size that rotates the file (default 10 MB).
+ *          -Dinput.rotateMillis      The age that rotates the file (default 1 day).
+ *          -Dinput.maxArchives       The number of compressed files kept (default 10).
+ * @author hari_rathod
+ * @version 2023.06.24
  */
-public class InputRecorder {
-    private final String FILENAME;
+public class InputRecorder implements Closeable {
 
+    // Queued after the last string, to stop the background thread.
+    private static final String END = new String("end of input");
+
+    private final Path path;
+    private final BlockingQueue<String> queue;
+    private final OverflowPolicy overflowPolicy;
+    private final long rotateBytes;
+    private final long rotateMillis;
+    private final int maxArchives;
+    private final Thread writerThread;
+
+    // Used only by the background thread: the open file, its size, and when it was started.
+    private BufferedWriter writer;
+    private long size;
+    private long startedAt;
+
+    // The last error of the background thread, reported to the next recording thread.
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    // Metrics.
+    private final AtomicLong droppedStrings = new AtomicLong();
+    private final AtomicLong rotations = new AtomicLong();
+    private final LatencyHistogram batchSizes = new LatencyHistogram(" strings");
+
+    /**
+     * Create an InputRecorder configured by the 'input.*' system properties, clearing the file, and start its
+     * background thread.
+     * @param FILENAME The name of the file the history is recorded in.
+     * @throws IOException If the file could not be cleared.
+     */
     public InputRecorder(String FILENAME) throws IOException
     {
-        this.FILENAME = FILENAME;
-        try (BufferedWriter writer = Files.newBufferedWriter(Path.of(FILENAME))) {
-            // File is opened in write mode, automatically clearing it.
-        }
+        this(Path.of(FILENAME), Integer.getInteger("input.queueCapacity", 1024),
+                OverflowPolicy.valueOf(System.getProperty("input.overflow", OverflowPolicy.BLOCK.name())),
+                Long.getLong("input.rotateBytes", 10L * 1024 * 1024),
+                Long.getLong("input.rotateMillis", TimeUnit.DAYS.toMillis(1)),
+                Integer.getInteger("input.maxArchives", 10));
+    }
+
+    /**
+     * Create an InputRecorder, clearing the file, and start its background thread.
+     * @param path The file the history is recorded in.
+     * @param queueCapacity The number of strings that can be queued.
+     * @param overflowPolicy What a recording thread does when the queue is full.
+     * @param rotateBytes The size (in bytes) that rotates the file.
+     * @param rotateMillis The age (in milliseconds) that rotates the file.
+     * @param maxArchives The number of compressed files kept.
+     * @throws IOException If the file could not be cleared.
+     */
+    public InputRecorder(Path path, int queueCapacity, OverflowPolicy overflowPolicy, long rotateBytes,
+                         long rotateMillis, int maxArchives) throws IOException
+    {
+        this.path = path;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.overflowPolicy = overflowPolicy;
+        this.rotateBytes = rotateBytes;
+        this.rotateMillis = rotateMillis;
+        this.maxArchives = maxArchives;
+
+        // File is opened in write mode, automatically clearing it.
+        writer = Files.newBufferedWriter(path);
+        size = 0;
+        startedAt = System.currentTimeMillis();
+
+        writerThread = new Thread(this::run, "input-recorder-" + path.getFileName());
+        writerThread.setDaemon(true);
+        writerThread.start();
     }
+
     /**
-     * Write a string to the file storing user input history.
+     * Record a string in the file storing user input history. The string is written by the background thread, so
+     * this returns without waiting for the file (unless the queue is full, and the policy is OverflowPolicy.BLOCK).
      * @param string The string to write to the history.
-     * @throws IOException If there was an error writing to the file.
+     * @throws IOException If there was an error writing an earlier string to the file, or the recorder is closed.
      */
     public void writeStringToFile(String string) throws IOException {
-        Path path = Path.of(FILENAME);
-        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardOpenOption.APPEND)) {
+        IOException error = failure;
+        if (error != null) {
+            failure = null;
+            throw error;
+        }
+        if (closed) {
+            throw new IOException("The input recorder for %s has been closed.".formatted(path));
+        }
+
+        if (overflowPolicy == OverflowPolicy.DROP) {
+            if (!queue.offer(string)) {
+                droppedStrings.incrementAndGet();
+            }
+            return;
+        }
+        try {
+            queue.put(string);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to record input.");
+        }
+    }
+
+    /**
+     * Write every queued string to the file, and close it. Strings recorded after this are not written.
+     */
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(END);
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Get the number of strings dropped because the queue was full.
+     * @return The number of dropped strings.
+     */
+    public long getDroppedStrings()
+    {
+        return droppedStrings.get();
+    }
+
+    /**
+     * Get the number of times the file has been rotated.
+     * @return The number of rotations.
+     */
+    public long getRotations()
+    {
+        return rotations.get();
+    }
+
+    /**
+     * Get a summary of the metrics, as a String.
+     * @return A summary of the metrics.
+     */
+    public String getSummary()
+    {
+        return "Queued strings: " + queue.size() + "\n"
+                + "Dropped strings: " + getDroppedStrings() + "\n"
+                + "Rotations: " + getRotations() + "\n"
+                + "Batch sizes: " + batchSizes.getSummary() + "\n";
+    }
+
+    /**
+     * The loop of the background thread: wait for a string, then write it and every other queued string, and flush
+     * the file once for the whole batch.
+     */
+    private void run()
+    {
+        List<String> batch = new ArrayList<>();
+        boolean ended = false;
+        while (!ended) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch);
+            // Compared by identity, so a user typing the same text does not stop the thread.
+            ended = batch.removeIf(string -> string == END);
+            if (batch.isEmpty()) {
+                continue;
+            }
+            try {
+                write(batch);
+            } catch (IOException e) {
+                failure = e;
+            }
+            batchSizes.record(batch.size());
+            batch.clear();
+        }
+
+        try {
+            writer.close();
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Write a batch of strings to the file, one per line, rotating the file first if it is due.
+     * @param batch The strings.
+     * @throws IOException If there was an error writing to the file.
+     */
+    private void write(List<String> batch) throws IOException
+    {
+        if (size >= rotateBytes || (size > 0 && System.currentTimeMillis() - startedAt >= rotateMillis)) {
+            rotate();
+        }
+        for (String string : batch) {
             writer.write(string);
             writer.newLine();
+            size += string.getBytes(StandardCharsets.UTF_8).length + System.lineSeparator().length();
+        }
+        writer.flush();
+    }
+
+    /**
+     * Compress the file to '<file>.<time>.gz', start a new file, and delete the oldest compressed files.
+     * @throws IOException If there was an error handling the files.
+     */
+    private void rotate() throws IOException
+    {
+        writer.close();
+        Path archive = path.resolveSibling(path.getFileName() + "." + System.currentTimeMillis() + ".gz");
+        try (InputStream input = Files.newInputStream(path);
+             OutputStream output = new GZIPOutputStream(Files.newOutputStream(archive))) {
+            input.transferTo(output);
+        }
+        writer = Files.newBufferedWriter(path, StandardOpenOption.TRUNCATE_EXISTING);
+        size = 0;
+        startedAt = System.currentTimeMillis();
+        rotations.incrementAndGet();
+        deleteOldArchives();
+    }
+
+    /**
+     * Delete the oldest compressed files, keeping the newest 'maxArchives'.
+     * @throws IOException If there was an error handling the files.
+     */
+    private void deleteOldArchives() throws IOException
+    {
+        List<Path> archives = new ArrayList<>();
+        Path directory = path.toAbsolutePath().getParent();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, path.getFileName() + ".*.gz")) {
+            files.forEach(archives::add);
+        }
+        // The names only differ by the time, which has the same number of digits until the year 2286.
+        archives.sort(null);
+        for (int i = 0; i < archives.size() - maxArchives; i++) {
+            Files.deleteIfExists(archives.get(i));
         }
     }
 }
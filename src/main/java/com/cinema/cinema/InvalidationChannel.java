@@ -0,0 +1,29 @@
+package com.cinema.cinema;
+
+/**
+ * A channel that carries screen invalidations between processes on the same machine, so that a screen changed by one
+ * process is dropped from the caches of the other processes.
+ * @author hari_rathod
+ * @version 2023.06.14
+ * @see ScreenInvalidationBus
+ */
+public interface InvalidationChannel {
+
+    /**
+     * Start receiving invalidations sent by other processes.
+     * @param listener The listener that is told about each invalidation received.
+     */
+    void start(ScreenInvalidationListener listener);
+
+    /**
+     * Send an invalidation to the other processes. Invalidations are sent on a best-effort basis: one that is lost
+     * only means a stale copy is kept until it is revalidated.
+     * @param screenId The id of the screen that was changed.
+     */
+    void send(int screenId);
+
+    /**
+     * Stop receiving invalidations, and release the channel.
+     */
+    void close();
+}
@@ -0,0 +1,117 @@
+package com.cinema.cinema;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies (or any other non-negative values), that can be updated by many threads without locking.
+ * Values are counted in buckets whose upper bounds are powers of two, so a percentile is accurate to within a factor
+ * of two, and the histogram uses the same small amount of memory however many values are recorded.
+ * @author hari_rathod
+ * @version 2023.06.12
+ */
+public class LatencyHistogram {
+
+    // Bucket i counts the values v with 2^(i-1) <= v < 2^i. Bucket 0 counts the value 0.
+    private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong maximum = new AtomicLong();
+
+    // The unit of the recorded values, used in the summary, e.g., 'us'.
+    private final String unit;
+
+    /**
+     * Create an empty histogram.
+     * @param unit The unit of the recorded values, e.g., 'us' for microseconds.
+     */
+    public LatencyHistogram(String unit)
+    {
+        this.unit = unit;
+    }
+
+    /**
+     * Record a value. Negative values are recorded as 0.
+     * @param value The value to record.
+     */
+    public void record(long value)
+    {
+        value = Math.max(0, value);
+        buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        maximum.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Record the time elapsed since a start time, in microseconds.
+     * @param startNanos The start time, from System.nanoTime().
+     */
+    public void recordSince(long startNanos)
+    {
+        record((System.nanoTime() - startNanos) / 1000);
+    }
+
+    /**
+     * Get the number of recorded values.
+     * @return The number of values.
+     */
+    public long getCount()
+    {
+        return count.get();
+    }
+
+    /**
+     * Get the mean of the recorded values.
+     * @return The mean, or 0 if no values have been recorded.
+     */
+    public double getMean()
+    {
+        long n = count.get();
+        return n == 0 ? 0 : (double) total.get() / n;
+    }
+
+    /**
+     * Get the largest recorded value.
+     * @return The largest value, or 0 if no values have been recorded.
+     */
+    public long getMaximum()
+    {
+        return maximum.get();
+    }
+
+    /**
+     * Get an upper bound of a percentile of the recorded values, e.g., getPercentile(99) is a value that at least 99%
+     * of the recorded values are less than or equal to.
+     * @param percentile The percentile, from 0 to 100.
+     * @return The upper bound of the bucket containing the percentile (never more than the largest value),
+     * or 0 if no values have been recorded.
+     */
+    public long getPercentile(double percentile)
+    {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(n * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= rank && seen > 0) {
+                long upperBound = i == 0 ? 0 : (i >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << i) - 1);
+                return Math.min(upperBound, getMaximum());
+            }
+        }
+        return getMaximum();
+    }
+
+    /**
+     * Get a summary of the histogram, as a String.
+     * @return The count, mean, median, 99th percentile and maximum of the recorded values.
+     */
+    public String getSummary()
+    {
+        return "count=%d mean=%.1f%s p50=%d%s p99=%d%s max=%d%s".formatted(getCount(), getMean(), unit,
+                getPercentile(50), unit, getPercentile(99), unit, getMaximum(), unit);
+    }
+}
@@ -0,0 +1,206 @@
+package com.cinema.cinema;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache of the listings of the screens (see TicketOffice.getAllMoviesDetails()), so repeated listings are served
+ * from memory without reading the storage or rendering the details of every screen.
+ *
+ * The rendered details of each screen are cached, keyed by the version of the screen and its number of held seats, and
+ * a listing is assembled from the rendered details. An assembled listing is used until a screen is invalidated (on the
+ * ScreenInvalidationBus, or by the TicketOffice that owns the cache), a seat is held or stops being held, or it is
+ * older than 'maxStalenessMillis'. The summaries of the screens are then read again, and only the screens whose version
+ * or held seats have changed are rendered again.
+ * @author hari_rathod
+ * @version 2023.07.02
+ * @see CachingScreenRepository
+ */
+public class ListingCache implements ScreenInvalidationListener {
+
+    private final ScreenRepository storage;
+    private final SeatHolds seatHolds;
+    private final long maxStalenessNanos;
+
+    // The rendered details of each screen, mapped by id.
+    private final Map<Integer, RenderedScreen> renderedScreens = new ConcurrentHashMap<>();
+    // The assembled listings of the screens showing a movie, and of all screens. Null until first assembled.
+    private volatile Listing movieListing;
+    private volatile Listing screenListing;
+
+    // Increased by every invalidation, so a listing assembled while a screen was being written is not used.
+    private final AtomicLong invalidationSequence = new AtomicLong();
+
+    // Metrics.
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong assemblies = new AtomicLong();
+    private final AtomicLong renders = new AtomicLong();
+
+    /**
+     * Create a listing cache, subscribed to the bus shared by the process.
+     * @param storage The repository the screens are stored in.
+     * @param seatHolds The seats held for customers, which are not counted as available.
+     * @param maxStalenessMillis How long (in milliseconds) an assembled listing is used before the screens are read
+     *                           again, in case a screen was changed without an invalidation.
+     */
+    public ListingCache(ScreenRepository storage, SeatHolds seatHolds, long maxStalenessMillis)
+    {
+        this(storage, seatHolds, ScreenInvalidationBus.getInstance(), maxStalenessMillis);
+    }
+
+    /**
+     * Create a listing cache.
+     * @param storage The repository the screens are stored in.
+     * @param seatHolds The seats held for customers, which are not counted as available.
+     * @param bus The bus invalidations are received from.
+     * @param maxStalenessMillis How long (in milliseconds) an assembled listing is used before the screens are read
+     *                           again, in case a screen was changed without an invalidation.
+     */
+    public ListingCache(ScreenRepository storage, SeatHolds seatHolds, ScreenInvalidationBus bus,
+                        long maxStalenessMillis)
+    {
+        this.storage = storage;
+        this.seatHolds = seatHolds;
+        this.maxStalenessNanos = maxStalenessMillis * 1_000_000;
+        bus.subscribe(this);
+    }
+
+    /**
+     * Get the listing of the screens: the details of each screen, in order of id, each preceded by a new line.
+     * @param onlyWithScreening If true, only the screens that are showing a movie are listed.
+     * @return The listing.
+     */
+    public String getListing(boolean onlyWithScreening)
+    {
+        long holdChanges = seatHolds.getChangeCount();
+        Listing listing = onlyWithScreening ? movieListing : screenListing;
+        if (listing != null && listing.sequence == invalidationSequence.get() && listing.holdChanges == holdChanges
+                && System.nanoTime() - listing.assembledAt < maxStalenessNanos) {
+            hits.incrementAndGet();
+            return listing.text;
+        }
+
+        long sequence = invalidationSequence.get();
+        listing = new Listing(assemble(storage.getScreenSummaries(onlyWithScreening), sequence), sequence,
+                holdChanges);
+        if (onlyWithScreening) {
+            movieListing = listing;
+        } else {
+            screenListing = listing;
+        }
+        return listing.text;
+    }
+
+    /**
+     * Drop the rendered details of a screen, and the assembled listings, as the stored screen has been changed.
+     * @param screenId The id of the screen.
+     */
+    @Override
+    public void screenInvalidated(int screenId)
+    {
+        invalidationSequence.incrementAndGet();
+        renderedScreens.remove(screenId);
+    }
+
+    /**
+     * Get the number of listings served from memory, without reading the storage.
+     * @return The number of hits.
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of listings assembled after reading the summaries of the screens from the storage.
+     * @return The number of assemblies.
+     */
+    public long getAssemblies()
+    {
+        return assemblies.get();
+    }
+
+    /**
+     * Get the number of times the details of a screen were rendered.
+     * @return The number of renders.
+     */
+    public long getRenders()
+    {
+        return renders.get();
+    }
+
+    /**
+     * Get a summary of the metrics, as a String.
+     * @return A summary of the metrics.
+     */
+    public String getSummary()
+    {
+        return "Listing hits: " + getHits() + "\n"
+                + "Listing assemblies: " + getAssemblies() + "\n"
+                + "Screens rendered: " + getRenders() + "\n";
+    }
+
+    /**
+     * Assemble a listing from the summaries of the screens, rendering only the screens whose version or held seats
+     * have changed since they were last rendered.
+     * @param summaries The summaries of the screens, in order of id.
+     * @param sequence The invalidation sequence before the summaries were read. If any screen has been invalidated
+     *                 since, the summaries may already be stale, so the rendered details are not cached.
+     * @return The listing.
+     */
+    private String assemble(List<ScreenSummary> summaries, long sequence)
+    {
+        assemblies.incrementAndGet();
+        StringBuilder listing = new StringBuilder();
+        for (ScreenSummary summary : summaries) {
+            int heldSeats = seatHolds.getNumberOfHeldSeats(summary.getId());
+            RenderedScreen rendered = renderedScreens.get(summary.getId());
+            if (rendered == null || rendered.version != summary.getVersion() || rendered.heldSeats != heldSeats) {
+                renders.incrementAndGet();
+                rendered = new RenderedScreen(summary.getVersion(), heldSeats,
+                        summary.withHeldSeats(heldSeats).getDetails());
+                if (sequence == invalidationSequence.get()) {
+                    renderedScreens.put(summary.getId(), rendered);
+                }
+            }
+            listing.append('\n').append(rendered.details);
+        }
+        return listing.toString();
+    }
+
+    /**
+     * The rendered details of a screen, and the version and number of held seats they were rendered from.
+     */
+    private static class RenderedScreen {
+        private final long version;
+        private final int heldSeats;
+        private final String details;
+
+        private RenderedScreen(long version, int heldSeats, String details)
+        {
+            this.version = version;
+            this.heldSeats = heldSeats;
+            this.details = details;
+        }
+    }
+
+    /**
+     * An assembled listing, and the state of the screens and holds it was assembled from.
+     */
+    private static class Listing {
+        private final String text;
+        private final long sequence;
+        private final long holdChanges;
+        private final long assembledAt;
+
+        private Listing(String text, long sequence, long holdChanges)
+        {
+            this.text = text;
+            this.sequence = sequence;
+            this.holdChanges = holdChanges;
+            assembledAt = System.nanoTime();
+        }
+    }
+}
@@ -29,6 +29,17 @@ public class ManagerBooking extends Booking {
         }
     }
 
+    /**
+     * Constructor for a manager booking that shares a ticket office with other bookings.
+     * @param view The view that we want to run the manager booking with. Null must not be passed.
+     * @param office The ticket office to manage.
+     * @param inputRecorder The InputRecorder to record input in, or null if input should not be recorded.
+     */
+    public ManagerBooking(View view, TicketOffice office, InputRecorder inputRecorder) {
+        super(view, office);
+        this.inputRecorder = inputRecorder;
+    }
+
     /**
      * Start the manager booking.
      */
@@ -122,6 +133,9 @@ public class ManagerBooking extends Booking {
         } catch (ScreenIdDoesNotExistException e) {
             // The screen ID should've been validated earlier.
             throw new RuntimeException(e);
+        } catch (ScreenVersionConflictException e) {
+            getView().display("The screen is busy, so the movie was not added. Please try again.");
+            return;
         }
         getView().display("Movie %s was added to screen %s.".formatted(movieTitle, screen.getId()));
     }
@@ -154,6 +168,9 @@ public class ManagerBooking extends Booking {
         } catch (ScreenIdDoesNotExistException e) {
             getView().display(e.getMessage());
             return;
+        } catch (ScreenVersionConflictException e) {
+            getView().display("The screen is busy, so the movie was not removed. Please try again.");
+            return;
         }
 
         String movieTitle = screen.getMovieTitle();
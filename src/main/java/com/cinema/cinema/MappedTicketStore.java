@@ -0,0 +1,476 @@
+package com.cinema.cinema;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * A file of tickets, mapped into memory, where every ticket is stored in a slot of the same size. As the slots have a
+ * fixed size, the n-th ticket is read directly from its position in the file, and the number of tickets is read from
+ * the header, so neither scales with the number of tickets stored.
+ *
+ * The file starts with a header: a magic number, the format version, the size of a slot, and the number of tickets
+ * (24 bytes, padded to 32). Each slot is:
+ *
+ *   screenId    (4 bytes)
+ *   seatNumber  (4 bytes)
+ *   rowNumber   (4 bytes)
+ *   cost        (4 bytes)
+ *   epochSecond (8 bytes) The date of the booking, in seconds since 1970-01-01T00:00.
+ *   nano        (4 bytes)
+ *   titleId     (4 bytes) The index of the movie title in the title file, or -1 if there is no title.
+ *
+ * Movie titles have no fixed size, so each distinct title is appended once to a second file (the path of the store
+ * with '.titles' added), and slots refer to it by index. The titles are held in memory while the store is open.
+ *
+ * Tickets are appended by one thread at a time, while any number of threads read. A slot is completely written before
+ * the count is increased, so readers never see a partly written ticket. When the file is full, it is extended and
+ * mapped again; readers still using the old mapping see the same tickets, as both mappings share the same file.
+ * @author hari_rathod
+ * @version 2023.06.21
+ */
+public class MappedTicketStore implements Closeable {
+
+    // The first 4 bytes of every ticket store: 'MTKS'.
+    public static final int MAGIC = 0x4D544B53;
+
+    // The version of the file format, stored in the header.
+    public static final int FORMAT_VERSION = 1;
+
+    // The size of the header, padded so the slots are aligned.
+    public static final int HEADER_SIZE = 32;
+
+    // The size of the slot of one ticket.
+    public static final int SLOT_SIZE = 32;
+
+    // The positions of the fields in the header.
+    private static final int SLOT_SIZE_POSITION = 8;
+    private static final int COUNT_POSITION = 16;
+
+    // The positions of the fields in a slot.
+    private static final int SCREEN_ID = 0;
+    private static final int SEAT_NUMBER = 4;
+    private static final int ROW_NUMBER = 8;
+    private static final int COST = 12;
+    private static final int EPOCH_SECOND = 16;
+    private static final int NANO = 24;
+    private static final int TITLE_ID = 28;
+
+    // The number of slots in a new file.
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Path path;
+    private final Path titlesPath;
+    private final FileChannel channel;
+    private final FileChannel titlesChannel;
+
+    // The titles, by id, and the ids, by title.
+    private final List<String> titles = new ArrayList<>();
+    private final Map<String, Integer> titleIds = new HashMap<>();
+
+    // The current mapping of the file, and the number of tickets in it. Both are replaced, never changed in place,
+    // so readers read them without a lock: a reader reads the count first, so the mapping it then reads is at least
+    // as large as the count.
+    private volatile MappedByteBuffer mapping;
+    private volatile long count;
+
+    /**
+     * Open a ticket store, creating it if the file does not exist.
+     * @param path The file the tickets are stored in.
+     * @throws IOException If the file could not be opened, or is not a ticket store.
+     */
+    public MappedTicketStore(Path path) throws IOException
+    {
+        this.path = path;
+        this.titlesPath = path.resolveSibling(path.getFileName() + ".titles");
+        channel = FileChannel.open(path, CREATE, READ, WRITE);
+        try {
+            long size = channel.size();
+            if (size == 0) {
+                // A new store; there are no slots, so any titles left from an earlier store are not referenced.
+                Files.deleteIfExists(titlesPath);
+                map(INITIAL_CAPACITY);
+                writeHeader();
+                count = 0;
+            } else {
+                if (size < HEADER_SIZE) {
+                    throw new IOException("File %s is not a ticket store.".formatted(path));
+                }
+                map((size - HEADER_SIZE) / SLOT_SIZE);
+                count = readHeader();
+            }
+            readTitles();
+            titlesChannel = FileChannel.open(titlesPath, CREATE, WRITE, APPEND);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Append a ticket to the end of the store.
+     * @param ticket The ticket.
+     * @return The index of the ticket.
+     * @throws IOException If the ticket could not be written.
+     */
+    public synchronized long append(Ticket ticket) throws IOException
+    {
+        long index = count;
+        MappedByteBuffer buffer = mapping;
+        if (slotPosition(index + 1) > buffer.capacity()) {
+            buffer = map(Math.max(INITIAL_CAPACITY, capacity() * 2));
+        }
+
+        int position = slotPosition(index);
+        LocalDateTime date = ticket.getDate();
+        buffer.putInt(position + SCREEN_ID, ticket.getScreenId());
+        buffer.putInt(position + SEAT_NUMBER, ticket.getSeatNumber());
+        buffer.putInt(position + ROW_NUMBER, ticket.getRowNumber());
+        buffer.putInt(position + COST, ticket.getCost());
+        buffer.putLong(position + EPOCH_SECOND, date.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(position + NANO, date.getNano());
+        buffer.putInt(position + TITLE_ID, getTitleId(ticket.getMovieTitle()));
+
+        // Publish the ticket: the slot is written before the count includes it.
+        buffer.putLong(COUNT_POSITION, index + 1);
+        count = index + 1;
+        return index;
+    }
+
+    /**
+     * Get the number of tickets in the store.
+     * @return The number of tickets.
+     */
+    public long size()
+    {
+        return count;
+    }
+
+    /**
+     * Get the ticket at an index.
+     * @param index The index of the ticket, from 0 (the first ticket appended).
+     * @return The ticket.
+     * @throws IndexOutOfBoundsException If there is no ticket at the index.
+     */
+    public Ticket get(long index)
+    {
+        long size = count;
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index %d out of bounds for %d tickets.".formatted(index, size));
+        }
+        return new Slot(mapping).at(index).toTicket();
+    }
+
+    /**
+     * Visit every ticket in the store, from first to last, without creating a Ticket for each one. The same Slot is
+     * passed for every ticket, positioned at each ticket in turn; it must not be kept after the visitor returns.
+     * Tickets appended while visiting are not visited.
+     * @param visitor The visitor, called once for each ticket.
+     */
+    public void forEach(Consumer<Slot> visitor)
+    {
+        long size = count;
+        Slot slot = new Slot(mapping);
+        for (long index = 0; index < size; index++) {
+            visitor.accept(slot.at(index));
+        }
+    }
+
+    /**
+     * Get every ticket in the store, from first to last.
+     * @return A list of the tickets.
+     */
+    public List<Ticket> getAll()
+    {
+        List<Ticket> tickets = new ArrayList<>();
+        forEach(slot -> tickets.add(slot.toTicket()));
+        return tickets;
+    }
+
+    /**
+     * Remove every ticket, leaving an empty store.
+     * @throws IOException If the file could not be written.
+     */
+    public synchronized void clear() throws IOException
+    {
+        mapping.putLong(COUNT_POSITION, 0);
+        count = 0;
+        synchronized (titles) {
+            titles.clear();
+            titleIds.clear();
+        }
+        titlesChannel.truncate(0);
+    }
+
+    /**
+     * Write the changes to the tickets through to the storage device.
+     * @throws IOException If the file could not be written.
+     */
+    public synchronized void force() throws IOException
+    {
+        titlesChannel.force(false);
+        mapping.force();
+    }
+
+    /**
+     * Get the file the tickets are stored in.
+     * @return The path of the file.
+     */
+    public Path getPath()
+    {
+        return path;
+    }
+
+    /**
+     * Close the files. The mapping stays valid until it is garbage collected, but the store must not be used again.
+     * @throws IOException If the files could not be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException
+    {
+        try {
+            titlesChannel.close();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Get the id of a title, appending it to the title file if it has not been stored before.
+     * @param title The title, or null.
+     * @return The id of the title, or -1 if the title is null.
+     * @throws IOException If the title could not be written.
+     */
+    private int getTitleId(String title) throws IOException
+    {
+        if (title == null) {
+            return -1;
+        }
+        synchronized (titles) {
+            Integer id = titleIds.get(title);
+            if (id != null) {
+                return id;
+            }
+        }
+
+        byte[] bytes = title.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + bytes.length).putInt(bytes.length).put(bytes);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            titlesChannel.write(buffer);
+        }
+        synchronized (titles) {
+            titles.add(title);
+            titleIds.put(title, titles.size() - 1);
+            return titles.size() - 1;
+        }
+    }
+
+    /**
+     * Get the title with an id.
+     * @param id The id of the title.
+     * @return The title, or null if the id is -1.
+     */
+    private String getTitle(int id)
+    {
+        if (id < 0) {
+            return null;
+        }
+        synchronized (titles) {
+            return titles.get(id);
+        }
+    }
+
+    /**
+     * Read the titles from the title file. A title that was not completely written is truncated.
+     * @throws IOException If the file could not be read.
+     */
+    private void readTitles() throws IOException
+    {
+        if (!Files.exists(titlesPath)) {
+            return;
+        }
+        long complete = 0;
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(titlesPath))) {
+            while (true) {
+                int length = input.readInt();
+                byte[] bytes = input.readNBytes(length);
+                if (length < 0 || bytes.length != length) {
+                    break;
+                }
+                String title = new String(bytes, StandardCharsets.UTF_8);
+                titleIds.put(title, titles.size());
+                titles.add(title);
+                complete += Integer.BYTES + length;
+            }
+        } catch (EOFException e) {
+            // The end of the file, or a length that was not completely written.
+        }
+        if (complete != Files.size(titlesPath)) {
+            try (FileChannel titlesFile = FileChannel.open(titlesPath, WRITE)) {
+                titlesFile.truncate(complete);
+            }
+        }
+    }
+
+    /**
+     * Map the file with room for a number of slots, extending the file if it is smaller.
+     * @param capacity The number of slots.
+     * @return The new mapping.
+     * @throws IOException If the file could not be mapped.
+     */
+    private MappedByteBuffer map(long capacity) throws IOException
+    {
+        long size = slotPosition(capacity);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Ticket store %s is full.".formatted(path));
+        }
+        mapping = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        return mapping;
+    }
+
+    /**
+     * Get the number of slots in the current mapping.
+     * @return The number of slots.
+     */
+    private long capacity()
+    {
+        return (mapping.capacity() - HEADER_SIZE) / SLOT_SIZE;
+    }
+
+    /**
+     * Write the header of an empty store.
+     */
+    private void writeHeader()
+    {
+        mapping.putInt(0, MAGIC).putInt(4, FORMAT_VERSION).putInt(SLOT_SIZE_POSITION, SLOT_SIZE)
+                .putLong(COUNT_POSITION, 0);
+    }
+
+    /**
+     * Check the header of the file.
+     * @return The number of tickets.
+     * @throws IOException If the file is not a ticket store, or has a different format.
+     */
+    private long readHeader() throws IOException
+    {
+        if (mapping.getInt(0) != MAGIC) {
+            throw new IOException("File %s is not a ticket store.".formatted(path));
+        }
+        int version = mapping.getInt(4);
+        if (version != FORMAT_VERSION || mapping.getInt(SLOT_SIZE_POSITION) != SLOT_SIZE) {
+            throw new IOException("Ticket store %s has unsupported format version %d.".formatted(path, version));
+        }
+        long storedCount = mapping.getLong(COUNT_POSITION);
+        if (storedCount < 0 || storedCount > capacity()) {
+            throw new IOException("Ticket store %s has an invalid ticket count.".formatted(path));
+        }
+        return storedCount;
+    }
+
+    /**
+     * Get the position of a slot in the file.
+     * @param index The index of the slot.
+     * @return The position of the slot.
+     */
+    private static int slotPosition(long index)
+    {
+        return (int) Math.min(Integer.MAX_VALUE, HEADER_SIZE + index * SLOT_SIZE);
+    }
+
+    /**
+     * A view of the slot of one ticket, reading each field directly from the mapped file.
+     */
+    public class Slot {
+        private final MappedByteBuffer buffer;
+        private int position;
+
+        private Slot(MappedByteBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        private Slot at(long index)
+        {
+            position = slotPosition(index);
+            return this;
+        }
+
+        /**
+         * @return The id of screen of the ticket.
+         */
+        public int getScreenId()
+        {
+            return buffer.getInt(position + SCREEN_ID);
+        }
+
+        /**
+         * @return The seat number of the ticket.
+         */
+        public int getSeatNumber()
+        {
+            return buffer.getInt(position + SEAT_NUMBER);
+        }
+
+        /**
+         * @return The row number of the ticket.
+         */
+        public int getRowNumber()
+        {
+            return buffer.getInt(position + ROW_NUMBER);
+        }
+
+        /**
+         * @return The cost (in cents) of the ticket.
+         */
+        public int getCost()
+        {
+            return buffer.getInt(position + COST);
+        }
+
+        /**
+         * @return The date and time of the booking.
+         */
+        public LocalDateTime getDate()
+        {
+            return LocalDateTime.ofEpochSecond(buffer.getLong(position + EPOCH_SECOND),
+                    buffer.getInt(position + NANO), ZoneOffset.UTC);
+        }
+
+        /**
+         * @return The movie title of the ticket, or null if it has none.
+         */
+        public String getMovieTitle()
+        {
+            return getTitle(buffer.getInt(position + TITLE_ID));
+        }
+
+        /**
+         * Create a Ticket with the fields of the slot.
+         * @return The ticket.
+         */
+        public Ticket toTicket()
+        {
+            return new Ticket(getScreenId(), getMovieTitle(), getSeatNumber(), getRowNumber(), getCost(), getDate());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.cinema.cinema;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class holds the single MongoClient that is shared by the whole process. Creating a MongoClient is expensive
+ * (DNS SRV lookup, TCP/TLS handshake and building a connection pool), so the client is opened once, and then reused
+ * by every database operation until the application closes it.
+ *
+ * The connection pool can be configured with the following system properties:
+ *          -Dmongo.pool.maxSize            The maximum number of connections in the pool (default 20).
+ *          -Dmongo.pool.minSize            The number of connections kept open when idle (default 0).
+ *          -Dmongo.pool.maxIdleTimeMillis  How long a connection may stay idle before it is closed (default 60000).
+ *          -Dmongo.pool.maxWaitTimeMillis  How long an operation waits for a free connection (default 2000).
+ *          -Dmongo.pool.maxConnecting      How many connections may be established at the same time (default 2).
+ * @author hari_rathod
+ * @version 2023.06.02
+ */
+public class MongoClientProvider {
+
+    // The client shared by all database operations. Null until the provider is opened.
+    private static MongoClient mongoClient;
+
+    // Records connection pool events, so that connection churn can be observed.
+    private static final ConnectionPoolMetrics poolMetrics = new ConnectionPoolMetrics();
+
+    // Whether the shutdown hook that closes the client has been registered.
+    private static boolean shutdownHookRegistered = false;
+
+    /**
+     * Get the shared MongoClient, opening it first if it is not already open.
+     * @return The shared MongoClient.
+     */
+    public static synchronized MongoClient getClient()
+    {
+        if (mongoClient == null) {
+            open();
+        }
+        return mongoClient;
+    }
+
+    /**
+     * Open the shared MongoClient. If the client is already open, nothing happens.
+     * The client is closed automatically when the JVM shuts down, if it has not been closed already.
+     */
+    public static synchronized void open()
+    {
+        if (mongoClient != null) {
+            return;
+        }
+        MongoClientSettings settings = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(getUri()))
+                .applyToConnectionPoolSettings(builder -> builder
+                        .maxSize(Integer.getInteger("mongo.pool.maxSize", 20))
+                        .minSize(Integer.getInteger("mongo.pool.minSize", 0))
+                        .maxConnectionIdleTime(Long.getLong("mongo.pool.maxIdleTimeMillis", 60000), TimeUnit.MILLISECONDS)
+                        .maxWaitTime(Long.getLong("mongo.pool.maxWaitTimeMillis", 2000), TimeUnit.MILLISECONDS)
+                        .maxConnecting(Integer.getInteger("mongo.pool.maxConnecting", 2))
+                        .addConnectionPoolListener(poolMetrics))
+                .build();
+        mongoClient = MongoClients.create(settings);
+
+        if (!shutdownHookRegistered) {
+            Runtime.getRuntime().addShutdownHook(new Thread(MongoClientProvider::close));
+            shutdownHookRegistered = true;
+        }
+    }
+
+    /**
+     * Close the shared MongoClient, releasing all pooled connections. If the client is not open, nothing happens.
+     * A later call to getClient() will open a new client.
+     */
+    public static synchronized void close()
+    {
+        if (mongoClient != null) {
+            mongoClient.close();
+            mongoClient = null;
+        }
+    }
+
+    /**
+     * Get the metrics of the connection pool used by the shared client.
+     * @return The connection pool metrics.
+     */
+    public static ConnectionPoolMetrics getPoolMetrics()
+    {
+        return poolMetrics;
+    }
+
+    /**
+     * Get the uri used to connect to the database. The username and password are provided as system properties.
+     * @return The uri of the database.
+     */
+    private static String getUri()
+    {
+        return "mongodb+srv://" + System.getProperty("username") + ":" + System.getProperty("password") + "@cluster1.y3fcbqx.mongodb.net/?retryWrites=true&w=majority";
+    }
+}
@@ -0,0 +1,272 @@
+package com.cinema.cinema;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An in-memory index of the movie titles being screened, used to find the screen showing a movie from a full or
+ * partial title. Searches are case-insensitive.
+ *
+ * Every title is split into trigrams (3-character substrings), and each trigram maps to the screens whose title
+ * contains it. A query of 3 or more characters only has to check the screens that contain all of its trigrams.
+ * Matches are ranked: exact title, then titles starting with the query, then titles with a word starting with the
+ * query, then titles containing the query. Ties are broken by the shorter title, then alphabetically, then by the
+ * lower screen id, so the same query always gives the same screen.
+ * If no title contains the query, titles containing a close match (a few typing mistakes) are returned instead.
+ * @author hari_rathod
+ * @version 2023.07.04
+ */
+public class MovieTitleIndex {
+
+    // The length of the substrings that titles are split into.
+    private static final int GRAM_LENGTH = 3;
+
+    // The title (in lower case) screened at each screen, mapped by screen id.
+    private final Map<Integer, String> titles = new HashMap<>();
+
+    // The screens whose title contains each trigram.
+    private final Map<String, Set<Integer>> screensByTrigram = new HashMap<>();
+
+    /**
+     * Add (or replace) the title of the movie screened at a screen.
+     * @param screenId The id of the screen.
+     * @param movieTitle The title of the movie.
+     */
+    public synchronized void add(int screenId, String movieTitle)
+    {
+        remove(screenId);
+        String title = normalise(movieTitle);
+        titles.put(screenId, title);
+        for (String trigram : getTrigrams(title)) {
+            screensByTrigram.computeIfAbsent(trigram, key -> new HashSet<>()).add(screenId);
+        }
+    }
+
+    /**
+     * Remove the title of the movie screened at a screen. If the screen has no title in the index, nothing happens.
+     * @param screenId The id of the screen.
+     */
+    public synchronized void remove(int screenId)
+    {
+        String title = titles.remove(screenId);
+        if (title == null) {
+            return;
+        }
+        for (String trigram : getTrigrams(title)) {
+            Set<Integer> screens = screensByTrigram.get(trigram);
+            screens.remove(screenId);
+            if (screens.isEmpty()) {
+                screensByTrigram.remove(trigram);
+            }
+        }
+    }
+
+    /**
+     * Get the title of the movie screened at a screen, as stored in the index (trimmed, and in lower case).
+     * @param screenId The id of the screen.
+     * @return The title, or null if the screen has no title in the index.
+     */
+    public synchronized String getTitle(int screenId)
+    {
+        return titles.get(screenId);
+    }
+
+    /**
+     * Check whether a title is the one indexed for a screen, ignoring case and surrounding whitespace.
+     * @param screenId The id of the screen.
+     * @param movieTitle The title, e.g., of the movie the stored screen is showing.
+     * @return true if the screen is in the index under the title.
+     */
+    public synchronized boolean isTitleOf(int screenId, String movieTitle)
+    {
+        return normalise(movieTitle).equals(titles.get(screenId));
+    }
+
+    /**
+     * Remove every title from the index.
+     */
+    public synchronized void clear()
+    {
+        titles.clear();
+        screensByTrigram.clear();
+    }
+
+    /**
+     * Search for the screens showing a movie. Titles containing the query are returned, best match first.
+     * If no title contains the query, titles containing a close match are returned, closest first.
+     * @param query The full or partial title of the movie.
+     * @return The ids of the matching screens, best match first. Empty if no title matches.
+     */
+    public synchronized List<Integer> search(String query)
+    {
+        String normalisedQuery = normalise(query);
+        if (normalisedQuery.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (int screenId : getCandidates(normalisedQuery)) {
+            String title = titles.get(screenId);
+            int rank = getRank(title, normalisedQuery);
+            if (rank >= 0) {
+                matches.add(new Match(screenId, title, rank));
+            }
+        }
+        if (matches.isEmpty()) {
+            matches = getCloseMatches(normalisedQuery);
+        }
+
+        matches.sort(Comparator.comparingInt((Match match) -> match.rank)
+                .thenComparingInt(match -> match.title.length())
+                .thenComparing(match -> match.title)
+                .thenComparingInt(match -> match.screenId));
+        return matches.stream().map(match -> match.screenId).toList();
+    }
+
+    /**
+     * Get the screens whose title might contain the query. For a query of 3 or more characters these are the screens
+     * containing every trigram of the query, otherwise every screen.
+     * @param query The normalised query.
+     * @return The candidate screen ids.
+     */
+    private Set<Integer> getCandidates(String query)
+    {
+        if (query.length() < GRAM_LENGTH) {
+            return titles.keySet();
+        }
+        Set<Integer> candidates = null;
+        for (String trigram : getTrigrams(query)) {
+            Set<Integer> screens = screensByTrigram.get(trigram);
+            if (screens == null) {
+                return Set.of();
+            }
+            if (candidates == null) {
+                candidates = new HashSet<>(screens);
+            } else {
+                candidates.retainAll(screens);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Get the titles that contain a close match of the query, i.e., a substring within a small edit distance.
+     * The rank of each match is the edit distance.
+     * @param query The normalised query.
+     * @return The close matches.
+     */
+    private List<Match> getCloseMatches(String query)
+    {
+        // Allow one mistake for every four characters, and at least one mistake.
+        int maximumDistance = Math.max(1, query.length() / 4);
+        List<Match> matches = new ArrayList<>();
+        for (Map.Entry<Integer, String> entry : titles.entrySet()) {
+            int distance = getSubstringEditDistance(query, entry.getValue());
+            if (distance <= maximumDistance) {
+                matches.add(new Match(entry.getKey(), entry.getValue(), distance));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Get how well a title matches a query. Lower is better.
+     * @param title The normalised title.
+     * @param query The normalised query.
+     * @return 0 if the title is the query, 1 if the title starts with the query, 2 if a word in the title starts with
+     * the query, 3 if the title contains the query, or -1 if the title does not contain the query.
+     */
+    private static int getRank(String title, String query)
+    {
+        int index = title.indexOf(query);
+        if (index < 0) {
+            return -1;
+        }
+        if (title.equals(query)) {
+            return 0;
+        }
+        if (index == 0) {
+            return 1;
+        }
+        if (title.contains(" " + query)) {
+            return 2;
+        }
+        return 3;
+    }
+
+    /**
+     * Get the smallest edit distance (Levenshtein distance) between the query and any substring of the text.
+     * @param query The query.
+     * @param text The text to search.
+     * @return The smallest number of insertions, deletions or substitutions that turn the query into a substring
+     * of the text.
+     */
+    private static int getSubstringEditDistance(String query, String text)
+    {
+        // previous[j] is the distance between the first i - 1 characters of the query and a substring ending at j.
+        // A match may start anywhere in the text, so the first row is all zeros.
+        int[] previous = new int[text.length() + 1];
+        int[] current = new int[text.length() + 1];
+        for (int i = 1; i <= query.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= text.length(); j++) {
+                int substitution = previous[j - 1] + (query.charAt(i - 1) == text.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        int distance = query.length();
+        for (int value : previous) {
+            distance = Math.min(distance, value);
+        }
+        return distance;
+    }
+
+    /**
+     * Get all trigrams of a string.
+     * @param string The string.
+     * @return The set of 3-character substrings of the string.
+     */
+    private static Set<String> getTrigrams(String string)
+    {
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= string.length(); i++) {
+            trigrams.add(string.substring(i, i + GRAM_LENGTH));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Normalise a title or query so that searches are case-insensitive.
+     * @param string The title or query.
+     * @return The string in lower case, with surrounding whitespace removed.
+     */
+    private static String normalise(String string)
+    {
+        return string == null ? "" : string.trim().toLowerCase();
+    }
+
+    /**
+     * A screen whose title matches a query, and how well it matches (lower is better).
+     */
+    private static class Match {
+        private final int screenId;
+        private final String title;
+        private final int rank;
+
+        private Match(int screenId, String title, int rank)
+        {
+            this.screenId = screenId;
+            this.title = title;
+            this.rank = rank;
+        }
+    }
+}
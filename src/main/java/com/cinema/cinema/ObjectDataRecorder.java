@@ -2,34 +2,147 @@ package com.cinema.cinema;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * This class writes serializable objects to a file. Multiple objects can be written to the file.
- * This means that all objects are stored in List,
- * and this List is then written to the file.
- * This allows objects to be stored persistently.
+ * This allows objects to be stored persistently. The objects are stored in one of two formats (see RecordFormat):
+ * with RecordFormat.LIST, all objects are stored in a List, and this List is then written to the file, so every write
+ * rewrites the whole file. With RecordFormat.LOG, each object is encoded separately by a RecordCodec and appended to a
+ * RecordLog, so a write only appends one record, and counting the objects only reads the header of the file.
+ *
+ * A file written with RecordFormat.LIST is converted to a RecordLog the first time it is used with RecordFormat.LOG,
+ * so files written by earlier versions of the application can still be read.
+ *
+ * When a write returns, the object is on the storage device if the Durability is FSYNC or GROUP_COMMIT. With
+ * RecordFormat.LIST, the List is written to a temporary file, which is then moved over the old file, so a crash leaves
+ * either the old List or the new List (GROUP_COMMIT is the same as FSYNC, as every write replaces the whole file).
+ * With RecordFormat.LOG, an incomplete record is truncated by the RecordLog, and with GROUP_COMMIT the appends of
+ * concurrent writers are forced to the device together by a GroupCommitter. The default durability is set by the
+ * following system properties:
+ *          -Drecorder.durability                   NONE, FSYNC or GROUP_COMMIT (default GROUP_COMMIT).
+ *          -Drecorder.groupCommit.intervalMillis   The longest time a write waits to be forced, or 0
+ *                                                  to force as soon as the last force ends (default 0).
+ *          -Drecorder.groupCommit.maxRecords       The number of waiting writes that forces early (default 32).
  *
  * @author hari_rathod
- * @version 2023.04.03
+ * @version 2023.07.04
  */
-public class ObjectDataRecorder<E> {
+public class ObjectDataRecorder<E> implements AutoCloseable {
     private final Filename FILENAME;
+    private final Path path;
     private final Class<E> type;
+    private final RecordFormat format;
+    private final Durability durability;
+
+    // The log the objects are appended to, and the codec they are encoded with, if the format is RecordFormat.LOG.
+    private final RecordLog log;
+    private final RecordCodec<E> codec;
+
+    // Whether the file has been checked for (and converted from) RecordFormat.LIST.
+    private boolean legacyFileChecked = false;
+
+    // Forces the appends to the log together, with Durability.GROUP_COMMIT. Null until the first write.
+    private GroupCommitter groupCommitter;
+
+    // The time taken by each write, including the time waiting for the write to be durable.
+    private final LatencyHistogram writeLatency = new LatencyHistogram("us");
 
     /**
-     * Constructor for ObjectDataRecorder.
+     * Constructor for ObjectDataRecorder. The objects are stored as a single List (RecordFormat.LIST).
      *
      * @param filename The name of the file to write objects to.
      */
     public ObjectDataRecorder(Filename filename, Class<E> type) {
+        this(filename, type, RecordFormat.LIST);
+    }
+
+    /**
+     * Constructor for ObjectDataRecorder. With RecordFormat.LOG, each object is encoded with Java serialization.
+     *
+     * @param filename The name of the file to write objects to.
+     * @param type     The type of the objects.
+     * @param format   The format the objects are stored in.
+     */
+    public ObjectDataRecorder(Filename filename, Class<E> type, RecordFormat format) {
+        this(filename, type, format, getDefaultDurability());
+    }
+
+    /**
+     * Constructor for ObjectDataRecorder. The objects are stored in a RecordLog (RecordFormat.LOG), each encoded by
+     * the codec.
+     *
+     * @param filename The name of the file to write objects to.
+     * @param type     The type of the objects.
+     * @param codec    The codec the objects are encoded with.
+     */
+    public ObjectDataRecorder(Filename filename, Class<E> type, RecordCodec<E> codec) {
+        this(filename, type, codec, getDefaultDurability());
+    }
+
+    /**
+     * Constructor for ObjectDataRecorder, with a durability. With RecordFormat.LOG, each object is encoded with Java
+     * serialization.
+     *
+     * @param filename   The name of the file to write objects to.
+     * @param type       The type of the objects.
+     * @param format     The format the objects are stored in.
+     * @param durability When the written objects are forced to the storage device.
+     */
+    public ObjectDataRecorder(Filename filename, Class<E> type, RecordFormat format, Durability durability) {
+        this(filename, Path.of(filename.toString()), type, format, new SerializationCodec<>(type), durability);
+    }
+
+    /**
+     * Constructor for ObjectDataRecorder, with a durability. The objects are stored in a RecordLog (RecordFormat.LOG),
+     * each encoded by the codec.
+     *
+     * @param filename   The name of the file to write objects to.
+     * @param type       The type of the objects.
+     * @param codec      The codec the objects are encoded with.
+     * @param durability When the written objects are forced to the storage device.
+     */
+    public ObjectDataRecorder(Filename filename, Class<E> type, RecordCodec<E> codec, Durability durability) {
+        this(filename, Path.of(filename.toString()), type, RecordFormat.LOG, codec, durability);
+    }
+
+    /**
+     * Constructor for ObjectDataRecorder, writing to any file rather than one of the application's files.
+     *
+     * @param path       The file to write objects to.
+     * @param type       The type of the objects.
+     * @param format     The format the objects are stored in.
+     * @param codec      The codec the objects are encoded with, with RecordFormat.LOG. It is not used with
+     *                   RecordFormat.LIST, where the List is serialized as a whole.
+     * @param durability When the written objects are forced to the storage device.
+     */
+    public ObjectDataRecorder(Path path, Class<E> type, RecordFormat format, RecordCodec<E> codec,
+                              Durability durability) {
+        this(null, path, type, format, codec, durability);
+    }
+
+    private ObjectDataRecorder(Filename filename, Path path, Class<E> type, RecordFormat format, RecordCodec<E> codec,
+                               Durability durability) {
         this.FILENAME = filename;
+        this.path = path;
         this.type = type;
+        this.format = format;
+        this.codec = codec;
+        this.durability = durability;
+        log = format == RecordFormat.LOG ? new RecordLog(path) : null;
     }
 
     /**
@@ -41,17 +154,131 @@ public class ObjectDataRecorder<E> {
      *                                to the object provided here.
      */
     public void writeToFile(E object) throws IOException, ClassNotFoundException {
-        // Get the existing list of objects in the file and add this object to the list.
-        List<E> objects = readListOfObjectsFromFile();
-        objects.add(object);
+        long start = System.nanoTime();
+        try {
+            if (format == RecordFormat.LOG) {
+                convertLegacyFile();
+                log.append(codec.encode(object));
+                commit();
+                return;
+            }
+
+            // Get the existing list of objects in the file and add this object to the list.
+            List<E> objects = readListOfObjectsFromFile();
+            objects.add(object);
+
+            // Write the list of objects back to the file.
+            writeList(objects);
+        } finally {
+            writeLatency.recordSince(start);
+        }
+    }
 
-        // Write the list of objects back to the file.
-        try (ObjectOutputStream outputStream = new ObjectOutputStream(
-                Files.newOutputStream(Path.of(FILENAME.toString())))) {
+    /**
+     * Replace the objects in the file with a list of objects, e.g., to drop objects that are no longer needed from a
+     * log. The objects are written to a temporary file, which is then moved over the file, so a crash leaves either
+     * the old or the new objects. With RecordFormat.LOG, the new log is always forced to the device.
+     *
+     * @param objects The objects to store, in order.
+     * @throws IOException If there was an error writing to the file.
+     */
+    public void writeAllToFile(List<E> objects) throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (format == RecordFormat.LOG) {
+                List<byte[]> records = new ArrayList<>(objects.size());
+                for (E object : objects) {
+                    records.add(codec.encode(object));
+                }
+                log.replace(records);
+                synchronized (this) {
+                    legacyFileChecked = true;
+                }
+                return;
+            }
+            writeList(new ArrayList<>(objects));
+        } finally {
+            writeLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Write a List to a temporary file, and move it over the file, so a crash leaves either the old or the new List.
+     * Unless the durability is NONE, the temporary file is forced to the device before it is moved, and the directory
+     * after, so the move cannot reach the device before the List does.
+     *
+     * @param objects The objects to write.
+     * @throws IOException If there was an error writing to the file.
+     */
+    private void writeList(List<E> objects) throws IOException {
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             ObjectOutputStream outputStream = new ObjectOutputStream(Channels.newOutputStream(channel))) {
             outputStream.writeObject(objects);
+            outputStream.flush();
+            if (durability != Durability.NONE) {
+                channel.force(true);
+            }
+        }
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (durability != Durability.NONE) {
+            forceDirectory();
+        }
+    }
+
+    /**
+     * Make an append to the log durable, as chosen by the durability.
+     *
+     * @throws IOException If the log could not be forced to the device.
+     */
+    private void commit() throws IOException {
+        switch (durability) {
+            case NONE -> { }
+            case FSYNC -> log.force();
+            case GROUP_COMMIT -> {
+                GroupCommitter committer = getGroupCommitter();
+                try {
+                    committer.awaitDurable(committer.register());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the write to be durable.");
+                }
+            }
+        }
+    }
+
+    private synchronized GroupCommitter getGroupCommitter() {
+        if (groupCommitter == null) {
+            groupCommitter = new GroupCommitter("group-commit-" + path.getFileName(), log::force,
+                    Long.getLong("recorder.groupCommit.intervalMillis", 0),
+                    Integer.getInteger("recorder.groupCommit.maxRecords", 32));
+        }
+        return groupCommitter;
+    }
+
+    /**
+     * Force the directory of the file to the device, so a file moved into it is not lost. Not every platform can open
+     * a directory, in which case the move is left to the operating system.
+     */
+    private void forceDirectory() {
+        Path directory = path.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // The directory cannot be forced on this platform.
         }
     }
 
+    /**
+     * Get the durability chosen by the 'recorder.durability' system property.
+     *
+     * @return The default durability.
+     */
+    static Durability getDefaultDurability() {
+        return Durability.valueOf(System.getProperty("recorder.durability", Durability.GROUP_COMMIT.name()));
+    }
+
     /**
      * Get the list of objects currently stored in the file. Return an empty list if there were no objects
      * found in the file.
@@ -61,7 +288,93 @@ public class ObjectDataRecorder<E> {
      * @throws ClassNotFoundException If the objects read were not of the same type as this ObjectDataRecorder's generic.
      */
     public List<E> readListOfObjectsFromFile() throws IOException, ClassNotFoundException {
-        Path path = Path.of(FILENAME.toString());
+        if (format == RecordFormat.LOG) {
+            try (Stream<E> objects = streamObjectsFromFile()) {
+                return objects.collect(Collectors.toCollection(ArrayList::new));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        return readList(path);
+    }
+
+    /**
+     * Get a stream of the objects currently stored in the file, in the order they were written.
+     * With RecordFormat.LOG, each object is read and decoded only when the stream reaches it, so the stream uses the
+     * same amount of memory however many objects the file holds, and stops reading the file when the stream stops
+     * (e.g., after findFirst() or anyMatch(...)). With RecordFormat.LIST, the whole List is read first.
+     *
+     * The stream holds the file open, so it must be closed, e.g., with try-with-resources. An error reading or
+     * decoding an object while the stream is used is thrown as an UncheckedIOException.
+     *
+     * @return A stream of the objects in the file.
+     * @throws IOException            If there was an error opening the file.
+     * @throws ClassNotFoundException If the objects read were not of the same type as this ObjectDataRecorder's generic.
+     */
+    public Stream<E> streamObjectsFromFile() throws IOException, ClassNotFoundException {
+        if (format != RecordFormat.LOG) {
+            return readList(path).stream();
+        }
+        convertLegacyFile();
+        RecordLog.Reader reader = log.openReader();
+        byte[] first;
+        try {
+            first = reader.next();
+        } catch (IOException e) {
+            reader.close();
+            throw e;
+        }
+        Iterator<E> objects = new Iterator<>() {
+            // The next record, read ahead to answer hasNext(); null at the end of the log.
+            private byte[] next = first;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public E next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    E object = codec.decode(next);
+                    next = read();
+                    return object;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            private byte[] read() {
+                try {
+                    return reader.next();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(objects,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Read a file written with RecordFormat.LIST.
+     *
+     * @param path The file.
+     * @return The list of objects in the file, or an empty list if there were no objects.
+     * @throws IOException            If there was an error reading from the file.
+     * @throws ClassNotFoundException If the objects read were not of the same type as this ObjectDataRecorder's generic.
+     */
+    private List<E> readList(Path path) throws IOException, ClassNotFoundException {
         try (ObjectInputStream inputStream = new ObjectInputStream(
                 Files.newInputStream(path))) {
             try {
@@ -86,7 +399,7 @@ public class ObjectDataRecorder<E> {
     private void validateTypeOfList(List<?> objects) throws ClassNotFoundException {
         for (Object object : objects) {
             if (object != null && !(type.isInstance(object))) {
-                throw new ClassNotFoundException("Error: Objects of type %s not found in file: %s".formatted(this.type, FILENAME));
+                throw new ClassNotFoundException("Error: Objects of type %s not found in file: %s".formatted(this.type, path));
             }
         }
     }
@@ -98,35 +411,100 @@ public class ObjectDataRecorder<E> {
      * @throws ClassNotFoundException If the objects in the file are not of the same type as the ObjectDataRecorder's type.
      */
     public int getNumberOfObjects() throws IOException, ClassNotFoundException {
+        if (format == RecordFormat.LOG) {
+            convertLegacyFile();
+            return (int) log.getRecordCount();
+        }
         List<E> list = readListOfObjectsFromFile();
         return list.size();
     }
 
 
     /**
-     * Creates a new file if it doesn't exist, otherwise, this method clears the existing file.
+     * Creates a new file if it doesn't exist, otherwise, this method clears the existing file. With RecordFormat.LIST,
+     * an empty List is written, replacing the old file as a write does.
      *
      * @throws IOException If there was an error handling the file.
      */
     public void resetFile() throws IOException {
-        Path path = Path.of(FILENAME.toString());
-        if (Files.exists(path)) {
-            try (ObjectOutputStream outputStream = new ObjectOutputStream(
-                    Files.newOutputStream(path, StandardOpenOption.TRUNCATE_EXISTING))) {
-                // Nothing to do here.
+        if (format == RecordFormat.LOG) {
+            log.reset();
+            legacyFileChecked = true;
+            return;
+        }
+        writeList(new ArrayList<>());
+    }
+
+    /**
+     * If the file was written with RecordFormat.LIST, convert it to a RecordLog, encoding each object with the codec.
+     * The log is written to a new file, which is then moved over the old file, so a crash leaves one or the other.
+     * The file is only checked the first time this is called.
+     *
+     * @throws IOException            If there was an error handling the file.
+     * @throws ClassNotFoundException If the objects in the file are not of the same type as the ObjectDataRecorder's type.
+     */
+    private synchronized void convertLegacyFile() throws IOException, ClassNotFoundException {
+        if (legacyFileChecked) {
+            return;
+        }
+        if (Files.exists(path) && Files.size(path) > 0 && !RecordLog.isRecordLog(path)) {
+            List<E> objects = readList(path);
+            Path temporaryPath = path.resolveSibling(path.getFileName() + ".convert");
+            Files.deleteIfExists(temporaryPath);
+            RecordLog converted = new RecordLog(temporaryPath);
+            converted.reset();
+            for (E object : objects) {
+                converted.append(codec.encode(object));
             }
-        } else {
-            Files.createFile(path);
-            resetFile();
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        legacyFileChecked = true;
+    }
+
+    /**
+     * Get the time taken by each write, including the time waiting for the write to be durable.
+     *
+     * @return The histogram of write latencies, in microseconds.
+     */
+    public LatencyHistogram getWriteLatency() {
+        return writeLatency;
+    }
+
+    /**
+     * Get a summary of the write latencies, as a String.
+     *
+     * @return A summary of the write latencies.
+     */
+    public String getSummary() {
+        return "Durability: " + durability + "\n" + writeLatency.getSummary();
+    }
+
+    /**
+     * Stop forcing writes in the background, after forcing every write already made.
+     */
+    @Override
+    public synchronized void close() {
+        if (groupCommitter != null) {
+            groupCommitter.close();
+            groupCommitter = null;
         }
     }
 
     /**
      * Get the filename that this class is writing to.
      *
-     * @return The filename being written to.
+     * @return The filename being written to, or null if this ObjectDataRecorder was created with a Path.
      */
     public Filename getFILENAME() {
         return FILENAME;
     }
+
+    /**
+     * Get the file that this class is writing to.
+     *
+     * @return The path of the file.
+     */
+    public Path getPath() {
+        return path;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.cinema.cinema;
+
+/**
+ * This enumeration class defines what a writer does when the bounded queue of a background writer (e.g., the queue of
+ * an InputRecorder) is full, because the background writer cannot keep up.
+ * @author hari_rathod
+ * @version 2023.06.24
+ */
+public enum OverflowPolicy {
+    // Wait until there is space in the queue, slowing the writer down to the speed of the background writer.
+    BLOCK,
+    // Drop the new item, so the writer never waits. Dropped items are counted.
+    DROP
+}
@@ -0,0 +1,28 @@
+package com.cinema.cinema;
+
+import java.io.IOException;
+
+/**
+ * Converts objects to and from the bytes of a record, e.g., a record of a RecordLog.
+ * @author hari_rathod
+ * @version 2023.06.20
+ * @see ObjectDataRecorder
+ */
+public interface RecordCodec<E> {
+
+    /**
+     * Convert an object to the bytes of a record.
+     * @param object The object.
+     * @return The bytes of the record.
+     * @throws IOException If the object could not be encoded.
+     */
+    byte[] encode(E object) throws IOException;
+
+    /**
+     * Convert the bytes of a record back to an object.
+     * @param record The bytes of the record.
+     * @return The object.
+     * @throws IOException If the record could not be decoded, e.g., because it is corrupt or of an unknown version.
+     */
+    E decode(byte[] record) throws IOException;
+}
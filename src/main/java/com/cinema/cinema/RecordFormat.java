@@ -0,0 +1,13 @@
+package com.cinema.cinema;
+
+/**
+ * This enumeration class defines how an ObjectDataRecorder stores its objects in a file.
+ * @author hari_rathod
+ * @version 2023.06.18
+ */
+public enum RecordFormat {
+    // The objects are stored as one serialized List. Every write reads and rewrites the whole file.
+    LIST,
+    // The objects are stored as separate records appended to a RecordLog. A write only appends one record.
+    LOG
+}
@@ -0,0 +1,419 @@
+package com.cinema.cinema;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * An append-only file of records, where each record is an array of bytes. Appending a record writes only that record
+ * and the record count, so it takes the same time however many records the file holds.
+ *
+ * The file starts with a header: a magic number, the format version, and the number of records (16 bytes). Each record
+ * is its length (4 bytes), the CRC-32 checksum of its bytes (4 bytes), and then its bytes. If the application crashes
+ * while a record is being appended, the record is incomplete or its checksum does not match; it is detected and
+ * truncated when the log is first used, together with anything after it.
+ *
+ * Appends, and reads of the record count, hold a lock on the file, so several processes can append to the same log.
+ * reset(), compact() and replace() must only be used while no other process is using the log.
+ *
+ * Records are never changed or removed, apart from all at once by reset(). compact() rewrites the log into a new file,
+ * which is then moved over the old file, dropping any bytes that are not part of a complete record.
+ * @author hari_rathod
+ * @version 2023.07.04
+ * @see ObjectDataRecorder
+ */
+public class RecordLog {
+
+    // The first 4 bytes of every record log: 'ODRL'.
+    public static final int MAGIC = 0x4F44524C;
+
+    // The version of the file format, stored in the header.
+    public static final int FORMAT_VERSION = 1;
+
+    // The size of the header: magic number, format version and record count.
+    public static final int HEADER_SIZE = 16;
+
+    // The size of the fields before the bytes of each record: length and checksum.
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    // The position of the record count in the header.
+    private static final int COUNT_POSITION = 8;
+
+    private final Path path;
+
+    // Whether the file has been checked for an incomplete record since this object was created.
+    private boolean recovered = false;
+
+    /**
+     * Create a record log stored in a file. The file is created when the first record is appended, or reset() is called.
+     * @param path The file the records are stored in.
+     */
+    public RecordLog(Path path)
+    {
+        this.path = path;
+    }
+
+    /**
+     * Append a record to the end of the log.
+     * @param record The bytes of the record.
+     * @throws IOException If the record could not be written, or the file is not a record log.
+     */
+    public synchronized void append(byte[] record) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, CREATE, READ, WRITE);
+             FileLock lock = channel.lock()) {
+            long count = prepare(channel);
+
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + record.length);
+            buffer.putInt(record.length).putInt(checksum(record)).put(record).flip();
+            long position = channel.size();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            writeCount(channel, count + 1);
+        }
+    }
+
+    /**
+     * Force the appended records to the storage device, so they survive a crash of the machine. Records can be
+     * appended while the log is being forced; they may or may not be forced.
+     * @throws IOException If the file could not be forced.
+     */
+    public void force() throws IOException
+    {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, WRITE)) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Get the number of records in the log. Only the header is read.
+     * @return The number of records, or 0 if the file does not exist.
+     * @throws IOException If the file could not be read, or is not a record log.
+     */
+    public synchronized long getRecordCount() throws IOException
+    {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(path, READ, WRITE);
+             FileLock lock = channel.lock()) {
+            return prepare(channel);
+        }
+    }
+
+    /**
+     * Open a reader over the records of the log, from first to last. The records are read one at a time, so reading
+     * the log uses the same amount of memory however many records it holds. Records appended after the reader was
+     * opened are not read.
+     * @return A reader over the records. It must be closed.
+     * @throws IOException If the file could not be read, or is not a record log.
+     */
+    public synchronized Reader openReader() throws IOException
+    {
+        long count = getRecordCount();
+        if (count == 0) {
+            return new Reader(null, 0);
+        }
+        DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+        input.skipNBytes(HEADER_SIZE);
+        return new Reader(input, count);
+    }
+
+    /**
+     * Remove every record, leaving an empty log. The file is created if it does not exist.
+     * @throws IOException If the file could not be written.
+     */
+    public synchronized void reset() throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            writeHeader(channel, 0);
+        }
+        recovered = true;
+    }
+
+    /**
+     * Rewrite the log into a new file, containing only the complete records, and replace the old file with it.
+     * A crash during compaction leaves either the old file or the new file, never a mixture of both.
+     * @return The number of bytes the file shrank by.
+     * @throws IOException If the file could not be read or written.
+     */
+    public synchronized long compact() throws IOException
+    {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        long oldSize = Files.size(path);
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".compact");
+        try (Reader reader = openReader();
+             FileChannel channel = FileChannel.open(temporaryPath, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            writeHeader(channel, 0);
+            channel.position(HEADER_SIZE);
+            long count = 0;
+            byte[] record;
+            while ((record = reader.next()) != null) {
+                writeRecord(channel, record);
+                count++;
+            }
+            writeCount(channel, count);
+            channel.force(true);
+        }
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return oldSize - Files.size(path);
+    }
+
+    /**
+     * Replace every record of the log with new records. The records are written to a new file, which is forced and
+     * then moved over the old file, so a crash leaves either the old records or the new records.
+     * @param records The bytes of the new records, in order.
+     * @throws IOException If the file could not be written.
+     */
+    public synchronized void replace(List<byte[]> records) throws IOException
+    {
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".replace");
+        try (FileChannel channel = FileChannel.open(temporaryPath, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            writeHeader(channel, 0);
+            channel.position(HEADER_SIZE);
+            for (byte[] record : records) {
+                writeRecord(channel, record);
+            }
+            writeCount(channel, records.size());
+            channel.force(true);
+        }
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        recovered = true;
+    }
+
+    /**
+     * Check whether a file is a record log, by reading the magic number at its start. An empty file is not a record
+     * log, but any record log can be written to it.
+     * @param path The file.
+     * @return true if the file exists and starts with the magic number of a record log.
+     * @throws IOException If the file could not be read.
+     */
+    public static boolean isRecordLog(Path path) throws IOException
+    {
+        if (!Files.exists(path) || Files.size(path) < Integer.BYTES) {
+            return false;
+        }
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(path))) {
+            return input.readInt() == MAGIC;
+        }
+    }
+
+    /**
+     * Get the file the records are stored in.
+     * @return The path of the file.
+     */
+    public Path getPath()
+    {
+        return path;
+    }
+
+    /**
+     * Check the header of the file, writing one if the file is empty. The first time this is called, the records are
+     * also checked, and an incomplete record at the end of the file (and anything after it) is truncated.
+     * @param channel The open file.
+     * @return The number of records in the log.
+     * @throws IOException If the file could not be read or written, or is not a record log.
+     */
+    private long prepare(FileChannel channel) throws IOException
+    {
+        if (channel.size() == 0) {
+            writeHeader(channel, 0);
+            recovered = true;
+            return 0;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            // Keep reading until the header is full.
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+            throw new IOException("File %s is not a record log.".formatted(path));
+        }
+        int version = header.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Record log %s has unsupported format version %d.".formatted(path, version));
+        }
+        long count = header.getLong();
+
+        if (!recovered) {
+            count = recover(channel);
+            recovered = true;
+        }
+        return count;
+    }
+
+    /**
+     * Scan the records, and truncate the file after the last complete record with a matching checksum.
+     * The record count in the header is corrected to the number of complete records.
+     * @param channel The open file.
+     * @return The number of complete records.
+     * @throws IOException If the file could not be read or written.
+     */
+    private long recover(FileChannel channel) throws IOException
+    {
+        long size = channel.size();
+        long position = HEADER_SIZE;
+        long count = 0;
+        ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        while (position + RECORD_HEADER_SIZE <= size) {
+            recordHeader.clear();
+            channel.read(recordHeader, position);
+            recordHeader.flip();
+            int length = recordHeader.getInt();
+            int expectedChecksum = recordHeader.getInt();
+            if (length < 0 || position + RECORD_HEADER_SIZE + length > size) {
+                break;
+            }
+            ByteBuffer record = ByteBuffer.allocate(length);
+            while (record.hasRemaining()) {
+                channel.read(record, position + RECORD_HEADER_SIZE + record.position());
+            }
+            if (checksum(record.array()) != expectedChecksum) {
+                break;
+            }
+            position += RECORD_HEADER_SIZE + length;
+            count++;
+        }
+
+        if (position != size) {
+            channel.truncate(position);
+        }
+        writeCount(channel, count);
+        channel.force(false);
+        return count;
+    }
+
+    /**
+     * Write a record, with its length and checksum, at the position of the channel.
+     * @param channel The open file.
+     * @param record The bytes of the record.
+     * @throws IOException If the file could not be written.
+     */
+    private static void writeRecord(FileChannel channel, byte[] record) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + record.length);
+        buffer.putInt(record.length).putInt(checksum(record)).put(record).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Write the header of an empty log at the start of the file.
+     * @param channel The open file.
+     * @param count The number of records.
+     * @throws IOException If the header could not be written.
+     */
+    private static void writeHeader(FileChannel channel, long count) throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION).putLong(count);
+        header.flip();
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+    }
+
+    /**
+     * Write the record count in the header.
+     * @param channel The open file.
+     * @param count The number of records.
+     * @throws IOException If the count could not be written.
+     */
+    private static void writeCount(FileChannel channel, long count) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(count);
+        buffer.flip();
+        long position = COUNT_POSITION;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Get the CRC-32 checksum of the bytes of a record.
+     * @param record The bytes of the record.
+     * @return The checksum.
+     */
+    private static int checksum(byte[] record)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Reads the records of a log one at a time, from first to last.
+     */
+    public static class Reader implements Closeable {
+        private final DataInputStream input;
+        private long remaining;
+
+        private Reader(DataInputStream input, long count)
+        {
+            this.input = input;
+            this.remaining = count;
+        }
+
+        /**
+         * Read the next record.
+         * @return The bytes of the next record, or null if there are no more complete records.
+         * @throws IOException If the file could not be read.
+         */
+        public byte[] next() throws IOException
+        {
+            if (remaining == 0) {
+                return null;
+            }
+            try {
+                int length = input.readInt();
+                int expectedChecksum = input.readInt();
+                if (length < 0) {
+                    remaining = 0;
+                    return null;
+                }
+                byte[] record = input.readNBytes(length);
+                if (record.length != length || checksum(record) != expectedChecksum) {
+                    // The rest of the file was not completely written.
+                    remaining = 0;
+                    return null;
+                }
+                remaining--;
+                return record;
+            } catch (EOFException e) {
+                remaining = 0;
+                return null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (input != null) {
+                input.close();
+            }
+        }
+    }
+}
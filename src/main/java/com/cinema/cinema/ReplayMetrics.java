@@ -0,0 +1,125 @@
+package com.cinema.cinema;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The metrics of a replay by SessionReplayDriver: the latency and errors of each command word, and the number of
+ * sessions that finished or were stopped. It is updated by every session at once.
+ * @author hari_rathod
+ * @version 2023.06.25
+ * @see SessionReplayDriver
+ */
+public class ReplayMetrics {
+    private final Map<CommandWord, LatencyHistogram> latencies = new EnumMap<>(CommandWord.class);
+    private final Map<CommandWord, AtomicLong> errors = new EnumMap<>(CommandWord.class);
+    private final AtomicLong finishedSessions = new AtomicLong();
+    private final AtomicLong failedSessions = new AtomicLong();
+    private volatile long startNanos = System.nanoTime();
+    private volatile long endNanos;
+
+    /**
+     * Create empty metrics.
+     */
+    public ReplayMetrics()
+    {
+        for (CommandWord word : CommandWord.values()) {
+            latencies.put(word, new LatencyHistogram("us"));
+            errors.put(word, new AtomicLong());
+        }
+    }
+
+    /**
+     * Record a command.
+     * @param word The command word.
+     * @param nanos How long (in nanoseconds) the command took, not counting the time waiting for input.
+     * @param errorCount The number of errors displayed by the command.
+     */
+    public void recordCommand(CommandWord word, long nanos, int errorCount)
+    {
+        latencies.get(word).record(nanos / 1000);
+        errors.get(word).addAndGet(errorCount);
+    }
+
+    /**
+     * Record a session that finished, or was stopped by an exception.
+     * @param failed true if the session was stopped by an exception.
+     */
+    public void recordSession(boolean failed)
+    {
+        (failed ? failedSessions : finishedSessions).incrementAndGet();
+    }
+
+    /**
+     * Mark the start of the replay.
+     */
+    public void start()
+    {
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Mark the end of the replay.
+     */
+    public void end()
+    {
+        endNanos = System.nanoTime();
+    }
+
+    /**
+     * Get the latencies of a command word.
+     * @param word The command word.
+     * @return The histogram of latencies, in microseconds.
+     */
+    public LatencyHistogram getLatency(CommandWord word)
+    {
+        return latencies.get(word);
+    }
+
+    /**
+     * Get the number of errors displayed by a command word.
+     * @param word The command word.
+     * @return The number of errors.
+     */
+    public long getErrors(CommandWord word)
+    {
+        return errors.get(word).get();
+    }
+
+    /**
+     * Get the number of sessions stopped by an exception.
+     * @return The number of failed sessions.
+     */
+    public long getFailedSessions()
+    {
+        return failedSessions.get();
+    }
+
+    /**
+     * Get a summary of the metrics, as a String: the throughput, and the latency and error rate of each command word.
+     * @return A summary of the metrics.
+     */
+    public String getSummary()
+    {
+        long commands = 0;
+        for (LatencyHistogram latency : latencies.values()) {
+            commands += latency.getCount();
+        }
+        double seconds = Math.max(1, (endNanos == 0 ? System.nanoTime() : endNanos) - startNanos) / 1e9;
+
+        StringBuilder summary = new StringBuilder();
+        summary.append("Sessions: %d finished, %d failed%n".formatted(finishedSessions.get(), failedSessions.get()));
+        summary.append("Throughput: %.1f sessions/s, %.1f commands/s%n".formatted(
+                (finishedSessions.get() + failedSessions.get()) / seconds, commands / seconds));
+        for (CommandWord word : CommandWord.values()) {
+            LatencyHistogram latency = latencies.get(word);
+            if (latency.getCount() == 0) {
+                continue;
+            }
+            summary.append("%-10s %s errors=%.1f%%%n".formatted(word, latency.getSummary(),
+                    100.0 * errors.get(word).get() / latency.getCount()));
+        }
+        return summary.toString();
+    }
+}
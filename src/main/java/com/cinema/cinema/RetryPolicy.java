@@ -0,0 +1,67 @@
+package com.cinema.cinema;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How often, and how long apart, a write that conflicted with another writer is retried. The wait before each retry
+ * grows exponentially up to a maximum, and is randomised ('full jitter'), so writers that conflicted with each other
+ * do not retry at the same moment again.
+ * @author hari_rathod
+ * @version 2023.06.16
+ * @see ScreenVersionConflictException
+ */
+public class RetryPolicy {
+
+    // The policy used by the repositories, configured with the system properties 'retry.maxAttempts',
+    // 'retry.initialBackoffMillis' and 'retry.maxBackoffMillis'.
+    public static final RetryPolicy DEFAULT = new RetryPolicy(Integer.getInteger("retry.maxAttempts", 5),
+            Long.getLong("retry.initialBackoffMillis", 5), Long.getLong("retry.maxBackoffMillis", 200));
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    /**
+     * Create a retry policy.
+     * @param maxAttempts The number of attempts (including the first) before the conflict is given up. Must be >= 1.
+     * @param initialBackoffMillis The longest wait (in milliseconds) before the first retry.
+     * @param maxBackoffMillis The longest wait (in milliseconds) before any retry.
+     * @throws IllegalArgumentException If maxAttempts is less than 1.
+     */
+    public RetryPolicy(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis)
+    {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("The number of attempts must be at least 1.");
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Check whether another attempt may be made.
+     * @param attempt The number of attempts made so far.
+     * @return True if another attempt may be made.
+     */
+    public boolean canRetry(int attempt)
+    {
+        return attempt < maxAttempts;
+    }
+
+    /**
+     * Wait before the next attempt.
+     * @param attempt The number of attempts made so far (1 after the first attempt).
+     */
+    public void backOff(int attempt)
+    {
+        long limit = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 30));
+        if (limit <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(limit + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,32 +1,54 @@
 package com.cinema.cinema;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Class Screen represents a screen (i.e., a movie room) in a multiplex cinema.
+ * Seats may be booked by several threads at once without locking (see SeatMap): of two threads booking the same
+ * seat, exactly one succeeds.
  *
  * @author Hari Rathod
- * @version 2023.03.28
+ * @version 2023.06.30
  */
 public class Screen implements Serializable
 {
+    // The serialized form of a screen stores its seats as a boolean[][] 'seats' field, as it did before the seats were
+    // stored as a SeatMap, so screens recorded by either version can be read by the other. Screens recorded with a
+    // Seat[][] grid can also be read, and screens recorded before screens were versioned have version 0.
+    private static final long serialVersionUID = 7650341627787167600L;
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("movieTitle", String.class),
+            new ObjectStreamField("hasMovieScreening", boolean.class),
+            new ObjectStreamField("ticketCost", int.class),
+            new ObjectStreamField("seats", boolean[][].class),
+            new ObjectStreamField("id", int.class),
+            new ObjectStreamField("version", long.class)
+    };
+
     private String movieTitle;
 
     // Whether the screen is currently showing a movie.
     private boolean hasMovieScreening;
     private int ticketCost;
 
-    // The seats in the screen.
-    //private Seat[][] seats; For efficient storage / mapping in the database, I have used boolean[][] instead of Seat[][].
-    private boolean[][] seats;
+    // The seats in the screen, one bit per seat.
+    private SeatMap seats;
 
     // The id of the screen.
     private int id;
 
+    // The version of the stored screen this screen was read from. The storage increases it on every write.
+    private AtomicLong version = new AtomicLong();
+
     /**
      * Initialise fields.
      * @param id The id of the screen.
@@ -45,10 +67,8 @@ public class Screen implements Serializable
 
         this.id = id;
 
-        // Create a grid of seats.
-        seats = new boolean[numberOfColumns][numberOfRows];
-        //seats = new Seat[numberOfColumns][numberOfRows];
-        emptyScreen();
+        // Create a grid of seats, all available.
+        seats = new SeatMap(numberOfColumns, numberOfRows);
     }
 
     /**
@@ -56,9 +76,25 @@ public class Screen implements Serializable
      */
     public void emptyScreen()
     {
-        for (boolean[] seats : seats) {
-            Arrays.fill(seats, true);
+        seats.fill();
+    }
+
+    /**
+     * Create a copy of this Screen. The copy has its own grid of seats, so booking a seat in the copy does not
+     * book the seat in this Screen.
+     * @return A copy of this Screen.
+     */
+    public Screen copy()
+    {
+        // The version is read before the seats, so the copy is never newer than its seats.
+        long copiedVersion = getVersion();
+        Screen copy = new Screen(id, seats.getColumns(), seats.getRows());
+        copy.setSeatMap(seats.copy());
+        if (hasMovieScreening) {
+            copy.addNewMovie(movieTitle, ticketCost);
         }
+        copy.setVersion(copiedVersion);
+        return copy;
     }
 
     /**
@@ -67,15 +103,7 @@ public class Screen implements Serializable
      */
     public int getNumberOfAvailableSeats()
     {
-        int availableSeatsCount = 0;
-        for (boolean[] seatColumn : seats) {
-            for (boolean seat : seatColumn) {
-                if (seat) {
-                    availableSeatsCount++;
-                }
-            }
-        }
-        return availableSeatsCount;
+        return seats.getNumberOfAvailableSeats();
     }
 
     /**
@@ -84,7 +112,38 @@ public class Screen implements Serializable
      */
     public int getNumberOfSeats()
     {
-        return seats.length * seats[0].length;
+        return seats.getColumns() * seats.getRows();
+    }
+
+    /**
+     * Get the number of columns of seats.
+     * @return The number of columns.
+     */
+    public int getNumberOfColumns()
+    {
+        return seats.getColumns();
+    }
+
+    /**
+     * Get the number of rows of seats.
+     * @return The number of rows.
+     */
+    public int getNumberOfRows()
+    {
+        return seats.getRows();
+    }
+
+    /**
+     * Check whether a seat is available. Before calling isSeatAvailable(), a call must be made to
+     * validateSeatNumbers().
+     * @param columnNumber The column number of the seat. 1 is the number of the first column.
+     * @param rowNumber The row number of the seat. 1 is the number of the first row.
+     * @return true if the seat is available, false if it is booked.
+     * @throws ArrayIndexOutOfBoundsException If the seat is out of bounds.
+     */
+    public boolean isSeatAvailable(int columnNumber, int rowNumber)
+    {
+        return seats.isAvailable(columnNumber, rowNumber);
     }
 
     /**
@@ -97,14 +156,22 @@ public class Screen implements Serializable
      */
     protected void book(int columnNumber, int rowNumber) throws UnavailableSeatException
     {
-        // Entering a value of 1 should access element 0 of the grid of seats.
-        columnNumber = columnNumber - 1;
-        rowNumber = rowNumber - 1;
-
-        if (!seats[columnNumber][rowNumber]) {
+        if (!seats.book(columnNumber, rowNumber)) {
             throw new UnavailableSeatException("Seat is unavailable.");
         }
-        seats[columnNumber][rowNumber] = false;
+    }
+
+    /**
+     * Book several seats, but only if every one of them is available: either all the seats are booked, or none of
+     * them are (see SeatMap.claim(...)). Before calling bookSeats(), a call must be made to validateSeatNumbers() for
+     * each seat.
+     * @param seatsToBook The seats to book. A seat must not be repeated.
+     * @return The seats that are unavailable (booked), in the order given. If the list is empty, every seat was booked.
+     * @throws ArrayIndexOutOfBoundsException If a seat is out of bounds.
+     */
+    protected List<SeatPosition> bookSeats(List<SeatPosition> seatsToBook)
+    {
+        return seats.claim(seatsToBook);
     }
 
     /**
@@ -137,35 +204,63 @@ public class Screen implements Serializable
      */
     public String getDetails()
     {
-        String details = "";
-        details += "Screen: " + id + "\n";
-        details += "Current Movie: '" + (movieTitle==null ? "No screening" : movieTitle) + "'\n";
-        details += "Seat capacity: " + seats.length + " columns, by " + seats[0].length + " rows.\n";
-        details += "Available Seat Capacity: " + getNumberOfAvailableSeats() + "\n";
-        details += "Ticket Cost: £" + (ticketCost / 100 ) + "\n";
-
-        return details;
+        return new ScreenSummary(this).getDetails();
     }
 
     /**
-     * Book a random ticket.
+     * Book a random ticket. Every available seat is equally likely to be booked.
      * @return A ticket object if there is at least one available seat.
      * @throws NoAvailableSeatException If there are no seats available.
-     * @throws UnavailableSeatException If the seat randomly chosen to book is unavailable.
      */
-    public Ticket bookRandomTicket() throws NoAvailableSeatException, UnavailableSeatException {
-
-        // Check that at least 1 seat is available.
-        checkSeatAvailability();
+    public Ticket bookRandomTicket() throws NoAvailableSeatException
+    {
+        SeatPosition seat;
+        // Another thread may book the chosen seat first, in which case another seat is chosen.
+        do {
+            seat = getRandomAvailableSeat(ThreadLocalRandom.current());
+        } while (!seats.book(seat.getColumnNumber(), seat.getRowNumber()));
 
-        Random random = new Random();
-        int randomColumnNumber = random.nextInt(seats.length) + 1;
-        int randomRowNumber = random.nextInt(seats[0].length) + 1;
+        return new Ticket(id, movieTitle, seat.getColumnNumber(), seat.getRowNumber(),
+                ticketCost, LocalDateTime.now());
+    }
 
-        book(randomColumnNumber, randomRowNumber);
+    /**
+     * Choose an available seat at random, without booking it. Every available seat is equally likely to be chosen,
+     * and the seat is found in O(log rows) steps, however many seats are booked.
+     * @param random The source of randomness.
+     * @return The position of the seat.
+     * @throws NoAvailableSeatException If there are no seats available.
+     */
+    public SeatPosition getRandomAvailableSeat(Random random) throws NoAvailableSeatException
+    {
+        while (true) {
+            // Check that at least 1 seat is available.
+            checkSeatAvailability();
+            try {
+                SeatPosition seat = seats.selectAvailable(random.nextInt(seats.getNumberOfAvailableSeats()));
+                if (seat != null) {
+                    return seat;
+                }
+            } catch (IllegalArgumentException e) {
+                // The seats were booked by another thread since they were counted: count them again.
+            }
+        }
+    }
 
-        return new Ticket(id, movieTitle, randomColumnNumber, randomRowNumber,
-                ticketCost, LocalDateTime.now());
+    /**
+     * Find the best block of adjacent available seats in a row, i.e., the block closest to the centre line of the
+     * screen (see SeatMap.findBestBlock(...)). The seats are not booked.
+     * @param numberOfSeats The number of seats in the block. Must be >= 1.
+     * @return The seats of the block, from left to right.
+     * @throws NoAvailableSeatException If no row has enough adjacent available seats.
+     */
+    public List<SeatPosition> findBestBlock(int numberOfSeats) throws NoAvailableSeatException
+    {
+        List<SeatPosition> block = seats.findBestBlock(numberOfSeats);
+        if (block.isEmpty()) {
+            throw new NoAvailableSeatException("No row has " + numberOfSeats + " adjacent seats available.");
+        }
+        return block;
     }
 
     /**
@@ -199,9 +294,9 @@ public class Screen implements Serializable
      */
     public void validateSeatNumbers(int columnNumber, int rowNumber) throws InvalidSeatException
     {
-        if (columnNumber < 1 || columnNumber > seats.length || rowNumber < 1 || rowNumber > seats[0].length) {
+        if (columnNumber < 1 || columnNumber > seats.getColumns() || rowNumber < 1 || rowNumber > seats.getRows()) {
             String error = "Seat position (" + columnNumber + ", " + rowNumber + ") out of range for "
-                    + "available seats (" + seats.length + ", " + seats[0].length + ")";
+                    + "available seats (" + seats.getColumns() + ", " + seats.getRows() + ")";
             throw new InvalidSeatException(error);
         }
     }
@@ -245,20 +340,114 @@ public class Screen implements Serializable
     }
 
     /**
-     * Get the grid of seats in the screen.
-     * @return
+     * Get the grid of seats in the screen. The grid is converted from the screen's seat map, so changing it does not
+     * change the screen; use setSeats(...) to store it.
+     * @return A grid of the seats, indexed by [column][row], true if the seat is available.
      */
     public boolean[][] getSeats()
     {
-        return seats;
+        return seats.toGrid();
     }
 
     /**
      * Set the grid of seats in the screen.
+     * @param seats A grid of the seats, indexed by [column][row], true if the seat is available.
      */
     public void setSeats(boolean[][] seats)
+    {
+        this.seats = SeatMap.fromGrid(seats);
+    }
+
+    /**
+     * Get the seat map of the screen. Changes to the seat map change the screen.
+     * @return The seat map.
+     */
+    public SeatMap getSeatMap()
+    {
+        return seats;
+    }
+
+    /**
+     * Set the seat map of the screen.
+     * @param seats The seat map.
+     */
+    public void setSeatMap(SeatMap seats)
     {
         this.seats = seats;
     }
-}
 
+    /**
+     * Get the version of the stored screen that this screen was read from. The storage increases the version of a
+     * screen on every write (booking a seat, or adding or removing a movie), so a screen with the same version as
+     * the stored screen is up to date, and can be recorded without overwriting another write.
+     * @return The version of the screen.
+     */
+    public long getVersion()
+    {
+        return version.get();
+    }
+
+    /**
+     * Set the version of the screen, e.g., to the version of the screen in storage.
+     * @param version The version of the screen.
+     */
+    public void setVersion(long version)
+    {
+        this.version.set(version);
+    }
+
+    /**
+     * Increase the version of the screen atomically, e.g., after seats of the stored screen are booked.
+     * @param increase The amount to increase the version by.
+     * @return The new version of the screen.
+     */
+    public long incrementVersion(long increase)
+    {
+        return version.addAndGet(increase);
+    }
+
+    /**
+     * Write the screen, with its seats as a grid of booleans (see serialPersistentFields).
+     * @param out The stream to write to.
+     * @throws IOException If the screen could not be written.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException
+    {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("movieTitle", movieTitle);
+        fields.put("hasMovieScreening", hasMovieScreening);
+        fields.put("ticketCost", ticketCost);
+        fields.put("seats", seats.toGrid());
+        fields.put("id", id);
+        fields.put("version", version.get());
+        out.writeFields();
+    }
+
+    /**
+     * Read a screen, converting its grid of seats to a seat map.
+     * @param in The stream to read from.
+     * @throws IOException If the screen could not be read.
+     * @throws ClassNotFoundException If a class of the screen's fields could not be found.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+    {
+        ObjectInputStream.GetField fields = in.readFields();
+        movieTitle = (String) fields.get("movieTitle", null);
+        hasMovieScreening = fields.get("hasMovieScreening", false);
+        ticketCost = fields.get("ticketCost", 0);
+        Object grid = fields.get("seats", null);
+        if (grid instanceof Seat[][] legacySeats) {
+            // Screens recorded before the seats were stored as booleans.
+            boolean[][] availability = new boolean[legacySeats.length][legacySeats[0].length];
+            for (int column = 0; column < legacySeats.length; column++) {
+                for (int row = 0; row < legacySeats[0].length; row++) {
+                    availability[column][row] = legacySeats[column][row].isAvailable();
+                }
+            }
+            grid = availability;
+        }
+        seats = SeatMap.fromGrid((boolean[][]) grid);
+        id = fields.get("id", 0);
+        version = new AtomicLong(fields.get("version", 0L));
+    }
+}
@@ -1,50 +1,95 @@
 package com.cinema.cinema;
 
-import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
+import com.mongodb.MongoWriteException;
+import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.UpdateResult;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.mongodb.client.model.Updates.*;
 import static com.mongodb.client.model.Filters.*;
+import static com.mongodb.client.model.Projections.exclude;
+import static com.mongodb.client.model.Projections.include;
 
 /**
- * This class interfaces with the database storing the screens, and provides methods for accessing and modifying
- * screens in the database.
+ * This class interfaces with the MongoDB database storing the screens, and provides methods for accessing and modifying
+ * screens in the database. All operations share the process-wide MongoClient from MongoClientProvider, so no
+ * connection is opened or closed per operation. The client is looked up for each operation, so a manipulator keeps
+ * working after the provider has been closed and reopened.
+ *
+ * Every write increases the version of the screen. Writes of a whole screen, and removing a screening, are
+ * compare-and-set on the version, so a manager's change can never silently undo a booking made at the same time.
+ * Seat bookings are not checked against the version, as they are already conditional on the seat being available, so
+ * concurrent bookings of different seats do not conflict with each other. Updating a screening only sets its own
+ * fields, so it is not checked either.
  * @author hari_rathod
- * @version 2023.05.30
+ * @version 2023.07.04
  * @see Screen
  */
-public class ScreenDataManipulator {
+public class ScreenDataManipulator implements ScreenRepository {
 
-    // The uri which this class uses to connect to the database.
-    private String uri;
+    // How often a write that conflicted with another writer is retried.
+    private final RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
 
-    public ScreenDataManipulator()
+    // Whether the indexes of the collection have been created by this process.
+    private static final AtomicBoolean indexesCreated = new AtomicBoolean(false);
+
+    /**
+     * Get the collection 'screens' in the database 'cinema', from the current client of MongoClientProvider.
+     * @return The collection of screens.
+     */
+    private MongoCollection<Document> screens()
     {
-        this.uri = "mongodb+srv://" + System.getProperty("username") + ":" + System.getProperty("password") + "@cluster1.y3fcbqx.mongodb.net/?retryWrites=true&w=majority";
+        return MongoClientProvider.getClient().getDatabase("cinema").getCollection("screens");
     }
+
     /**
      * Get all screens from the database.
      * @return A list of all the screens.
      */
+    @Override
     public List<Screen> getAllScreens()
     {
-        List<Screen> screens = new ArrayList<>();
-
-        try (MongoClient mongoClient = MongoClients.create(uri)) {
-            // Connect to the MongoDB database 'cinema', and get collection 'screens'.
-            MongoCollection<Document> documentScreens = mongoClient.getDatabase("cinema").getCollection("screens");
-            for (Document doc : documentScreens.find()) {
-                screens.add(ScreenDocumentConverter.convertDocumentToScreen(doc));
-            }
+        List<Screen> allScreens = new ArrayList<>();
+        for (Document doc : screens().find()) {
+            allScreens.add(ScreenDocumentConverter.convertDocumentToScreen(doc));
         }
+        return allScreens;
+    }
 
-        return screens;
+    /**
+     * Get the summaries of the screens, in order of id. The seats are excluded from the documents read, so listing
+     * the screens does not transfer any seat maps.
+     * @param onlyWithScreening If true, only the screens that are showing a movie are summarised.
+     * @return The summaries of the screens.
+     */
+    @Override
+    public List<ScreenSummary> getScreenSummaries(boolean onlyWithScreening)
+    {
+        if (indexesCreated.compareAndSet(false, true)) {
+            // Used when listing only the screens that are showing a movie. Created by the first listing, so creating
+            // a manipulator does not connect to the database.
+            screens().createIndex(Indexes.ascending("hasMovieScreening"));
+        }
+        Bson filter = onlyWithScreening ? eq("hasMovieScreening", true) : new Document();
+        List<ScreenSummary> summaries = new ArrayList<>();
+        for (Document doc : screens().find(filter).projection(exclude("seatRows")).sort(Sorts.ascending("_id"))) {
+            summaries.add(ScreenDocumentConverter.convertDocumentToSummary(doc));
+        }
+        return summaries;
     }
 
     /**
@@ -53,80 +98,293 @@ public class ScreenDataManipulator {
      * @return The screen with the matching id.
      * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
      */
+    @Override
     public Screen getScreenById(int id) throws ScreenIdDoesNotExistException
     {
-        try (MongoClient mongoClient = MongoClients.create(uri)) {
-            MongoCollection<Document> screens = mongoClient.getDatabase("cinema").getCollection("screens");
-            Document doc = screens.find(eq("_id", id)).first();
+        Document doc = screens().find(eq("_id", id)).first();
+        if (doc == null) {
+            throw new ScreenIdDoesNotExistException("Screen with id %d does not exist".formatted(id));
+        }
+        return ScreenDocumentConverter.convertDocumentToScreen(doc);
+    }
+
+    /**
+     * Get the version of the screen with matching id. Only the version is read, not the seats.
+     * @param id The id of the screen.
+     * @return The version of the screen.
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     */
+    @Override
+    public long getScreenVersion(int id) throws ScreenIdDoesNotExistException
+    {
+        Document doc = screens().find(eq("_id", id)).projection(include("version")).first();
+        if (doc == null) {
+            throw new ScreenIdDoesNotExistException("Screen with id %d does not exist".formatted(id));
+        }
+        return ((Number) doc.getOrDefault("version", 0L)).longValue();
+    }
+
+    /**
+     * Record the screen in the database. If a screen with matching id is stored, it is only overwritten if its version
+     * is the version of the provided screen, i.e., if it has not been changed since the provided screen was read.
+     * Otherwise, the provided screen is added as a 'new screen'.
+     * @param screen The screen to be recorded. On success, its version is set to the version of the stored screen.
+     * @throws ScreenVersionConflictException If the stored screen has been changed since the provided screen was read,
+     * or a screen with the same id was added at the same time.
+     */
+    @Override
+    public void recordScreen(Screen screen) throws ScreenVersionConflictException
+    {
+        long expectedVersion = screen.getVersion();
+        Document replacement = ScreenDocumentConverter.convertScreenToDocument(screen);
+        replacement.put("version", expectedVersion + 1);
+        UpdateResult result = screens().replaceOne(and(eq("_id", screen.getId()), versionIs(expectedVersion)),
+                replacement);
+        if (result.getMatchedCount() == 1) {
+            screen.setVersion(expectedVersion + 1);
+            return;
+        }
+
+        if (screens().find(eq("_id", screen.getId())).projection(include("_id")).first() != null) {
+            throw new ScreenVersionConflictException(screen.getId(), expectedVersion);
+        }
+        try {
+            screens().insertOne(ScreenDocumentConverter.convertScreenToDocument(screen));
+        } catch (MongoWriteException e) {
+            // Another writer inserted a screen with the same id after it was checked.
+            throw new ScreenVersionConflictException(screen.getId(), expectedVersion);
+        }
+    }
+
+    /**
+     * Book a single seat in a screen, but only if the seat is available. This is a single conditional update of the
+     * 64-bit element storing the seat, so the database checks and books the seat atomically, and the seat map is never
+     * transferred.
+     * @param id The id of the screen.
+     * @param columnNumber The column number of the seat to book. 1 is the number of the first column.
+     * @param rowNumber The row number of the seat to book. 1 is the number of the first row.
+     * @return True if the seat was booked, false if the seat was unavailable (already booked).
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     */
+    @Override
+    public boolean bookSeat(int id, int columnNumber, int rowNumber) throws ScreenIdDoesNotExistException
+    {
+        String field = ScreenDocumentConverter.getSeatField(columnNumber, rowNumber);
+        int bit = ScreenDocumentConverter.getSeatBit(columnNumber);
+        Bson updates = combine(bitwiseAnd(field, ~(1L << bit)), inc("availableSeats", -1), inc("version", 1));
+        UpdateResult result = screens().updateOne(and(eq("_id", id), bitIsSet(field, bit)), updates);
+        if (result.getMatchedCount() == 1) {
+            return true;
+        }
+
+        // Only look at the screen when the booking failed, so a successful booking is one round trip.
+        Document doc = screens().find(eq("_id", id)).projection(include("columns")).first();
+        if (doc == null) {
+            throw new ScreenIdDoesNotExistException("Screen with id %d does not exist".formatted(id));
+        }
+        if (!doc.containsKey("columns")) {
+            // The screen has not been migrated yet, so its seats are still a nested array of booleans.
+            String seat = "seats.%d.%d".formatted(columnNumber - 1, rowNumber - 1);
+            Bson legacyUpdates = combine(set(seat, false), inc("version", 1));
+            return screens().updateOne(and(eq("_id", id), eq(seat, true)), legacyUpdates).getMatchedCount() == 1;
+        }
+        return false;
+    }
+
+    /**
+     * Book several seats in a screen, but only if every one of them is available. This is a single conditional update
+     * of the screen's document, which checks and clears the bits of every seat (one '$bit' per 64-bit element), so
+     * either all the seats are booked or none of them are, and the seat map is never transferred.
+     * @param id The id of the screen.
+     * @param seats The seats to book. The seats must be within the screen, and must not be repeated.
+     * @return The seats that were unavailable (already booked). If the list is empty, every seat was booked.
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     */
+    @Override
+    public List<SeatPosition> bookSeats(int id, List<SeatPosition> seats) throws ScreenIdDoesNotExistException
+    {
+        // Merge the seats by element, so each element is checked and updated once.
+        Map<String, SeatWordUpdate> words = new LinkedHashMap<>();
+        for (SeatPosition seat : seats) {
+            SeatWordUpdate update = new SeatWordUpdate(id, seat.getColumnNumber(), seat.getRowNumber());
+            words.merge(update.getKey(), update, (merged, added) -> {
+                merged.merge(added);
+                return merged;
+            });
+        }
+        List<Bson> filters = new ArrayList<>();
+        List<Bson> updates = new ArrayList<>();
+        filters.add(eq("_id", id));
+        for (SeatWordUpdate word : words.values()) {
+            filters.add(bitsAreSet(word.getField(), word.getMask()));
+            updates.add(bitwiseAnd(word.getField(), ~word.getMask()));
+        }
+        updates.add(inc("availableSeats", -seats.size()));
+        updates.add(inc("version", seats.size()));
+        Bson filter = and(filters);
+        Bson update = combine(updates);
+        for (int attempt = 1; ; attempt++) {
+            if (screens().updateOne(filter, update).getMatchedCount() == 1) {
+                return List.of();
+            }
+
+            // Only read the seats when the booking failed, to report which seats were unavailable.
+            Document doc = screens().find(eq("_id", id)).first();
             if (doc == null) {
                 throw new ScreenIdDoesNotExistException("Screen with id %d does not exist".formatted(id));
             }
-            return ScreenDocumentConverter.convertDocumentToScreen(doc);
+            if (!doc.containsKey("columns")) {
+                // The screen has not been migrated yet, so its seats are still a nested array of booleans.
+                return bookLegacySeats(id, seats);
+            }
+            List<SeatPosition> unavailable = getUnavailableSeats(doc, seats);
+            // If every seat is available now, a seat was freed (e.g., the screening was removed) after the update
+            // failed, so the update is tried again.
+            if (!unavailable.isEmpty() || !retryPolicy.canRetry(attempt)) {
+                return unavailable.isEmpty() ? seats : unavailable;
+            }
         }
     }
 
     /**
-     * Record the screen in the database. Overwrites the existing screen with matching id, if there is a matching id,
-     * otherwise adds the provided screen as a 'new screen'.
-     * @param screen The screen to be recorded.
+     * Book several seats in a screen whose seats are stored as a nested array of booleans, but only if every one of
+     * them is available.
+     * @param id The id of the screen.
+     * @param seats The seats to book.
+     * @return The seats that were unavailable. If the list is empty, every seat was booked.
      */
-    public void recordScreen(Screen screen)
+    private List<SeatPosition> bookLegacySeats(int id, List<SeatPosition> seats)
     {
-        try (MongoClient mongoClient = MongoClients.create(uri)) {
-            MongoCollection<Document> screens = mongoClient.getDatabase("cinema").getCollection("screens");
-            // Although slightly longer, the below line with find(eq()).first() is more efficient than opening a new
-            // connection with 'getScreenById()'.
-            Document doc = screens.find(eq("_id", screen.getId())).first();
-            if (doc == null) {
-                screens.insertOne(ScreenDocumentConverter.convertScreenToDocument(screen));
-            }
-            else {
-                screens.replaceOne(doc, ScreenDocumentConverter.convertScreenToDocument(screen));
+        List<Bson> filters = new ArrayList<>();
+        List<Bson> updates = new ArrayList<>();
+        filters.add(eq("_id", id));
+        for (SeatPosition seat : seats) {
+            String field = "seats.%d.%d".formatted(seat.getColumnNumber() - 1, seat.getRowNumber() - 1);
+            filters.add(eq(field, true));
+            updates.add(set(field, false));
+        }
+        updates.add(inc("version", seats.size()));
+        if (screens().updateOne(and(filters), combine(updates)).getMatchedCount() == 1) {
+            return List.of();
+        }
+        return getUnavailableSeats(screens().find(eq("_id", id)).first(), seats);
+    }
+
+    /**
+     * Get the seats that are unavailable in a screen's document.
+     * @param doc The document of the screen.
+     * @param seats The seats to check.
+     * @return The seats that are booked, in the order given.
+     */
+    private static List<SeatPosition> getUnavailableSeats(Document doc, List<SeatPosition> seats)
+    {
+        Screen screen = ScreenDocumentConverter.convertDocumentToScreen(doc);
+        return seats.stream()
+                .filter(seat -> !screen.isSeatAvailable(seat.getColumnNumber(), seat.getRowNumber()))
+                .toList();
+    }
+
+    /**
+     * Book many seats with a single request to the database. Each update books its seats only if all of them are
+     * still available, so an update that has already been applied (e.g., one replayed after a crash) changes nothing.
+     * The updates are independent, so they are sent unordered, and one failing update does not stop the others.
+     * @param updates The seats to book. Screens that have not been migrated to the packed seat map are not matched.
+     * @return The number of updates that booked their seats.
+     */
+    public int bookSeatsInBulk(List<SeatWordUpdate> updates)
+    {
+        if (updates.isEmpty()) {
+            return 0;
+        }
+        List<WriteModel<Document>> models = new ArrayList<>(updates.size());
+        for (SeatWordUpdate update : updates) {
+            Bson filter = and(eq("_id", update.getScreenId()), bitsAreSet(update.getField(), update.getMask()));
+            Bson booking = combine(bitwiseAnd(update.getField(), ~update.getMask()),
+                    inc("availableSeats", -update.getNumberOfSeats()), inc("version", update.getNumberOfSeats()));
+            models.add(new UpdateOneModel<>(filter, booking));
+        }
+        BulkWriteResult result = screens().bulkWrite(models, new BulkWriteOptions().ordered(false));
+        return result.getModifiedCount();
+    }
+
+    /**
+     * Find which seats of some updates are still available in the database, e.g., to book the seats of an update that
+     * was not applied one at a time (see bookSeatsInBulk(...)). Only the seat maps of the screens are read.
+     * @param updates The updates.
+     * @return The seats of each update that are available, as a bit mask of its element, mapped by the key of the
+     * update (see SeatWordUpdate.getKey()). Updates of screens that do not exist are not mapped.
+     */
+    public Map<String, Long> getAvailableSeats(List<SeatWordUpdate> updates)
+    {
+        Map<Integer, List<SeatWordUpdate>> updatesByScreen = new HashMap<>();
+        for (SeatWordUpdate update : updates) {
+            updatesByScreen.computeIfAbsent(update.getScreenId(), id -> new ArrayList<>()).add(update);
+        }
+        Map<String, Long> availableSeats = new HashMap<>();
+        for (Document doc : screens().find(in("_id", updatesByScreen.keySet())).projection(include("seatRows"))) {
+            List<?> seatRows = doc.getList("seatRows", List.class);
+            for (SeatWordUpdate update : updatesByScreen.get(doc.getInteger("_id"))) {
+                List<?> words = (List<?>) seatRows.get(update.getRowNumber() - 1);
+                long word = ((Number) words.get(update.getWordIndex())).longValue();
+                availableSeats.put(update.getKey(), word & update.getMask());
             }
         }
+        return availableSeats;
     }
 
     /**
-     * Update the movie screening in a screen. This does not clear the seats in the screen.
+     * Update the movie screening in a screen. This does not clear the seats in the screen. The update does not depend
+     * on the rest of the screen, so it is applied whatever the version of the screen, and cannot undo a booking.
      * @param id The id of the screen to be updated.
      * @param movieTitle The title of the movie.
      * @param ticketCost The cost of a ticket to watch this movie.
      * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
      */
+    @Override
     public void updateScreening(int id, String movieTitle, int ticketCost) throws ScreenIdDoesNotExistException
     {
-        try (MongoClient mongoClient = MongoClients.create(uri)) {
-            MongoCollection<Document> screens = mongoClient.getDatabase("cinema").getCollection("screens");
-            /*
-            Searching for the document here using find(eq(...)) is more efficient than making a separate method such as
-            'getDocumentById(int id)' because the second method would open a second connection to the database, which
-            would be less efficient than using the already open connection here.
-             */
-            Document doc = screens.find(eq("_id", id)).first();
-            if (doc == null) {
-                throw new ScreenIdDoesNotExistException("Screen with id %d does not exist".formatted(id));
-            }
-
-            Bson updates = combine(set("movieTitle", movieTitle), set("ticketCost", ticketCost), set("hasMovieScreening", true));
-            screens.updateOne(doc, updates);
+        Bson updates = combine(set("movieTitle", movieTitle), set("ticketCost", ticketCost), set("hasMovieScreening", true),
+                inc("version", 1));
+        if (screens().updateOne(eq("_id", id), updates).getMatchedCount() == 0) {
+            throw new ScreenIdDoesNotExistException("Screen with id %d does not exist".formatted(id));
         }
     }
 
     /**
-     * Remove the movie screening from a screen and empty the screen.
+     * Remove the movie screening from a screen and empty the screen. The update is only applied if the screen has not
+     * been changed since it was read, and is retried (see RetryPolicy) if it has.
      * @param id The id of the screen to remove the movie screening from.
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     * @throws ScreenVersionConflictException If the screen was changed by another writer during every attempt.
      */
-    public void removeScreening(int id) throws ScreenIdDoesNotExistException
+    @Override
+    public void removeScreening(int id) throws ScreenIdDoesNotExistException, ScreenVersionConflictException
     {
-        try (MongoClient mongoClient = MongoClients.create(uri)) {
-            MongoCollection<Document> screens = mongoClient.getDatabase("cinema").getCollection("screens");
-            Document doc = screens.find(eq("_id", id)).first();
+        for (int attempt = 1; ; attempt++) {
+            Document doc = screens().find(eq("_id", id)).projection(include("columns", "rows", "version")).first();
             if (doc == null) {
                 throw new ScreenIdDoesNotExistException("Screen with id %d does not exist".formatted(id));
             }
-            Bson seatsUpdate = set("seats.$[].$[]", true);
-            Bson updates = combine(set("movieTitle", null), set("ticketCost", 0), set("hasMovieScreening", false), seatsUpdate);
-            screens.updateOne(doc, updates);
+            Bson seatsUpdate;
+            if (doc.containsKey("columns")) {
+                int columns = doc.getInteger("columns");
+                int rows = doc.getInteger("rows");
+                seatsUpdate = combine(set("seatRows", ScreenDocumentConverter.getEmptySeatRows(columns, rows)),
+                        set("availableSeats", columns * rows));
+            } else {
+                seatsUpdate = set("seats.$[].$[]", true);
+            }
+            Bson updates = combine(set("movieTitle", null), set("ticketCost", 0), set("hasMovieScreening", false),
+                    seatsUpdate, inc("version", 1));
+
+            long version = ((Number) doc.getOrDefault("version", 0L)).longValue();
+            if (screens().updateOne(and(eq("_id", id), versionIs(version)), updates).getMatchedCount() == 1) {
+                return;
+            }
+            if (!retryPolicy.canRetry(attempt)) {
+                throw new ScreenVersionConflictException(id, version);
+            }
+            retryPolicy.backOff(attempt);
         }
     }
 
@@ -134,14 +392,69 @@ public class ScreenDataManipulator {
      * Delete a screen from the database.
      * @param id The id of the screen that is to be removed (deleted).
      */
+    @Override
     public void deleteScreen(int id) throws ScreenIdDoesNotExistException {
-        try (MongoClient mongoClient = MongoClients.create(uri)) {
-            MongoCollection<Document> screens = mongoClient.getDatabase("cinema").getCollection("screens");
-            Document doc = screens.find(eq("_id", id)).first();
-            if (doc == null) {
-                throw new ScreenIdDoesNotExistException("Screen with id %d does not exist".formatted(id));
-            }
-            screens.deleteOne(doc);
+        Document doc = screens().find(eq("_id", id)).first();
+        if (doc == null) {
+            throw new ScreenIdDoesNotExistException("Screen with id %d does not exist".formatted(id));
+        }
+        screens().deleteOne(doc);
+    }
+
+    /**
+     * Convert every screen that still stores its seats as a nested array of booleans to the packed seat map.
+     * A screen that is modified while it is being converted is skipped, and is converted by running this method again.
+     * @return The number of screens converted.
+     * @see ScreenDocumentConverter
+     */
+    public int migrateSeatEncoding()
+    {
+        int migrated = 0;
+        for (Document doc : screens().find(exists("seatRows", false))) {
+            Screen screen = ScreenDocumentConverter.convertDocumentToScreen(doc);
+            // Replacing only the exact document that was read means that a concurrent booking is never overwritten.
+            UpdateResult result = screens().replaceOne(doc, ScreenDocumentConverter.convertScreenToDocument(screen));
+            migrated += result.getModifiedCount();
+        }
+        return migrated;
+    }
+
+    /**
+     * Get a filter that matches documents with a version. Documents written before screens were versioned have no
+     * 'version' field, and match version 0.
+     * @param version The version.
+     * @return The filter.
+     */
+    private static Bson versionIs(long version)
+    {
+        return version == 0 ? or(eq("version", 0), exists("version", false)) : eq("version", version);
+    }
+
+    /**
+     * Get a filter that matches documents where a bit of a 64-bit field is set, i.e., where the seat is available.
+     * @param field The name of the field.
+     * @param bit The position of the bit (0 to 63).
+     * @return The filter.
+     */
+    private static Bson bitIsSet(String field, int bit)
+    {
+        return bitsAreSet(field, 1L << bit);
+    }
+
+    /**
+     * Get a filter that matches documents where every bit of a mask is set in a 64-bit field, i.e., where every seat
+     * of the mask is available.
+     * @param field The name of the field.
+     * @param mask The bits to check.
+     * @return The filter.
+     */
+    private static Bson bitsAreSet(String field, long mask)
+    {
+        // The bit positions are given as a list, as a numeric bit mask must fit in a signed 32-bit integer.
+        List<Integer> bits = new ArrayList<>(Long.bitCount(mask));
+        for (long remaining = mask; remaining != 0; remaining &= remaining - 1) {
+            bits.add(Long.numberOfTrailingZeros(remaining));
         }
+        return new Document(field, new Document("$bitsAllSet", bits));
     }
 }
@@ -1,30 +1,45 @@
 package com.cinema.cinema;
 
-import org.bson.BsonArray;
-import org.bson.BsonBoolean;
-import org.bson.BsonString;
 import org.bson.Document;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-
-import static java.util.Arrays.asList;
+import java.util.List;
 
+/**
+ * This class converts Screen objects to and from the documents stored in the database.
+ *
+ * The seats are stored as a packed bit map: the field 'seatRows' has one array per row, and each array holds the
+ * row's seats as 64-bit integers, where each bit is one seat (1 = available, 0 = booked). Seat (column, row) is bit
+ * ((column - 1) % 64) of element 'seatRows.(row - 1).((column - 1) / 64)'. The fields 'columns' and 'rows' store the
+ * size of the screen. Storing 64 seats in one element keeps the documents small, and because the element of a seat
+ * can be found from its position alone, a single seat can be booked atomically with '$bit' on one element.
+ *
+ * The fields 'capacity' and 'availableSeats' store the number of seats, and the number of available seats. They are
+ * kept exact by the same update that books or frees a seat, so a screen can be summarised without reading its seats.
+ * The field 'version' is increased by every update of the document (see Screen.getVersion()).
+ *
+ * Older documents store the seats as a nested array of booleans in the field 'seats'. These can still be read,
+ * and are converted to the packed form by ScreenDataManipulator.migrateSeatEncoding().
+ * @author hari_rathod
+ * @version 2023.07.04
+ */
 public class ScreenDocumentConverter
 {
+    // The number of seats stored in each element of a row in 'seatRows'.
+    public static final int SEATS_PER_WORD = Long.SIZE;
+
     public static Screen convertDocumentToScreen(Document d)
     {
-        ArrayList<ArrayList<Boolean>> docSeats = (ArrayList<ArrayList<Boolean>>) d.get("seats");
-        boolean[][] seats = new boolean[docSeats.size()][docSeats.get(0).size()];
-        for (int i = 0; i < seats.length; i++) {
-            for (int j = 0; j < seats[0].length; j++) {
-                seats[i][j] = docSeats.get(i).get(j);
-            }
+        SeatMap seats;
+        if (d.containsKey("seatRows")) {
+            seats = decodeSeats(d.getList("seatRows", List.class), d.getInteger("columns"), d.getInteger("rows"));
+        } else {
+            seats = SeatMap.fromGrid(decodeLegacySeats(d));
         }
 
         // Create a screen with the appropriate id and seats.
-        Screen screen = new Screen((Integer) d.get("_id"), docSeats.size(), docSeats.get(0).size());
-        screen.setSeats(seats);
+        Screen screen = new Screen((Integer) d.get("_id"), seats.getColumns(), seats.getRows());
+        screen.setSeatMap(seats);
 
         // If a screen has a screening, set its movie title and ticket cost.
         if ((Boolean) d.get("hasMovieScreening")) {
@@ -32,27 +47,140 @@ public class ScreenDocumentConverter
         } else {
             screen.removeMovie();
         }
+        // Documents written before screens were versioned have version 0.
+        screen.setVersion(((Number) d.getOrDefault("version", 0L)).longValue());
 
         return screen;
     }
 
     public static Document convertScreenToDocument(Screen screen)
     {
+        SeatMap seats = screen.getSeatMap();
         Document document = new Document("_id", screen.getId());
         document.append("hasMovieScreening", screen.hasMovieScreening())
                 .append("movieTitle", screen.getMovieTitle())
-                .append("ticketCost", screen.getTicketCost());
-        // Convert the List of seats to a BSON array.
-        BsonArray bsonSeats = new BsonArray();
-        for (boolean[] row : screen.getSeats()) {
-            BsonArray bsonRow = new BsonArray();
-            for (boolean seat : row) {
-                bsonRow.add(new BsonBoolean(seat));
+                .append("ticketCost", screen.getTicketCost())
+                .append("columns", seats.getColumns())
+                .append("rows", seats.getRows())
+                .append("capacity", screen.getNumberOfSeats())
+                .append("availableSeats", screen.getNumberOfAvailableSeats())
+                .append("seatRows", encodeSeats(seats))
+                .append("version", screen.getVersion());
+
+        return document;
+    }
+
+    /**
+     * Convert a document to the summary of a screen. Only the seats of documents that do not store the available
+     * seat count (documents that have not been migrated) are read.
+     * @param d The document. Its seats may be excluded, unless it has not been migrated.
+     * @return The summary of the screen.
+     */
+    public static ScreenSummary convertDocumentToSummary(Document d)
+    {
+        if (!d.containsKey("availableSeats")) {
+            return new ScreenSummary(convertDocumentToScreen(d));
+        }
+        return new ScreenSummary(d.getInteger("_id"), d.getString("movieTitle"), d.getBoolean("hasMovieScreening"),
+                d.getInteger("ticketCost"), d.getInteger("columns"), d.getInteger("rows"),
+                d.getInteger("availableSeats"), ((Number) d.getOrDefault("version", 0L)).longValue());
+    }
+
+    /**
+     * Get the name of the field that stores a seat, e.g., 'seatRows.3.0'.
+     * @param columnNumber The column number of the seat. 1 is the number of the first column.
+     * @param rowNumber The row number of the seat. 1 is the number of the first row.
+     * @return The name of the 64-bit element storing the seat.
+     */
+    public static String getSeatField(int columnNumber, int rowNumber)
+    {
+        return "seatRows.%d.%d".formatted(rowNumber - 1, (columnNumber - 1) / SEATS_PER_WORD);
+    }
+
+    /**
+     * Get the position of a seat's bit, within the element that stores the seat.
+     * @param columnNumber The column number of the seat. 1 is the number of the first column.
+     * @return The bit position (0 to 63) of the seat.
+     */
+    public static int getSeatBit(int columnNumber)
+    {
+        return (columnNumber - 1) % SEATS_PER_WORD;
+    }
+
+    /**
+     * Get the packed seat map of an empty screen, i.e., a screen where every seat is available.
+     * @param columns The number of columns in the screen.
+     * @param rows The number of rows in the screen.
+     * @return The packed seat map, with a bit set for every seat.
+     */
+    public static List<List<Long>> getEmptySeatRows(int columns, int rows)
+    {
+        List<Long> emptyRow = new ArrayList<>();
+        for (int start = 0; start < columns; start += SEATS_PER_WORD) {
+            int seatsInWord = Math.min(SEATS_PER_WORD, columns - start);
+            emptyRow.add(seatsInWord == SEATS_PER_WORD ? -1L : (1L << seatsInWord) - 1);
+        }
+        List<List<Long>> seatRows = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            seatRows.add(emptyRow);
+        }
+        return seatRows;
+    }
+
+    /**
+     * Copy the words of a seat map into rows of 64-bit words. A SeatMap stores its seats in the same layout as the
+     * document, so no seat is converted on its own.
+     * @param seats The seat map.
+     * @return The packed seat map.
+     */
+    private static List<List<Long>> encodeSeats(SeatMap seats)
+    {
+        List<List<Long>> seatRows = new ArrayList<>(seats.getRows());
+        for (int row = 1; row <= seats.getRows(); row++) {
+            List<Long> words = new ArrayList<>(seats.getWordsPerRow());
+            for (int word = 0; word < seats.getWordsPerRow(); word++) {
+                words.add(seats.getWord(row, word));
             }
-            bsonSeats.add(bsonRow);
+            seatRows.add(words);
         }
-        document.append("seats", bsonSeats);
+        return seatRows;
+    }
 
-        return document;
+    /**
+     * Unpack rows of 64-bit words into a seat map.
+     * @param seatRows The packed seat map. The words may be stored as 32-bit or 64-bit integers.
+     * @param columns The number of columns in the screen.
+     * @param rows The number of rows in the screen.
+     * @return The seat map.
+     */
+    private static SeatMap decodeSeats(List<?> seatRows, int columns, int rows)
+    {
+        int wordsPerRow = (columns + SEATS_PER_WORD - 1) / SEATS_PER_WORD;
+        long[] words = new long[wordsPerRow * rows];
+        for (int row = 0; row < rows; row++) {
+            List<?> rowWords = (List<?>) seatRows.get(row);
+            for (int word = 0; word < wordsPerRow; word++) {
+                words[row * wordsPerRow + word] = ((Number) rowWords.get(word)).longValue();
+            }
+        }
+        return SeatMap.fromWords(columns, rows, words);
+    }
+
+    /**
+     * Read the seats of a document that stores them as a nested array of booleans.
+     * @param d The document.
+     * @return The grid of seats, indexed by [column][row].
+     */
+    private static boolean[][] decodeLegacySeats(Document d)
+    {
+        List<?> docSeats = d.getList("seats", List.class);
+        boolean[][] seats = new boolean[docSeats.size()][((List<?>) docSeats.get(0)).size()];
+        for (int i = 0; i < seats.length; i++) {
+            List<?> column = (List<?>) docSeats.get(i);
+            for (int j = 0; j < seats[0].length; j++) {
+                seats[i][j] = (Boolean) column.get(j);
+            }
+        }
+        return seats;
     }
 }
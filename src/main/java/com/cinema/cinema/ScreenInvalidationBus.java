@@ -0,0 +1,106 @@
+package com.cinema.cinema;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * The process-wide bus that screen invalidations are published on. Whenever a screen is written, the writer publishes
+ * an invalidation, and every subscribed listener (e.g., the cache of every TicketOffice in the process) drops its copy
+ * of the screen. Listeners are held weakly, so a cache that is no longer used does not need to unsubscribe.
+ *
+ * Invalidations can also be carried to sibling processes on the same machine through an InvalidationChannel.
+ * A DatagramInvalidationChannel is used if the following system properties are set:
+ *          -Dcache.invalidation.port       The port this process receives invalidations on.
+ *          -Dcache.invalidation.peers      The ports of all the processes, separated by commas, e.g., '5301,5302'.
+ * @author hari_rathod
+ * @version 2023.06.14
+ */
+public class ScreenInvalidationBus {
+
+    // The bus shared by the whole process. Null until it is first used.
+    private static ScreenInvalidationBus instance;
+
+    private final Set<ScreenInvalidationListener> listeners = Collections.newSetFromMap(new WeakHashMap<>());
+
+    // Carries invalidations to other processes, or null if invalidations stay in this process.
+    private final InvalidationChannel channel;
+
+    /**
+     * Create a bus.
+     * @param channel The channel to other processes, or null if invalidations stay in this process.
+     */
+    public ScreenInvalidationBus(InvalidationChannel channel)
+    {
+        this.channel = channel;
+        if (channel != null) {
+            channel.start(this::deliver);
+        }
+    }
+
+    /**
+     * Get the bus shared by the whole process, creating it first if it does not exist.
+     * @return The shared bus.
+     */
+    public static synchronized ScreenInvalidationBus getInstance()
+    {
+        if (instance == null) {
+            instance = new ScreenInvalidationBus(createChannel());
+        }
+        return instance;
+    }
+
+    /**
+     * Subscribe a listener to the invalidations published in this process, and received from other processes.
+     * @param listener The listener. It is held weakly, so it is unsubscribed when it is no longer used.
+     */
+    public synchronized void subscribe(ScreenInvalidationListener listener)
+    {
+        listeners.add(listener);
+    }
+
+    /**
+     * Publish the invalidation of a screen, to the listeners in this process and to the other processes.
+     * @param screenId The id of the screen that was changed.
+     */
+    public void publish(int screenId)
+    {
+        deliver(screenId);
+        if (channel != null) {
+            channel.send(screenId);
+        }
+    }
+
+    /**
+     * Tell the listeners in this process about an invalidation.
+     * @param screenId The id of the screen that was changed.
+     */
+    private void deliver(int screenId)
+    {
+        List<ScreenInvalidationListener> subscribed;
+        synchronized (this) {
+            subscribed = new ArrayList<>(listeners);
+        }
+        for (ScreenInvalidationListener listener : subscribed) {
+            listener.screenInvalidated(screenId);
+        }
+    }
+
+    /**
+     * Create the channel to other processes chosen by the 'cache.invalidation.*' system properties.
+     * @return The channel, or null if the properties are not set.
+     */
+    private static InvalidationChannel createChannel()
+    {
+        Integer port = Integer.getInteger("cache.invalidation.port");
+        String peers = System.getProperty("cache.invalidation.peers");
+        if (port == null || peers == null) {
+            return null;
+        }
+        List<Integer> peerPorts = Arrays.stream(peers.split(",")).map(String::trim).map(Integer::valueOf).toList();
+        return new DatagramInvalidationChannel(port, peerPorts);
+    }
+}
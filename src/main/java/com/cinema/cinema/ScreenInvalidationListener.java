@@ -0,0 +1,16 @@
+package com.cinema.cinema;
+
+/**
+ * A listener that is told when a stored screen has been changed, so any copy of the screen it holds is stale.
+ * @author hari_rathod
+ * @version 2023.06.14
+ * @see ScreenInvalidationBus
+ */
+public interface ScreenInvalidationListener {
+
+    /**
+     * Called when a stored screen has been changed or deleted.
+     * @param screenId The id of the screen.
+     */
+    void screenInvalidated(int screenId);
+}
@@ -0,0 +1,103 @@
+package com.cinema.cinema;
+
+import java.util.List;
+
+/**
+ * The storage of the screens in the cinema. TicketOffice accesses and modifies screens only through this interface,
+ * so the storage backend can be chosen by configuration (see ScreenRepositoryFactory).
+ * Screens returned by a ScreenRepository are snapshots: modifying them does not modify the stored screens.
+ * @author hari_rathod
+ * @version 2023.06.29
+ * @see Screen
+ */
+public interface ScreenRepository {
+
+    /**
+     * Get all screens from the storage.
+     * @return A list of all the screens.
+     */
+    List<Screen> getAllScreens();
+
+    /**
+     * Get the summaries of the screens, in order of id. The seats of the screens are not read.
+     * @param onlyWithScreening If true, only the screens that are showing a movie are summarised.
+     * @return The summaries of the screens.
+     */
+    List<ScreenSummary> getScreenSummaries(boolean onlyWithScreening);
+
+    /**
+     * Get the screen with matching id.
+     * @param id The id of the screen we want to retrieve.
+     * @return The screen with the matching id.
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     */
+    Screen getScreenById(int id) throws ScreenIdDoesNotExistException;
+
+    /**
+     * Get the version of the screen with matching id, without reading its seats. The version is increased by every
+     * write to the screen, so a copy of a screen with the same version is up to date.
+     * @param id The id of the screen.
+     * @return The version of the screen.
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     * @see Screen#getVersion()
+     */
+    long getScreenVersion(int id) throws ScreenIdDoesNotExistException;
+
+    /**
+     * Record the screen in the storage. Overwrites the existing screen with matching id, but only if its version is
+     * the version of the provided screen (compare-and-set), otherwise adds the provided screen as a 'new screen'.
+     * @param screen The screen to be recorded. On success, its version is set to the version of the stored screen.
+     * @throws ScreenVersionConflictException If the stored screen has been changed since the provided screen was read.
+     */
+    void recordScreen(Screen screen) throws ScreenVersionConflictException;
+
+    /**
+     * Book a single seat in a screen, but only if the seat is available. Checking and booking the seat is a single
+     * atomic operation, so two concurrent bookings of the same seat can never both succeed.
+     * @param id The id of the screen.
+     * @param columnNumber The column number of the seat to book. 1 is the number of the first column.
+     * @param rowNumber The row number of the seat to book. 1 is the number of the first row.
+     * @return True if the seat was booked, false if the seat was unavailable (already booked).
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     */
+    boolean bookSeat(int id, int columnNumber, int rowNumber) throws ScreenIdDoesNotExistException;
+
+    /**
+     * Book several seats in a screen, but only if every one of them is available: either all the seats are booked,
+     * or none of them are. Checking and booking the seats is a single atomic operation.
+     * @param id The id of the screen.
+     * @param seats The seats to book. The seats must be within the screen, and must not be repeated.
+     * @return The seats that were unavailable (already booked), in the order given. If the list is empty, every seat
+     * was booked; otherwise, no seat was booked.
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     */
+    List<SeatPosition> bookSeats(int id, List<SeatPosition> seats) throws ScreenIdDoesNotExistException;
+
+    /**
+     * Update the movie screening in a screen. This does not clear the seats in the screen. If the screen is changed by
+     * another writer during the update, the update is retried (see RetryPolicy).
+     * @param id The id of the screen to be updated.
+     * @param movieTitle The title of the movie.
+     * @param ticketCost The cost of a ticket to watch this movie.
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     * @throws ScreenVersionConflictException If the screen was changed by another writer during every attempt.
+     */
+    void updateScreening(int id, String movieTitle, int ticketCost)
+            throws ScreenIdDoesNotExistException, ScreenVersionConflictException;
+
+    /**
+     * Remove the movie screening from a screen and empty the screen. If the screen is changed by another writer during
+     * the update, the update is retried (see RetryPolicy).
+     * @param id The id of the screen to remove the movie screening from.
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     * @throws ScreenVersionConflictException If the screen was changed by another writer during every attempt.
+     */
+    void removeScreening(int id) throws ScreenIdDoesNotExistException, ScreenVersionConflictException;
+
+    /**
+     * Delete a screen from the storage.
+     * @param id The id of the screen that is to be removed (deleted).
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     */
+    void deleteScreen(int id) throws ScreenIdDoesNotExistException;
+}
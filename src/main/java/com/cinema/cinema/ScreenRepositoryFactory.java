@@ -0,0 +1,97 @@
+package com.cinema.cinema;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * This class creates the ScreenRepository that the cinema stores its screens in. The backend is chosen with the
+ * system property 'storage':
+ *          -Dstorage=mongo     The screens are stored in the MongoDB database (default).
+ *          -Dstorage=file      The screens are stored in a local file, see Filename.SCREEN_STORE.
+ *          -Dstorage=memory    The screens are stored in memory only, and are lost when the application quits.
+ *
+ * With -Dstorage=mongo, seat bookings can be written to the database in batches (see WriteBehindScreenRepository):
+ *          -Dmongo.writeBehind=true                    Journal bookings locally, and write them in batches.
+ *          -Dmongo.writeBehind.batchSize               The number of bookings that causes a write (default 100).
+ *          -Dmongo.writeBehind.flushIntervalMillis     The longest time a booking waits to be written (default 50).
+ *
+ * Screens read by id are cached in memory (see CachingScreenRepository):
+ *          -Dcache.enabled                 Whether screens are cached (default true).
+ *          -Dcache.maxSeats                The largest total number of seats of the cached screens (default 100000).
+ *          -Dcache.maxStalenessMillis      How long a cached screen is used before it is revalidated (default 1000).
+ * @author hari_rathod
+ * @version 2023.07.04
+ */
+public class ScreenRepositoryFactory {
+
+    // The write-behind repository shared by the process, as every instance would append to (and discard from) the
+    // same journal file. Null until it is first created.
+    private static WriteBehindScreenRepository writeBehindRepository;
+
+    /**
+     * Create the ScreenRepository chosen by the 'storage' system property, wrapped in a cache unless it is disabled.
+     * @return A new ScreenRepository.
+     * @throws IllegalArgumentException If the 'storage' system property is not a recognised backend.
+     */
+    public static ScreenRepository createScreenRepository()
+    {
+        ScreenRepository repository = createStorage();
+        if (!Boolean.parseBoolean(System.getProperty("cache.enabled", "true"))) {
+            return repository;
+        }
+        return new CachingScreenRepository(repository, Long.getLong("cache.maxSeats", 100000),
+                Long.getLong("cache.maxStalenessMillis", 1000));
+    }
+
+    /**
+     * Create the storage backend chosen by the 'storage' system property.
+     * @return A new ScreenRepository.
+     * @throws IllegalArgumentException If the 'storage' system property is not a recognised backend.
+     */
+    private static ScreenRepository createStorage()
+    {
+        String storage = System.getProperty("storage", "mongo");
+        return switch (storage.toLowerCase()) {
+            case "mongo" -> Boolean.getBoolean("mongo.writeBehind") ? getWriteBehindRepository() : new ScreenDataManipulator();
+            case "file" -> new FileScreenRepository();
+            case "memory" -> new InMemoryScreenRepository();
+            default -> throw new IllegalArgumentException("Unrecognised storage '" + storage + "'. Use mongo, file or memory.");
+        };
+    }
+
+    /**
+     * Get a summary of the metrics of the write-behind repository (see WriteBehindScreenRepository.getSummary()),
+     * including the number of acknowledged bookings that were lost, as a String.
+     * @return A summary of the metrics, or an empty String if bookings are not written behind.
+     */
+    public static synchronized String getWriteBehindSummary()
+    {
+        return writeBehindRepository == null ? "" : writeBehindRepository.getSummary();
+    }
+
+    /**
+     * Get the repository that journals bookings in the file Filename.BOOKING_JOURNAL, and writes them to the
+     * database in batches. It is created by the first call, and shared by every later caller, so only one instance
+     * uses the journal. The waiting bookings are written when the JVM shuts down.
+     * @return The WriteBehindScreenRepository of the process.
+     * @throws UncheckedIOException If the journal could not be opened.
+     */
+    private static synchronized WriteBehindScreenRepository getWriteBehindRepository()
+    {
+        if (writeBehindRepository != null) {
+            return writeBehindRepository;
+        }
+        try {
+            BookingJournal journal = new BookingJournal(Path.of(Filename.BOOKING_JOURNAL.toString()));
+            WriteBehindScreenRepository repository = new WriteBehindScreenRepository(new ScreenDataManipulator(),
+                    journal, Integer.getInteger("mongo.writeBehind.batchSize", 100),
+                    Long.getLong("mongo.writeBehind.flushIntervalMillis", 50));
+            Runtime.getRuntime().addShutdownHook(new Thread(repository::close));
+            writeBehindRepository = repository;
+            return repository;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the booking journal.", e);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.cinema.cinema;
+
+/**
+ * A summary of a Screen: its id, screening and seat counts, but not its seats. Listing the screens only needs
+ * summaries, so the seats of every screen do not need to be read from storage.
+ * @author hari_rathod
+ * @version 2023.07.01
+ * @see Screen
+ */
+public class ScreenSummary {
+    private final int id;
+    private final String movieTitle;
+    private final boolean hasMovieScreening;
+    private final int ticketCost;
+    private final int numberOfColumns;
+    private final int numberOfRows;
+    private final int numberOfAvailableSeats;
+    // The version of the screen summarised (see Screen.getVersion()).
+    private final long version;
+    // The number of seats held for customers while they confirm their bookings. Held seats are not available.
+    private final int numberOfHeldSeats;
+
+    /**
+     * Initialise fields.
+     * @param id The id of the screen.
+     * @param movieTitle The title of the movie being shown, or null if there is no screening.
+     * @param hasMovieScreening Whether the screen is showing a movie.
+     * @param ticketCost The cost of a ticket (in cents).
+     * @param numberOfColumns The number of columns of seats.
+     * @param numberOfRows The number of rows of seats.
+     * @param numberOfAvailableSeats The number of seats that are available (not booked).
+     * @param version The version of the screen.
+     */
+    public ScreenSummary(int id, String movieTitle, boolean hasMovieScreening, int ticketCost, int numberOfColumns,
+                         int numberOfRows, int numberOfAvailableSeats, long version)
+    {
+        this(id, movieTitle, hasMovieScreening, ticketCost, numberOfColumns, numberOfRows, numberOfAvailableSeats,
+                version, 0);
+    }
+
+    private ScreenSummary(int id, String movieTitle, boolean hasMovieScreening, int ticketCost, int numberOfColumns,
+                          int numberOfRows, int numberOfAvailableSeats, long version, int numberOfHeldSeats)
+    {
+        this.id = id;
+        this.movieTitle = movieTitle;
+        this.hasMovieScreening = hasMovieScreening;
+        this.ticketCost = ticketCost;
+        this.numberOfColumns = numberOfColumns;
+        this.numberOfRows = numberOfRows;
+        this.numberOfAvailableSeats = numberOfAvailableSeats;
+        this.version = version;
+        this.numberOfHeldSeats = numberOfHeldSeats;
+    }
+
+    /**
+     * Create the summary of a screen.
+     * @param screen The screen to summarise.
+     */
+    public ScreenSummary(Screen screen)
+    {
+        this(screen.getId(), screen.getMovieTitle(), screen.hasMovieScreening(), screen.getTicketCost(),
+                screen.getNumberOfColumns(), screen.getNumberOfRows(), screen.getNumberOfAvailableSeats(),
+                screen.getVersion());
+    }
+
+    /**
+     * Create a copy of this summary in which some of the available seats are held for customers (see SeatHolds).
+     * @param numberOfHeldSeats The number of held seats, which are not booked in storage.
+     * @return The summary, with the held seats no longer counted as available.
+     */
+    public ScreenSummary withHeldSeats(int numberOfHeldSeats)
+    {
+        if (numberOfHeldSeats == 0) {
+            return this;
+        }
+        return new ScreenSummary(id, movieTitle, hasMovieScreening, ticketCost, numberOfColumns, numberOfRows,
+                Math.max(0, numberOfAvailableSeats - numberOfHeldSeats), version, numberOfHeldSeats);
+    }
+
+    /**
+     * Get the details of the Screen, including id, current movie, and ticket
+     * cost.
+     * @return The details of the screen.
+     */
+    public String getDetails()
+    {
+        String details = "";
+        details += "Screen: " + id + "\n";
+        details += "Current Movie: '" + (movieTitle==null ? "No screening" : movieTitle) + "'\n";
+        details += "Seat capacity: " + numberOfColumns + " columns, by " + numberOfRows + " rows.\n";
+        details += "Available Seat Capacity: " + numberOfAvailableSeats + "\n";
+        if (numberOfHeldSeats > 0) {
+            details += "Seats Held (being booked): " + numberOfHeldSeats + "\n";
+        }
+        details += "Ticket Cost: £" + (ticketCost / 100 ) + "\n";
+
+        return details;
+    }
+
+    /**
+     * Get the id of the screen.
+     * @return The id.
+     */
+    public int getId()
+    {
+        return id;
+    }
+
+    /**
+     * Get the title of the movie being shown.
+     * @return The title of the movie, or null if there is no screening.
+     */
+    public String getMovieTitle()
+    {
+        return movieTitle;
+    }
+
+    /**
+     * Check whether the screen is currently showing a movie.
+     * @return True if the screen is showing a movie, false if it isn't showing a movie.
+     */
+    public boolean hasMovieScreening()
+    {
+        return hasMovieScreening;
+    }
+
+    /**
+     * Get the cost (in cents) of a ticket for the movie.
+     * @return The cost of a ticket to see the movie.
+     */
+    public int getTicketCost()
+    {
+        return ticketCost;
+    }
+
+    /**
+     * Get the total number of seats.
+     * @return The total number of seats.
+     */
+    public int getNumberOfSeats()
+    {
+        return numberOfColumns * numberOfRows;
+    }
+
+    /**
+     * Get the number of available seats: seats that are neither booked nor held.
+     * @return The number of available seats.
+     */
+    public int getNumberOfAvailableSeats()
+    {
+        return numberOfAvailableSeats;
+    }
+
+    /**
+     * Get the version of the screen summarised. The version is increased by every write to the screen, so two
+     * summaries of a screen with the same version have the same screening and seat counts.
+     * @return The version of the screen.
+     */
+    public long getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * Get the number of seats held for customers while they confirm their bookings.
+     * @return The number of held seats.
+     */
+    public int getNumberOfHeldSeats()
+    {
+        return numberOfHeldSeats;
+    }
+}
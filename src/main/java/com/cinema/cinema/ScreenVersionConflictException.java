@@ -0,0 +1,39 @@
+package com.cinema.cinema;
+
+public class ScreenVersionConflictException extends Exception {
+
+    private static final long serialVersionUID = -8079177965183412053L;
+
+    // The id of the screen that was written.
+    private final int screenId;
+
+    // The version the writer expected the stored screen to have.
+    private final long expectedVersion;
+
+    /**
+     * Constructor for ScreenVersionConflictException.
+     * @param screenId The id of the screen that was written.
+     * @param expectedVersion The version the writer expected the stored screen to have.
+     */
+    public ScreenVersionConflictException(int screenId, long expectedVersion) {
+        super("Screen with id %d was changed by another writer (expected version %d).".formatted(screenId, expectedVersion));
+        this.screenId = screenId;
+        this.expectedVersion = expectedVersion;
+    }
+
+    /**
+     * Get the id of the screen that was written.
+     * @return The id of the screen.
+     */
+    public int getScreenId() {
+        return screenId;
+    }
+
+    /**
+     * Get the version the writer expected the stored screen to have.
+     * @return The expected version.
+     */
+    public long getExpectedVersion() {
+        return expectedVersion;
+    }
+}
@@ -0,0 +1,193 @@
+package com.cinema.cinema;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Chooses which screen a customer is sent to when a movie is showing on several screens. For each movie the screens
+ * showing it are kept in order of a policy (by default, the screen with the most available seats first), so bookings
+ * are spread over the screens instead of filling one screen while the others are empty.
+ *
+ * The number of available seats of each screen is kept in memory, and is updated as tickets are booked, so a screen is
+ * chosen without reading every screen showing the movie. The counts are corrected whenever a screen is read from the
+ * storage, in case seats were booked elsewhere (e.g., by another process).
+ *
+ * The policy is chosen by the system property -Drouting.policy (see Policy), e.g., -Drouting.policy=LEAST_FULL.
+ * @author hari_rathod
+ * @version 2023.07.03
+ * @see TicketOffice
+ */
+public class ScreeningRouter {
+
+    /**
+     * The order in which the screens showing a movie are offered. Screens that are equally good are offered in order
+     * of id.
+     */
+    public enum Policy {
+        /** The screen with the most available seats first. */
+        MOST_AVAILABLE(Comparator.comparingInt((Candidate candidate) -> candidate.availableSeats).reversed()),
+        /** The screen with the largest share of its seats available first, so screens of any size fill evenly. */
+        LEAST_FULL((first, second) -> Long.compare((long) second.availableSeats * first.numberOfSeats,
+                (long) first.availableSeats * second.numberOfSeats)),
+        /** The screen with the lowest id first, i.e., one screen is filled before the next. */
+        LOWEST_ID((first, second) -> 0);
+
+        private final Comparator<Candidate> order;
+
+        Policy(Comparator<Candidate> order)
+        {
+            this.order = order;
+        }
+    }
+
+    private final Comparator<Candidate> order;
+
+    // The screens showing each movie, in order of the policy, mapped by the normalised title of the movie.
+    private final Map<String, TreeSet<Candidate>> candidatesByTitle = new HashMap<>();
+
+    // Every screen showing a movie, mapped by id.
+    private final Map<Integer, Candidate> candidates = new HashMap<>();
+
+    /**
+     * Create a router with the policy chosen by the 'routing.policy' system property (default MOST_AVAILABLE).
+     */
+    public ScreeningRouter()
+    {
+        this(Policy.valueOf(System.getProperty("routing.policy", Policy.MOST_AVAILABLE.name())));
+    }
+
+    /**
+     * Create a router.
+     * @param policy The order in which the screens showing a movie are offered.
+     */
+    public ScreeningRouter(Policy policy)
+    {
+        order = policy.order.thenComparingInt(candidate -> candidate.screenId);
+    }
+
+    /**
+     * Add (or replace) a screen showing a movie.
+     * @param screenId The id of the screen.
+     * @param movieTitle The title of the movie.
+     * @param numberOfSeats The total number of seats of the screen.
+     * @param availableSeats The number of available seats of the screen.
+     */
+    public synchronized void add(int screenId, String movieTitle, int numberOfSeats, int availableSeats)
+    {
+        remove(screenId);
+        Candidate candidate = new Candidate(screenId, normalise(movieTitle), numberOfSeats, availableSeats);
+        candidates.put(screenId, candidate);
+        candidatesByTitle.computeIfAbsent(candidate.title, title -> new TreeSet<>(order)).add(candidate);
+    }
+
+    /**
+     * Remove a screen, as it no longer shows a movie. If the screen is not in the router, nothing happens.
+     * @param screenId The id of the screen.
+     */
+    public synchronized void remove(int screenId)
+    {
+        Candidate candidate = candidates.remove(screenId);
+        if (candidate == null) {
+            return;
+        }
+        TreeSet<Candidate> screens = candidatesByTitle.get(candidate.title);
+        screens.remove(candidate);
+        if (screens.isEmpty()) {
+            candidatesByTitle.remove(candidate.title);
+        }
+    }
+
+    /**
+     * Remove every screen from the router.
+     */
+    public synchronized void clear()
+    {
+        candidates.clear();
+        candidatesByTitle.clear();
+    }
+
+    /**
+     * Set the number of available seats of a screen, e.g., after reading the screen from the storage. If the screen
+     * is not in the router, nothing happens.
+     * @param screenId The id of the screen.
+     * @param availableSeats The number of available seats.
+     */
+    public synchronized void updateAvailableSeats(int screenId, int availableSeats)
+    {
+        Candidate candidate = candidates.get(screenId);
+        if (candidate == null || candidate.availableSeats == availableSeats) {
+            return;
+        }
+        // The screen is moved to its new place in the order, in O(log screens) steps.
+        TreeSet<Candidate> screens = candidatesByTitle.get(candidate.title);
+        screens.remove(candidate);
+        candidate.availableSeats = availableSeats;
+        screens.add(candidate);
+    }
+
+    /**
+     * Record that seats of a screen were booked.
+     * @param screenId The id of the screen.
+     * @param numberOfSeats The number of seats booked.
+     */
+    public synchronized void seatsBooked(int screenId, int numberOfSeats)
+    {
+        Candidate candidate = candidates.get(screenId);
+        if (candidate != null) {
+            updateAvailableSeats(screenId, Math.max(0, candidate.availableSeats - numberOfSeats));
+        }
+    }
+
+    /**
+     * Get the screens showing a movie, in the order they should be offered.
+     * @param movieTitle The exact title of the movie (case is ignored).
+     * @return The ids of the screens, best first. Empty if no screen in the router shows the movie.
+     */
+    public synchronized List<Integer> getCandidates(String movieTitle)
+    {
+        List<Integer> screenIds = new ArrayList<>();
+        for (Candidate candidate : candidatesByTitle.getOrDefault(normalise(movieTitle), new TreeSet<>(order))) {
+            screenIds.add(candidate.screenId);
+        }
+        return screenIds;
+    }
+
+    /**
+     * Get the number of available seats of a screen, as last known by the router.
+     * @param screenId The id of the screen.
+     * @return The number of available seats, or -1 if the screen is not in the router.
+     */
+    public synchronized int getAvailableSeats(int screenId)
+    {
+        Candidate candidate = candidates.get(screenId);
+        return candidate == null ? -1 : candidate.availableSeats;
+    }
+
+    private static String normalise(String movieTitle)
+    {
+        return movieTitle == null ? "" : movieTitle.trim().toLowerCase();
+    }
+
+    /**
+     * A screen showing a movie, and its number of available seats. The number is only changed while the screen is
+     * removed from the order of its movie.
+     */
+    private static class Candidate {
+        private final int screenId;
+        private final String title;
+        private final int numberOfSeats;
+        private int availableSeats;
+
+        private Candidate(int screenId, String title, int numberOfSeats, int availableSeats)
+        {
+            this.screenId = screenId;
+            this.title = title;
+            this.numberOfSeats = numberOfSeats;
+            this.availableSeats = availableSeats;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.cinema.cinema;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A view that takes its input from a script (e.g., a recorded input history) rather than from a user, and discards
+ * its output. It is used by SessionReplayDriver to run many sessions at once.
+ *
+ * Before returning each line, the view waits for the think time, as a user would. When the script runs out, the view
+ * returns the quit command, so the session finishes; if the session keeps asking for input after that (e.g., it is
+ * waiting for a number), the view stops the session by throwing an IllegalStateException.
+ * @author hari_rathod
+ * @version 2023.06.25
+ */
+public class ScriptedView implements View {
+
+    // The number of times the quit command is returned after the script has run out, before the session is stopped.
+    private static final int MAX_INPUTS_AFTER_SCRIPT = 10;
+
+    private final Iterator<String> script;
+    private final long thinkTimeNanos;
+
+    private int inputsAfterScript;
+
+    // The time spent waiting in getInput(), and the errors displayed, since they were last taken.
+    private long waitingNanos;
+    private int errors;
+
+    /**
+     * Create a view that returns the lines of a script.
+     * @param script The lines of input, in order.
+     * @param thinkTimeNanos How long (in nanoseconds) to wait before returning each line.
+     */
+    public ScriptedView(List<String> script, long thinkTimeNanos)
+    {
+        this.script = script.iterator();
+        this.thinkTimeNanos = thinkTimeNanos;
+    }
+
+    @Override
+    public void start()
+    {
+        // There is nothing to set up.
+    }
+
+    /**
+     * Get the next line of the script, after waiting for the think time.
+     * @return The next line, or the quit command if the script has run out.
+     * @throws IllegalStateException If the session keeps asking for input after the script has run out.
+     */
+    @Override
+    public String getInput()
+    {
+        long start = System.nanoTime();
+        if (thinkTimeNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(thinkTimeNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        waitingNanos += System.nanoTime() - start;
+
+        if (script.hasNext()) {
+            return script.next();
+        }
+        if (++inputsAfterScript > MAX_INPUTS_AFTER_SCRIPT) {
+            throw new IllegalStateException("The script ended while the session was still waiting for input.");
+        }
+        return CommandWord.QUIT.getCommandString();
+    }
+
+    @Override
+    public void displayWithFormatting(String text)
+    {
+        // Output is discarded.
+    }
+
+    @Override
+    public void displayError(String message)
+    {
+        errors++;
+    }
+
+    @Override
+    public void displayError(String title, String message)
+    {
+        errors++;
+    }
+
+    @Override
+    public void display(String text)
+    {
+        // Output is discarded.
+    }
+
+    /**
+     * Tickets are not saved to a file while replaying.
+     * @return null, as if the user cancelled.
+     */
+    @Override
+    public File getSelectedSaveFile()
+    {
+        return null;
+    }
+
+    /**
+     * Get the time spent waiting (thinking) in getInput() since this was last called, and reset it.
+     * @return The waiting time, in nanoseconds.
+     */
+    public long takeWaitingNanos()
+    {
+        long waited = waitingNanos;
+        waitingNanos = 0;
+        return waited;
+    }
+
+    /**
+     * Get the number of errors displayed since this was last called, and reset it.
+     * @return The number of errors.
+     */
+    public int takeErrors()
+    {
+        int displayed = errors;
+        errors = 0;
+        return displayed;
+    }
+}
@@ -0,0 +1,24 @@
+package com.cinema.cinema;
+
+/**
+ * A one-off program that converts the screens in the database from the old seat encoding (a nested array of booleans)
+ * to the packed seat map. It can be run more than once; screens that are already converted are skipped.
+ *
+ * Run with: java -cp cinema.jar -Dusername="<database-username>" -Dpassword="<database-password>" com.cinema.cinema.SeatEncodingMigration
+ * @author hari_rathod
+ * @version 2023.06.06
+ * @see ScreenDocumentConverter
+ */
+public class SeatEncodingMigration {
+
+    /**
+     * Convert all screens in the database to the packed seat map.
+     * @param args Not used.
+     */
+    public static void main(String[] args)
+    {
+        int migrated = new ScreenDataManipulator().migrateSeatEncoding();
+        System.out.println("Converted " + migrated + " screen(s) to the packed seat map.");
+        MongoClientProvider.close();
+    }
+}
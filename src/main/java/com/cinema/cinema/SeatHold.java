@@ -0,0 +1,93 @@
+package com.cinema.cinema;
+
+import java.util.List;
+
+/**
+ * A hold on seats of a screen: while a customer is confirming a booking, the seats they chose are held for them, so
+ * no other customer can book them. A hold is confirmed (its seats are booked), released, or expires once its time to
+ * live has passed.
+ * @author hari_rathod
+ * @version 2023.07.01
+ * @see SeatHolds
+ */
+public final class SeatHold
+{
+    /**
+     * The state of a hold. Only an active hold can be confirmed.
+     */
+    public enum State {
+        ACTIVE, CONFIRMED, RELEASED, EXPIRED
+    }
+
+    private final long id;
+    private final int screenId;
+    private final List<SeatPosition> seats;
+    private final long expiresAtMillis;
+    // Changed only by SeatHolds, while it is locked.
+    private volatile State state = State.ACTIVE;
+
+    /**
+     * Create an active hold.
+     * @param id The id of the hold.
+     * @param screenId The id of the screen.
+     * @param seats The held seats.
+     * @param expiresAtMillis The time (in milliseconds) the hold expires.
+     */
+    SeatHold(long id, int screenId, List<SeatPosition> seats, long expiresAtMillis)
+    {
+        this.id = id;
+        this.screenId = screenId;
+        this.seats = List.copyOf(seats);
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    /**
+     * Get the id of the hold.
+     * @return The id.
+     */
+    public long getId()
+    {
+        return id;
+    }
+
+    /**
+     * Get the id of the screen the seats are in.
+     * @return The id of the screen.
+     */
+    public int getScreenId()
+    {
+        return screenId;
+    }
+
+    /**
+     * Get the held seats.
+     * @return The seats, in the order they were held.
+     */
+    public List<SeatPosition> getSeats()
+    {
+        return seats;
+    }
+
+    /**
+     * Get the time the hold expires, unless it is confirmed or released first.
+     * @return The time (in milliseconds).
+     */
+    public long getExpiresAtMillis()
+    {
+        return expiresAtMillis;
+    }
+
+    /**
+     * Get the state of the hold.
+     * @return The state.
+     */
+    public State getState()
+    {
+        return state;
+    }
+
+    void setState(State state)
+    {
+        this.state = state;
+    }
+}
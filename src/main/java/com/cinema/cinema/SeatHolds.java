@@ -0,0 +1,305 @@
+package com.cinema.cinema;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * The seats held for customers of a TicketOffice while they confirm their bookings. A held seat cannot be held by
+ * another customer, or booked, until the hold is confirmed, released, or expires. Holds expire after a time to live;
+ * their deadlines are kept in a hashed timing wheel, which is advanced whenever the holds are used, so expiring holds
+ * costs O(1) per hold however many holds are waiting, and no thread is needed.
+ *
+ * Holds are kept in memory, so a hold is lost (i.e., released) if the application stops, and never leaves a seat
+ * booked in storage. A seat held here can still be booked by another process sharing the storage; confirming the hold
+ * then fails (see TicketOffice.confirmHold(...)).
+ *
+ * The holds of a TicketOffice are configured by the following system properties:
+ *          -Dhold.ttlMillis    How long a hold lasts (default 5 minutes).
+ *          -Dhold.tickMillis   The length of a tick of the timing wheel: holds expire up to one tick late (default
+ *                              100 milliseconds).
+ *          -Dhold.wheelSize    The number of buckets in the timing wheel (default 1024).
+ * @author hari_rathod
+ * @version 2023.07.01
+ * @see SeatHold
+ * @see TimingWheel
+ */
+public class SeatHolds
+{
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final TimingWheel<SeatHold> expiries;
+    // The timeouts of the active holds, mapped by the id of the hold.
+    private final Map<Long, TimingWheel.Timeout<SeatHold>> timeouts = new HashMap<>();
+    // The held seats of each screen, mapped by the id of the screen.
+    private final Map<Integer, Set<SeatPosition>> heldSeats = new HashMap<>();
+    private long nextId = 1;
+    // Increased whenever a seat is held, or stops being held.
+    private long changes;
+
+    // Metrics.
+    private final long createdAtMillis;
+    private long holdsPlaced;
+    private long holdsConfirmed;
+    private long holdsReleased;
+    private long holdsExpired;
+
+    /**
+     * Create the holds of a TicketOffice, configured by system properties.
+     */
+    public SeatHolds()
+    {
+        this(Long.getLong("hold.ttlMillis", TimeUnit.MINUTES.toMillis(5)), Long.getLong("hold.tickMillis", 100),
+                Integer.getInteger("hold.wheelSize", 1024));
+    }
+
+    /**
+     * Create the holds of a TicketOffice.
+     * @param ttlMillis How long (in milliseconds) a hold lasts.
+     * @param tickMillis The length (in milliseconds) of a tick of the timing wheel.
+     * @param wheelSize The number of buckets in the timing wheel.
+     */
+    public SeatHolds(long ttlMillis, long tickMillis, int wheelSize)
+    {
+        this(ttlMillis, tickMillis, wheelSize, System::currentTimeMillis);
+    }
+
+    /**
+     * Create the holds of a TicketOffice, reading the time from a clock.
+     * @param ttlMillis How long (in milliseconds) a hold lasts.
+     * @param tickMillis The length (in milliseconds) of a tick of the timing wheel.
+     * @param wheelSize The number of buckets in the timing wheel.
+     * @param clock The clock, in milliseconds.
+     */
+    SeatHolds(long ttlMillis, long tickMillis, int wheelSize, LongSupplier clock)
+    {
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        createdAtMillis = clock.getAsLong();
+        expiries = new TimingWheel<>(tickMillis, wheelSize, createdAtMillis);
+    }
+
+    /**
+     * Hold seats of a screen, but only if none of them is already held: either every seat is held, or none of them
+     * are. Whether the seats are booked in storage is not checked.
+     * @param screenId The id of the screen.
+     * @param seats The seats to hold.
+     * @return The hold.
+     * @throws UnavailableSeatException If a seat is already held. The exception lists every held seat.
+     */
+    public synchronized SeatHold hold(int screenId, List<SeatPosition> seats) throws UnavailableSeatException
+    {
+        long now = expire();
+        Set<SeatPosition> held = heldSeats.computeIfAbsent(screenId, id -> new HashSet<>());
+        List<SeatPosition> unavailable = new ArrayList<>();
+        for (SeatPosition seat : seats) {
+            if (held.contains(seat)) {
+                unavailable.add(seat);
+            }
+        }
+        if (!unavailable.isEmpty()) {
+            StringJoiner seatList = new StringJoiner("), (", "(", ")");
+            unavailable.forEach(seat -> seatList.add(seat.toString()));
+            throw new UnavailableSeatException("These seats are being booked by another customer: " + seatList,
+                    unavailable);
+        }
+
+        held.addAll(seats);
+        changes++;
+        SeatHold hold = new SeatHold(nextId++, screenId, seats, now + ttlMillis);
+        timeouts.put(hold.getId(), expiries.schedule(hold, hold.getExpiresAtMillis()));
+        holdsPlaced++;
+        return hold;
+    }
+
+    /**
+     * Confirm a hold, releasing its seats so they can be booked by the holder. This does not book the seats.
+     * @param hold The hold.
+     * @return true if the hold was confirmed, false if it had expired or was already confirmed or released.
+     */
+    public synchronized boolean confirm(SeatHold hold)
+    {
+        if (!end(hold, SeatHold.State.CONFIRMED)) {
+            return false;
+        }
+        holdsConfirmed++;
+        return true;
+    }
+
+    /**
+     * Release a hold, so its seats can be held or booked by other customers.
+     * @param hold The hold.
+     * @return true if the hold was released, false if it had expired or was already confirmed or released.
+     */
+    public synchronized boolean release(SeatHold hold)
+    {
+        if (!end(hold, SeatHold.State.RELEASED)) {
+            return false;
+        }
+        holdsReleased++;
+        return true;
+    }
+
+    /**
+     * Check whether a seat is held.
+     * @param screenId The id of the screen.
+     * @param seat The seat.
+     * @return true if the seat is held.
+     */
+    public synchronized boolean isHeld(int screenId, SeatPosition seat)
+    {
+        expire();
+        Set<SeatPosition> held = heldSeats.get(screenId);
+        return held != null && held.contains(seat);
+    }
+
+    /**
+     * Get the held seats of a screen.
+     * @param screenId The id of the screen.
+     * @return A copy of the held seats.
+     */
+    public synchronized Set<SeatPosition> getHeldSeats(int screenId)
+    {
+        expire();
+        return new HashSet<>(heldSeats.getOrDefault(screenId, Set.of()));
+    }
+
+    /**
+     * Get the number of held seats of a screen.
+     * @param screenId The id of the screen.
+     * @return The number of held seats.
+     */
+    public synchronized int getNumberOfHeldSeats(int screenId)
+    {
+        expire();
+        return heldSeats.getOrDefault(screenId, Set.of()).size();
+    }
+
+    /**
+     * Get the number of active holds.
+     * @return The number of holds.
+     */
+    public synchronized int getNumberOfHolds()
+    {
+        expire();
+        return expiries.size();
+    }
+
+    /**
+     * Get the number of changes to the held seats: the number is increased whenever a seat is held, or stops being
+     * held, so anything derived from the held seats is up to date while the number is the same.
+     * @return The number of changes.
+     */
+    public synchronized long getChangeCount()
+    {
+        expire();
+        return changes;
+    }
+
+    /**
+     * Expire every hold whose time to live has passed. This is called whenever the holds are used.
+     * @return The current time (in milliseconds).
+     */
+    public synchronized long expire()
+    {
+        long now = clock.getAsLong();
+        int expired = expiries.advance(now, hold -> {
+            timeouts.remove(hold.getId());
+            removeHeldSeats(hold);
+            hold.setState(SeatHold.State.EXPIRED);
+        });
+        if (expired > 0) {
+            holdsExpired += expired;
+            changes++;
+        }
+        return now;
+    }
+
+    /**
+     * Get a summary of the metrics, as a String: the number of holds placed, confirmed, released and expired, and
+     * their rates per second since the holds were created.
+     * @return A summary of the metrics.
+     */
+    public synchronized String getSummary()
+    {
+        long now = expire();
+        double seconds = Math.max(1, now - createdAtMillis) / 1000.0;
+        return "Active holds: " + expiries.size() + "\n"
+                + "Holds placed: %d (%.2f/s)%n".formatted(holdsPlaced, holdsPlaced / seconds)
+                + "Holds confirmed: %d (%.2f/s)%n".formatted(holdsConfirmed, holdsConfirmed / seconds)
+                + "Holds released: %d (%.2f/s)%n".formatted(holdsReleased, holdsReleased / seconds)
+                + "Holds expired: %d (%.2f/s)%n".formatted(holdsExpired, holdsExpired / seconds);
+    }
+
+    /**
+     * Get the number of holds placed since the holds were created.
+     * @return The number of holds placed.
+     */
+    public synchronized long getHoldsPlaced()
+    {
+        return holdsPlaced;
+    }
+
+    /**
+     * Get the number of holds confirmed since the holds were created.
+     * @return The number of holds confirmed.
+     */
+    public synchronized long getHoldsConfirmed()
+    {
+        return holdsConfirmed;
+    }
+
+    /**
+     * Get the number of holds released since the holds were created.
+     * @return The number of holds released.
+     */
+    public synchronized long getHoldsReleased()
+    {
+        return holdsReleased;
+    }
+
+    /**
+     * Get the number of holds expired since the holds were created.
+     * @return The number of holds expired.
+     */
+    public synchronized long getHoldsExpired()
+    {
+        expire();
+        return holdsExpired;
+    }
+
+    /**
+     * End an active hold, releasing its seats.
+     * @param hold The hold.
+     * @param state The state the hold ends in.
+     * @return true if the hold was ended, false if it had already ended (or expired).
+     */
+    private boolean end(SeatHold hold, SeatHold.State state)
+    {
+        expire();
+        TimingWheel.Timeout<SeatHold> timeout = timeouts.remove(hold.getId());
+        if (timeout == null || timeout.getItem() != hold) {
+            return false;
+        }
+        expiries.cancel(timeout);
+        removeHeldSeats(hold);
+        changes++;
+        hold.setState(state);
+        return true;
+    }
+
+    private void removeHeldSeats(SeatHold hold)
+    {
+        Set<SeatPosition> held = heldSeats.get(hold.getScreenId());
+        hold.getSeats().forEach(held::remove);
+        if (held.isEmpty()) {
+            heldSeats.remove(hold.getScreenId());
+        }
+    }
+}
@@ -0,0 +1,621 @@
+package com.cinema.cinema;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The seats of a screen, stored as a bit set: one bit per seat, set if the seat is available. Each row is stored in
+ * its own 64-bit words, so seat (column, row) is bit (column - 1) % 64 of word (column - 1) / 64 of the row. This is
+ * the same layout as the 'seatRows' of a screen's document (see ScreenDocumentConverter), so a row is converted to
+ * and from a document a word at a time.
+ *
+ * The number of available seats is kept up to date as seats are booked and released, so it is read without counting
+ * the seats. The number of available seats in each row is kept in a Fenwick tree, so the n-th available seat can be
+ * found (see selectAvailable(...)) in O(log rows) steps, plus one step per word of its row, however full the screen is.
+ * The longest run of adjacent available seats in each row is kept too, so a row without room for a group of seats is
+ * skipped without reading its seats (see findBestBlock(...)).
+ *
+ * A seat map may be shared by threads without locking. A seat is booked by a compare-and-set of its word, so of two
+ * threads booking the same seat exactly one succeeds, and threads booking different seats never wait for each other.
+ * Several seats are claimed together (see claim(...)) with one compare-and-set per word: seats in the same word are
+ * claimed atomically, and if a later word cannot be claimed, the words already claimed are released again. The count
+ * of available seats and the summaries of the rows are updated just after each word, so while a booking is in
+ * progress they may lag behind it; they are exact whenever no booking is in progress. fill() must not be called while
+ * seats are being booked.
+ *
+ * A seat map is not serializable: a serialized Screen stores its seats as a grid of booleans (see Screen.writeObject).
+ * @author hari_rathod
+ * @version 2023.07.04
+ * @see Screen
+ */
+public class SeatMap
+{
+    // The number of seats stored in each word.
+    public static final int SEATS_PER_WORD = Long.SIZE;
+
+    private final int columns;
+    private final int rows;
+    private final int wordsPerRow;
+    private final AtomicLongArray words;
+    private final AtomicInteger availableSeats = new AtomicInteger();
+    // A Fenwick tree of the number of available seats in each row: tree[i] is the number of available seats in the
+    // rows (i - (i & -i), i], so the seats available in rows 1 to r are the sum of O(log rows) elements.
+    private final AtomicIntegerArray tree;
+    // The length of the longest run of adjacent available seats in each row, indexed by row number - 1.
+    private final AtomicIntegerArray longestRuns;
+
+    /**
+     * Create a seat map where every seat is available.
+     * @param columns The number of columns. Must be >= 1.
+     * @param rows The number of rows. Must be >= 1.
+     */
+    public SeatMap(int columns, int rows)
+    {
+        this.columns = columns;
+        this.rows = rows;
+        wordsPerRow = (columns + SEATS_PER_WORD - 1) / SEATS_PER_WORD;
+        words = new AtomicLongArray(wordsPerRow * rows);
+        tree = new AtomicIntegerArray(rows + 1);
+        longestRuns = new AtomicIntegerArray(rows);
+        fill();
+    }
+
+    /**
+     * Create a seat map from a grid of seats.
+     * @param seats The grid of seats, indexed by [column][row], true if the seat is available.
+     * @return The seat map.
+     */
+    public static SeatMap fromGrid(boolean[][] seats)
+    {
+        int columns = seats.length;
+        int rows = seats[0].length;
+        int wordsPerRow = (columns + SEATS_PER_WORD - 1) / SEATS_PER_WORD;
+        long[] words = new long[wordsPerRow * rows];
+        for (int column = 0; column < columns; column++) {
+            for (int row = 0; row < rows; row++) {
+                if (seats[column][row]) {
+                    words[row * wordsPerRow + column / SEATS_PER_WORD] |= 1L << (column % SEATS_PER_WORD);
+                }
+            }
+        }
+        return fromWords(columns, rows, words);
+    }
+
+    /**
+     * Create a seat map from its rows of words.
+     * @param columns The number of columns.
+     * @param rows The number of rows.
+     * @param words The words of every row, one row after another. Bits for columns past the last are ignored.
+     * @return The seat map.
+     */
+    public static SeatMap fromWords(int columns, int rows, long[] words)
+    {
+        SeatMap seatMap = new SeatMap(columns, rows);
+        if (words.length != seatMap.words.length()) {
+            throw new IllegalArgumentException(
+                    "Expected %d words, found %d.".formatted(seatMap.words.length(), words.length));
+        }
+        for (int i = 0; i < words.length; i++) {
+            seatMap.words.set(i, words[i] & seatMap.getWordMask(i % seatMap.wordsPerRow));
+        }
+        seatMap.recount();
+        return seatMap;
+    }
+
+    /**
+     * Create a copy of this seat map. The words are copied one at a time, so if seats are booked while the copy is
+     * made, the copy may include some of the bookings and not others; its counts always match its own seats.
+     * @return The copy.
+     */
+    public SeatMap copy()
+    {
+        return fromWords(columns, rows, getWords());
+    }
+
+    /**
+     * Make every seat available, a word at a time. This must not be called while seats are being booked.
+     */
+    public void fill()
+    {
+        for (int row = 0; row < rows; row++) {
+            for (int word = 0; word < wordsPerRow; word++) {
+                words.set(row * wordsPerRow + word, getWordMask(word));
+            }
+        }
+        recount();
+    }
+
+    /**
+     * Check whether a seat is available. The seat must be within the map.
+     * @param columnNumber The column number of the seat. 1 is the number of the first column.
+     * @param rowNumber The row number of the seat. 1 is the number of the first row.
+     * @return true if the seat is available.
+     * @throws ArrayIndexOutOfBoundsException If the seat is out of bounds.
+     */
+    public boolean isAvailable(int columnNumber, int rowNumber)
+    {
+        checkBounds(columnNumber, rowNumber);
+        return (words.get(getWordIndex(columnNumber, rowNumber)) & getBit(columnNumber)) != 0;
+    }
+
+    /**
+     * Book a seat, if it is available. The seat is booked by a single compare-and-set, so if several threads book the
+     * same seat, exactly one of them succeeds.
+     * @param columnNumber The column number of the seat. 1 is the number of the first column.
+     * @param rowNumber The row number of the seat. 1 is the number of the first row.
+     * @return true if the seat was booked, false if it was already booked.
+     * @throws ArrayIndexOutOfBoundsException If the seat is out of bounds.
+     */
+    public boolean book(int columnNumber, int rowNumber)
+    {
+        checkBounds(columnNumber, rowNumber);
+        if (!clearBits(getWordIndex(columnNumber, rowNumber), getBit(columnNumber))) {
+            return false;
+        }
+        seatsChanged(rowNumber, -1);
+        return true;
+    }
+
+    /**
+     * Make a booked seat available again.
+     * @param columnNumber The column number of the seat. 1 is the number of the first column.
+     * @param rowNumber The row number of the seat. 1 is the number of the first row.
+     * @return true if the seat was released, false if it was already available.
+     * @throws ArrayIndexOutOfBoundsException If the seat is out of bounds.
+     */
+    public boolean release(int columnNumber, int rowNumber)
+    {
+        checkBounds(columnNumber, rowNumber);
+        if (!setBits(getWordIndex(columnNumber, rowNumber), getBit(columnNumber))) {
+            return false;
+        }
+        seatsChanged(rowNumber, 1);
+        return true;
+    }
+
+    /**
+     * Book several seats, but only if every one of them is available. The seats are grouped by word, and each word is
+     * claimed with a single compare-and-set, in order of position. If a word cannot be claimed, the words already
+     * claimed are released again, so either every seat is booked or none of them are. Seats in the same word (up to
+     * 64 adjacent seats of a row) are claimed atomically; while seats spread over several words are being claimed,
+     * another thread may see some of them booked before they are released again.
+     * @param seats The seats to book. A seat must not be repeated.
+     * @return The seats that were unavailable (booked), in the order given. If the list is empty, every seat was
+     * booked.
+     * @throws ArrayIndexOutOfBoundsException If a seat is out of bounds.
+     */
+    public List<SeatPosition> claim(List<SeatPosition> seats)
+    {
+        // The masks of the seats in each word, in order of word.
+        Map<Integer, Long> masks = new TreeMap<>();
+        for (SeatPosition seat : seats) {
+            checkBounds(seat.getColumnNumber(), seat.getRowNumber());
+            masks.merge(getWordIndex(seat.getColumnNumber(), seat.getRowNumber()), getBit(seat.getColumnNumber()),
+                    (mask, bit) -> mask | bit);
+        }
+
+        List<Integer> claimed = new ArrayList<>(masks.size());
+        for (Map.Entry<Integer, Long> word : masks.entrySet()) {
+            if (!clearBits(word.getKey(), word.getValue())) {
+                // Release the seats already claimed, one at a time, so a seat released by another thread meanwhile
+                // is not counted twice.
+                for (int index : claimed) {
+                    for (long bits = masks.get(index); bits != 0; bits &= bits - 1) {
+                        if (setBits(index, Long.lowestOneBit(bits))) {
+                            seatsChanged(index / wordsPerRow + 1, 1);
+                        }
+                    }
+                }
+                List<SeatPosition> unavailable = new ArrayList<>();
+                for (SeatPosition seat : seats) {
+                    if (!isAvailable(seat.getColumnNumber(), seat.getRowNumber())) {
+                        unavailable.add(seat);
+                    }
+                }
+                // The seats were released by another thread since the claim failed: report the seat that failed.
+                if (unavailable.isEmpty()) {
+                    for (SeatPosition seat : seats) {
+                        if (getWordIndex(seat.getColumnNumber(), seat.getRowNumber()) == word.getKey()) {
+                            unavailable.add(seat);
+                        }
+                    }
+                }
+                return unavailable;
+            }
+            seatsChanged(word.getKey() / wordsPerRow + 1, -Long.bitCount(word.getValue()));
+            claimed.add(word.getKey());
+        }
+        return List.of();
+    }
+
+    /**
+     * Get the number of available seats. This does not count the seats.
+     * @return The number of available seats.
+     */
+    public int getNumberOfAvailableSeats()
+    {
+        return availableSeats.get();
+    }
+
+    /**
+     * Get the number of available seats in the rows up to and including a row.
+     * @param rowNumber The row number. 1 is the number of the first row; 0 counts no rows.
+     * @return The number of available seats in rows 1 to rowNumber.
+     */
+    public int getNumberOfAvailableSeatsUpToRow(int rowNumber)
+    {
+        int count = 0;
+        for (int i = rowNumber; i > 0; i -= i & -i) {
+            count += tree.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Find the n-th available seat, counting along each row in turn from the first row. Choosing n uniformly from 0
+     * to getNumberOfAvailableSeats() - 1 chooses an available seat uniformly, without retrying booked seats.
+     * @param n The number of available seats before the seat, from 0.
+     * @return The position of the seat, or null if seats were booked or released by another thread during the search,
+     * so the seat could not be found.
+     * @throws IllegalArgumentException If n is negative, or not less than the number of available seats.
+     */
+    public SeatPosition selectAvailable(int n)
+    {
+        int available = availableSeats.get();
+        if (n < 0 || n >= available) {
+            throw new IllegalArgumentException("There is no available seat %d of %d.".formatted(n, available));
+        }
+        // Find the row: descend the tree, skipping every block of rows with no more than n available seats.
+        int row = 0;
+        for (int step = Integer.highestOneBit(rows); step > 0; step >>= 1) {
+            if (row + step <= rows && tree.get(row + step) <= n) {
+                row += step;
+                n -= tree.get(row);
+            }
+        }
+        if (row == rows) {
+            return null;
+        }
+        // The seat is the n-th available seat of the next row. Find its word, then its bit.
+        int first = row * wordsPerRow;
+        for (int word = 0; word < wordsPerRow; word++) {
+            long bits = words.get(first + word);
+            int count = Long.bitCount(bits);
+            if (n < count) {
+                for (int i = 0; i < n; i++) {
+                    bits &= bits - 1;
+                }
+                return new SeatPosition(word * SEATS_PER_WORD + Long.numberOfTrailingZeros(bits) + 1, row + 1);
+            }
+            n -= count;
+        }
+        return null;
+    }
+
+    /**
+     * Get the length of the longest run of adjacent available seats in a row. This does not read the row's seats.
+     * @param rowNumber The row number. 1 is the number of the first row.
+     * @return The number of seats in the longest run.
+     */
+    public int getLongestAvailableRun(int rowNumber)
+    {
+        return longestRuns.get(rowNumber - 1);
+    }
+
+    /**
+     * Find the best block of adjacent available seats in a row: the block whose centre is closest to the centre line
+     * of the screen, i.e., the line halfway between the first and last column. Of blocks that are equally close, the
+     * one in the row closest to the middle row is chosen. Rows whose longest run of available seats is too short are
+     * skipped without reading their seats, so the search does not slow down as seats are booked.
+     * @param numberOfSeats The number of seats in the block. Must be >= 1.
+     * @return The seats of the block, from left to right, or an empty list if no row has enough adjacent seats.
+     */
+    public List<SeatPosition> findBestBlock(int numberOfSeats)
+    {
+        if (numberOfSeats < 1) {
+            throw new IllegalArgumentException("A block must have at least one seat.");
+        }
+        // Distances are doubled, so the centre of a block and of the screen are whole numbers.
+        int bestDistance = Integer.MAX_VALUE;
+        int bestRowDistance = Integer.MAX_VALUE;
+        int bestRow = -1;
+        int bestStart = -1;
+        int idealStart = (columns - numberOfSeats) / 2;
+        for (int row = 0; row < rows; row++) {
+            if (longestRuns.get(row) < numberOfSeats) {
+                continue;
+            }
+            int rowDistance = Math.abs(2 * row + 1 - rows);
+            int first = row * wordsPerRow;
+            for (int start = nextColumn(first, 0, true); start < columns; ) {
+                int end = nextColumn(first, start, false);
+                if (end - start >= numberOfSeats) {
+                    // The start in this run closest to the ideal start is the one closest to the centre line.
+                    int blockStart = Math.max(start, Math.min(idealStart, end - numberOfSeats));
+                    int distance = Math.abs(2 * blockStart + numberOfSeats - columns);
+                    if (distance < bestDistance || (distance == bestDistance && rowDistance < bestRowDistance)) {
+                        bestDistance = distance;
+                        bestRowDistance = rowDistance;
+                        bestRow = row;
+                        bestStart = blockStart;
+                    }
+                }
+                start = nextColumn(first, end, true);
+            }
+        }
+
+        List<SeatPosition> block = new ArrayList<>(numberOfSeats);
+        for (int i = 0; bestRow >= 0 && i < numberOfSeats; i++) {
+            block.add(new SeatPosition(bestStart + i + 1, bestRow + 1));
+        }
+        return block;
+    }
+
+    /**
+     * Get the number of columns.
+     * @return The number of columns.
+     */
+    public int getColumns()
+    {
+        return columns;
+    }
+
+    /**
+     * Get the number of rows.
+     * @return The number of rows.
+     */
+    public int getRows()
+    {
+        return rows;
+    }
+
+    /**
+     * Get the number of words that store each row.
+     * @return The number of words in a row.
+     */
+    public int getWordsPerRow()
+    {
+        return wordsPerRow;
+    }
+
+    /**
+     * Get a word of a row.
+     * @param rowNumber The row number. 1 is the number of the first row.
+     * @param wordIndex The index of the word in the row, from 0.
+     * @return The word: bit i is set if the seat in column (wordIndex * 64 + i + 1) is available.
+     */
+    public long getWord(int rowNumber, int wordIndex)
+    {
+        return words.get((rowNumber - 1) * wordsPerRow + wordIndex);
+    }
+
+    /**
+     * Get a copy of the words of every row, one row after another.
+     * @return The words.
+     */
+    public long[] getWords()
+    {
+        long[] copy = new long[words.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = words.get(i);
+        }
+        return copy;
+    }
+
+    /**
+     * Convert the seat map to a grid of seats.
+     * @return A new grid of seats, indexed by [column][row], true if the seat is available.
+     */
+    public boolean[][] toGrid()
+    {
+        long[] words = getWords();
+        boolean[][] seats = new boolean[columns][rows];
+        for (int column = 0; column < columns; column++) {
+            for (int row = 0; row < rows; row++) {
+                seats[column][row] = (words[getWordIndex(column + 1, row + 1)] & getBit(column + 1)) != 0;
+            }
+        }
+        return seats;
+    }
+
+    /**
+     * Clear bits of a word, but only if they are all set, with a compare-and-set.
+     * @param index The index of the word.
+     * @param mask The bits to clear.
+     * @return true if the bits were cleared, false if any of them was already clear.
+     */
+    private boolean clearBits(int index, long mask)
+    {
+        while (true) {
+            long word = words.get(index);
+            if ((word & mask) != mask) {
+                return false;
+            }
+            if (words.compareAndSet(index, word, word & ~mask)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Set bits of a word, but only if they are all clear, with a compare-and-set.
+     * @param index The index of the word.
+     * @param mask The bits to set.
+     * @return true if the bits were set, false if any of them was already set.
+     */
+    private boolean setBits(int index, long mask)
+    {
+        while (true) {
+            long word = words.get(index);
+            if ((word & mask) != 0) {
+                return false;
+            }
+            if (words.compareAndSet(index, word, word | mask)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Update the counts and the summary of a row after its seats were booked or released.
+     * @param rowNumber The row number. 1 is the number of the first row.
+     * @param change The change in the number of available seats.
+     */
+    private void seatsChanged(int rowNumber, int change)
+    {
+        availableSeats.addAndGet(change);
+        for (int i = rowNumber; i <= rows; i += i & -i) {
+            tree.addAndGet(i, change);
+        }
+        updateLongestRun(rowNumber - 1);
+    }
+
+    /**
+     * Count the available seats, a word at a time, and rebuild the Fenwick tree and the summaries of the rows.
+     */
+    private void recount()
+    {
+        int[] counts = new int[rows + 1];
+        int count = 0;
+        for (int row = 1; row <= rows; row++) {
+            int first = (row - 1) * wordsPerRow;
+            for (int word = 0; word < wordsPerRow; word++) {
+                counts[row] += Long.bitCount(words.get(first + word));
+            }
+            count += counts[row];
+        }
+        // Build the Fenwick tree in O(rows) steps.
+        for (int i = 1; i <= rows; i++) {
+            int parent = i + (i & -i);
+            if (parent <= rows) {
+                counts[parent] += counts[i];
+            }
+        }
+        for (int i = 1; i <= rows; i++) {
+            tree.set(i, counts[i]);
+        }
+        for (int row = 0; row < rows; row++) {
+            longestRuns.set(row, findLongestRun(getRowWords(row)));
+        }
+        availableSeats.set(count);
+    }
+
+    /**
+     * Store the longest run of available seats of a row. If the row changes while its run is found, the run is found
+     * again, so the stored run is never older than the last change of the row.
+     * @param row The index of the row, from 0.
+     */
+    private void updateLongestRun(int row)
+    {
+        long[] rowWords = getRowWords(row);
+        while (true) {
+            longestRuns.set(row, findLongestRun(rowWords));
+            long[] current = getRowWords(row);
+            if (Arrays.equals(rowWords, current)) {
+                return;
+            }
+            rowWords = current;
+        }
+    }
+
+    /**
+     * Get a copy of the words of a row.
+     * @param row The index of the row, from 0.
+     * @return The words of the row.
+     */
+    private long[] getRowWords(int row)
+    {
+        long[] rowWords = new long[wordsPerRow];
+        for (int word = 0; word < wordsPerRow; word++) {
+            rowWords[word] = words.get(row * wordsPerRow + word);
+        }
+        return rowWords;
+    }
+
+    /**
+     * Find the longest run of adjacent available seats in a row, a run at a time.
+     * @param rowWords The words of the row.
+     * @return The number of seats in the longest run.
+     */
+    private int findLongestRun(long[] rowWords)
+    {
+        int longest = 0;
+        int run = 0;
+        for (int word = 0; word < wordsPerRow; word++) {
+            long bits = rowWords[word];
+            int width = Math.min(SEATS_PER_WORD, columns - word * SEATS_PER_WORD);
+            for (int bit = 0; bit < width; ) {
+                long remaining = bits >>> bit;
+                // The run of available seats starting at this bit, then the run of booked seats after it.
+                int available = Math.min(width - bit, Long.numberOfTrailingZeros(~remaining));
+                run += available;
+                bit += available;
+                if (bit < width) {
+                    longest = Math.max(longest, run);
+                    run = 0;
+                    bit += Math.min(width - bit, Long.numberOfTrailingZeros(bits >>> bit));
+                }
+            }
+        }
+        return Math.max(longest, run);
+    }
+
+    /**
+     * Find the next available (or booked) seat in a row, a word at a time.
+     * @param first The index of the row's first word.
+     * @param from The index of the column to start from, from 0.
+     * @param available true to find an available seat, false to find a booked seat.
+     * @return The index of the seat's column, from 0, or the number of columns if there is no such seat.
+     */
+    private int nextColumn(int first, int from, boolean available)
+    {
+        int word = from / SEATS_PER_WORD;
+        if (word >= wordsPerRow) {
+            return columns;
+        }
+        long bits = (available ? words.get(first + word) : ~words.get(first + word)) & (-1L << (from % SEATS_PER_WORD));
+        while (bits == 0) {
+            if (++word == wordsPerRow) {
+                return columns;
+            }
+            bits = available ? words.get(first + word) : ~words.get(first + word);
+        }
+        // The bits past the last column are never available, so a booked seat may be found past it.
+        return Math.min(columns, word * SEATS_PER_WORD + Long.numberOfTrailingZeros(bits));
+    }
+
+    /**
+     * Get the bits of the seats that exist in a word of a row: every bit, unless the word is the last of the row.
+     * @param wordIndex The index of the word in the row.
+     * @return The mask of the seats in the word.
+     */
+    private long getWordMask(int wordIndex)
+    {
+        int seatsInWord = Math.min(SEATS_PER_WORD, columns - wordIndex * SEATS_PER_WORD);
+        return seatsInWord == SEATS_PER_WORD ? -1L : (1L << seatsInWord) - 1;
+    }
+
+    private int getWordIndex(int columnNumber, int rowNumber)
+    {
+        return (rowNumber - 1) * wordsPerRow + (columnNumber - 1) / SEATS_PER_WORD;
+    }
+
+    private static long getBit(int columnNumber)
+    {
+        return 1L << ((columnNumber - 1) % SEATS_PER_WORD);
+    }
+
+    private void checkBounds(int columnNumber, int rowNumber)
+    {
+        if (columnNumber < 1 || columnNumber > columns || rowNumber < 1 || rowNumber > rows) {
+            throw new ArrayIndexOutOfBoundsException("Seat (%d, %d) is outside the %d x %d seats."
+                    .formatted(columnNumber, rowNumber, columns, rows));
+        }
+    }
+}
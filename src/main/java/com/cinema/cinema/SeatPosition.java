@@ -0,0 +1,71 @@
+package com.cinema.cinema;
+
+import java.util.Objects;
+
+/**
+ * The position of a seat in a screen.
+ * @author hari_rathod
+ * @version 2023.06.27
+ */
+public final class SeatPosition
+{
+    private final int columnNumber;
+    private final int rowNumber;
+
+    /**
+     * Create a seat position.
+     * @param columnNumber The column number of the seat. 1 is the number of the first column.
+     * @param rowNumber The row number of the seat. 1 is the number of the first row.
+     */
+    public SeatPosition(int columnNumber, int rowNumber)
+    {
+        this.columnNumber = columnNumber;
+        this.rowNumber = rowNumber;
+    }
+
+    /**
+     * Get the column number of the seat.
+     * @return The column number. 1 is the number of the first column.
+     */
+    public int getColumnNumber()
+    {
+        return columnNumber;
+    }
+
+    /**
+     * Get the row number of the seat.
+     * @return The row number. 1 is the number of the first row.
+     */
+    public int getRowNumber()
+    {
+        return rowNumber;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SeatPosition other)) {
+            return false;
+        }
+        return columnNumber == other.columnNumber && rowNumber == other.rowNumber;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(columnNumber, rowNumber);
+    }
+
+    /**
+     * Get the seat position in the form customers enter it, e.g., '3, 4'.
+     * @return The seat position.
+     */
+    @Override
+    public String toString()
+    {
+        return columnNumber + ", " + rowNumber;
+    }
+}
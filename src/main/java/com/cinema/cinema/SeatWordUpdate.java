@@ -0,0 +1,125 @@
+package com.cinema.cinema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A set of seats to book in one 64-bit element of a screen's packed seat map (see ScreenDocumentConverter).
+ * Bookings of seats in the same row of the same screen, within 64 columns of each other, are merged into one
+ * SeatWordUpdate, so they can be written to the database with a single update.
+ * @author hari_rathod
+ * @version 2023.07.04
+ */
+public class SeatWordUpdate {
+    private final int screenId;
+    private final int rowNumber;
+    private final int wordIndex;
+
+    // The seats to book, as a bit mask of the element. Bit i is the seat in column (wordIndex * 64 + i + 1).
+    private long mask;
+
+    /**
+     * Create an update that books a single seat.
+     * @param screenId The id of the screen.
+     * @param columnNumber The column number of the seat. 1 is the number of the first column.
+     * @param rowNumber The row number of the seat. 1 is the number of the first row.
+     */
+    public SeatWordUpdate(int screenId, int columnNumber, int rowNumber)
+    {
+        this.screenId = screenId;
+        this.rowNumber = rowNumber;
+        wordIndex = (columnNumber - 1) / ScreenDocumentConverter.SEATS_PER_WORD;
+        mask = 1L << ScreenDocumentConverter.getSeatBit(columnNumber);
+    }
+
+    /**
+     * Add the seats of another update to this update. Both updates must be for the same element.
+     * @param other The update to merge into this one.
+     * @throws IllegalArgumentException If the other update is for a different element.
+     */
+    public void merge(SeatWordUpdate other)
+    {
+        if (!getKey().equals(other.getKey())) {
+            throw new IllegalArgumentException("Cannot merge updates of different seat words.");
+        }
+        mask |= other.mask;
+    }
+
+    /**
+     * Get a key identifying the element this update is for. Updates with equal keys can be merged.
+     * @return The key, e.g., '3:12:0' for the first element of row 12 in screen 3.
+     */
+    public String getKey()
+    {
+        return screenId + ":" + rowNumber + ":" + wordIndex;
+    }
+
+    /**
+     * Get the name of the field that stores the element, e.g., 'seatRows.11.0'.
+     * @return The name of the field.
+     */
+    public String getField()
+    {
+        return "seatRows.%d.%d".formatted(rowNumber - 1, wordIndex);
+    }
+
+    /**
+     * Get the id of the screen.
+     * @return The id of the screen.
+     */
+    public int getScreenId()
+    {
+        return screenId;
+    }
+
+    /**
+     * Get the row number of the seats. 1 is the number of the first row.
+     * @return The row number.
+     */
+    public int getRowNumber()
+    {
+        return rowNumber;
+    }
+
+    /**
+     * Get the index of the element within its row.
+     * @return The index of the element.
+     */
+    public int getWordIndex()
+    {
+        return wordIndex;
+    }
+
+    /**
+     * Split some of the seats of this update into updates that book a single seat each.
+     * @param seats The seats to split, as a bit mask of the element.
+     * @return An update for each seat, from left to right.
+     */
+    public List<SeatWordUpdate> split(long seats)
+    {
+        List<SeatWordUpdate> updates = new ArrayList<>(Long.bitCount(seats));
+        for (long remaining = seats; remaining != 0; remaining &= remaining - 1) {
+            int column = wordIndex * ScreenDocumentConverter.SEATS_PER_WORD + Long.numberOfTrailingZeros(remaining) + 1;
+            updates.add(new SeatWordUpdate(screenId, column, rowNumber));
+        }
+        return updates;
+    }
+
+    /**
+     * Get the seats to book, as a bit mask of the element.
+     * @return The bit mask.
+     */
+    public long getMask()
+    {
+        return mask;
+    }
+
+    /**
+     * Get the number of seats to book.
+     * @return The number of seats.
+     */
+    public int getNumberOfSeats()
+    {
+        return Long.bitCount(mask);
+    }
+}
@@ -0,0 +1,59 @@
+package com.cinema.cinema;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * A RecordCodec that uses Java serialization. It works for any Serializable type, but every record carries the class
+ * descriptors of the object, so records are large and slow to decode. For tickets, TicketCodec is used instead.
+ * @author hari_rathod
+ * @version 2023.06.20
+ */
+public class SerializationCodec<E> implements RecordCodec<E> {
+    private final Class<E> type;
+
+    /**
+     * Create a codec for objects of a type.
+     * @param type The type of the objects.
+     */
+    public SerializationCodec(Class<E> type)
+    {
+        this.type = type;
+    }
+
+    @Override
+    public byte[] encode(E object) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream outputStream = new ObjectOutputStream(bytes)) {
+            outputStream.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode a record.
+     * @param record The bytes of the record.
+     * @return The object.
+     * @throws IOException If the record could not be deserialized, or does not hold an object of this codec's type.
+     */
+    @Override
+    public E decode(byte[] record) throws IOException
+    {
+        try (ObjectInputStream inputStream = new ObjectInputStream(new ByteArrayInputStream(record))) {
+            Object object = inputStream.readObject();
+            if (object != null && !type.isInstance(object)) {
+                throw new InvalidClassException("Error: Object of type %s found, expected %s."
+                        .formatted(object.getClass().getName(), type.getName()));
+            }
+            return type.cast(object);
+        } catch (ClassNotFoundException e) {
+            throw new InvalidClassException(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.cinema.cinema;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+/**
+ * The basket of one customer session: the tickets the customer has booked in the session. The basket is stored in its
+ * own MappedTicketStore, and the session holds an exclusive lock on it until the basket is closed.
+ * @author hari_rathod
+ * @version 2023.06.22
+ * @see SessionBasketStore
+ */
+public class SessionBasket implements Closeable {
+    private final String sessionId;
+    private final MappedTicketStore tickets;
+    private final FileChannel lockChannel;
+    private final Path lockPath;
+
+    /**
+     * Create the basket of a session. Baskets are opened by SessionBasketStore.open(...).
+     * @param sessionId The id of the session.
+     * @param tickets The store the tickets are kept in.
+     * @param lockChannel The lock file, locked by this session.
+     * @param lockPath The path of the lock file.
+     */
+    SessionBasket(String sessionId, MappedTicketStore tickets, FileChannel lockChannel, Path lockPath)
+    {
+        this.sessionId = sessionId;
+        this.tickets = tickets;
+        this.lockChannel = lockChannel;
+        this.lockPath = lockPath;
+    }
+
+    /**
+     * Add a ticket to the basket.
+     * @param ticket The ticket.
+     * @throws IOException If the ticket could not be written.
+     */
+    public void add(Ticket ticket) throws IOException
+    {
+        tickets.append(ticket);
+        // Writes through the mapping may not update the modification time, which is used to expire the basket.
+        Files.setLastModifiedTime(tickets.getPath(), FileTime.fromMillis(System.currentTimeMillis()));
+    }
+
+    /**
+     * Get the number of tickets in the basket.
+     * @return The number of tickets.
+     */
+    public int size()
+    {
+        return (int) tickets.size();
+    }
+
+    /**
+     * Get the tickets in the basket, in the order they were added.
+     * @return A list of the tickets.
+     */
+    public List<Ticket> getTickets()
+    {
+        return tickets.getAll();
+    }
+
+    /**
+     * Get the id of the session the basket belongs to.
+     * @return The session id.
+     */
+    public String getSessionId()
+    {
+        return sessionId;
+    }
+
+    /**
+     * Close the basket and release the lock, keeping the tickets. The basket can be opened again by the same session
+     * id, until it expires.
+     * @throws IOException If the files could not be closed.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        try {
+            tickets.close();
+        } finally {
+            lockChannel.close();
+        }
+    }
+
+    /**
+     * Close the basket and delete it, as the session has ended.
+     * @throws IOException If the files could not be closed or deleted.
+     */
+    public void delete() throws IOException
+    {
+        try {
+            deleteFiles(tickets.getPath());
+        } finally {
+            close();
+        }
+        Files.deleteIfExists(lockPath);
+    }
+
+    /**
+     * Delete the files of a basket (not its lock file).
+     * @param basket The path of the basket's MappedTicketStore.
+     * @throws IOException If the files could not be deleted.
+     */
+    static void deleteFiles(Path basket) throws IOException
+    {
+        Files.deleteIfExists(basket);
+        Files.deleteIfExists(basket.resolveSibling(basket.getFileName() + ".titles"));
+    }
+}
@@ -0,0 +1,231 @@
+package com.cinema.cinema;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Stores the basket of every customer session in its own file, so concurrent sessions (in one process or in several)
+ * never write to the same file. The basket of session 's' is stored in '<directory>/<shard>/<s>.bin', where the shard
+ * is chosen by the hash of the session id, so no single directory holds the baskets of every session.
+ *
+ * While a session is open, it holds an exclusive lock on '<s>.lock', next to its basket. A second attempt to open the
+ * same session fails, rather than writing to the basket at the same time. When a session ends its basket is deleted;
+ * a basket whose session ended without deleting it (e.g., because the application crashed) is abandoned, and is
+ * deleted by a background thread once it has not been written for 'expiryMillis' and its lock is free.
+ *
+ * The store shared by the process is configured by the following system properties:
+ *          -Dbasket.directory              The directory the baskets are stored in (default 'baskets').
+ *          -Dbasket.shards                 The number of shard directories (default 16).
+ *          -Dbasket.expiryMillis           How long an abandoned basket is kept (default 1 hour).
+ *          -Dbasket.expiryIntervalMillis   How often abandoned baskets are looked for (default 1 minute).
+ * @author hari_rathod
+ * @version 2023.06.22
+ * @see SessionBasket
+ */
+public class SessionBasketStore implements AutoCloseable {
+
+    // The store shared by the whole process. Null until it is first used.
+    private static SessionBasketStore instance;
+
+    private final Path directory;
+    private final int shards;
+    private final long expiryMillis;
+    private final ScheduledExecutorService expirer;
+
+    // Metrics.
+    private final AtomicLong expiredBaskets = new AtomicLong();
+
+    /**
+     * Create a basket store.
+     * @param directory The directory the baskets are stored in. It is created if it does not exist.
+     * @param shards The number of shard directories.
+     * @param expiryMillis How long (in milliseconds) an abandoned basket is kept.
+     * @param expiryIntervalMillis How often (in milliseconds) abandoned baskets are looked for, or 0 to only look for
+     *                             them when expireAbandonedBaskets() is called.
+     * @throws IOException If the directories could not be created.
+     */
+    public SessionBasketStore(Path directory, int shards, long expiryMillis, long expiryIntervalMillis)
+            throws IOException
+    {
+        if (shards < 1) {
+            throw new IllegalArgumentException("There must be at least one shard.");
+        }
+        this.directory = directory;
+        this.shards = shards;
+        this.expiryMillis = expiryMillis;
+        for (int shard = 0; shard < shards; shard++) {
+            Files.createDirectories(getShardDirectory(shard));
+        }
+
+        if (expiryIntervalMillis > 0) {
+            expirer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "basket-expirer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            expirer.scheduleWithFixedDelay(this::expireQuietly, expiryIntervalMillis, expiryIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            expirer = null;
+        }
+    }
+
+    /**
+     * Get the store shared by the whole process, creating it first if it does not exist.
+     * @return The shared store.
+     * @throws IOException If the directories of the store could not be created.
+     */
+    public static synchronized SessionBasketStore getInstance() throws IOException
+    {
+        if (instance == null) {
+            instance = new SessionBasketStore(Path.of(System.getProperty("basket.directory", "baskets")),
+                    Integer.getInteger("basket.shards", 16),
+                    Long.getLong("basket.expiryMillis", TimeUnit.HOURS.toMillis(1)),
+                    Long.getLong("basket.expiryIntervalMillis", TimeUnit.MINUTES.toMillis(1)));
+        }
+        return instance;
+    }
+
+    /**
+     * Open the basket of a session, creating it if it does not exist. The session holds the lock on its basket until
+     * the basket is closed.
+     * @param sessionId The id of the session. It is used in file names, so it may only contain letters, digits, '-'
+     *                  and '_'.
+     * @return The basket.
+     * @throws IOException If the basket could not be opened, or is already open in another session.
+     */
+    public SessionBasket open(String sessionId) throws IOException
+    {
+        if (!sessionId.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException("Invalid session id: " + sessionId);
+        }
+        Path shardDirectory = getShardDirectory(getShard(sessionId));
+        Path lockPath = shardDirectory.resolve(sessionId + ".lock");
+        FileChannel lockChannel = FileChannel.open(lockPath, CREATE, WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("The basket of session %s is already open.".formatted(sessionId));
+        }
+
+        try {
+            Path basketPath = shardDirectory.resolve(sessionId + ".bin");
+            return new SessionBasket(sessionId, new MappedTicketStore(basketPath), lockChannel, lockPath);
+        } catch (IOException e) {
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Delete every basket that has not been written for longer than the expiry time, and is not open.
+     * @return The number of baskets deleted.
+     * @throws IOException If a shard directory could not be read.
+     */
+    public int expireAbandonedBaskets() throws IOException
+    {
+        long expiredBefore = System.currentTimeMillis() - expiryMillis;
+        int expired = 0;
+        for (int shard = 0; shard < shards; shard++) {
+            try (DirectoryStream<Path> baskets = Files.newDirectoryStream(getShardDirectory(shard), "*.bin")) {
+                for (Path basket : baskets) {
+                    if (Files.getLastModifiedTime(basket).toMillis() < expiredBefore && deleteIfUnlocked(basket)) {
+                        expired++;
+                    }
+                }
+            }
+        }
+        expiredBaskets.addAndGet(expired);
+        return expired;
+    }
+
+    /**
+     * Get the number of abandoned baskets deleted since the store was created.
+     * @return The number of expired baskets.
+     */
+    public long getExpiredBaskets()
+    {
+        return expiredBaskets.get();
+    }
+
+    /**
+     * Stop looking for abandoned baskets. Open baskets are not closed.
+     */
+    @Override
+    public void close()
+    {
+        if (expirer != null) {
+            expirer.shutdownNow();
+        }
+    }
+
+    /**
+     * Get the shard a session's basket is stored in.
+     * @param sessionId The id of the session.
+     * @return The shard, from 0 to the number of shards - 1.
+     */
+    private int getShard(String sessionId)
+    {
+        return Math.floorMod(sessionId.hashCode(), shards);
+    }
+
+    private Path getShardDirectory(int shard)
+    {
+        return directory.resolve(Integer.toString(shard));
+    }
+
+    /**
+     * Delete a basket, with its title file and lock file, unless its session holds the lock.
+     * @param basket The basket file.
+     * @return true if the basket was deleted.
+     * @throws IOException If the files could not be deleted.
+     */
+    private static boolean deleteIfUnlocked(Path basket) throws IOException
+    {
+        String name = basket.getFileName().toString();
+        String sessionId = name.substring(0, name.length() - ".bin".length());
+        Path lockPath = basket.resolveSibling(sessionId + ".lock");
+        try (FileChannel lockChannel = FileChannel.open(lockPath, CREATE, WRITE);
+             FileLock lock = lockChannel.tryLock()) {
+            if (lock == null) {
+                return false;
+            }
+            SessionBasket.deleteFiles(basket);
+        } catch (OverlappingFileLockException e) {
+            // The session is open in this process.
+            return false;
+        }
+        Files.deleteIfExists(lockPath);
+        return true;
+    }
+
+    /**
+     * Expire abandoned baskets from the background thread, where there is nobody to report an error to. The baskets
+     * are looked for again at the next interval.
+     */
+    private void expireQuietly()
+    {
+        try {
+            expireAbandonedBaskets();
+        } catch (IOException e) {
+            // Try again at the next interval.
+        }
+    }
+}
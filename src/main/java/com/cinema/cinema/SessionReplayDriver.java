@@ -0,0 +1,190 @@
+package com.cinema.cinema;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays recorded input histories (e.g., 'user_input_history.txt' or 'manager_input.txt', written by InputRecorder)
+ * as many concurrent sessions against one TicketOffice, to reproduce the traffic of many users before a release.
+ *
+ * Each script is run as one CustomerBooking or ManagerBooking with a ScriptedView. The sessions run on a fixed
+ * number of threads (the concurrency), and each waits for the think time divided by the speed-up before each line of
+ * input. Scripts can be varied, so sessions replaying the same recording book different seats. The latency and
+ * errors of each command, and the throughput, are collected in a ReplayMetrics.
+ *
+ * From the command line:
+ *          SessionReplayDriver <history file> <c|m> [sessions] [concurrency] [speed-up] [think time ms] [vary]
+ * The TicketOffice uses the storage chosen by the 'storage' system property, e.g., -Dstorage=memory.
+ * @author hari_rathod
+ * @version 2023.06.25
+ */
+public class SessionReplayDriver {
+    private final TicketOffice office;
+    private final BookingType bookingType;
+    private final int concurrency;
+    private final long thinkTimeNanos;
+
+    /**
+     * Create a replay driver.
+     * @param office The ticket office every session uses.
+     * @param bookingType Whether the scripts are customer or manager sessions.
+     * @param concurrency The number of sessions run at the same time.
+     * @param speedUp How many times faster than the think time the input is given, e.g., 10.
+     * @param thinkTimeMillis How long (in milliseconds) a user thinks before each line of input, before the speed-up.
+     */
+    public SessionReplayDriver(TicketOffice office, BookingType bookingType, int concurrency, double speedUp,
+                               long thinkTimeMillis)
+    {
+        if (concurrency < 1 || speedUp <= 0) {
+            throw new IllegalArgumentException("The concurrency and speed-up must be positive.");
+        }
+        this.office = office;
+        this.bookingType = bookingType;
+        this.concurrency = concurrency;
+        this.thinkTimeNanos = (long) (TimeUnit.MILLISECONDS.toNanos(thinkTimeMillis) / speedUp);
+    }
+
+    /**
+     * Run every script as a session, and wait for all of them to finish.
+     * @param scripts The scripts, one per session.
+     * @return The metrics of the replay.
+     * @throws InterruptedException If the thread was interrupted while waiting for the sessions.
+     */
+    public ReplayMetrics replay(List<List<String>> scripts) throws InterruptedException
+    {
+        ReplayMetrics metrics = new ReplayMetrics();
+        ExecutorService sessions = Executors.newFixedThreadPool(concurrency);
+        metrics.start();
+        for (List<String> script : scripts) {
+            sessions.execute(() -> runSession(script, metrics));
+        }
+        sessions.shutdown();
+        while (!sessions.awaitTermination(1, TimeUnit.MINUTES)) {
+            // Keep waiting until every session has finished.
+        }
+        metrics.end();
+        return metrics;
+    }
+
+    /**
+     * Run one session, recording the latency of each command without the time spent waiting for input.
+     * @param script The input of the session.
+     * @param metrics The metrics to record in.
+     */
+    private void runSession(List<String> script, ReplayMetrics metrics)
+    {
+        ScriptedView view = new ScriptedView(script, thinkTimeNanos);
+        try {
+            Booking booking = bookingType == BookingType.MANAGER
+                    ? new ManagerBooking(view, office, null)
+                    : new CustomerBooking(view, office, null);
+            view.takeWaitingNanos();
+            view.takeErrors();
+            booking.setCommandTimer((word, nanos) ->
+                    metrics.recordCommand(word, nanos - view.takeWaitingNanos(), view.takeErrors()));
+            booking.start();
+            metrics.recordSession(false);
+        } catch (RuntimeException e) {
+            metrics.recordSession(true);
+        }
+    }
+
+    /**
+     * Read a recorded input history as a script.
+     * @param path The file written by an InputRecorder.
+     * @return The lines of the file.
+     * @throws IOException If the file could not be read.
+     */
+    public static List<String> readScript(Path path) throws IOException
+    {
+        return Files.readAllLines(path);
+    }
+
+    /**
+     * Create a synthetic variant of a script, where every seat position ('<column>, <row>') is replaced by a random
+     * seat, no further right or back than the seats in the script.
+     * @param script The script.
+     * @param random The source of random seats.
+     * @return The varied script.
+     */
+    public static List<String> vary(List<String> script, Random random)
+    {
+        int maxColumn = 1;
+        int maxRow = 1;
+        for (String line : script) {
+            int[] seat = parseSeat(line);
+            if (seat != null) {
+                maxColumn = Math.max(maxColumn, seat[0]);
+                maxRow = Math.max(maxRow, seat[1]);
+            }
+        }
+
+        List<String> varied = new ArrayList<>(script.size());
+        for (String line : script) {
+            if (parseSeat(line) == null) {
+                varied.add(line);
+            } else {
+                varied.add((random.nextInt(maxColumn) + 1) + ", " + (random.nextInt(maxRow) + 1));
+            }
+        }
+        return varied;
+    }
+
+    /**
+     * Parse a line as a seat position, as CustomerBooking does.
+     * @param line The line.
+     * @return The column and row, or null if the line is not a seat position.
+     */
+    private static int[] parseSeat(String line)
+    {
+        String[] position = StringSplitter.splitByPunctuation(line);
+        if (position.length != 2 || !NumberMatcher.matchesSingleInteger(position[0])
+                || !NumberMatcher.matchesSingleInteger(position[1])) {
+            return null;
+        }
+        return new int[] {Integer.parseInt(position[0]), Integer.parseInt(position[1])};
+    }
+
+    /**
+     * Replay a recorded input history from the command line, and print the metrics.
+     * @param args The history file, 'c' or 'm', and optionally the number of sessions, the concurrency, the
+     *             speed-up, the think time in milliseconds, and 'vary' to vary the seats of each session.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        if (args.length < 2) {
+            System.out.println("Usage: SessionReplayDriver <history file> <c|m> [sessions] [concurrency] "
+                    + "[speed-up] [think time ms] [vary]");
+            return;
+        }
+        List<String> script = readScript(Path.of(args[0]));
+        BookingType bookingType = args[1].equals("m") ? BookingType.MANAGER : BookingType.CUSTOMER;
+        int sessions = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int concurrency = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        double speedUp = args.length > 4 ? Double.parseDouble(args[4]) : 10;
+        long thinkTimeMillis = args.length > 5 ? Long.parseLong(args[5]) : 1000;
+        boolean vary = args.length > 6 && args[6].equals("vary");
+
+        Random random = new Random();
+        List<List<String>> scripts = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) {
+            scripts.add(vary ? vary(script, random) : script);
+        }
+        TicketOffice office = new TicketOffice();
+        SessionReplayDriver driver = new SessionReplayDriver(office, bookingType, concurrency, speedUp,
+                thinkTimeMillis);
+        System.out.print(driver.replay(scripts).getSummary());
+        System.out.print(office.getSeatHolds().getSummary());
+        System.out.print(office.getListingCache().getSummary());
+        System.out.print(ScreenRepositoryFactory.getWriteBehindSummary());
+        System.out.print(MongoClientProvider.getPoolMetrics().getSummary());
+        System.exit(0);
+    }
+}
@@ -57,6 +57,15 @@ import java.util.Collection;
             return dashes + "\n" + details + "\n" + dashes;
         }
 
+        /**
+         * Get the id of the screen the movie is being shown in.
+         * @return The id of the screen.
+         */
+        public int getScreenId()
+        {
+            return screenId;
+        }
+
         /**
          * Get the name of the movie the ticket has been booked for.
          * @return The name of the movie.
@@ -84,6 +93,24 @@ import java.util.Collection;
             return seatNumber;
         }
 
+        /**
+         * Get the cost (in cents) of the ticket.
+         * @return The cost of the ticket.
+         */
+        public int getCost()
+        {
+            return cost;
+        }
+
+        /**
+         * Get the date and time the ticket was booked.
+         * @return The date and time of the booking.
+         */
+        public LocalDateTime getDate()
+        {
+            return date;
+        }
+
         private String getFormattedDate()
         {
             String date = this.date.toLocalDate() + " : ";
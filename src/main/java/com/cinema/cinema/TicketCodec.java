@@ -0,0 +1,156 @@
+package com.cinema.cinema;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A compact binary RecordCodec for tickets. A record is:
+ *
+ *   version     (1 byte)  The version of the layout, currently 1.
+ *   screenId    (4 bytes)
+ *   seatNumber  (4 bytes)
+ *   rowNumber   (4 bytes)
+ *   cost        (4 bytes)
+ *   epochSecond (8 bytes) The date of the booking, in seconds since 1970-01-01T00:00 (the date has no time zone).
+ *   nano        (4 bytes) The nanoseconds within that second.
+ *   titleLength (2 bytes) The length of the UTF-8 movie title, or -1 if there is no title.
+ *   title       (titleLength bytes)
+ *
+ * so a ticket for a 14 character title is 45 bytes, instead of several hundred with Java serialization.
+ *
+ * Fields added in later versions are appended after the fields of earlier versions, so this codec reads a record of
+ * a later version by ignoring the bytes it does not know. A record starting with the Java serialization magic number
+ * (0xACED) was written before this codec was used, and is read with Java serialization instead.
+ *
+ * Decoded titles are interned in the codec, so the tickets of a screening share one String rather than each holding
+ * a copy; the UTF-8 bytes of encoded titles are cached in the same way.
+ * @author hari_rathod
+ * @version 2023.06.20
+ * @see ObjectDataRecorder
+ */
+public class TicketCodec implements RecordCodec<Ticket> {
+
+    // The version of the layout written by this codec.
+    public static final byte VERSION = 1;
+
+    // The size of the fields of version 1, before the bytes of the title.
+    private static final int FIXED_SIZE = 1 + 4 * Integer.BYTES + Long.BYTES + Integer.BYTES + Short.BYTES;
+
+    // The first byte of a Java serialization stream (the magic number is 0xACED).
+    private static final byte SERIALIZATION_MAGIC = (byte) 0xAC;
+
+    // Titles are not expected to be longer than this; a longer title is rejected rather than truncated.
+    private static final int MAX_TITLE_LENGTH = Short.MAX_VALUE;
+
+    // The number of distinct titles kept; past this, titles are no longer interned or cached.
+    private static final int MAX_TITLES = 4096;
+
+    private final ConcurrentHashMap<String, byte[]> encodedTitles = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> decodedTitles = new ConcurrentHashMap<>();
+    private final SerializationCodec<Ticket> legacyCodec = new SerializationCodec<>(Ticket.class);
+
+    @Override
+    public byte[] encode(Ticket ticket) throws IOException
+    {
+        byte[] title = encodeTitle(ticket.getMovieTitle());
+        ByteBuffer buffer = ByteBuffer.allocate(FIXED_SIZE + (title == null ? 0 : title.length));
+        LocalDateTime date = ticket.getDate();
+        buffer.put(VERSION)
+                .putInt(ticket.getScreenId())
+                .putInt(ticket.getSeatNumber())
+                .putInt(ticket.getRowNumber())
+                .putInt(ticket.getCost())
+                .putLong(date.toEpochSecond(ZoneOffset.UTC))
+                .putInt(date.getNano());
+        if (title == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) title.length).put(title);
+        }
+        return buffer.array();
+    }
+
+    @Override
+    public Ticket decode(byte[] record) throws IOException
+    {
+        if (record.length == 0) {
+            throw new StreamCorruptedException("Error: Empty ticket record.");
+        }
+        if (record[0] == SERIALIZATION_MAGIC) {
+            return legacyCodec.decode(record);
+        }
+        if (record[0] < 1) {
+            throw new StreamCorruptedException("Error: Unknown ticket record version %d.".formatted(record[0]));
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            buffer.get();
+            int screenId = buffer.getInt();
+            int seatNumber = buffer.getInt();
+            int rowNumber = buffer.getInt();
+            int cost = buffer.getInt();
+            LocalDateTime date = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+            String title = decodeTitle(buffer);
+            // Any remaining bytes are fields of a later version.
+            return new Ticket(screenId, title, seatNumber, rowNumber, cost, date);
+        } catch (BufferUnderflowException | IllegalArgumentException | DateTimeException e) {
+            throw new StreamCorruptedException("Error: Corrupt ticket record: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get the UTF-8 bytes of a title, from the cache if the title has been encoded before.
+     * @param title The title, or null.
+     * @return The bytes of the title, or null if the title is null.
+     * @throws IOException If the title is too long to be encoded.
+     */
+    private byte[] encodeTitle(String title) throws IOException
+    {
+        if (title == null) {
+            return null;
+        }
+        byte[] bytes = encodedTitles.get(title);
+        if (bytes == null) {
+            bytes = title.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > MAX_TITLE_LENGTH) {
+                throw new IOException("Error: Movie title is too long to be stored (%d bytes).".formatted(bytes.length));
+            }
+            if (encodedTitles.size() < MAX_TITLES) {
+                encodedTitles.put(title, bytes);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Read a title, and intern it, so equal titles decoded by this codec are the same String.
+     * @param buffer The buffer, positioned at the length of the title.
+     * @return The title, or null if the record has no title.
+     */
+    private String decodeTitle(ByteBuffer buffer)
+    {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        String title = new String(bytes, StandardCharsets.UTF_8);
+        String interned = decodedTitles.get(title);
+        if (interned != null) {
+            return interned;
+        }
+        if (decodedTitles.size() < MAX_TITLES) {
+            interned = decodedTitles.putIfAbsent(title, title);
+        }
+        return interned == null ? title : interned;
+    }
+}
@@ -0,0 +1,109 @@
+package com.cinema.cinema;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The ledger of every ticket sold, kept after the baskets of the sessions that bought them are deleted. Each ticket is
+ * appended to an ObjectDataRecorder log (RecordFormat.LOG), encoded by TicketCodec, so recording a ticket takes the
+ * same time however many tickets have been sold, and several processes can append to the same ledger.
+ *
+ * The ledger is stored in the file Filename.TICKET, which held the basket before baskets were kept per session (see
+ * SessionBasketStore). A file written then, a List of serialized tickets, is converted to a log the first time the
+ * ledger is used, so its tickets are kept.
+ * @author hari_rathod
+ * @version 2023.07.04
+ * @see TicketCodec
+ */
+public class TicketLedger implements AutoCloseable {
+
+    // The ledger shared by the whole process. Null until it is first used.
+    private static TicketLedger instance;
+
+    private final ObjectDataRecorder<Ticket> recorder;
+
+    /**
+     * Create a ledger stored in a file.
+     * @param path The file the tickets are stored in.
+     * @param durability When the recorded tickets are forced to the storage device.
+     */
+    public TicketLedger(Path path, Durability durability)
+    {
+        recorder = new ObjectDataRecorder<>(path, Ticket.class, RecordFormat.LOG, new TicketCodec(), durability);
+    }
+
+    /**
+     * Get the ledger shared by the whole process, stored in the file Filename.TICKET, creating it first if it does not
+     * exist. The recorded tickets are forced to the device when the JVM shuts down.
+     * @return The shared ledger.
+     */
+    public static synchronized TicketLedger getInstance()
+    {
+        if (instance == null) {
+            instance = new TicketLedger(Path.of(Filename.TICKET.toString()), ObjectDataRecorder.getDefaultDurability());
+            Runtime.getRuntime().addShutdownHook(new Thread(instance::close));
+        }
+        return instance;
+    }
+
+    /**
+     * Record a ticket that has been sold.
+     * @param ticket The ticket.
+     * @throws IOException If the ticket could not be written, or the file is not a ledger.
+     */
+    public void record(Ticket ticket) throws IOException
+    {
+        try {
+            recorder.writeToFile(ticket);
+        } catch (ClassNotFoundException e) {
+            throw new IOException("File %s does not contain tickets.".formatted(recorder.getPath()), e);
+        }
+    }
+
+    /**
+     * Get the number of tickets recorded. Only the header of the file is read.
+     * @return The number of tickets.
+     * @throws IOException If the file could not be read, or is not a ledger.
+     */
+    public int getNumberOfTickets() throws IOException
+    {
+        try {
+            return recorder.getNumberOfObjects();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("File %s does not contain tickets.".formatted(recorder.getPath()), e);
+        }
+    }
+
+    /**
+     * Get every ticket recorded, in the order they were sold.
+     * @return A list of the tickets.
+     * @throws IOException If the file could not be read, or is not a ledger.
+     */
+    public List<Ticket> getTickets() throws IOException
+    {
+        try {
+            return recorder.readListOfObjectsFromFile();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("File %s does not contain tickets.".formatted(recorder.getPath()), e);
+        }
+    }
+
+    /**
+     * Get a summary of the time taken to record tickets, as a String.
+     * @return A summary of the write latencies.
+     */
+    public String getSummary()
+    {
+        return recorder.getSummary();
+    }
+
+    /**
+     * Force every ticket already recorded, and stop forcing in the background.
+     */
+    @Override
+    public void close()
+    {
+        recorder.close();
+    }
+}
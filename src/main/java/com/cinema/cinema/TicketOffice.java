@@ -1,27 +1,75 @@
 package com.cinema.cinema;
 
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * TicketOffice is manages the other class. It is through this class
  * that screens and movies can be added, and tickets can be bought.
 
  * @author Hari Rathod
- * @version 2022.12.08
+ * @version 2023.07.04
  */
-public class TicketOffice
+public class TicketOffice implements ScreenInvalidationListener
 {
-    // Used to interface with the screens' database.
-    private ScreenDataManipulator screenDataManipulator;
-    // We cannot store 'screenDataManipulator.getAllScreens()' in a field, as the storage (database) would not be
-    // synced with the object references of a 'List<Screen>'.
+    // Used to interface with the storage of the screens. Screens are not kept in a field, as they would fall out of
+    // sync with the storage; instead the repository may be a CachingScreenRepository, which drops a cached screen
+    // whenever the screen is written.
+    private ScreenRepository screenRepository;
+
+    // Finds the screen showing a movie from its title, without reading every screen from storage.
+    private final MovieTitleIndex movieTitleIndex = new MovieTitleIndex();
+    // Whether the movie title index has been built from the screens in storage.
+    private boolean movieTitleIndexBuilt = false;
+    // When the index was last built (System.nanoTime()). A search that finds nothing only rebuilds the index if it is
+    // older than minIndexRebuildNanos, so mistyped titles do not each read every screen from storage.
+    private long movieTitleIndexBuiltAt;
+    private final long minIndexRebuildNanos;
+    // Whether the index is known to be out of date: a screen it names no longer shows its movie, or a screen that was
+    // not showing a movie has been changed. The next search that finds nothing then rebuilds it straight away.
+    private boolean movieTitleIndexStale = false;
+    // Chooses the screen a customer is sent to when a movie is showing on several screens. Built with the index.
+    private final ScreeningRouter screeningRouter = new ScreeningRouter();
+
+    // The seats held for customers while they confirm their bookings. Held seats are not booked in storage, so they
+    // are treated as booked in the screens and summaries returned by this TicketOffice.
+    private final SeatHolds seatHolds;
+
+    // The rendered listings of the screens, so 'list' is served from memory while no screen has changed.
+    private final ListingCache listingCache;
 
     /**
-     * Initialise fields.
+     * Initialise fields. The screens are stored in the ScreenRepository chosen by configuration.
+     * @see ScreenRepositoryFactory
      */
     public TicketOffice()
     {
-        screenDataManipulator = new ScreenDataManipulator();
+        this(ScreenRepositoryFactory.createScreenRepository());
+    }
+
+    /**
+     * Initialise fields.
+     * @param screenRepository The storage of the screens.
+     */
+    public TicketOffice(ScreenRepository screenRepository)
+    {
+        this(screenRepository, new SeatHolds());
+    }
+
+    /**
+     * Initialise fields.
+     * @param screenRepository The storage of the screens.
+     * @param seatHolds The seats held for customers while they confirm their bookings.
+     */
+    public TicketOffice(ScreenRepository screenRepository, SeatHolds seatHolds)
+    {
+        this.screenRepository = screenRepository;
+        this.seatHolds = seatHolds;
+        listingCache = new ListingCache(screenRepository, seatHolds,
+                Long.getLong("listing.maxStalenessMillis", 1000));
+        minIndexRebuildNanos = Long.getLong("index.minRebuildIntervalMillis", 1000) * 1_000_000;
+        ScreenInvalidationBus.getInstance().subscribe(this);
     }
 
     /**
@@ -56,7 +104,10 @@ public class TicketOffice
      */
     public void removeScreen(int id) throws ScreenIdDoesNotExistException
     {
-        screenDataManipulator.deleteScreen(id);
+        screenRepository.deleteScreen(id);
+        movieTitleIndex.remove(id);
+        screeningRouter.remove(id);
+        listingCache.screenInvalidated(id);
     }
 
     /**
@@ -81,11 +132,17 @@ public class TicketOffice
      * @throws ScreenIdAlreadyExistsException If the id of the screen that we are trying to add is already present.
      */
     private void addScreenToStorage(Screen screen) throws ScreenIdAlreadyExistsException {
-        List<Screen> screens = screenDataManipulator.getAllScreens();
+        List<ScreenSummary> screens = screenRepository.getScreenSummaries(false);
         if (screens.stream().anyMatch(s -> s.getId() == screen.getId())) {
             throw new ScreenIdAlreadyExistsException("Screen with id " + screen.getId() + " already exists.");
         }
-        screenDataManipulator.recordScreen(screen);
+        try {
+            screenRepository.recordScreen(screen);
+        } catch (ScreenVersionConflictException e) {
+            // A screen with the same id was added after the check above.
+            throw new ScreenIdAlreadyExistsException("Screen with id " + screen.getId() + " already exists.");
+        }
+        listingCache.screenInvalidated(screen.getId());
     }
 
     /**
@@ -97,7 +154,7 @@ public class TicketOffice
      */
     public Screen findScreen(int id) throws ScreenIdDoesNotExistException
     {
-        return screenDataManipulator.getScreenById(id);
+        return screenRepository.getScreenById(id);
     }
 
     /**
@@ -110,13 +167,19 @@ public class TicketOffice
      * @param movieTitle The title of the movie.
      * @param ticketCost The cost of a ticket (in cents).
      * @throws ScreenIdDoesNotExistException If the screen with the id parameter provided does not exist.
+     * @throws ScreenVersionConflictException If the screen kept being changed by other writers, e.g., during a rush of
+     * bookings, so the movie could not be added.
      */
-    public void addNewMovie(int id, String movieTitle, int ticketCost) throws ScreenIdDoesNotExistException
+    public void addNewMovie(int id, String movieTitle, int ticketCost)
+            throws ScreenIdDoesNotExistException, ScreenVersionConflictException
     {
         // Throws ScreenIdDoesNotExistException if the screen was not found, thus validating the id.
-        screenDataManipulator.getScreenById(id);
+        Screen screen = screenRepository.getScreenById(id);
 
-        screenDataManipulator.updateScreening(id, movieTitle, ticketCost);
+        screenRepository.updateScreening(id, movieTitle, ticketCost);
+        movieTitleIndex.add(id, movieTitle);
+        screeningRouter.add(id, movieTitle, screen.getNumberOfSeats(), screen.getNumberOfAvailableSeats());
+        listingCache.screenInvalidated(id);
     }
 
     /**
@@ -127,27 +190,29 @@ public class TicketOffice
      *
      * @param id         The id of the screen we want to remove the movie from.
      * @throws ScreenIdDoesNotExistException If the screen with the id parameter provided does not exist.
+     * @throws ScreenVersionConflictException If the screen kept being changed by other writers, e.g., during a rush of
+     * bookings, so the movie could not be removed.
      */
-    public void removeMovie(int id) throws ScreenIdDoesNotExistException
+    public void removeMovie(int id) throws ScreenIdDoesNotExistException, ScreenVersionConflictException
     {
         // Throws ScreenIdDoesNotExistException if the screen was not found, thus validating the id.
-        screenDataManipulator.getScreenById(id);
+        screenRepository.getScreenById(id);
 
-        screenDataManipulator.removeScreening(id);
+        screenRepository.removeScreening(id);
+        movieTitleIndex.remove(id);
+        screeningRouter.remove(id);
+        listingCache.screenInvalidated(id);
     }
 
     /**
-     * Get the details of the screens currently showing movies at the cinema, as a String.
+     * Get the details of the screens currently showing movies at the cinema, as a String. Held seats are not counted
+     * as available. The details are served from the listing cache while no screen has changed.
      * @return The details of only the screens showing movies, as a String.
+     * @see ListingCache
      */
     public String getAllMoviesDetails()
     {
-        StringBuilder details = new StringBuilder();
-        screenDataManipulator.getAllScreens().stream()
-                .filter(Screen::hasMovieScreening)
-                .map(Screen::getDetails)
-                .forEach(x -> details.append("\n").append(x));
-        return details.toString();
+        return listingCache.getListing(true);
     }
 
     /**
@@ -157,16 +222,24 @@ public class TicketOffice
      */
     public String getAllScreenDetails()
     {
-        StringBuilder details = new StringBuilder();
-        screenDataManipulator.getAllScreens().stream()
-                .map(Screen::getDetails)
-                .forEach(x -> details.append("\n").append(x));
-        return details.toString();
+        return listingCache.getListing(false);
+    }
+
+    /**
+     * Get the cache of the listings of the screens, e.g., to read its metrics.
+     * @return The listing cache.
+     */
+    public ListingCache getListingCache()
+    {
+        return listingCache;
     }
 
     /**
-     * TODO: We don't need this.
-     * Book a random ticket for a movie.
+     * Book a random ticket for a movie. Every available seat is equally likely to be booked, and the seat is chosen
+     * from the available seats directly, so a nearly full screen does not need more attempts than an empty one.
+     * Held seats are not chosen. The seat is held while it is booked in storage with a single atomic operation (see
+     * ScreenRepository.bookSeat(...)); if another booking takes the seat first, it is marked as booked in the copy of
+     * the screen, and another seat is chosen.
      *
      * @param movieTitle The movie to book a random ticket for.
      * @return A ticket to the movie, chosen at random.
@@ -175,47 +248,228 @@ public class TicketOffice
      */
     public Ticket bookRandomTicket(String movieTitle) throws NoAvailableSeatException, MovieDoesNotExistException
     {
-        /*
-        // Validate that the movie is being screened.
-        validateMovieTitle(movieTitle);
+        // Validate that the movie is being screened, and get a copy of the screen that is screening it.
+        return bookRandomTicket(validateMovieTitle(movieTitle));
+    }
 
-        // Get the screen that is screening the movie.
-        Screen screen = screens.values().stream()
-                .filter(x -> movieTitle.equals(x.getMovieTitle()))
-                .findFirst().get();
+    /**
+     * Book a random ticket in a screen, e.g., the screen that was shown to the customer, so the ticket is not booked
+     * on another screen showing the same movie. Seats that turn out to be booked are marked as booked in the screen.
+     *
+     * @param screen The screen showing the movie, as returned by validateMovieTitle(...).
+     * @return A ticket to the movie, chosen at random.
+     * @throws NoAvailableSeatException   If there are no available seats in the screen.
+     * @throws MovieDoesNotExistException If the screen no longer exists.
+     * @see #bookRandomTicket(String)
+     */
+    public Ticket bookRandomTicket(Screen screen) throws NoAvailableSeatException, MovieDoesNotExistException
+    {
+        Random random = ThreadLocalRandom.current();
 
-        boolean booked = false;
-        Ticket ticket = null;
-        
-        // Only exist the loop once a random ticket is booked, or if there are absolutely zero seats available.
-        while (!booked) {
+        // Every failed attempt books a seat in the copy, so the loop ends after at most one attempt per seat.
+        while (true) {
+            // If there are no seats available, 'NoAvailableSeatException' will be thrown.
+            SeatPosition seat = screen.getRandomAvailableSeat(random);
+            boolean booked;
             try {
-                // If there are no seats available, 'NoAvailableSeatException' will be thrown.
-                ticket = screen.bookRandomTicket();
-                booked = true;
+                booked = bookHeldSeats(seatHolds.hold(screen.getId(), List.of(seat))).isEmpty();
+            } catch (UnavailableSeatException e) {
+                // The seat was held by another customer since the screen was read.
+                booked = false;
+            } catch (ScreenIdDoesNotExistException e) {
+                throw new MovieDoesNotExistException("Movie '" + screen.getMovieTitle()
+                        + "' is no longer being screened.");
             }
-            catch (UnavailableSeatException e) {
-                continue;
+            if (booked) {
+                return new Ticket(screen.getId(), screen.getMovieTitle(), seat.getColumnNumber(), seat.getRowNumber(),
+                        screen.getTicketCost(), LocalDateTime.now());
             }
+            screen.getSeatMap().book(seat.getColumnNumber(), seat.getRowNumber());
         }
-        return ticket;
-         */
-        return null;
     }
 
     /**
-     * Get the Screen that is screening a movie.
+     * Find the best block of adjacent available seats for a group watching a movie: the block in a single row that is
+     * closest to the centre line of the screen. The seats are not booked.
+     *
+     * @param movieTitle The movie the group wants to watch.
+     * @param numberOfSeats The number of seats in the group. Must be >= 1.
+     * @return The seats of the block, from left to right.
+     * @throws NoAvailableSeatException   If no row of the screen has enough adjacent available seats.
+     * @throws MovieDoesNotExistException If the movie is not being screened.
+     */
+    public List<SeatPosition> findBestBlock(String movieTitle, int numberOfSeats)
+            throws NoAvailableSeatException, MovieDoesNotExistException
+    {
+        return findScreenForGroup(movieTitle, numberOfSeats).findBestBlock(numberOfSeats);
+    }
+
+    /**
+     * Get the Screen that is screening a movie. The title is looked up in the movie title index, so the best match
+     * is found without reading every screen. If no title contains the search, a title with a close spelling is used.
+     * If the movie is showing on several screens, the screen chosen by the screening router is returned (by default,
+     * the screen with the most available seats). Seats held for customers are marked as booked in the screen, so they
+     * are neither counted nor offered.
      *
      * @param movie The title of the movie, or partial title of the movie, to search for.
-     * @return The Screen that is screening the movie.
+     * @return A copy of the Screen that is screening the movie.
      * @throws MovieDoesNotExistException If there is no screening of this movie.
+     * @see MovieTitleIndex
+     * @see ScreeningRouter
      */
     public Screen validateMovieTitle(String movie) throws MovieDoesNotExistException
     {
-        return screenDataManipulator.getAllScreens().stream()
-                .filter(Screen::hasMovieScreening)
-                .filter(x -> x.getMovieTitle().toLowerCase().contains(movie.toLowerCase()))
-                .findFirst().orElseThrow(() -> new MovieDoesNotExistException("Movie '" + movie + "' is not being screened."));
+        return findScreen(movie, 0);
+    }
+
+    /**
+     * Get the Screen that is screening a movie and can best seat a group together: the first screen, in the order of
+     * the screening router, with a row of enough adjacent available seats. Screens the router knows to have too few
+     * available seats are skipped without being read.
+     *
+     * @param movie The title of the movie, or partial title of the movie, to search for.
+     * @param numberOfSeats The number of seats in the group.
+     * @return A copy of the Screen that is screening the movie. If no screen can seat the group together, the first
+     * screen showing the movie is returned, so finding a block in it fails.
+     * @throws MovieDoesNotExistException If there is no screening of this movie.
+     */
+    public Screen findScreenForGroup(String movie, int numberOfSeats) throws MovieDoesNotExistException
+    {
+        return findScreen(movie, numberOfSeats);
+    }
+
+    /**
+     * Get the Screen that is screening a movie. If the movie is not found, the movie title index is rebuilt and
+     * searched again, but only if the index is known to be out of date, or was built longer ago than the minimum
+     * interval between rebuilds ('index.minRebuildIntervalMillis', default 1000).
+     * @param movie The title of the movie, or partial title of the movie, to search for.
+     * @param numberOfSeats The number of adjacent seats the screen should have available, or 0 for any screen.
+     * @return A copy of the Screen that is screening the movie, with the held seats booked.
+     * @throws MovieDoesNotExistException If there is no screening of this movie.
+     */
+    private Screen findScreen(String movie, int numberOfSeats) throws MovieDoesNotExistException
+    {
+        synchronized (movieTitleIndex) {
+            if (!movieTitleIndexBuilt) {
+                rebuildMovieTitleIndex();
+            }
+        }
+        Screen screen = findScreenShowing(movie, numberOfSeats);
+        if (screen == null && rebuildStaleMovieTitleIndex()) {
+            // The screenings may have been changed by another TicketOffice, so the index was rebuilt; search again.
+            screen = findScreenShowing(movie, numberOfSeats);
+        }
+        if (screen == null) {
+            throw new MovieDoesNotExistException("Movie '" + movie + "' is not being screened.");
+        }
+        return screen;
+    }
+
+    /**
+     * Get the screen showing the movie best matching a title in the movie title index. The screens showing that movie
+     * are tried in the order of the screening router, and only read until a suitable screen is found.
+     * @param movie The title of the movie, or partial title of the movie, to search for.
+     * @param numberOfSeats The number of adjacent seats the screen should have available, or 0 for any screen.
+     * @return The screen showing the movie, with the held seats booked, or null if no screen in the index matches, or
+     * the matching screens no longer show the movie they are indexed under (their entries are then removed).
+     */
+    private Screen findScreenShowing(String movie, int numberOfSeats)
+    {
+        List<Integer> screenIds = movieTitleIndex.search(movie);
+        if (screenIds.isEmpty()) {
+            return null;
+        }
+        List<Integer> candidates = screeningRouter.getCandidates(movieTitleIndex.getTitle(screenIds.get(0)));
+        if (candidates.isEmpty()) {
+            candidates = List.of(screenIds.get(0));
+        }
+
+        Screen firstScreen = null;
+        for (int screenId : candidates) {
+            int availableSeats = screeningRouter.getAvailableSeats(screenId);
+            if (firstScreen != null && availableSeats >= 0 && availableSeats < numberOfSeats) {
+                continue;
+            }
+            Screen screen;
+            try {
+                screen = screenRepository.getScreenById(screenId);
+            } catch (ScreenIdDoesNotExistException e) {
+                continue;
+            }
+            if (!screen.hasMovieScreening() || !movieTitleIndex.isTitleOf(screenId, screen.getMovieTitle())) {
+                // The screening was changed by another TicketOffice, so the index is out of date.
+                synchronized (movieTitleIndex) {
+                    movieTitleIndex.remove(screenId);
+                    screeningRouter.remove(screenId);
+                    movieTitleIndexStale = true;
+                }
+                continue;
+            }
+            for (SeatPosition seat : seatHolds.getHeldSeats(screenId)) {
+                screen.getSeatMap().book(seat.getColumnNumber(), seat.getRowNumber());
+            }
+            // The screen has been read, so correct the router's count of its available seats.
+            screeningRouter.updateAvailableSeats(screenId, screen.getNumberOfAvailableSeats());
+            if (numberOfSeats == 0 || !screen.getSeatMap().findBestBlock(numberOfSeats).isEmpty()) {
+                return screen;
+            }
+            if (firstScreen == null) {
+                firstScreen = screen;
+            }
+        }
+        return firstScreen;
+    }
+
+    /**
+     * Rebuild the movie title index, after a search found nothing, if the index is known to be out of date or is older
+     * than the minimum interval between rebuilds.
+     * @return true if the index was rebuilt.
+     */
+    private boolean rebuildStaleMovieTitleIndex()
+    {
+        synchronized (movieTitleIndex) {
+            if (!movieTitleIndexStale && System.nanoTime() - movieTitleIndexBuiltAt < minIndexRebuildNanos) {
+                return false;
+            }
+            rebuildMovieTitleIndex();
+            return true;
+        }
+    }
+
+    /**
+     * Rebuild the movie title index from the screenings in storage.
+     */
+    private void rebuildMovieTitleIndex()
+    {
+        synchronized (movieTitleIndex) {
+            movieTitleIndex.clear();
+            screeningRouter.clear();
+            for (ScreenSummary summary : screenRepository.getScreenSummaries(true)) {
+                movieTitleIndex.add(summary.getId(), summary.getMovieTitle());
+                screeningRouter.add(summary.getId(), summary.getMovieTitle(), summary.getNumberOfSeats(),
+                        summary.withHeldSeats(seatHolds.getNumberOfHeldSeats(summary.getId()))
+                                .getNumberOfAvailableSeats());
+            }
+            movieTitleIndexBuilt = true;
+            movieTitleIndexBuiltAt = System.nanoTime();
+            movieTitleIndexStale = false;
+        }
+    }
+
+    /**
+     * Note that a stored screen has been changed. A screen in the movie title index is checked when it is next read
+     * (see findScreenShowing(...)), as most changes are bookings; any other screen may have started showing a movie,
+     * so the index is marked as out of date.
+     * @param screenId The id of the screen.
+     */
+    @Override
+    public void screenInvalidated(int screenId)
+    {
+        synchronized (movieTitleIndex) {
+            if (movieTitleIndexBuilt && movieTitleIndex.getTitle(screenId) == null) {
+                movieTitleIndexStale = true;
+            }
+        }
     }
 
     /**
@@ -225,16 +479,197 @@ public class TicketOffice
      * @param rowNumber The row number, i.e., how close to the screen.
      * @return A ticket to the movie.
      * @throws MovieDoesNotExistException If the movie is not being screened.
-     * @throws UnavailableSeatException If the seat is already booked.
+     * @throws UnavailableSeatException If the seat is already booked, or held for another customer.
+     * @throws InvalidSeatException If the seat is not in the screen.
      */
-    public Ticket bookTicket(String movieTitle, int seatNumber, int rowNumber) throws MovieDoesNotExistException, UnavailableSeatException
+    public Ticket bookTicket(String movieTitle, int seatNumber, int rowNumber)
+            throws MovieDoesNotExistException, UnavailableSeatException, InvalidSeatException
     {
         // Check that the movie is being screened.
-        Screen screen = validateMovieTitle(movieTitle);
+        return bookTicket(validateMovieTitle(movieTitle), seatNumber, rowNumber);
+    }
 
-        Ticket ticket = screen.bookTicket(seatNumber, rowNumber);
-        // Record the screen, with one less seat available, in storage.
-        screenDataManipulator.recordScreen(screen);
-        return ticket;
+    /**
+     * Book a ticket in a screen, e.g., the screen that was shown to the customer when they chose the seat, so the
+     * seat is not booked on another screen showing the same movie.
+     * @param screen The screen showing the movie, as returned by validateMovieTitle(...).
+     * @param seatNumber The seat number, i.e., how far across in a given row (the column number).
+     * @param rowNumber The row number, i.e., how close to the screen.
+     * @return A ticket to the movie.
+     * @throws MovieDoesNotExistException If the screen no longer exists.
+     * @throws UnavailableSeatException If the seat is already booked, or held for another customer.
+     * @throws InvalidSeatException If the seat is not in the screen.
+     */
+    public Ticket bookTicket(Screen screen, int seatNumber, int rowNumber)
+            throws MovieDoesNotExistException, UnavailableSeatException, InvalidSeatException
+    {
+        // Hold the seat (checking that it is in the screen), then book it in storage with a single atomic operation,
+        // rather than recording the whole screen, so that concurrent bookings of the same seat cannot both succeed.
+        boolean booked;
+        try {
+            booked = bookHeldSeats(holdSeats(screen, List.of(new SeatPosition(seatNumber, rowNumber)))).isEmpty();
+        } catch (ScreenIdDoesNotExistException e) {
+            throw new MovieDoesNotExistException("Movie '" + screen.getMovieTitle() + "' is no longer being screened.");
+        }
+        if (!booked) {
+            throw new UnavailableSeatException("Seat is unavailable.");
+        }
+        return new Ticket(screen.getId(), screen.getMovieTitle(), seatNumber, rowNumber, screen.getTicketCost(),
+                LocalDateTime.now());
+    }
+
+    /**
+     * Book several seats in a screen together: either a ticket is booked for every seat, or no seat is booked. The
+     * seats are held (see holdSeats(...)), and then booked in storage with a single atomic operation (see
+     * ScreenRepository.bookSeats(...)), so a group is never left half booked.
+     * @param screen The screen showing the movie, e.g., as returned by validateMovieTitle(...).
+     * @param seats The seats to book.
+     * @return The tickets, in the order of the seats.
+     * @throws InvalidSeatException If a seat is not in the screen, or is repeated. The message lists every such seat.
+     * @throws UnavailableSeatException If a seat is already booked or held. The exception lists every such seat.
+     * @throws MovieDoesNotExistException If the screen no longer exists.
+     * @throws IllegalArgumentException If there are no seats.
+     */
+    public List<Ticket> bookTickets(Screen screen, List<SeatPosition> seats)
+            throws InvalidSeatException, UnavailableSeatException, MovieDoesNotExistException
+    {
+        return confirmHold(screen, holdSeats(screen, seats));
+    }
+
+    /**
+     * Hold seats in a screen for a customer, while they confirm the booking: until the hold is confirmed (see
+     * confirmHold(...)), released, or expires, no other customer can hold or book the seats. Either every seat is
+     * held, or none of them are. Whether the seats are booked in storage is checked when the hold is confirmed, so
+     * the seats should be chosen from a screen returned by validateMovieTitle(...), in which held seats are booked.
+     * @param screen The screen showing the movie, e.g., as returned by validateMovieTitle(...).
+     * @param seats The seats to hold.
+     * @return The hold.
+     * @throws InvalidSeatException If a seat is not in the screen, or is repeated. The message lists every such seat.
+     * @throws UnavailableSeatException If a seat is already held. The exception lists every held seat.
+     * @throws IllegalArgumentException If there are no seats.
+     */
+    public SeatHold holdSeats(Screen screen, List<SeatPosition> seats)
+            throws InvalidSeatException, UnavailableSeatException
+    {
+        if (seats.isEmpty()) {
+            throw new IllegalArgumentException("At least one seat must be booked.");
+        }
+        List<String> invalidSeats = new ArrayList<>();
+        Set<SeatPosition> validSeats = new HashSet<>();
+        for (SeatPosition seat : seats) {
+            try {
+                screen.validateSeatNumbers(seat.getColumnNumber(), seat.getRowNumber());
+                if (!validSeats.add(seat)) {
+                    invalidSeats.add("Seat (" + seat + ") is repeated.");
+                }
+            } catch (InvalidSeatException e) {
+                invalidSeats.add(e.getMessage());
+            }
+        }
+        if (!invalidSeats.isEmpty()) {
+            throw new InvalidSeatException(String.join("\n", invalidSeats));
+        }
+        return seatHolds.hold(screen.getId(), seats);
+    }
+
+    /**
+     * Confirm a hold: book its seats in storage with a single atomic operation, and release the hold. Either a ticket
+     * is booked for every seat, or no seat is booked.
+     * @param screen The screen the seats are held in.
+     * @param hold The hold, as returned by holdSeats(...).
+     * @return The tickets, in the order of the seats.
+     * @throws UnavailableSeatException If the hold has expired or was released, or a seat was booked by another
+     * process sharing the storage. The exception lists the seats that could not be booked.
+     * @throws MovieDoesNotExistException If the screen no longer exists.
+     */
+    public List<Ticket> confirmHold(Screen screen, SeatHold hold)
+            throws UnavailableSeatException, MovieDoesNotExistException
+    {
+        seatHolds.expire();
+        if (hold.getState() != SeatHold.State.ACTIVE) {
+            throw new UnavailableSeatException("Your hold on the seats has " + hold.getState().name().toLowerCase()
+                    + ", so no seats were booked.", hold.getSeats());
+        }
+        List<SeatPosition> unavailableSeats;
+        try {
+            unavailableSeats = bookHeldSeats(hold);
+        } catch (ScreenIdDoesNotExistException e) {
+            throw new MovieDoesNotExistException("Movie '" + screen.getMovieTitle() + "' is no longer being screened.");
+        }
+        if (!unavailableSeats.isEmpty()) {
+            throw createUnavailableSeatException(unavailableSeats);
+        }
+
+        LocalDateTime date = LocalDateTime.now();
+        List<Ticket> tickets = new ArrayList<>(hold.getSeats().size());
+        for (SeatPosition seat : hold.getSeats()) {
+            tickets.add(new Ticket(screen.getId(), screen.getMovieTitle(), seat.getColumnNumber(), seat.getRowNumber(),
+                    screen.getTicketCost(), date));
+        }
+        return tickets;
+    }
+
+    /**
+     * Release a hold, so its seats can be booked by other customers.
+     * @param hold The hold, as returned by holdSeats(...).
+     * @return true if the hold was released, false if it had already expired, or been confirmed or released.
+     */
+    public boolean releaseHold(SeatHold hold)
+    {
+        return seatHolds.release(hold);
+    }
+
+    /**
+     * Get the seats held for customers while they confirm their bookings, e.g., to read their metrics.
+     * @return The held seats.
+     */
+    public SeatHolds getSeatHolds()
+    {
+        return seatHolds;
+    }
+
+    /**
+     * Book the seats of a hold in storage with a single atomic operation, then end the hold: it is confirmed if the
+     * seats were booked, and released otherwise. The seats stay held while they are booked, so no other customer of
+     * this TicketOffice can take them in the meantime.
+     * @param hold The hold.
+     * @return The seats that were unavailable (already booked). If the list is empty, every seat was booked.
+     * @throws ScreenIdDoesNotExistException If the screen no longer exists.
+     */
+    private List<SeatPosition> bookHeldSeats(SeatHold hold) throws ScreenIdDoesNotExistException
+    {
+        List<SeatPosition> unavailableSeats = hold.getSeats();
+        try {
+            if (hold.getSeats().size() == 1) {
+                SeatPosition seat = hold.getSeats().get(0);
+                if (screenRepository.bookSeat(hold.getScreenId(), seat.getColumnNumber(), seat.getRowNumber())) {
+                    unavailableSeats = List.of();
+                }
+            } else {
+                unavailableSeats = screenRepository.bookSeats(hold.getScreenId(), hold.getSeats());
+            }
+        } finally {
+            if (unavailableSeats.isEmpty()) {
+                listingCache.screenInvalidated(hold.getScreenId());
+                screeningRouter.seatsBooked(hold.getScreenId(), hold.getSeats().size());
+                seatHolds.confirm(hold);
+            } else {
+                seatHolds.release(hold);
+            }
+        }
+        return unavailableSeats;
+    }
+
+    /**
+     * Create the exception thrown when seats cannot be booked, listing the seats.
+     * @param unavailableSeats The unavailable seats.
+     * @return The exception.
+     */
+    private static UnavailableSeatException createUnavailableSeatException(List<SeatPosition> unavailableSeats)
+    {
+        StringJoiner unavailable = new StringJoiner("), (", "(", ")");
+        unavailableSeats.forEach(seat -> unavailable.add(seat.toString()));
+        return new UnavailableSeatException("No seats were booked, as these seats are unavailable: " + unavailable,
+                unavailableSeats);
     }
 }
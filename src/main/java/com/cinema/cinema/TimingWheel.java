@@ -0,0 +1,156 @@
+package com.cinema.cinema;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A hashed timing wheel: schedules items to expire at a deadline, and finds the expired items as time advances. Time
+ * is divided into ticks; the wheel has a bucket for each tick of one rotation, and an item is put in the bucket of its
+ * deadline's tick, with the number of whole rotations left before it expires. Scheduling and cancelling an item take
+ * O(1) steps, and advancing by one tick only visits the items in one bucket, so the cost of expiry does not grow with
+ * the number of items waiting to expire.
+ *
+ * Items never expire before their deadline, but may expire up to one tick after it. A timing wheel is not thread
+ * safe; it must be locked by its user.
+ * @author hari_rathod
+ * @version 2023.07.04
+ * @param <T> The type of the items.
+ * @see SeatHolds
+ */
+public class TimingWheel<T>
+{
+    private final long tickMillis;
+    private final long startMillis;
+    private final List<ArrayDeque<Timeout<T>>> buckets;
+    // The wheel has a power of two buckets, so the bucket of a tick is found with a mask.
+    private final int mask;
+    // The last tick that has been processed, counted from startMillis.
+    private long currentTick;
+    // The number of items scheduled, and not yet expired or cancelled.
+    private int size;
+
+    /**
+     * Create a timing wheel.
+     * @param tickMillis The length (in milliseconds) of a tick. Must be >= 1.
+     * @param wheelSize The number of buckets, rounded up to a power of two. Must be >= 1.
+     * @param startMillis The time (in milliseconds) of the first tick.
+     */
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis)
+    {
+        if (tickMillis < 1 || wheelSize < 1 || wheelSize > 1 << 30) {
+            throw new IllegalArgumentException("The tick length and wheel size must be at least 1.");
+        }
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        int numberOfBuckets = wheelSize == 1 ? 1 : Integer.highestOneBit(wheelSize - 1) << 1;
+        buckets = new ArrayList<>(numberOfBuckets);
+        for (int i = 0; i < numberOfBuckets; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+        mask = numberOfBuckets - 1;
+    }
+
+    /**
+     * Schedule an item to expire at a deadline. An item whose deadline has passed expires at the next tick.
+     * @param item The item.
+     * @param deadlineMillis The time (in milliseconds) the item expires.
+     * @return The timeout of the item, which can be cancelled.
+     */
+    public Timeout<T> schedule(T item, long deadlineMillis)
+    {
+        // Round the deadline up to a tick, so the item never expires early.
+        long deadlineTick = Math.max(currentTick + 1, Math.floorDiv(deadlineMillis - startMillis + tickMillis - 1,
+                tickMillis));
+        Timeout<T> timeout = new Timeout<>(item, (deadlineTick - currentTick - 1) / buckets.size());
+        buckets.get((int) (deadlineTick & mask)).add(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Cancel a timeout, so its item does not expire. The timeout is removed from its bucket when the bucket is next
+     * visited.
+     * @param timeout The timeout.
+     * @return true if the timeout was cancelled, false if it had already expired or been cancelled.
+     */
+    public boolean cancel(Timeout<T> timeout)
+    {
+        if (timeout.done) {
+            return false;
+        }
+        timeout.done = true;
+        size--;
+        return true;
+    }
+
+    /**
+     * Advance the wheel to a time, processing every tick up to it: the items whose deadline has passed expire.
+     * @param nowMillis The current time (in milliseconds).
+     * @param expired Called with each expired item, in order of tick.
+     * @return The number of items that expired.
+     */
+    public int advance(long nowMillis, Consumer<T> expired)
+    {
+        long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        int count = 0;
+        while (currentTick < targetTick) {
+            currentTick++;
+            Iterator<Timeout<T>> bucket = buckets.get((int) (currentTick & mask)).iterator();
+            while (bucket.hasNext()) {
+                Timeout<T> timeout = bucket.next();
+                if (timeout.done) {
+                    bucket.remove();
+                } else if (timeout.remainingRounds > 0) {
+                    timeout.remainingRounds--;
+                } else {
+                    bucket.remove();
+                    timeout.done = true;
+                    size--;
+                    count++;
+                    expired.accept(timeout.item);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the number of items waiting to expire.
+     * @return The number of items.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * An item scheduled in a timing wheel.
+     * @param <T> The type of the item.
+     */
+    public static final class Timeout<T>
+    {
+        private final T item;
+        // The number of times the item's bucket is visited before the item expires.
+        private long remainingRounds;
+        // Whether the item has expired or been cancelled.
+        private boolean done;
+
+        private Timeout(T item, long remainingRounds)
+        {
+            this.item = item;
+            this.remainingRounds = remainingRounds;
+        }
+
+        /**
+         * Get the item.
+         * @return The item.
+         */
+        public T getItem()
+        {
+            return item;
+        }
+    }
+}
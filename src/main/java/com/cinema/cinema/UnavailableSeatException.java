@@ -1,12 +1,35 @@
 package com.cinema.cinema;
 
+import java.util.List;
+
 public class UnavailableSeatException extends Exception {
 
+    // The seats that were unavailable, if several seats were booked together.
+    private final List<SeatPosition> unavailableSeats;
+
     /**
      * Constructor for UnavailableSeatException.
      * @param message The message associated with this exception.
      */
     public UnavailableSeatException(String message) {
+        this(message, List.of());
+    }
+
+    /**
+     * Constructor for UnavailableSeatException, when several seats were booked together.
+     * @param message The message associated with this exception.
+     * @param unavailableSeats The seats that were unavailable (already booked).
+     */
+    public UnavailableSeatException(String message, List<SeatPosition> unavailableSeats) {
         super(message);
+        this.unavailableSeats = List.copyOf(unavailableSeats);
+    }
+
+    /**
+     * Get the seats that were unavailable, if several seats were booked together.
+     * @return The unavailable seats, or an empty list if a single seat was booked.
+     */
+    public List<SeatPosition> getUnavailableSeats() {
+        return unavailableSeats;
     }
 }
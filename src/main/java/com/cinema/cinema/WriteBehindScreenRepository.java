@@ -0,0 +1,492 @@
+package com.cinema.cinema;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A ScreenRepository that books seats without waiting for the database. A booking is checked against a local copy of
+ * the screen, appended to a BookingJournal on the local disk, and then acknowledged. The journaled bookings are
+ * written to the database in batches, with a single bulk write, when 'batchSize' bookings are waiting or every
+ * 'flushIntervalMillis', whichever comes first. Bookings of seats in the same 64-bit element of the same screen
+ * are merged into one update.
+ *
+ * If the application crashes, the bookings in the journal that were not written are written when the repository is
+ * next created. Replayed bookings are written one seat at a time, and only book seats that are still available,
+ * so a booking that was written before the crash is not applied twice.
+ *
+ * All other operations first write the waiting bookings, and then go straight to the database. Because bookings are
+ * checked against the local copy of a screen, only one process may book seats in a screen in this mode, and the
+ * screens must use the packed seat map (see SeatEncodingMigration).
+ *
+ * An acknowledged booking whose seat was booked by another process before it was written is lost. Lost bookings are
+ * logged at ERROR, and counted (see getLostBookings() and getSummary()); failed background writes are logged at WARN.
+ * @author hari_rathod
+ * @version 2023.07.04
+ * @see ScreenDataManipulator
+ */
+public class WriteBehindScreenRepository implements ScreenRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindScreenRepository.class);
+
+    private final ScreenDataManipulator database;
+    private final BookingJournal journal;
+    private final int batchSize;
+
+    // Held while bookings are written to the database, so batches are written in the order they were journaled.
+    // Always acquired before bookingLock.
+    private final Object flushLock = new Object();
+
+    // Held while a seat is booked locally, and while the bookings waiting to be written are taken.
+    private final Object bookingLock = new Object();
+
+    // The local copies of the screens that seats have been booked in, including the bookings not yet written.
+    private final Map<Integer, Screen> screens = new HashMap<>();
+
+    // The bookings waiting to be written, merged by seat element.
+    private final Map<String, SeatWordUpdate> pending = new LinkedHashMap<>();
+
+    // Whether the next write must replay the whole journal, seat by seat (after a crash or a failed write).
+    private boolean replayNeeded;
+
+    private final ScheduledExecutorService flusher;
+
+    // Metrics.
+    private final AtomicInteger backlog = new AtomicInteger();
+    private final LatencyHistogram flushLatency = new LatencyHistogram("us");
+    private final LatencyHistogram batchSizes = new LatencyHistogram(" seats");
+    private final AtomicLong updatesWritten = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong lostBookings = new AtomicLong();
+
+    /**
+     * Create a repository that writes bookings to the database in batches. Any bookings left in the journal by a
+     * crash are written to the database before this constructor returns.
+     * @param database The database the screens are stored in.
+     * @param journal The journal bookings are recorded in before they are acknowledged.
+     * @param batchSize The number of waiting bookings that causes a write.
+     * @param flushIntervalMillis The longest time (in milliseconds) a booking waits before it is written.
+     * @throws IOException If the journal could not be read.
+     */
+    public WriteBehindScreenRepository(ScreenDataManipulator database, BookingJournal journal, int batchSize,
+                                       long flushIntervalMillis) throws IOException
+    {
+        this.database = database;
+        this.journal = journal;
+        this.batchSize = batchSize;
+
+        long journalSize = journal.size();
+        if (journalSize > 0) {
+            replayNeeded = true;
+            backlog.set((int) (journalSize / BookingJournal.RECORD_SIZE));
+            flush();
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "booking-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushInBackground, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<Screen> getAllScreens()
+    {
+        flush();
+        return database.getAllScreens();
+    }
+
+    @Override
+    public List<ScreenSummary> getScreenSummaries(boolean onlyWithScreening)
+    {
+        flush();
+        return database.getScreenSummaries(onlyWithScreening);
+    }
+
+    /**
+     * Get the screen with matching id. If seats have been booked in the screen through this repository, the local
+     * copy (including the bookings not yet written) is returned, so the database is not read.
+     * @param id The id of the screen we want to retrieve.
+     * @return A copy of the screen with the matching id.
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     */
+    @Override
+    public Screen getScreenById(int id) throws ScreenIdDoesNotExistException
+    {
+        synchronized (bookingLock) {
+            Screen screen = screens.get(id);
+            if (screen != null) {
+                return screen.copy();
+            }
+        }
+        return database.getScreenById(id);
+    }
+
+    @Override
+    public long getScreenVersion(int id) throws ScreenIdDoesNotExistException
+    {
+        flush();
+        return database.getScreenVersion(id);
+    }
+
+    @Override
+    public void recordScreen(Screen screen) throws ScreenVersionConflictException
+    {
+        synchronized (flushLock) {
+            flush();
+            synchronized (bookingLock) {
+                database.recordScreen(screen);
+                screens.remove(screen.getId());
+            }
+        }
+    }
+
+    /**
+     * Book a single seat in a screen, but only if the seat is available. The seat is checked and booked in the local
+     * copy of the screen, and the booking is journaled before this method returns. The booking is written to the
+     * database later.
+     * @param id The id of the screen.
+     * @param columnNumber The column number of the seat to book. 1 is the number of the first column.
+     * @param rowNumber The row number of the seat to book. 1 is the number of the first row.
+     * @return True if the seat was booked, false if the seat was unavailable (already booked).
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     * @throws UncheckedIOException If the booking could not be journaled. The seat is not booked.
+     */
+    @Override
+    public boolean bookSeat(int id, int columnNumber, int rowNumber) throws ScreenIdDoesNotExistException
+    {
+        int waiting;
+        synchronized (bookingLock) {
+            Screen screen = screens.get(id);
+            if (screen == null) {
+                screen = database.getScreenById(id);
+                screens.put(id, screen);
+            }
+            if (!screen.isSeatAvailable(columnNumber, rowNumber)) {
+                return false;
+            }
+
+            try {
+                journal.append(id, columnNumber, rowNumber);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not journal the booking.", e);
+            }
+            try {
+                screen.book(columnNumber, rowNumber);
+            } catch (UnavailableSeatException e) {
+                // Cannot happen, as the seat was checked while holding the lock.
+                throw new IllegalStateException(e);
+            }
+            // The database increases the version once for every seat booked, so the local copy does the same.
+            screen.setVersion(screen.getVersion() + 1);
+            SeatWordUpdate update = new SeatWordUpdate(id, columnNumber, rowNumber);
+            pending.merge(update.getKey(), update, (merged, added) -> {
+                merged.merge(added);
+                return merged;
+            });
+            waiting = backlog.incrementAndGet();
+        }
+
+        if (waiting == batchSize) {
+            flusher.execute(this::flushInBackground);
+        }
+        return true;
+    }
+
+    /**
+     * Book several seats in a screen, but only if every one of them is available. The seats are checked and booked
+     * in the local copy of the screen while it is locked, and the bookings are journaled with a single write before
+     * this method returns. The bookings are written to the database later.
+     * @param id The id of the screen.
+     * @param seats The seats to book. The seats must be within the screen, and must not be repeated.
+     * @return The seats that were unavailable (already booked). If the list is empty, every seat was booked.
+     * @throws ScreenIdDoesNotExistException If the id was not matched with any of the screens in the cinema.
+     * @throws UncheckedIOException If the bookings could not be journaled. No seat is booked.
+     */
+    @Override
+    public List<SeatPosition> bookSeats(int id, List<SeatPosition> seats) throws ScreenIdDoesNotExistException
+    {
+        int waiting;
+        synchronized (bookingLock) {
+            Screen screen = screens.get(id);
+            if (screen == null) {
+                screen = database.getScreenById(id);
+                screens.put(id, screen);
+            }
+            List<SeatPosition> unavailable = new ArrayList<>();
+            for (SeatPosition seat : seats) {
+                if (!screen.isSeatAvailable(seat.getColumnNumber(), seat.getRowNumber())) {
+                    unavailable.add(seat);
+                }
+            }
+            if (!unavailable.isEmpty()) {
+                return unavailable;
+            }
+
+            try {
+                journal.append(id, seats);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not journal the booking.", e);
+            }
+            screen.bookSeats(seats);
+            // The database increases the version once for every seat booked, so the local copy does the same.
+            screen.setVersion(screen.getVersion() + seats.size());
+            for (SeatPosition seat : seats) {
+                SeatWordUpdate update = new SeatWordUpdate(id, seat.getColumnNumber(), seat.getRowNumber());
+                pending.merge(update.getKey(), update, (merged, added) -> {
+                    merged.merge(added);
+                    return merged;
+                });
+            }
+            waiting = backlog.addAndGet(seats.size());
+        }
+
+        if (waiting >= batchSize && waiting - seats.size() < batchSize) {
+            flusher.execute(this::flushInBackground);
+        }
+        return List.of();
+    }
+
+    @Override
+    public void updateScreening(int id, String movieTitle, int ticketCost)
+            throws ScreenIdDoesNotExistException, ScreenVersionConflictException
+    {
+        synchronized (flushLock) {
+            flush();
+            synchronized (bookingLock) {
+                database.updateScreening(id, movieTitle, ticketCost);
+                screens.remove(id);
+            }
+        }
+    }
+
+    @Override
+    public void removeScreening(int id) throws ScreenIdDoesNotExistException, ScreenVersionConflictException
+    {
+        synchronized (flushLock) {
+            flush();
+            synchronized (bookingLock) {
+                database.removeScreening(id);
+                screens.remove(id);
+            }
+        }
+    }
+
+    @Override
+    public void deleteScreen(int id) throws ScreenIdDoesNotExistException
+    {
+        synchronized (flushLock) {
+            flush();
+            synchronized (bookingLock) {
+                database.deleteScreen(id);
+                screens.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Write the waiting bookings to the database, with a single bulk write, and discard them from the journal.
+     * If the write fails, the bookings stay in the journal, and are replayed seat by seat by the next write. If a
+     * merged update is not applied, as one of its seats was booked by another process, its other seats are booked
+     * one at a time (see bookSeatBySeat(...)).
+     * @throws com.mongodb.MongoException If the bookings could not be written to the database.
+     * @throws UncheckedIOException If the journal could not be read or written.
+     */
+    public void flush()
+    {
+        synchronized (flushLock) {
+            List<SeatWordUpdate> updates;
+            long journaled;
+            int seats;
+            boolean replay;
+            synchronized (bookingLock) {
+                seats = backlog.get();
+                if (seats == 0) {
+                    return;
+                }
+                replay = replayNeeded;
+                try {
+                    journaled = journal.size();
+                    updates = replay ? journal.read(journaled) : new ArrayList<>(pending.values());
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not read the booking journal.", e);
+                }
+                pending.clear();
+                // Until the write succeeds, the journal is the only record of these bookings.
+                replayNeeded = true;
+            }
+
+            long start = System.nanoTime();
+            int applied;
+            try {
+                applied = database.bookSeatsInBulk(updates);
+                if (applied < updates.size() && !replay) {
+                    bookSeatBySeat(updates, updates.size() - applied);
+                }
+            } catch (RuntimeException e) {
+                failedFlushes.incrementAndGet();
+                throw e;
+            }
+            flushLatency.recordSince(start);
+            batchSizes.record(seats);
+            updatesWritten.addAndGet(updates.size());
+            // An update that is not applied booked a seat that is already booked in the database, e.g., by a
+            // replayed booking that had already been written, or by another process.
+            conflicts.addAndGet(updates.size() - applied);
+
+            synchronized (bookingLock) {
+                try {
+                    journal.discard(journaled);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not discard written bookings from the journal.", e);
+                }
+                backlog.addAndGet(-seats);
+                replayNeeded = false;
+            }
+        }
+    }
+
+    /**
+     * Book the seats of merged updates that were not applied one at a time. A merged update is only applied if every
+     * one of its seats is available, so when one of its seats has been booked by another process, the other bookings
+     * it carries would be lost. The seats of the updates that are still available are found, and booked with a single
+     * bulk write; the bookings of the seats that are not are lost, and are counted and logged.
+     * @param updates The updates that were written.
+     * @param unapplied The number of the updates that were not applied.
+     * @throws com.mongodb.MongoException If the seats could not be read or written.
+     */
+    private void bookSeatBySeat(List<SeatWordUpdate> updates, int unapplied)
+    {
+        Map<String, Long> availableSeats = database.getAvailableSeats(updates);
+        List<SeatWordUpdate> singleSeats = new ArrayList<>();
+        int lostSeats = 0;
+        int unappliedFound = 0;
+        for (SeatWordUpdate update : updates) {
+            // An applied update booked all of its seats, so an update with an available seat was not applied.
+            long available = availableSeats.getOrDefault(update.getKey(), 0L);
+            if (available != 0) {
+                unappliedFound++;
+                lostSeats += update.getNumberOfSeats() - Long.bitCount(available);
+                singleSeats.addAll(update.split(available));
+            }
+        }
+        lostSeats += singleSeats.size() - database.bookSeatsInBulk(singleSeats);
+        // The other updates that were not applied had no seat available, and cannot be told apart from applied ones.
+        int lostUpdates = unapplied - unappliedFound;
+        lostBookings.addAndGet(lostSeats + lostUpdates);
+        if (lostSeats > 0) {
+            logger.error("Could not write {} acknowledged bookings, as the seats were booked by another process.",
+                    lostSeats);
+        }
+        if (lostUpdates > 0) {
+            logger.error("Could not write {} merged bookings, as all of their seats were booked by another process.",
+                    lostUpdates);
+        }
+    }
+
+    /**
+     * Write all waiting bookings, stop the background writes, and close the journal.
+     * @throws UncheckedIOException If the journal could not be closed.
+     */
+    public void close()
+    {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+            flush();
+            journal.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Get the number of bookings that have been acknowledged, but not yet written to the database.
+     * @return The number of waiting bookings.
+     */
+    public int getBacklog()
+    {
+        return backlog.get();
+    }
+
+    /**
+     * Get the number of acknowledged bookings that could not be written to the database, as their seats had already
+     * been booked by another process. A merged booking whose seats were all booked is counted once.
+     * @return The number of lost bookings.
+     */
+    public long getLostBookings()
+    {
+        return lostBookings.get();
+    }
+
+    /**
+     * Get the number of writes to the database that failed, and were retried.
+     * @return The number of failed writes.
+     */
+    public long getFailedFlushes()
+    {
+        return failedFlushes.get();
+    }
+
+    /**
+     * Get the histogram of the time taken by each write to the database, in microseconds.
+     * @return The flush latency histogram.
+     */
+    public LatencyHistogram getFlushLatency()
+    {
+        return flushLatency;
+    }
+
+    /**
+     * Get the histogram of the number of bookings written by each write to the database.
+     * @return The batch size histogram.
+     */
+    public LatencyHistogram getBatchSizes()
+    {
+        return batchSizes;
+    }
+
+    /**
+     * Get a summary of the metrics, as a String.
+     * @return A summary of the metrics.
+     */
+    public String getSummary()
+    {
+        return "Backlog: " + getBacklog() + "\n"
+                + "Flush latency: " + flushLatency.getSummary() + "\n"
+                + "Batch size: " + batchSizes.getSummary() + "\n"
+                + "Updates written: " + updatesWritten.get() + "\n"
+                + "Conflicts: " + conflicts.get() + "\n"
+                + "Failed flushes: " + failedFlushes.get() + "\n"
+                + "Lost bookings: " + lostBookings.get() + "\n";
+    }
+
+    /**
+     * Write the waiting bookings from the background thread. A failed write is retried at the next interval.
+     */
+    private void flushInBackground()
+    {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.warn("Could not write {} bookings to the database, will retry.", getBacklog(), e);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.cinema.cinema;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for BookingJournal.
+ * @author hari_rathod
+ * @version 2023.06.12
+ */
+class BookingJournalTest {
+    private Path path;
+
+    @BeforeEach
+    public void setUp() throws IOException
+    {
+        path = Files.createTempFile("booking_journal", ".bin");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException
+    {
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Test that appended bookings are read back, in order, by a journal reopened on the same file.
+     */
+    @Test
+    public void testBookingsArePersisted() throws IOException
+    {
+        BookingJournal journal = new BookingJournal(path);
+        journal.append(1, 3, 4);
+        long end = journal.append(2, 70, 1);
+        assertEquals(2 * BookingJournal.RECORD_SIZE, end);
+        journal.close();
+
+        BookingJournal reopened = new BookingJournal(path);
+        List<SeatWordUpdate> bookings = reopened.read(reopened.size());
+        assertEquals(2, bookings.size());
+        assertEquals("1:4:0", bookings.get(0).getKey());
+        assertEquals(1L << 2, bookings.get(0).getMask());
+        assertEquals("2:1:1", bookings.get(1).getKey());
+        assertEquals(1L << 5, bookings.get(1).getMask());
+        reopened.close();
+    }
+
+    /**
+     * Test that an incomplete record, left by a crash during an append, is removed when the journal is opened.
+     */
+    @Test
+    public void testIncompleteRecordIsRemoved() throws IOException
+    {
+        BookingJournal journal = new BookingJournal(path);
+        journal.append(1, 1, 1);
+        journal.close();
+        Files.write(path, new byte[] {0, 0, 0, 2, 0}, StandardOpenOption.APPEND);
+
+        BookingJournal reopened = new BookingJournal(path);
+        assertEquals(BookingJournal.RECORD_SIZE, reopened.size());
+        assertEquals(1, reopened.read(reopened.size()).size());
+        reopened.close();
+    }
+
+    /**
+     * Test that discarding written bookings keeps the bookings appended after them.
+     */
+    @Test
+    public void testDiscardKeepsLaterBookings() throws IOException
+    {
+        BookingJournal journal = new BookingJournal(path);
+        journal.append(1, 1, 1);
+        long written = journal.append(1, 2, 1);
+        journal.append(3, 5, 6);
+        journal.discard(written);
+
+        List<SeatWordUpdate> bookings = journal.read(journal.size());
+        assertEquals(1, bookings.size());
+        assertEquals("3:6:0", bookings.get(0).getKey());
+
+        // New bookings are appended after the kept bookings.
+        journal.append(4, 1, 1);
+        assertEquals(2, journal.read(journal.size()).size());
+        journal.discard(journal.size());
+        assertEquals(0, journal.size());
+        journal.close();
+    }
+
+    /**
+     * Test that bookings of seats in the same element are merged, and that seats in other elements are not.
+     */
+    @Test
+    public void testSeatWordUpdatesMerge()
+    {
+        SeatWordUpdate update = new SeatWordUpdate(1, 1, 2);
+        update.merge(new SeatWordUpdate(1, 64, 2));
+        assertEquals(2, update.getNumberOfSeats());
+        assertEquals("seatRows.1.0", update.getField());
+        assertThrows(IllegalArgumentException.class, () -> update.merge(new SeatWordUpdate(1, 65, 2)));
+    }
+}
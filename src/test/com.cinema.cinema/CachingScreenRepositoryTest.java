@@ -0,0 +1,130 @@
+package com.cinema.cinema;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for CachingScreenRepository.
+ * @author hari_rathod
+ * @version 2023.07.04
+ */
+class CachingScreenRepositoryTest {
+    private InMemoryScreenRepository storage;
+    private ScreenInvalidationBus bus;
+
+    @BeforeEach
+    public void setUp() throws ScreenVersionConflictException
+    {
+        storage = new InMemoryScreenRepository();
+        storage.recordScreen(new Screen(1, 10, 10));
+        storage.recordScreen(new Screen(2, 5, 4));
+        bus = new ScreenInvalidationBus(null);
+    }
+
+    /**
+     * Test that a screen is read from the storage once, and then served from the cache.
+     */
+    @Test
+    public void testRepeatedReadsAreHits() throws ScreenIdDoesNotExistException
+    {
+        CachingScreenRepository cache = new CachingScreenRepository(storage, bus, 1000, 60000);
+        cache.getScreenById(1);
+        cache.getScreenById(1);
+        cache.getScreenById(1);
+        assertEquals(1, cache.getMisses());
+        assertEquals(2, cache.getHits());
+    }
+
+    /**
+     * Test that a write through one cache drops the screen from every cache on the same bus.
+     */
+    @Test
+    public void testWritesInvalidateOtherCaches() throws ScreenIdDoesNotExistException, ScreenVersionConflictException
+    {
+        CachingScreenRepository writer = new CachingScreenRepository(storage, bus, 1000, 60000);
+        CachingScreenRepository reader = new CachingScreenRepository(storage, bus, 1000, 60000);
+        assertEquals(100, reader.getScreenById(1).getNumberOfAvailableSeats());
+
+        assertTrue(writer.bookSeat(1, 3, 3));
+        assertEquals(99, reader.getScreenById(1).getNumberOfAvailableSeats());
+        assertEquals(2, reader.getMisses());
+
+        writer.updateScreening(1, "Movie", 1000);
+        assertEquals("Movie", reader.getScreenById(1).getMovieTitle());
+    }
+
+    /**
+     * Test that a stale screen, written without the cache, is reloaded once it is older than the staleness bound.
+     */
+    @Test
+    public void testStaleScreensAreRevalidated() throws ScreenIdDoesNotExistException
+    {
+        CachingScreenRepository cache = new CachingScreenRepository(storage, bus, 1000, 0);
+        cache.getScreenById(1);
+        // The version is unchanged, so the cached screen is used.
+        cache.getScreenById(1);
+        assertEquals(1, cache.getMisses());
+
+        storage.bookSeat(1, 1, 1);
+        assertEquals(99, cache.getScreenById(1).getNumberOfAvailableSeats());
+        assertEquals(2, cache.getMisses());
+    }
+
+    /**
+     * Test that the least recently used screens are evicted when the cached seats exceed the bound.
+     */
+    @Test
+    public void testEvictionIsWeightedBySeats() throws ScreenIdDoesNotExistException
+    {
+        CachingScreenRepository cache = new CachingScreenRepository(storage, bus, 110, 60000);
+        cache.getScreenById(1);
+        cache.getScreenById(2);
+        assertEquals(20, cache.getCachedSeats());
+        assertEquals(1, cache.getEvictions());
+
+        // Screen 1 was evicted, so reading it again is a miss, and evicts screen 2.
+        cache.getScreenById(1);
+        assertEquals(3, cache.getMisses());
+        assertEquals(100, cache.getCachedSeats());
+    }
+
+    /**
+     * Test that screen copies returned by the cache cannot modify the cached screen.
+     */
+    @Test
+    public void testReturnedScreensAreCopies() throws ScreenIdDoesNotExistException, UnavailableSeatException
+    {
+        CachingScreenRepository cache = new CachingScreenRepository(storage, bus, 1000, 60000);
+        cache.getScreenById(2).bookTicket(1, 1);
+        assertEquals(20, cache.getScreenById(2).getNumberOfAvailableSeats());
+    }
+
+    /**
+     * Test that a screen written while it is being read is not cached, but a screen is still cached if another screen
+     * is written while it is being read.
+     */
+    @Test
+    public void testOnlyWritesToTheSameScreenStopCaching() throws ScreenIdDoesNotExistException
+    {
+        // Every read of a screen from the storage is overlapped by a write to screen 2.
+        InMemoryScreenRepository writing = new InMemoryScreenRepository() {
+            @Override
+            public Screen getScreenById(int id) throws ScreenIdDoesNotExistException
+            {
+                Screen screen = storage.getScreenById(id);
+                bus.publish(2);
+                return screen;
+            }
+        };
+        CachingScreenRepository cache = new CachingScreenRepository(writing, bus, 1000, 60000);
+        cache.getScreenById(1);
+        cache.getScreenById(1);
+        assertEquals(1, cache.getMisses());
+
+        cache.getScreenById(2);
+        cache.getScreenById(2);
+        assertEquals(3, cache.getMisses());
+    }
+}
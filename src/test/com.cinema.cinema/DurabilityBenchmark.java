@@ -0,0 +1,58 @@
+package com.cinema.cinema;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the write latency and throughput of ObjectDataRecorder with each Durability, with several concurrent
+ * writers appending tickets to a log. This is not run with the tests; run its main method to print the results.
+ * Every append opens the log file, whatever the durability, and forcing a file costs almost nothing on a RAM-backed
+ * file system (e.g., in a container), so the results only show the cost of each durability on a real storage device.
+ * @author hari_rathod
+ * @version 2023.07.04
+ */
+public class DurabilityBenchmark {
+    private static final int WRITERS = 8;
+    private static final int WRITES_PER_WRITER = 250;
+
+    public static void main(String[] args) throws Exception
+    {
+        for (Durability durability : Durability.values()) {
+            Path path = Files.createTempFile("durability", ".ser");
+            Files.delete(path);
+            try (ObjectDataRecorder<Ticket> recorder = new ObjectDataRecorder<>(path, Ticket.class,
+                    RecordFormat.LOG, new TicketCodec(), durability)) {
+                long start = System.nanoTime();
+                List<Thread> writers = new ArrayList<>();
+                for (int i = 0; i < WRITERS; i++) {
+                    Thread writer = new Thread(() -> write(recorder));
+                    writers.add(writer);
+                    writer.start();
+                }
+                for (Thread writer : writers) {
+                    writer.join();
+                }
+                long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+                System.out.println(recorder.getSummary());
+                System.out.println("Writes per second: " + WRITERS * WRITES_PER_WRITER * 1000L / elapsedMillis + "\n");
+            } finally {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static void write(ObjectDataRecorder<Ticket> recorder)
+    {
+        try {
+            for (int i = 0; i < WRITES_PER_WRITER; i++) {
+                recorder.writeToFile(new Ticket(1, "Barbie", i, 1, 1250, LocalDateTime.now()));
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.cinema.cinema;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for FileScreenRepository.
+ * @author hari_rathod
+ * @version 2023.07.04
+ */
+class FileScreenRepositoryTest {
+    private Path path;
+
+    @BeforeEach
+    public void setUp() throws IOException
+    {
+        path = Files.createTempFile("screen_store", ".ser");
+        Files.delete(path);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException
+    {
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Test that screens written by one repository are read back by a new repository using the same file.
+     */
+    @Test
+    public void testScreensArePersisted() throws ScreenIdDoesNotExistException, ScreenVersionConflictException
+    {
+        FileScreenRepository repository = new FileScreenRepository(path);
+        repository.recordScreen(new Screen(1, 10, 12));
+        repository.recordScreen(new Screen(2, 4, 5));
+        repository.updateScreening(1, "Movie", 1200);
+        repository.deleteScreen(2);
+
+        FileScreenRepository reopened = new FileScreenRepository(path);
+        assertEquals(1, reopened.getAllScreens().size());
+        Screen screen = reopened.getScreenById(1);
+        assertEquals("Movie", screen.getMovieTitle());
+        assertEquals(120, screen.getNumberOfSeats());
+    }
+
+    /**
+     * Test that modifying a returned screen does not modify the stored screen.
+     */
+    @Test
+    public void testReturnedScreensAreCopies()
+            throws ScreenIdDoesNotExistException, UnavailableSeatException, ScreenVersionConflictException
+    {
+        FileScreenRepository repository = new FileScreenRepository(path);
+        repository.recordScreen(new Screen(1, 3, 3));
+        repository.getScreenById(1).book(1, 1);
+        assertEquals(9, repository.getScreenById(1).getNumberOfAvailableSeats());
+    }
+
+    /**
+     * Test that a screen read before another write cannot overwrite that write.
+     */
+    @Test
+    public void testStaleScreenIsNotRecorded() throws ScreenIdDoesNotExistException, ScreenVersionConflictException
+    {
+        FileScreenRepository repository = new FileScreenRepository(path);
+        repository.recordScreen(new Screen(1, 3, 3));
+        Screen stale = repository.getScreenById(1);
+
+        assertTrue(repository.bookSeat(1, 2, 2));
+        assertThrows(ScreenVersionConflictException.class, () -> repository.recordScreen(stale));
+        assertEquals(8, repository.getScreenById(1).getNumberOfAvailableSeats());
+
+        // A screen read after the booking can be recorded, and then has the stored version.
+        Screen current = repository.getScreenById(1);
+        current.addNewMovie("Movie", 900);
+        repository.recordScreen(current);
+        assertEquals(repository.getScreenVersion(1), current.getVersion());
+        assertEquals(8, repository.getScreenById(1).getNumberOfAvailableSeats());
+    }
+
+    /**
+     * Test that several seats are booked and persisted together, and that none are booked if one is unavailable.
+     */
+    @Test
+    public void testBookSeatsIsAllOrNothing() throws ScreenIdDoesNotExistException, ScreenVersionConflictException
+    {
+        FileScreenRepository repository = new FileScreenRepository(path);
+        repository.recordScreen(new Screen(1, 10, 12));
+        List<SeatPosition> seats = List.of(new SeatPosition(3, 4), new SeatPosition(4, 4), new SeatPosition(5, 4));
+        long version = repository.getScreenVersion(1);
+        assertEquals(List.of(), repository.bookSeats(1, seats));
+        assertEquals(version + 3, repository.getScreenVersion(1));
+
+        List<SeatPosition> overlapping = List.of(new SeatPosition(6, 4), new SeatPosition(5, 4));
+        assertEquals(List.of(new SeatPosition(5, 4)), repository.bookSeats(1, overlapping));
+
+        Screen screen = new FileScreenRepository(path).getScreenById(1);
+        assertEquals(117, screen.getNumberOfAvailableSeats());
+        assertTrue(screen.isSeatAvailable(6, 4));
+        assertThrows(ScreenIdDoesNotExistException.class, () -> repository.bookSeats(2, seats));
+    }
+
+    /**
+     * Test that each booking is appended to the file, and that the screens are read back after the file has been
+     * rewritten several times.
+     */
+    @Test
+    public void testManyBookingsArePersisted() throws ScreenIdDoesNotExistException, ScreenVersionConflictException
+    {
+        FileScreenRepository repository = new FileScreenRepository(path);
+        repository.recordScreen(new Screen(1, 10, 12));
+        repository.recordScreen(new Screen(2, 4, 5));
+        for (int column = 1; column <= 10; column++) {
+            assertTrue(repository.bookSeat(1, column, 1));
+            assertTrue(repository.bookSeat(2, (column + 1) / 3 + 1, column % 5 + 1));
+        }
+
+        FileScreenRepository reopened = new FileScreenRepository(path);
+        assertEquals(110, reopened.getScreenById(1).getNumberOfAvailableSeats());
+        assertEquals(10, reopened.getScreenById(2).getNumberOfAvailableSeats());
+        assertEquals(repository.getScreenVersion(1), reopened.getScreenVersion(1));
+        assertFalse(reopened.getScreenById(1).isSeatAvailable(10, 1));
+    }
+
+    /**
+     * Test that a change that could not be written to the file does not change the screens in memory.
+     */
+    @Test
+    public void testFailedWriteLeavesScreenUnchanged()
+            throws IOException, ScreenIdDoesNotExistException, ScreenVersionConflictException
+    {
+        FileScreenRepository repository = new FileScreenRepository(path);
+        repository.recordScreen(new Screen(1, 3, 3));
+        repository.recordScreen(new Screen(2, 3, 3));
+        long version = repository.getScreenVersion(1);
+        // The file can no longer be written.
+        Files.delete(path);
+        Files.createDirectory(path);
+
+        assertThrows(UncheckedIOException.class, () -> repository.bookSeat(1, 2, 2));
+        assertThrows(UncheckedIOException.class, () -> repository.bookSeats(1, List.of(new SeatPosition(1, 1))));
+        assertThrows(UncheckedIOException.class, () -> repository.updateScreening(1, "Movie", 900));
+        assertThrows(UncheckedIOException.class, () -> repository.deleteScreen(2));
+        Screen screen = repository.getScreenById(1);
+        assertEquals(9, screen.getNumberOfAvailableSeats());
+        assertFalse(screen.hasMovieScreening());
+        assertEquals(version, screen.getVersion());
+        assertEquals(2, repository.getAllScreens().size());
+        Files.delete(path);
+    }
+}
@@ -0,0 +1,50 @@
+package com.cinema.cinema;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for GroupCommitter.
+ * @author hari_rathod
+ * @version 2023.07.04
+ */
+class GroupCommitterTest {
+
+    /**
+     * Test that a writer is told when the force of its write fails, that a failing force is retried only after a
+     * delay, and that the waiting writes become durable once a force succeeds.
+     */
+    @Test
+    public void testFailedForceIsRetriedAfterADelay() throws InterruptedException
+    {
+        AtomicInteger forces = new AtomicInteger();
+        AtomicBoolean failing = new AtomicBoolean(true);
+        GroupCommitter committer = new GroupCommitter("group-commit-test", () -> {
+            forces.incrementAndGet();
+            if (failing.get()) {
+                throw new IOException("The device is not responding.");
+            }
+        }, 0, 32);
+        try {
+            long sequence = committer.register();
+            assertThrows(IOException.class, () -> committer.awaitDurable(sequence));
+
+            // With an interval of 0, a force is only retried every 100 milliseconds while it keeps failing.
+            Thread.sleep(250);
+            assertTrue(forces.get() <= 4, "Forced " + forces.get() + " times");
+
+            failing.set(false);
+            long next = committer.register();
+            committer.awaitDurable(next);
+        } catch (IOException e) {
+            fail();
+        } finally {
+            committer.close();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.cinema.cinema;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for InputRecorder.
+ * @author hari_rathod
+ * @version 2023.06.24
+ */
+class InputRecorderTest {
+    private Path directory;
+    private Path path;
+
+    @BeforeEach
+    public void setUp() throws IOException
+    {
+        directory = Files.createTempDirectory("input");
+        path = directory.resolve("input.txt");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException
+    {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path file : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Test that every recorded string is written, in order, once the recorder is closed.
+     */
+    @Test
+    public void testStringsAreWrittenInOrder() throws IOException
+    {
+        InputRecorder recorder = new InputRecorder(path, 16, OverflowPolicy.BLOCK, 1 << 20, 60000, 10);
+        for (int i = 0; i < 100; i++) {
+            recorder.writeStringToFile("line " + i);
+        }
+        recorder.writeStringToFile("end of input");
+        recorder.close();
+
+        List<String> lines = Files.readAllLines(path);
+        assertEquals(101, lines.size());
+        assertEquals("line 99", lines.get(99));
+        assertEquals("end of input", lines.get(100));
+        assertEquals(0, recorder.getDroppedStrings());
+        assertThrows(IOException.class, () -> recorder.writeStringToFile("after close"));
+    }
+
+    /**
+     * Test that a file larger than the rotation size is compressed, and only the newest archives are kept.
+     */
+    @Test
+    public void testRotationBySize() throws IOException, InterruptedException
+    {
+        InputRecorder recorder = new InputRecorder(path, 16, OverflowPolicy.BLOCK, 10, 60000, 2);
+        for (int i = 0; i < 4; i++) {
+            String string = "a string longer than ten bytes " + i;
+            recorder.writeStringToFile(string);
+            // Wait for each string to be written on its own, so the file is rotated before every later string.
+            while (!Files.exists(path) || !Files.readString(path).contains(string)) {
+                Thread.sleep(1);
+            }
+        }
+        recorder.close();
+
+        assertEquals(3, recorder.getRotations());
+        assertEquals(List.of("a string longer than ten bytes 3"), Files.readAllLines(path));
+        List<Path> archives;
+        try (Stream<Path> files = Files.list(directory)) {
+            archives = files.filter(file -> file.toString().endsWith(".gz")).sorted().toList();
+        }
+        assertEquals(2, archives.size());
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(archives.get(1)))) {
+            assertTrue(new String(input.readAllBytes(), StandardCharsets.UTF_8).startsWith(
+                    "a string longer than ten bytes 2"));
+        }
+    }
+}
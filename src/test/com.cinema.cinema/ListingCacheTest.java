@@ -0,0 +1,100 @@
+package com.cinema.cinema;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for ListingCache.
+ * @author hari_rathod
+ * @version 2023.07.02
+ */
+class ListingCacheTest {
+    private InMemoryScreenRepository storage;
+    private ScreenInvalidationBus bus;
+    private SeatHolds seatHolds;
+
+    @BeforeEach
+    public void setUp() throws ScreenIdDoesNotExistException, ScreenVersionConflictException
+    {
+        storage = new InMemoryScreenRepository();
+        storage.recordScreen(new Screen(1, 10, 10));
+        storage.recordScreen(new Screen(2, 5, 4));
+        storage.updateScreening(1, "Movie", 1000);
+        bus = new ScreenInvalidationBus(null);
+        seatHolds = new SeatHolds(60000, 100, 64);
+    }
+
+    /**
+     * Test that a repeated listing is served from memory, and is the same as the details rendered from the storage.
+     */
+    @Test
+    public void testRepeatedListingsAreHits()
+    {
+        ListingCache cache = new ListingCache(storage, seatHolds, bus, 60000);
+        String listing = cache.getListing(false);
+        assertSame(listing, cache.getListing(false));
+        assertSame(listing, cache.getListing(false));
+        assertEquals(1, cache.getAssemblies());
+        assertEquals(2, cache.getHits());
+
+        StringBuilder expected = new StringBuilder();
+        storage.getScreenSummaries(false).forEach(summary -> expected.append("\n").append(summary.getDetails()));
+        assertEquals(expected.toString(), listing);
+        assertFalse(cache.getListing(true).contains("Screen: 2"));
+    }
+
+    /**
+     * Test that an invalidated screen is rendered again, and the other screens are not.
+     */
+    @Test
+    public void testOnlyChangedScreensAreRendered() throws ScreenIdDoesNotExistException
+    {
+        ListingCache cache = new ListingCache(storage, seatHolds, bus, 60000);
+        cache.getListing(false);
+        assertEquals(2, cache.getRenders());
+
+        storage.bookSeat(2, 1, 1);
+        bus.publish(2);
+        assertTrue(cache.getListing(false).contains("Available Seat Capacity: 19"));
+        assertEquals(2, cache.getAssemblies());
+        assertEquals(3, cache.getRenders());
+    }
+
+    /**
+     * Test that a screen written without an invalidation is listed once the listing is older than the staleness
+     * bound, and that only the screen whose version changed is rendered again.
+     */
+    @Test
+    public void testStaleListingsAreReassembled() throws ScreenIdDoesNotExistException
+    {
+        ListingCache cache = new ListingCache(storage, seatHolds, bus, 0);
+        cache.getListing(false);
+        storage.bookSeat(1, 1, 1);
+        assertTrue(cache.getListing(false).contains("Available Seat Capacity: 99"));
+        assertEquals(2, cache.getAssemblies());
+        assertEquals(3, cache.getRenders());
+    }
+
+    /**
+     * Test that held seats are not listed as available, and are listed again once the hold is released.
+     */
+    @Test
+    public void testHeldSeatsAreListed() throws UnavailableSeatException
+    {
+        ListingCache cache = new ListingCache(storage, seatHolds, bus, 60000);
+        assertTrue(cache.getListing(true).contains("Available Seat Capacity: 100"));
+
+        SeatHold hold = seatHolds.hold(1, List.of(new SeatPosition(1, 1), new SeatPosition(2, 1)));
+        String listing = cache.getListing(true);
+        assertTrue(listing.contains("Available Seat Capacity: 98"));
+        assertTrue(listing.contains("Seats Held (being booked): 2"));
+
+        seatHolds.release(hold);
+        assertTrue(cache.getListing(true).contains("Available Seat Capacity: 100"));
+        assertEquals(3, cache.getAssemblies());
+    }
+}
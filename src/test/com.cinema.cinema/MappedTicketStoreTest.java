@@ -0,0 +1,128 @@
+package com.cinema.cinema;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for MappedTicketStore.
+ * @author hari_rathod
+ * @version 2023.06.21
+ */
+class MappedTicketStoreTest {
+    private static final LocalDateTime DATE = LocalDateTime.of(2023, 6, 21, 19, 45, 30, 500);
+    private Path path;
+
+    @BeforeEach
+    public void setUp() throws IOException
+    {
+        path = Files.createTempFile("tickets", ".bin");
+        Files.delete(path);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException
+    {
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(path.resolveSibling(path.getFileName() + ".titles"));
+    }
+
+    /**
+     * Test that tickets are read back by index after the store is reopened, and the store grows past its first
+     * mapping.
+     */
+    @Test
+    public void testAppendGrowAndReopen() throws IOException
+    {
+        try (MappedTicketStore store = new MappedTicketStore(path)) {
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(i, store.append(new Ticket(i % 5, i % 2 == 0 ? "Barbie" : "Oppenheimer", i, i % 10, 1250, DATE)));
+            }
+        }
+
+        try (MappedTicketStore store = new MappedTicketStore(path)) {
+            assertEquals(1000, store.size());
+            Ticket ticket = store.get(999);
+            assertEquals(4, ticket.getScreenId());
+            assertEquals("Oppenheimer", ticket.getMovieTitle());
+            assertEquals(999, ticket.getSeatNumber());
+            assertEquals(9, ticket.getRowNumber());
+            assertEquals(1250, ticket.getCost());
+            assertEquals(DATE, ticket.getDate());
+            assertThrows(IndexOutOfBoundsException.class, () -> store.get(1000));
+
+            List<Integer> seats = new ArrayList<>();
+            store.forEach(slot -> seats.add(slot.getSeatNumber()));
+            assertEquals(1000, seats.size());
+            assertEquals(Integer.valueOf(500), seats.get(500));
+        }
+    }
+
+    /**
+     * Test that clearing the store removes every ticket, and tickets without a title are kept.
+     */
+    @Test
+    public void testClear() throws IOException
+    {
+        try (MappedTicketStore store = new MappedTicketStore(path)) {
+            store.append(new Ticket(1, "Barbie", 1, 1, 1250, DATE));
+            store.clear();
+            assertEquals(0, store.size());
+            assertTrue(store.getAll().isEmpty());
+
+            store.append(new Ticket(1, null, 2, 1, 1250, DATE));
+            assertNull(store.get(0).getMovieTitle());
+        }
+    }
+
+    /**
+     * Test that readers only ever see completely written tickets while another thread appends and grows the store.
+     */
+    @Test
+    public void testConcurrentReadersDuringAppends() throws Exception
+    {
+        try (MappedTicketStore store = new MappedTicketStore(path)) {
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread reader = new Thread(() -> {
+                try {
+                    while (store.size() < 5000) {
+                        long size = store.size();
+                        if (size > 0) {
+                            Ticket ticket = store.get(size - 1);
+                            assertEquals(size - 1, ticket.getSeatNumber());
+                            assertEquals("Barbie", ticket.getMovieTitle());
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            reader.start();
+            for (int i = 0; i < 5000; i++) {
+                store.append(new Ticket(1, "Barbie", i, 1, 1250, DATE));
+            }
+            reader.join();
+            assertNull(failure.get());
+        }
+    }
+
+    /**
+     * Test that a file that is not a ticket store is rejected, rather than overwritten.
+     */
+    @Test
+    public void testOtherFilesAreRejected() throws IOException
+    {
+        Files.writeString(path, "not a ticket store, but long enough to hold a header");
+        assertThrows(IOException.class, () -> new MappedTicketStore(path));
+    }
+}
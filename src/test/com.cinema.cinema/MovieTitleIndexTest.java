@@ -0,0 +1,71 @@
+package com.cinema.cinema;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for MovieTitleIndex.
+ * @author hari_rathod
+ * @version 2023.06.10
+ */
+class MovieTitleIndexTest {
+    private MovieTitleIndex index;
+
+    @BeforeEach
+    public void setUp()
+    {
+        index = new MovieTitleIndex();
+        index.add(1, "Shazam | Light of Thunder");
+        index.add(2, "Black Panther: Return of the Jedi");
+        index.add(3, "Thunder");
+        index.add(4, "Avatar 3 - 2023");
+    }
+
+    /**
+     * Test that searches are case-insensitive, and find titles containing the search.
+     */
+    @Test
+    public void testSubstringSearch()
+    {
+        assertEquals(List.of(2), index.search("PANTHER"));
+        assertEquals(List.of(4), index.search("ar 3"));
+        assertEquals(List.of(), index.search("Frozen"));
+    }
+
+    /**
+     * Test that an exact match is ranked before a match inside a longer title.
+     */
+    @Test
+    public void testRanking()
+    {
+        assertEquals(List.of(3, 1), index.search("thunder"));
+        assertEquals(List.of(3, 1, 2), index.search("th"));
+    }
+
+    /**
+     * Test that a title with a spelling mistake is still found.
+     */
+    @Test
+    public void testTypo()
+    {
+        assertEquals(List.of(2), index.search("blak panter"));
+        assertEquals(List.of(4), index.search("avtar"));
+    }
+
+    /**
+     * Test that titles can be replaced and removed.
+     */
+    @Test
+    public void testAddAndRemove()
+    {
+        index.remove(3);
+        assertEquals(List.of(1), index.search("thunder"));
+        index.add(1, "Frozen");
+        assertEquals(List.of(), index.search("thunder"));
+        assertEquals(List.of(1), index.search("frozen"));
+    }
+}
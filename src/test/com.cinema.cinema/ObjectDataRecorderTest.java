@@ -0,0 +1,141 @@
+package com.cinema.cinema;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for ObjectDataRecorder.
+ * @author hari_rathod
+ * @version 2023.07.04
+ */
+class ObjectDataRecorderTest {
+    private Path path;
+
+    @BeforeEach
+    public void setUp() throws IOException
+    {
+        path = Files.createTempFile("recorder", ".ser");
+        Files.delete(path);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException
+    {
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(path.resolveSibling(path.getFileName() + ".tmp"));
+    }
+
+    /**
+     * Test that every object is written with each durability, and a List is replaced without leaving its
+     * temporary file behind.
+     */
+    @Test
+    public void testEveryDurabilityWritesEveryObject() throws Exception
+    {
+        for (Durability durability : Durability.values()) {
+            for (RecordFormat format : RecordFormat.values()) {
+                try (ObjectDataRecorder<Ticket> recorder = new ObjectDataRecorder<>(path, Ticket.class, format,
+                        new TicketCodec(), durability)) {
+                    recorder.resetFile();
+                    recorder.writeToFile(ticket(1));
+                    recorder.writeToFile(ticket(2));
+                    assertEquals(2, recorder.getNumberOfObjects());
+                    assertEquals(2, recorder.getWriteLatency().getCount());
+                }
+                assertFalse(Files.exists(path.resolveSibling(path.getFileName() + ".tmp")));
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Test that concurrent writers with group commit all return, and all their objects are written.
+     */
+    @Test
+    public void testConcurrentGroupCommit() throws Exception
+    {
+        try (ObjectDataRecorder<Ticket> recorder = new ObjectDataRecorder<>(path, Ticket.class, RecordFormat.LOG,
+                new TicketCodec(), Durability.GROUP_COMMIT)) {
+            List<Thread> writers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Thread writer = new Thread(() -> {
+                    try {
+                        for (int seat = 0; seat < 50; seat++) {
+                            recorder.writeToFile(ticket(seat));
+                        }
+                    } catch (IOException | ClassNotFoundException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                writers.add(writer);
+                writer.start();
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            assertEquals(200, recorder.getNumberOfObjects());
+        }
+    }
+
+    /**
+     * Test that a stream reads a log larger than the buffer of its reader, and returns every object in the order it
+     * was written.
+     */
+    @Test
+    public void testStreamReadsLargeLogInOrder() throws Exception
+    {
+        try (ObjectDataRecorder<Ticket> recorder = new ObjectDataRecorder<>(path, Ticket.class, RecordFormat.LOG,
+                new TicketCodec(), Durability.NONE)) {
+            for (int seat = 1; seat <= 2000; seat++) {
+                recorder.writeToFile(ticket(seat));
+            }
+            // The reader buffers 8192 bytes of the file at a time.
+            assertTrue(Files.size(path) > 4 * 8192);
+
+            List<Integer> seats = new ArrayList<>();
+            try (Stream<Ticket> tickets = recorder.streamObjectsFromFile()) {
+                tickets.forEach(ticket -> seats.add(ticket.getSeatNumber()));
+            }
+            assertEquals(2000, seats.size());
+            for (int i = 0; i < seats.size(); i++) {
+                assertEquals(i + 1, (int) seats.get(i));
+            }
+        }
+    }
+
+    /**
+     * Test that a stream stops reading when it is no longer needed, and only decodes the objects it reaches.
+     */
+    @Test
+    public void testStreamStopsEarly() throws Exception
+    {
+        try (ObjectDataRecorder<Ticket> recorder = new ObjectDataRecorder<>(path, Ticket.class, RecordFormat.LOG,
+                new TicketCodec(), Durability.NONE)) {
+            for (int seat = 1; seat <= 100; seat++) {
+                recorder.writeToFile(ticket(seat));
+            }
+            List<Integer> decoded = new ArrayList<>();
+            try (Stream<Ticket> tickets = recorder.streamObjectsFromFile()) {
+                assertTrue(tickets.peek(ticket -> decoded.add(ticket.getSeatNumber()))
+                        .anyMatch(ticket -> ticket.getSeatNumber() == 3));
+            }
+            assertEquals(List.of(1, 2, 3), decoded);
+        }
+    }
+
+    private static Ticket ticket(int seatNumber)
+    {
+        return new Ticket(1, "Barbie", seatNumber, 1, 1250, LocalDateTime.of(2023, 6, 23, 20, 0));
+    }
+}
@@ -0,0 +1,135 @@
+package com.cinema.cinema;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for RecordLog.
+ * @author hari_rathod
+ * @version 2023.06.18
+ */
+class RecordLogTest {
+    private Path path;
+
+    @BeforeEach
+    public void setUp() throws IOException
+    {
+        path = Files.createTempFile("record_log", ".ser");
+        Files.delete(path);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException
+    {
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Test that appended records are counted from the header, and read back in order.
+     */
+    @Test
+    public void testAppendAndRead() throws IOException
+    {
+        RecordLog log = new RecordLog(path);
+        assertEquals(0, log.getRecordCount());
+        log.append(bytes("first"));
+        log.append(bytes(""));
+        log.append(bytes("third"));
+
+        RecordLog reopened = new RecordLog(path);
+        assertEquals(3, reopened.getRecordCount());
+        assertEquals(List.of("first", "", "third"), readAll(reopened));
+    }
+
+    /**
+     * Test that a record that was not completely written is truncated, and later records are appended after the
+     * last complete record.
+     */
+    @Test
+    public void testTornRecordIsTruncated() throws IOException
+    {
+        RecordLog log = new RecordLog(path);
+        log.append(bytes("complete"));
+        long size = Files.size(path);
+        // A record header claiming 100 bytes, followed by only 3 bytes.
+        Files.write(path, new byte[] {0, 0, 0, 100, 1, 2, 3, 4, 'a', 'b', 'c'}, StandardOpenOption.APPEND);
+
+        RecordLog reopened = new RecordLog(path);
+        assertEquals(1, reopened.getRecordCount());
+        assertEquals(size, Files.size(path));
+
+        reopened.append(bytes("next"));
+        assertEquals(List.of("complete", "next"), readAll(new RecordLog(path)));
+    }
+
+    /**
+     * Test that a record with a checksum that does not match its bytes is truncated.
+     */
+    @Test
+    public void testCorruptRecordIsTruncated() throws IOException
+    {
+        RecordLog log = new RecordLog(path);
+        log.append(bytes("one"));
+        log.append(bytes("two"));
+        byte[] file = Files.readAllBytes(path);
+        file[file.length - 1] = 'X';
+        Files.write(path, file);
+
+        assertEquals(List.of("one"), readAll(new RecordLog(path)));
+    }
+
+    /**
+     * Test that resetting removes every record, and that compaction keeps every complete record.
+     */
+    @Test
+    public void testResetAndCompact() throws IOException
+    {
+        RecordLog log = new RecordLog(path);
+        log.append(bytes("one"));
+        log.reset();
+        assertEquals(0, log.getRecordCount());
+
+        log.append(bytes("two"));
+        log.append(bytes("three"));
+        assertEquals(0, log.compact());
+        assertEquals(List.of("two", "three"), readAll(log));
+    }
+
+    /**
+     * Test that a file that is not a record log is rejected, rather than overwritten.
+     */
+    @Test
+    public void testOtherFilesAreRejected() throws IOException
+    {
+        Files.write(path, bytes("not a record log at all"));
+        assertThrows(IOException.class, () -> new RecordLog(path).append(bytes("record")));
+    }
+
+    private static byte[] bytes(String string)
+    {
+        return string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> readAll(RecordLog log) throws IOException
+    {
+        List<String> records = new ArrayList<>();
+        try (RecordLog.Reader reader = log.openReader()) {
+            byte[] record;
+            while ((record = reader.next()) != null) {
+                records.add(new String(record, StandardCharsets.UTF_8));
+            }
+        }
+        return records;
+    }
+}
@@ -22,10 +22,12 @@ class ScreenDataManipulatorTest {
     }
 
     @Test
-    void testRecordScreen()
+    void testRecordScreen() throws ScreenIdDoesNotExistException, ScreenVersionConflictException
     {
         assertEquals(1, screenDataManipulator.getAllScreens().size());
         Screen screen0 = new Screen(0, 20, 32);
+        // Screen 0 is already stored, so it is only overwritten by a screen with the stored version.
+        screen0.setVersion(screenDataManipulator.getScreenVersion(0));
         screenDataManipulator.recordScreen(screen0);
         assertEquals(1, screenDataManipulator.getAllScreens().size());
         Screen screen1 = new Screen(1, 12, 20);
@@ -91,13 +93,13 @@ class ScreenDataManipulatorTest {
             screenDataManipulator.removeScreening(0);
             screen = screenDataManipulator.getScreenById(0);
             assertFalse(screen.hasMovieScreening());
-        } catch (ScreenIdDoesNotExistException e) {
+        } catch (ScreenIdDoesNotExistException | ScreenVersionConflictException e) {
             fail();
         }
     }
 
     @Test
-    void testDeleteScreen()
+    void testDeleteScreen() throws ScreenVersionConflictException
     {
         assertEquals(1, screenDataManipulator.getAllScreens().size());
         try {
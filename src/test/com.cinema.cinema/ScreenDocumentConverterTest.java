@@ -0,0 +1,101 @@
+package com.cinema.cinema;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for ScreenDocumentConverter.
+ * @author hari_rathod
+ * @version 2023.07.04
+ */
+class ScreenDocumentConverterTest {
+
+    /**
+     * Test that a screen converted to a document and back has the same seats, including a row wider than 64 seats.
+     */
+    @Test
+    public void testRoundTrip() throws UnavailableSeatException
+    {
+        Screen screen = new Screen(4, 70, 3);
+        screen.addNewMovie("Movie", 1100);
+        screen.book(1, 1);
+        screen.book(64, 2);
+        screen.book(65, 2);
+        screen.book(70, 3);
+
+        Document document = ScreenDocumentConverter.convertScreenToDocument(screen);
+        assertEquals(3, document.getList("seatRows", List.class).size());
+        assertEquals(210, (int) document.getInteger("capacity"));
+        assertEquals(206, (int) document.getInteger("availableSeats"));
+
+        document.remove("seatRows");
+        ScreenSummary summary = ScreenDocumentConverter.convertDocumentToSummary(document);
+        assertEquals(206, summary.getNumberOfAvailableSeats());
+        assertEquals(screen.getDetails(), summary.getDetails());
+        document = ScreenDocumentConverter.convertScreenToDocument(screen);
+
+        Screen converted = ScreenDocumentConverter.convertDocumentToScreen(document);
+        assertEquals(4, converted.getId());
+        assertEquals("Movie", converted.getMovieTitle());
+        assertEquals(206, converted.getNumberOfAvailableSeats());
+        assertTrue(Arrays.deepEquals(screen.getSeats(), converted.getSeats()));
+    }
+
+    /**
+     * Test that a document storing the seats as a nested array of booleans can still be read.
+     */
+    @Test
+    public void testReadLegacySeats()
+    {
+        ArrayList<ArrayList<Boolean>> seats = new ArrayList<>();
+        seats.add(new ArrayList<>(List.of(true, false)));
+        seats.add(new ArrayList<>(List.of(true, true)));
+        Document document = new Document("_id", 1).append("hasMovieScreening", true)
+                .append("movieTitle", "Movie").append("ticketCost", 800).append("seats", seats);
+
+        Screen screen = ScreenDocumentConverter.convertDocumentToScreen(document);
+        assertEquals(4, screen.getNumberOfSeats());
+        assertEquals(3, screen.getNumberOfAvailableSeats());
+        assertFalse(screen.getSeats()[0][1]);
+    }
+
+    /**
+     * Test that seat words stored as 32-bit integers are read, as a row of up to 31 seats fits in one.
+     */
+    @Test
+    public void testReadSeatWordsStoredAsIntegers() throws UnavailableSeatException
+    {
+        Screen screen = new Screen(2, 5, 2);
+        screen.addNewMovie("Movie", 800);
+        screen.book(2, 1);
+        Document document = ScreenDocumentConverter.convertScreenToDocument(screen);
+        List<List<Integer>> seatRows = new ArrayList<>();
+        for (List<?> row : document.getList("seatRows", List.class)) {
+            seatRows.add(List.of(((Long) row.get(0)).intValue()));
+        }
+        document.put("seatRows", seatRows);
+
+        Screen converted = ScreenDocumentConverter.convertDocumentToScreen(document);
+        assertEquals(9, converted.getNumberOfAvailableSeats());
+        assertTrue(Arrays.deepEquals(screen.getSeats(), converted.getSeats()));
+    }
+
+    /**
+     * Test that the field and bit of a seat are found from its position.
+     */
+    @Test
+    public void testSeatField()
+    {
+        assertEquals("seatRows.0.0", ScreenDocumentConverter.getSeatField(1, 1));
+        assertEquals("seatRows.4.1", ScreenDocumentConverter.getSeatField(65, 5));
+        assertEquals(0, ScreenDocumentConverter.getSeatBit(65));
+        assertEquals(63, ScreenDocumentConverter.getSeatBit(64));
+        assertEquals(List.of(-1L, 0x3FL), ScreenDocumentConverter.getEmptySeatRows(70, 2).get(1));
+    }
+}
@@ -0,0 +1,65 @@
+package com.cinema.cinema;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for ScreeningRouter.
+ * @author hari_rathod
+ * @version 2023.07.03
+ */
+class ScreeningRouterTest {
+
+    /**
+     * Test that the screens showing a movie are offered with the most available seats first, and that the order is
+     * updated as seats are booked.
+     */
+    @Test
+    public void testMostAvailableFirst()
+    {
+        ScreeningRouter router = new ScreeningRouter(ScreeningRouter.Policy.MOST_AVAILABLE);
+        router.add(1, "Dune", 100, 40);
+        router.add(2, " dune ", 100, 60);
+        router.add(3, "Dune", 50, 50);
+        router.add(4, "Barbie", 100, 100);
+        assertEquals(List.of(2, 3, 1), router.getCandidates("DUNE"));
+
+        router.seatsBooked(2, 15);
+        assertEquals(List.of(3, 2, 1), router.getCandidates("Dune"));
+        assertEquals(45, router.getAvailableSeats(2));
+
+        // Screens that are equally good are offered in order of id.
+        router.updateAvailableSeats(1, 50);
+        assertEquals(List.of(1, 3, 2), router.getCandidates("Dune"));
+
+        router.remove(3);
+        assertEquals(List.of(1, 2), router.getCandidates("Dune"));
+        assertEquals(-1, router.getAvailableSeats(3));
+        assertEquals(List.of(), router.getCandidates("Oppenheimer"));
+    }
+
+    /**
+     * Test the other policies: the screen with the largest share of available seats first, and the lowest id first.
+     */
+    @Test
+    public void testPolicies()
+    {
+        ScreeningRouter leastFull = new ScreeningRouter(ScreeningRouter.Policy.LEAST_FULL);
+        ScreeningRouter lowestId = new ScreeningRouter(ScreeningRouter.Policy.LOWEST_ID);
+        for (ScreeningRouter router : List.of(leastFull, lowestId)) {
+            router.add(1, "Dune", 200, 80);
+            router.add(2, "Dune", 50, 30);
+            router.add(3, "Dune", 100, 20);
+        }
+        assertEquals(List.of(2, 1, 3), leastFull.getCandidates("Dune"));
+        assertEquals(List.of(1, 2, 3), lowestId.getCandidates("Dune"));
+
+        leastFull.seatsBooked(2, 15);
+        lowestId.seatsBooked(2, 15);
+        assertEquals(List.of(1, 2, 3), leastFull.getCandidates("Dune"));
+        assertEquals(List.of(1, 2, 3), lowestId.getCandidates("Dune"));
+    }
+}
@@ -0,0 +1,376 @@
+package com.cinema.cinema;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for SeatMap.
+ * @author hari_rathod
+ * @version 2023.06.30
+ */
+class SeatMapTest {
+
+    /**
+     * Test that booking and releasing seats keeps the available count exact, including in a row longer than a word.
+     */
+    @Test
+    public void testBookAndRelease()
+    {
+        SeatMap seats = new SeatMap(70, 3);
+        assertEquals(210, seats.getNumberOfAvailableSeats());
+        assertEquals(2, seats.getWordsPerRow());
+
+        assertTrue(seats.book(65, 2));
+        assertFalse(seats.book(65, 2));
+        assertFalse(seats.isAvailable(65, 2));
+        assertTrue(seats.isAvailable(64, 2));
+        assertEquals(209, seats.getNumberOfAvailableSeats());
+        assertEquals(~1L & 0x3FL, seats.getWord(2, 1));
+
+        assertTrue(seats.release(65, 2));
+        assertFalse(seats.release(65, 2));
+        assertEquals(210, seats.getNumberOfAvailableSeats());
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> seats.book(71, 1));
+    }
+
+    /**
+     * Test that fill() makes every seat available without setting bits past the last column.
+     */
+    @Test
+    public void testFill()
+    {
+        SeatMap seats = new SeatMap(5, 2);
+        seats.book(1, 1);
+        seats.book(5, 2);
+        seats.fill();
+        assertEquals(10, seats.getNumberOfAvailableSeats());
+        assertEquals(0x1FL, seats.getWord(1, 0));
+        assertEquals(0x1FL, seats.getWord(2, 0));
+    }
+
+    /**
+     * Test that a seat map converted to a grid and back, or to words and back, is unchanged.
+     */
+    @Test
+    public void testConversions()
+    {
+        Random random = new Random(18);
+        boolean[][] grid = new boolean[130][7];
+        for (boolean[] column : grid) {
+            for (int row = 0; row < column.length; row++) {
+                column[row] = random.nextBoolean();
+            }
+        }
+        SeatMap seats = SeatMap.fromGrid(grid);
+        assertTrue(Arrays.deepEquals(grid, seats.toGrid()));
+        assertEquals(Arrays.stream(grid).mapToLong(column -> countTrue(column)).sum(), seats.getNumberOfAvailableSeats());
+
+        SeatMap fromWords = SeatMap.fromWords(130, 7, seats.getWords());
+        assertTrue(Arrays.deepEquals(grid, fromWords.toGrid()));
+        assertEquals(seats.getNumberOfAvailableSeats(), fromWords.getNumberOfAvailableSeats());
+
+        SeatMap copy = seats.copy();
+        copy.fill();
+        assertTrue(Arrays.deepEquals(grid, seats.toGrid()));
+    }
+
+    /**
+     * Test that selectAvailable(n) finds the n-th available seat, row by row, after seats are booked and released.
+     */
+    @Test
+    public void testSelectAvailable()
+    {
+        Random random = new Random(19);
+        SeatMap seats = new SeatMap(100, 13);
+        for (int i = 0; i < 1000; i++) {
+            int column = random.nextInt(100) + 1;
+            int row = random.nextInt(13) + 1;
+            if (random.nextInt(4) == 0) {
+                seats.release(column, row);
+            } else {
+                seats.book(column, row);
+            }
+        }
+
+        int n = 0;
+        for (int row = 1; row <= 13; row++) {
+            for (int column = 1; column <= 100; column++) {
+                if (seats.isAvailable(column, row)) {
+                    assertEquals(new SeatPosition(column, row), seats.selectAvailable(n));
+                    n++;
+                }
+            }
+            assertEquals(n, seats.getNumberOfAvailableSeatsUpToRow(row));
+        }
+        assertEquals(n, seats.getNumberOfAvailableSeats());
+        assertThrows(IllegalArgumentException.class, () -> seats.selectAvailable(seats.getNumberOfAvailableSeats()));
+    }
+
+    /**
+     * Test that a screen's random tickets are spread over every available seat, including on a nearly full screen.
+     */
+    @Test
+    public void testBookRandomTicket() throws NoAvailableSeatException
+    {
+        Screen screen = new Screen(1, 10, 10);
+        for (int seat = 0; seat < 97; seat++) {
+            screen.getSeatMap().book(seat % 10 + 1, seat / 10 + 1);
+        }
+        int[] counts = new int[3];
+        Random random = new Random(7);
+        for (int i = 0; i < 3000; i++) {
+            SeatPosition seat = screen.getRandomAvailableSeat(random);
+            assertEquals(10, seat.getRowNumber());
+            counts[seat.getColumnNumber() - 8]++;
+        }
+        for (int count : counts) {
+            assertTrue(count > 850 && count < 1150, "Seats were not chosen uniformly: " + Arrays.toString(counts));
+        }
+
+        for (int i = 0; i < 3; i++) {
+            screen.bookRandomTicket();
+        }
+        assertEquals(0, screen.getNumberOfAvailableSeats());
+        assertThrows(NoAvailableSeatException.class, screen::bookRandomTicket);
+    }
+
+    /**
+     * Test that the longest run of available seats in each row is kept up to date, across word boundaries.
+     */
+    @Test
+    public void testLongestAvailableRun()
+    {
+        Random random = new Random(20);
+        SeatMap seats = new SeatMap(150, 4);
+        assertEquals(150, seats.getLongestAvailableRun(1));
+        for (int i = 0; i < 2000; i++) {
+            int column = random.nextInt(150) + 1;
+            int row = random.nextInt(4) + 1;
+            if (random.nextInt(3) == 0) {
+                seats.release(column, row);
+            } else {
+                seats.book(column, row);
+            }
+            int longest = 0;
+            int run = 0;
+            for (int c = 1; c <= 150; c++) {
+                run = seats.isAvailable(c, row) ? run + 1 : 0;
+                longest = Math.max(longest, run);
+            }
+            assertEquals(longest, seats.getLongestAvailableRun(row));
+        }
+        assertEquals(seats.getLongestAvailableRun(3), SeatMap.fromWords(150, 4, seats.getWords()).getLongestAvailableRun(3));
+    }
+
+    /**
+     * Test that the best block is the one closest to the centre line, and that rows closer to the middle row win ties.
+     */
+    @Test
+    public void testFindBestBlock()
+    {
+        SeatMap seats = new SeatMap(10, 5);
+        // An empty screen: the centred block in the middle row.
+        assertEquals(blockOf(4, 3, 4), seats.findBestBlock(4));
+
+        // Book the middle of the middle row: the centred block of the next rows is chosen instead.
+        seats.book(5, 3);
+        assertEquals(blockOf(4, 2, 4), seats.findBestBlock(4));
+
+        // Only runs off-centre are left. Blocks either side are equally far from the centre line, so the middle row
+        // wins; with the middle row full, the block nearest the centre line is chosen.
+        for (int row = 1; row <= 5; row++) {
+            seats.book(5, row);
+            seats.book(6, row);
+        }
+        assertEquals(blockOf(1, 3, 4), seats.findBestBlock(4));
+        assertEquals(blockOf(3, 3, 2), seats.findBestBlock(2));
+        seats.book(4, 3);
+        seats.book(7, 3);
+        seats.book(4, 2);
+        seats.book(4, 4);
+        assertEquals(blockOf(7, 2, 2), seats.findBestBlock(2));
+        assertEquals(List.of(), seats.findBestBlock(5));
+        assertThrows(IllegalArgumentException.class, () -> seats.findBestBlock(0));
+    }
+
+    private static List<SeatPosition> blockOf(int firstColumn, int row, int numberOfSeats)
+    {
+        List<SeatPosition> block = new ArrayList<>();
+        for (int i = 0; i < numberOfSeats; i++) {
+            block.add(new SeatPosition(firstColumn + i, row));
+        }
+        return block;
+    }
+
+    /**
+     * Test that seats booked by many threads at once, one at a time and in pairs spanning two words, are each booked
+     * exactly once, and that the number of available seats never counts a seat that has been sold.
+     */
+    @Test
+    public void testConcurrentBookings() throws InterruptedException
+    {
+        int columns = 130;
+        int rows = 40;
+        SeatMap seats = new SeatMap(columns, rows);
+        AtomicIntegerArray bookings = new AtomicIntegerArray(columns * rows);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicBoolean failed = new AtomicBoolean();
+        AtomicBoolean finished = new AtomicBoolean();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int offset = t;
+            threads.add(new Thread(() -> {
+                awaitQuietly(start);
+                for (int i = 0; i < columns * rows; i++) {
+                    int seat = (i * 7 + offset * 997) % (columns * rows);
+                    int column = seat % columns + 1;
+                    int row = seat / columns + 1;
+                    if (offset % 2 == 0 || column == columns) {
+                        if (seats.book(column, row)) {
+                            bookings.incrementAndGet(seat);
+                            sold.incrementAndGet();
+                        }
+                    } else {
+                        // Claim the seat with the one next to it; seats 64 and 65 of a row are in different words.
+                        List<SeatPosition> pair = List.of(new SeatPosition(column, row),
+                                new SeatPosition(column + 1, row));
+                        if (seats.claim(pair).isEmpty()) {
+                            bookings.incrementAndGet(seat);
+                            bookings.incrementAndGet(seat + 1);
+                            sold.addAndGet(2);
+                        }
+                    }
+                }
+            }));
+        }
+        Thread observer = new Thread(() -> {
+            while (!finished.get()) {
+                // A seat is counted as booked before it is sold, so the count never includes a seat already sold.
+                int soldSeats = sold.get();
+                int available = seats.getNumberOfAvailableSeats();
+                if (available > columns * rows - soldSeats || available < 0) {
+                    failed.set(true);
+                }
+            }
+        });
+
+        observer.start();
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        finished.set(true);
+        observer.join();
+
+        assertFalse(failed.get(), "The number of available seats included a seat that was sold.");
+        for (int seat = 0; seat < columns * rows; seat++) {
+            assertEquals(1, bookings.get(seat), "Seat " + seat + " was not booked exactly once.");
+        }
+        assertEquals(0, seats.getNumberOfAvailableSeats());
+        assertEquals(0, Arrays.stream(seats.getWords()).mapToInt(Long::bitCount).sum());
+        assertEquals(0, seats.getNumberOfAvailableSeatsUpToRow(rows));
+    }
+
+    /**
+     * Test that the counts and summaries of the rows match the seats once threads booking and releasing seats finish.
+     */
+    @Test
+    public void testConcurrentBookAndRelease() throws InterruptedException
+    {
+        SeatMap seats = new SeatMap(100, 10);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Random random = new Random(t);
+            threads.add(new Thread(() -> {
+                awaitQuietly(start);
+                for (int i = 0; i < 20000; i++) {
+                    int column = random.nextInt(100) + 1;
+                    int row = random.nextInt(10) + 1;
+                    if (random.nextBoolean()) {
+                        seats.release(column, row);
+                    } else if (random.nextBoolean()) {
+                        seats.book(column, row);
+                    } else {
+                        seats.claim(List.of(new SeatPosition(column, row), new SeatPosition(101 - column, row)));
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        SeatMap expected = SeatMap.fromWords(100, 10, seats.getWords());
+        assertEquals(expected.getNumberOfAvailableSeats(), seats.getNumberOfAvailableSeats());
+        for (int row = 1; row <= 10; row++) {
+            assertEquals(expected.getNumberOfAvailableSeatsUpToRow(row), seats.getNumberOfAvailableSeatsUpToRow(row));
+            assertEquals(expected.getLongestAvailableRun(row), seats.getLongestAvailableRun(row));
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch)
+    {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Test that a screen is serialized with its seats as a grid, so it can be read back with the same seats.
+     */
+    @Test
+    public void testScreenSerialization() throws IOException, ClassNotFoundException
+    {
+        Screen screen = new Screen(4, 9, 6);
+        screen.addNewMovie("Oppenheimer", 1200);
+        screen.getSeatMap().book(3, 4);
+        screen.setVersion(7);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(screen);
+        }
+        Screen read;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            read = (Screen) in.readObject();
+        }
+        assertEquals(screen.getDetails(), read.getDetails());
+        assertFalse(read.isSeatAvailable(3, 4));
+        assertEquals(53, read.getNumberOfAvailableSeats());
+        assertEquals(7, read.getVersion());
+    }
+
+    private static long countTrue(boolean[] column)
+    {
+        long count = 0;
+        for (boolean seat : column) {
+            if (seat) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
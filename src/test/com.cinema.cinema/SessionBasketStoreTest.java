@@ -0,0 +1,106 @@
+package com.cinema.cinema;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for SessionBasketStore.
+ * @author hari_rathod
+ * @version 2023.06.22
+ */
+class SessionBasketStoreTest {
+    private Path directory;
+    private SessionBasketStore store;
+
+    @BeforeEach
+    public void setUp() throws IOException
+    {
+        directory = Files.createTempDirectory("baskets");
+        store = new SessionBasketStore(directory, 4, 0, 0);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException
+    {
+        store.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Test that the baskets of different sessions are kept apart.
+     */
+    @Test
+    public void testSessionsHaveSeparateBaskets() throws IOException
+    {
+        try (SessionBasket first = store.open("first"); SessionBasket second = store.open("second")) {
+            first.add(ticket(1));
+            first.add(ticket(2));
+            second.add(ticket(3));
+            assertEquals(2, first.size());
+            assertEquals(1, second.size());
+            assertEquals(3, second.getTickets().get(0).getSeatNumber());
+        }
+
+        // A closed basket keeps its tickets until it is deleted or expires.
+        try (SessionBasket first = store.open("first")) {
+            assertEquals(2, first.size());
+        }
+    }
+
+    /**
+     * Test that a basket cannot be opened twice at the same time, and can be opened again once it is closed.
+     */
+    @Test
+    public void testOpenBasketIsLocked() throws IOException
+    {
+        SessionBasket basket = store.open("session");
+        assertThrows(IOException.class, () -> store.open("session"));
+        basket.delete();
+
+        try (SessionBasket reopened = store.open("session")) {
+            assertEquals(0, reopened.size());
+        }
+        assertThrows(IllegalArgumentException.class, () -> store.open("../session"));
+    }
+
+    /**
+     * Test that abandoned baskets expire, but open baskets do not.
+     */
+    @Test
+    public void testAbandonedBasketsExpire() throws IOException, InterruptedException
+    {
+        SessionBasket abandoned = store.open("abandoned");
+        abandoned.add(ticket(1));
+        abandoned.close();
+        SessionBasket open = store.open("open");
+        open.add(ticket(1));
+        // Baskets expire immediately in this store, once their modification time is in the past.
+        Thread.sleep(10);
+
+        assertEquals(1, store.expireAbandonedBaskets());
+        assertEquals(1, open.size());
+        open.close();
+        try (SessionBasket reopened = store.open("abandoned")) {
+            assertEquals(0, reopened.size());
+        }
+    }
+
+    private static Ticket ticket(int seatNumber)
+    {
+        return new Ticket(1, "Barbie", seatNumber, 1, 1250, LocalDateTime.of(2023, 6, 22, 20, 0));
+    }
+}
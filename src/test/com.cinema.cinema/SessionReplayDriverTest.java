@@ -0,0 +1,87 @@
+package com.cinema.cinema;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for SessionReplayDriver.
+ * @author hari_rathod
+ * @version 2023.06.25
+ */
+class SessionReplayDriverTest {
+    private static final List<String> CUSTOMER_SCRIPT = List.of("book", "Barbie", "3, 4", "basket", "list", "finished");
+
+    private TicketOffice office;
+
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        // Keep the baskets of the replayed sessions out of the working directory.
+        System.setProperty("basket.directory", Files.createTempDirectory("baskets").toString());
+        office = new TicketOffice(new InMemoryScreenRepository());
+        office.addScreen(1, 10, 10);
+        office.addNewMovie(1, "Barbie", 1000);
+    }
+
+    /**
+     * Test that every session is replayed, and a seat booked by one session is an error in every other session.
+     */
+    @Test
+    public void testConcurrentSessionsAreReplayed() throws Exception
+    {
+        SessionReplayDriver driver = new SessionReplayDriver(office, BookingType.CUSTOMER, 4, 100, 10);
+        ReplayMetrics metrics = driver.replay(Collections.nCopies(20, CUSTOMER_SCRIPT));
+
+        assertEquals(0, metrics.getFailedSessions());
+        assertEquals(20, metrics.getLatency(CommandWord.BOOK).getCount());
+        assertEquals(20, metrics.getLatency(CommandWord.BASKET).getCount());
+        assertEquals(19, metrics.getErrors(CommandWord.BOOK));
+        assertEquals(99, office.findScreen(1).getNumberOfAvailableSeats());
+    }
+
+    /**
+     * Test that varied scripts book random seats within the seats of the script.
+     */
+    @Test
+    public void testVariedScriptsBookOtherSeats() throws Exception
+    {
+        List<List<String>> scripts = new ArrayList<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 10; i++) {
+            List<String> varied = SessionReplayDriver.vary(CUSTOMER_SCRIPT, random);
+            assertEquals(CUSTOMER_SCRIPT.size(), varied.size());
+            assertEquals("book", varied.get(0));
+            scripts.add(varied);
+        }
+        ReplayMetrics metrics = new SessionReplayDriver(office, BookingType.CUSTOMER, 2, 1000, 0).replay(scripts);
+        assertEquals(10 - metrics.getErrors(CommandWord.BOOK), 100 - office.findScreen(1).getNumberOfAvailableSeats());
+    }
+
+    /**
+     * Test that a script without the quit command still finishes its session, and a session that keeps asking for
+     * input after its script has run out is stopped.
+     */
+    @Test
+    public void testScriptsWithoutQuitFinish() throws InterruptedException
+    {
+        ReplayMetrics metrics = new SessionReplayDriver(office, BookingType.MANAGER, 1, 1, 0)
+                .replay(List.of(List.of("list")));
+        assertEquals(0, metrics.getFailedSessions());
+        assertEquals(1, metrics.getLatency(CommandWord.LIST).getCount());
+        assertEquals(1, metrics.getLatency(CommandWord.QUIT).getCount());
+
+        ScriptedView view = new ScriptedView(List.of(), 0);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(CommandWord.QUIT.getCommandString(), view.getInput());
+        }
+        assertThrows(IllegalStateException.class, view::getInput);
+    }
+}
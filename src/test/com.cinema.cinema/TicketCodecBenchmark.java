@@ -0,0 +1,63 @@
+package com.cinema.cinema;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the size of records, and the time taken to encode and decode them, between TicketCodec and Java
+ * serialization (SerializationCodec). This is not run with the tests; run its main method to print the results.
+ * @author hari_rathod
+ * @version 2023.06.20
+ */
+public class TicketCodecBenchmark {
+    private static final int TICKETS = 100_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException
+    {
+        String[] titles = {"Barbie", "Oppenheimer", "Spider-Man: Across the Spider-Verse", "Elemental"};
+        List<Ticket> tickets = new ArrayList<>();
+        LocalDateTime date = LocalDateTime.of(2023, 6, 20, 18, 0);
+        for (int i = 0; i < TICKETS; i++) {
+            tickets.add(new Ticket(i % 10, titles[i % titles.length], i % 20 + 1, i % 15 + 1, 1250,
+                    date.plusSeconds(i)));
+        }
+
+        run("Java serialization", new SerializationCodec<>(Ticket.class), tickets);
+        run("TicketCodec", new TicketCodec(), tickets);
+    }
+
+    /**
+     * Encode and decode every ticket, several times so the JIT compiler has warmed up, and print the results of
+     * the last round.
+     */
+    private static void run(String name, RecordCodec<Ticket> codec, List<Ticket> tickets) throws IOException
+    {
+        long bytes = 0;
+        long encodeNanos = 0;
+        long decodeNanos = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            List<byte[]> records = new ArrayList<>(tickets.size());
+            bytes = 0;
+            long start = System.nanoTime();
+            for (Ticket ticket : tickets) {
+                byte[] record = codec.encode(ticket);
+                records.add(record);
+                bytes += record.length;
+            }
+            encodeNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (byte[] record : records) {
+                codec.decode(record);
+            }
+            decodeNanos = System.nanoTime() - start;
+        }
+        System.out.println("== " + name + " ==");
+        System.out.println("Bytes per ticket: " + bytes / tickets.size());
+        System.out.println("Encode (ns per ticket): " + encodeNanos / tickets.size());
+        System.out.println("Decode (ns per ticket): " + decodeNanos / tickets.size());
+    }
+}
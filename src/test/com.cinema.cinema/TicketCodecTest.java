@@ -0,0 +1,91 @@
+package com.cinema.cinema;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for TicketCodec.
+ * @author hari_rathod
+ * @version 2023.06.20
+ */
+class TicketCodecTest {
+    private static final LocalDateTime DATE = LocalDateTime.of(2023, 6, 20, 18, 30, 15, 123456789);
+
+    /**
+     * Test that every field of a ticket is decoded as it was encoded, including the nanoseconds of the date.
+     */
+    @Test
+    public void testRoundTrip() throws IOException
+    {
+        TicketCodec codec = new TicketCodec();
+        Ticket ticket = codec.decode(codec.encode(new Ticket(3, "Barbie", 7, 2, 1250, DATE)));
+        assertEquals(3, ticket.getScreenId());
+        assertEquals("Barbie", ticket.getMovieTitle());
+        assertEquals(7, ticket.getSeatNumber());
+        assertEquals(2, ticket.getRowNumber());
+        assertEquals(1250, ticket.getCost());
+        assertEquals(DATE, ticket.getDate());
+
+        Ticket untitled = codec.decode(codec.encode(new Ticket(1, null, 1, 1, 0, DATE)));
+        assertNull(untitled.getMovieTitle());
+    }
+
+    /**
+     * Test that a record is several times smaller than the same ticket written with Java serialization.
+     */
+    @Test
+    public void testRecordsAreSmall() throws IOException
+    {
+        Ticket ticket = new Ticket(3, "Oppenheimer", 7, 2, 1250, DATE);
+        int size = new TicketCodec().encode(ticket).length;
+        assertEquals(42, size);
+        assertTrue(new SerializationCodec<>(Ticket.class).encode(ticket).length > 4 * size);
+    }
+
+    /**
+     * Test that records written with Java serialization, before this codec was used, can still be decoded.
+     */
+    @Test
+    public void testLegacyRecordsAreDecoded() throws IOException
+    {
+        byte[] record = new SerializationCodec<>(Ticket.class).encode(new Ticket(3, "Barbie", 7, 2, 1250, DATE));
+        Ticket ticket = new TicketCodec().decode(record);
+        assertEquals("Barbie", ticket.getMovieTitle());
+        assertEquals(DATE, ticket.getDate());
+    }
+
+    /**
+     * Test that bytes appended by a later version are ignored, and that corrupt records are rejected.
+     */
+    @Test
+    public void testLaterVersionsAndCorruptRecords() throws IOException
+    {
+        TicketCodec codec = new TicketCodec();
+        byte[] record = codec.encode(new Ticket(3, "Barbie", 7, 2, 1250, DATE));
+        byte[] later = ByteBuffer.allocate(record.length + 4).put(record).putInt(99).array();
+        later[0] = 2;
+        assertEquals("Barbie", codec.decode(later).getMovieTitle());
+
+        assertThrows(IOException.class, () -> codec.decode(Arrays.copyOf(record, record.length - 1)));
+        assertThrows(IOException.class, () -> codec.decode(new byte[] {0}));
+        assertThrows(IOException.class, () -> codec.decode(new byte[0]));
+    }
+
+    /**
+     * Test that equal titles decoded by the same codec are the same String.
+     */
+    @Test
+    public void testTitlesAreInterned() throws IOException
+    {
+        TicketCodec codec = new TicketCodec();
+        byte[] first = codec.encode(new Ticket(3, "Barbie", 7, 2, 1250, DATE));
+        byte[] second = codec.encode(new Ticket(3, new String("Barbie"), 8, 2, 1250, DATE));
+        assertSame(codec.decode(first).getMovieTitle(), codec.decode(second).getMovieTitle());
+    }
+}
@@ -0,0 +1,86 @@
+package com.cinema.cinema;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for TicketLedger.
+ * @author hari_rathod
+ * @version 2023.07.04
+ */
+class TicketLedgerTest {
+    private static final LocalDateTime DATE = LocalDateTime.of(2023, 7, 4, 19, 30);
+
+    private Path path;
+
+    @BeforeEach
+    public void setUp() throws IOException
+    {
+        path = Files.createTempFile("tickets", ".ser");
+        Files.delete(path);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException
+    {
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Test that recorded tickets are read back, in order, by a new ledger using the same file, and are stored with
+     * TicketCodec.
+     */
+    @Test
+    public void testTicketsArePersisted() throws IOException
+    {
+        try (TicketLedger ledger = new TicketLedger(path, Durability.NONE)) {
+            ledger.record(new Ticket(1, "Barbie", 3, 4, 1250, DATE));
+            ledger.record(new Ticket(2, "Oppenheimer", 5, 6, 1400, DATE));
+        }
+
+        try (TicketLedger reopened = new TicketLedger(path, Durability.NONE)) {
+            assertEquals(2, reopened.getNumberOfTickets());
+            List<Ticket> tickets = reopened.getTickets();
+            assertEquals("Barbie", tickets.get(0).getMovieTitle());
+            assertEquals(6, tickets.get(1).getRowNumber());
+        }
+        try (RecordLog.Reader reader = new RecordLog(path).openReader()) {
+            assertEquals(TicketCodec.VERSION, reader.next()[0]);
+        }
+    }
+
+    /**
+     * Test that a tickets file written as a List of serialized tickets is converted, keeping its tickets, and new
+     * tickets are appended after them.
+     */
+    @Test
+    public void testLegacyFileIsConverted() throws IOException
+    {
+        List<Ticket> legacy = new ArrayList<>(List.of(new Ticket(1, "Barbie", 1, 1, 1250, DATE),
+                new Ticket(1, "Barbie", 2, 1, 1250, DATE)));
+        try (ObjectOutputStream output = new ObjectOutputStream(Files.newOutputStream(path))) {
+            output.writeObject(legacy);
+        }
+
+        try (TicketLedger ledger = new TicketLedger(path, Durability.NONE)) {
+            ledger.record(new Ticket(1, "Barbie", 3, 1, 1250, DATE));
+            List<Ticket> tickets = ledger.getTickets();
+            assertEquals(3, tickets.size());
+            for (int i = 0; i < tickets.size(); i++) {
+                assertEquals(i + 1, tickets.get(i).getSeatNumber());
+            }
+        }
+        assertTrue(RecordLog.isRecordLog(path));
+    }
+}
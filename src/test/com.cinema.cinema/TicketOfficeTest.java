@@ -6,13 +6,19 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
- * The test class TicketOfficeTest.
- * TODO: Tests do not work as of now, due to integration with database
- *  in progress.
+ * The test class TicketOfficeTest. The screens are stored in an InMemoryScreenRepository, so the tests do not need
+ * a database connection.
  *
  * @author  Hari Rathod
- * @version 2022.12.24
+ * @version 2023.07.04
  */
 public class TicketOfficeTest
 {
@@ -34,7 +40,7 @@ public class TicketOfficeTest
     @BeforeEach
     public void setUp()
     {
-        ticketOffice = new TicketOffice();
+        ticketOffice = new TicketOffice(new InMemoryScreenRepository());
         screen1 = new Screen(1, 13, 12);
         screen2 = new Screen(2, 31, 5);
     }
@@ -81,12 +87,16 @@ public class TicketOfficeTest
         catch (ScreenIdDoesNotExistException e) {
             assertTrue(true);
         }
+        catch (ScreenVersionConflictException e) {
+            fail();
+        }
 
         try {
             ticketOffice.addScreen(1, 10, 10);
             ticketOffice.addNewMovie(1, "Whoo duhn-knit?", 1000);
             assertTrue(true);
-        } catch (ScreenIdAlreadyExistsException | InvalidScreenParameterException | ScreenIdDoesNotExistException e) {
+        } catch (ScreenIdAlreadyExistsException | InvalidScreenParameterException | ScreenIdDoesNotExistException
+                 | ScreenVersionConflictException e) {
             fail();
         }
     }
@@ -135,6 +145,349 @@ public class TicketOfficeTest
         assertEquals(ticket.getRowNumber(), 3);
     }
 
+    /**
+     * Test that a seat cannot be booked twice.
+     */
+    @Test
+    public void testBookTicketTwice()
+    {
+        try {
+            ticketOffice.addScreen(1, 12, 12);
+            ticketOffice.addNewMovie(1, "Movie", 1700);
+            ticketOffice.bookTicket("Movie", 4, 5);
+        } catch (Exception e) {
+            fail();
+        }
+
+        try {
+            ticketOffice.bookTicket("Movie", 4, 5);
+            fail();
+        } catch (UnavailableSeatException e) {
+            assertTrue(true);
+        } catch (MovieDoesNotExistException | InvalidSeatException e) {
+            fail();
+        }
+
+        try {
+            ticketOffice.bookTicket("Movie", 13, 5);
+            fail();
+        } catch (InvalidSeatException e) {
+            assertTrue(true);
+        } catch (MovieDoesNotExistException | UnavailableSeatException e) {
+            fail();
+        }
+
+        try {
+            assertEquals(143, ticketOffice.findScreen(1).getNumberOfAvailableSeats());
+        } catch (ScreenIdDoesNotExistException e) {
+            fail();
+        }
+    }
+
+    /**
+     * Test that random tickets book every available seat exactly once, and then report that the screen is full.
+     */
+    @Test
+    public void testBookRandomTicket()
+    {
+        Set<String> seats = new HashSet<>();
+        try {
+            ticketOffice.addScreen(1, 5, 4);
+            ticketOffice.addNewMovie(1, "Movie", 900);
+            ticketOffice.bookTicket("Movie", 2, 2);
+            for (int i = 0; i < 19; i++) {
+                Ticket ticket = ticketOffice.bookRandomTicket("Movie");
+                assertTrue(seats.add(ticket.getSeatNumber() + ", " + ticket.getRowNumber()));
+            }
+        } catch (Exception e) {
+            fail();
+        }
+        assertFalse(seats.contains("2, 2"));
+
+        try {
+            ticketOffice.bookRandomTicket("Movie");
+            fail();
+        } catch (NoAvailableSeatException e) {
+            assertTrue(true);
+        } catch (MovieDoesNotExistException e) {
+            fail();
+        }
+    }
+
+    /**
+     * Test that random tickets booked by several threads at once book every seat of the screen exactly once.
+     */
+    @Test
+    public void testConcurrentRandomTickets() throws InterruptedException
+    {
+        try {
+            ticketOffice.addScreen(1, 20, 10);
+            ticketOffice.addNewMovie(1, "Movie", 900);
+        } catch (Exception e) {
+            fail();
+        }
+
+        Set<String> seats = ConcurrentHashMap.newKeySet();
+        AtomicInteger tickets = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                try {
+                    while (true) {
+                        Ticket ticket = ticketOffice.bookRandomTicket("Movie");
+                        tickets.incrementAndGet();
+                        seats.add(ticket.getSeatNumber() + ", " + ticket.getRowNumber());
+                    }
+                } catch (NoAvailableSeatException | MovieDoesNotExistException e) {
+                    // The screen is full.
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(200, tickets.get());
+        assertEquals(200, seats.size());
+    }
+
+    /**
+     * Test that a group is offered the centred block of seats, avoiding booked seats.
+     */
+    @Test
+    public void testFindBestBlock()
+    {
+        try {
+            ticketOffice.addScreen(1, 9, 3);
+            ticketOffice.addNewMovie(1, "Movie", 900);
+            ticketOffice.bookTicket("Movie", 5, 2);
+            List<SeatPosition> block = ticketOffice.findBestBlock("Movie", 3);
+            assertEquals(List.of(new SeatPosition(4, 1), new SeatPosition(5, 1), new SeatPosition(6, 1)), block);
+        } catch (Exception e) {
+            fail();
+        }
+
+        try {
+            ticketOffice.findBestBlock("Movie", 10);
+            fail();
+        } catch (NoAvailableSeatException e) {
+            assertTrue(true);
+        } catch (MovieDoesNotExistException e) {
+            fail();
+        }
+    }
+
+    /**
+     * Test that several tickets are booked together, and that no seat is booked if any seat is invalid or unavailable.
+     */
+    @Test
+    public void testBookTickets()
+    {
+        Screen screen = null;
+        try {
+            ticketOffice.addScreen(1, 8, 4);
+            ticketOffice.addNewMovie(1, "Movie", 900);
+            ticketOffice.bookTicket("Movie", 3, 2);
+            screen = ticketOffice.validateMovieTitle("Movie");
+            List<Ticket> tickets = ticketOffice.bookTickets(screen, List.of(new SeatPosition(1, 1), new SeatPosition(2, 1)));
+            assertEquals(2, tickets.size());
+            assertEquals(2, tickets.get(1).getSeatNumber());
+            assertEquals("Movie", tickets.get(0).getMovieTitle());
+        } catch (Exception e) {
+            fail();
+        }
+
+        List<SeatPosition> group = List.of(new SeatPosition(2, 2), new SeatPosition(3, 2), new SeatPosition(4, 2),
+                new SeatPosition(1, 1));
+        try {
+            ticketOffice.bookTickets(screen, group);
+            fail();
+        } catch (UnavailableSeatException e) {
+            assertEquals(List.of(new SeatPosition(3, 2), new SeatPosition(1, 1)), e.getUnavailableSeats());
+        } catch (InvalidSeatException | MovieDoesNotExistException e) {
+            fail();
+        }
+
+        List<SeatPosition> invalid = List.of(new SeatPosition(5, 3), new SeatPosition(9, 3), new SeatPosition(5, 3));
+        try {
+            ticketOffice.bookTickets(screen, invalid);
+            fail();
+        } catch (InvalidSeatException e) {
+            assertEquals(2, e.getMessage().lines().count());
+        } catch (UnavailableSeatException | MovieDoesNotExistException e) {
+            fail();
+        }
+
+        try {
+            // Only the three seats booked successfully are unavailable.
+            assertEquals(29, ticketOffice.findScreen(1).getNumberOfAvailableSeats());
+        } catch (ScreenIdDoesNotExistException e) {
+            fail();
+        }
+    }
+
+    /**
+     * Test that held seats cannot be booked by other customers, are not counted as available, and are released when
+     * the hold expires; and that a confirmed hold books its seats.
+     */
+    @Test
+    public void testSeatHolds()
+    {
+        long[] now = {0};
+        ticketOffice = new TicketOffice(new InMemoryScreenRepository(), new SeatHolds(1000, 10, 64, () -> now[0]));
+        List<SeatPosition> pair = List.of(new SeatPosition(2, 1), new SeatPosition(3, 1));
+        SeatHold hold = null;
+        try {
+            ticketOffice.addScreen(1, 4, 2);
+            ticketOffice.addNewMovie(1, "Movie", 900);
+            Screen screen = ticketOffice.validateMovieTitle("Movie");
+            hold = ticketOffice.holdSeats(screen, pair);
+            assertEquals(6, ticketOffice.validateMovieTitle("Movie").getNumberOfAvailableSeats());
+            assertTrue(ticketOffice.getAllMoviesDetails().contains("Available Seat Capacity: 6"));
+        } catch (Exception e) {
+            fail();
+        }
+
+        try {
+            ticketOffice.bookTicket("Movie", 3, 1);
+            fail();
+        } catch (UnavailableSeatException e) {
+            assertEquals(List.of(new SeatPosition(3, 1)), e.getUnavailableSeats());
+        } catch (MovieDoesNotExistException | InvalidSeatException e) {
+            fail();
+        }
+
+        // The hold expires, so the seats can be held again, and the expired hold cannot be confirmed.
+        now[0] = 1010;
+        try {
+            Screen screen = ticketOffice.validateMovieTitle("Movie");
+            assertEquals(8, screen.getNumberOfAvailableSeats());
+            SeatHold expiredHold = hold;
+            assertEquals(SeatHold.State.EXPIRED, expiredHold.getState());
+            SeatHold secondHold = ticketOffice.holdSeats(screen, pair);
+            assertThrows(UnavailableSeatException.class, () -> ticketOffice.confirmHold(screen, expiredHold));
+            assertEquals(2, ticketOffice.confirmHold(screen, secondHold).size());
+            assertEquals(SeatHold.State.CONFIRMED, secondHold.getState());
+            assertFalse(ticketOffice.releaseHold(secondHold));
+            assertEquals(6, ticketOffice.findScreen(1).getNumberOfAvailableSeats());
+            assertTrue(ticketOffice.getAllMoviesDetails().contains("Available Seat Capacity: 6"));
+        } catch (Exception e) {
+            fail();
+        }
+
+        SeatHolds holds = ticketOffice.getSeatHolds();
+        assertEquals(2, holds.getHoldsPlaced());
+        assertEquals(1, holds.getHoldsConfirmed());
+        assertEquals(1, holds.getHoldsExpired());
+        assertEquals(0, holds.getNumberOfHolds());
+    }
+
+    /**
+     * Test that bookings for a movie showing on several screens are spread over the screens, and that a group is sent
+     * to a screen that can seat it together.
+     */
+    @Test
+    public void testBookingsAreRoutedToTheLeastLoadedScreen()
+    {
+        Set<Integer> screens = new HashSet<>();
+        try {
+            ticketOffice.addScreen(1, 5, 2);
+            ticketOffice.addScreen(2, 5, 2);
+            ticketOffice.addScreen(3, 4, 2);
+            ticketOffice.addNewMovie(1, "Dune", 900);
+            ticketOffice.addNewMovie(2, "Dune", 900);
+            ticketOffice.addNewMovie(3, "Dune Part Two", 900);
+            for (int i = 0; i < 6; i++) {
+                screens.add(ticketOffice.bookRandomTicket("Dune").getScreenId());
+            }
+            // Screens 1 and 2 take turns, so each has 7 available seats.
+            assertEquals(Set.of(1, 2), screens);
+            assertEquals(7, ticketOffice.findScreen(1).getNumberOfAvailableSeats());
+            assertEquals(7, ticketOffice.findScreen(2).getNumberOfAvailableSeats());
+
+            // Screen 4 has the most available seats, but only screen 5 has 5 adjacent seats for a group.
+            ticketOffice.addScreen(4, 5, 2);
+            ticketOffice.addScreen(5, 5, 2);
+            ticketOffice.addNewMovie(4, "Heat", 900);
+            ticketOffice.addNewMovie(5, "Heat", 900);
+            ticketOffice.bookTickets(ticketOffice.findScreen(4),
+                    List.of(new SeatPosition(3, 1), new SeatPosition(3, 2)));
+            ticketOffice.bookTickets(ticketOffice.findScreen(5), List.of(new SeatPosition(1, 1), new SeatPosition(2, 1),
+                    new SeatPosition(3, 1)));
+            assertEquals(4, ticketOffice.validateMovieTitle("Heat").getId());
+            assertEquals(5, ticketOffice.findScreenForGroup("Heat", 5).getId());
+            assertEquals(List.of(new SeatPosition(1, 2), new SeatPosition(2, 2), new SeatPosition(3, 2),
+                    new SeatPosition(4, 2), new SeatPosition(5, 2)), ticketOffice.findBestBlock("Heat", 5));
+
+            // A customer is shown screen 4, and other customers then book it, so the router prefers screen 5. The
+            // customer's seats are still booked on the screen they were shown.
+            Screen shown = ticketOffice.validateMovieTitle("Heat");
+            ticketOffice.bookTickets(ticketOffice.findScreen(4),
+                    List.of(new SeatPosition(1, 1), new SeatPosition(1, 2)));
+            assertEquals(5, ticketOffice.validateMovieTitle("Heat").getId());
+            assertEquals(4, ticketOffice.bookTicket(shown, 5, 1).getScreenId());
+            assertEquals(4, ticketOffice.bookRandomTicket(shown).getScreenId());
+            assertEquals(4, ticketOffice.findScreen(4).getNumberOfAvailableSeats());
+        } catch (Exception e) {
+            fail();
+        }
+    }
+
+    /**
+     * Test that a screening changed by another TicketOffice is not booked under its old title, and is found under its
+     * new one.
+     */
+    @Test
+    public void testChangedScreeningIsNotBookedUnderItsOldTitle()
+    {
+        InMemoryScreenRepository repository = new InMemoryScreenRepository();
+        TicketOffice manager = new TicketOffice(repository);
+        TicketOffice customer = new TicketOffice(repository);
+        try {
+            manager.addScreen(1, 5, 2);
+            manager.addNewMovie(1, "Avatar", 900);
+            assertEquals(1, customer.validateMovieTitle("avatar").getId());
+
+            manager.addNewMovie(1, "Barbie", 1100);
+            assertThrows(MovieDoesNotExistException.class, () -> customer.bookTicket("avatar", 1, 1));
+            Ticket ticket = customer.bookTicket("barbie", 1, 1);
+            assertEquals("Barbie", ticket.getMovieTitle());
+            assertEquals(1100, ticket.getCost());
+        } catch (Exception e) {
+            fail();
+        }
+    }
+
+    /**
+     * Test that searches for a movie that is not showing do not each read every screen from storage.
+     */
+    @Test
+    public void testFailedSearchesDoNotEachRebuildTheIndex()
+    {
+        AtomicInteger listings = new AtomicInteger();
+        ticketOffice = new TicketOffice(new InMemoryScreenRepository() {
+            @Override
+            public List<ScreenSummary> getScreenSummaries(boolean onlyWithScreening)
+            {
+                if (onlyWithScreening) {
+                    listings.incrementAndGet();
+                }
+                return super.getScreenSummaries(onlyWithScreening);
+            }
+        });
+        try {
+            ticketOffice.addScreen(1, 5, 2);
+            ticketOffice.addNewMovie(1, "Dune", 900);
+            assertEquals(1, ticketOffice.validateMovieTitle("Dune").getId());
+        } catch (Exception e) {
+            fail();
+        }
+        for (int i = 0; i < 5; i++) {
+            assertThrows(MovieDoesNotExistException.class, () -> ticketOffice.validateMovieTitle("Zzyzx"));
+        }
+        assertEquals(1, listings.get());
+    }
+
     /**
      * Test if a screen is correctly removed.
      */
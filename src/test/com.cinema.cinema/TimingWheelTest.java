@@ -0,0 +1,67 @@
+package com.cinema.cinema;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for TimingWheel.
+ * @author hari_rathod
+ * @version 2023.07.01
+ */
+class TimingWheelTest {
+
+    /**
+     * Test that items expire at the first tick at or after their deadline, never before it, including items whose
+     * deadline is several rotations of the wheel away.
+     */
+    @Test
+    public void testItemsExpireAtTheirDeadline()
+    {
+        TimingWheel<Long> wheel = new TimingWheel<>(10, 8, 1000);
+        long[] deadlines = {1005, 1010, 1079, 1080, 1165, 1800, 2000};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+        assertEquals(deadlines.length, wheel.size());
+
+        List<Long> expired = new ArrayList<>();
+        for (long now = 1000; now <= 2100; now++) {
+            long time = now;
+            wheel.advance(now, deadline -> {
+                assertTrue(deadline <= time, "Expired early: " + deadline + " at " + time);
+                assertTrue(time - deadline < 10, "Expired late: " + deadline + " at " + time);
+                expired.add(deadline);
+            });
+        }
+        assertEquals(List.of(1005L, 1010L, 1079L, 1080L, 1165L, 1800L, 2000L), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    /**
+     * Test that a cancelled item does not expire, and that an item whose deadline has passed expires at the next tick.
+     */
+    @Test
+    public void testCancel()
+    {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 4, 0);
+        TimingWheel.Timeout<String> cancelled = wheel.schedule("cancelled", 250);
+        wheel.schedule("kept", 250);
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+        assertEquals(1, wheel.size());
+
+        List<String> expired = new ArrayList<>();
+        assertEquals(1, wheel.advance(300, expired::add));
+        assertEquals(List.of("kept"), expired);
+
+        wheel.schedule("late", 100);
+        assertEquals(0, wheel.advance(399, expired::add));
+        assertEquals(1, wheel.advance(400, expired::add));
+        assertEquals(List.of("kept", "late"), expired);
+        assertEquals(0, wheel.size());
+    }
+}
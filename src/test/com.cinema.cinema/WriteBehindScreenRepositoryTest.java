@@ -0,0 +1,183 @@
+package com.cinema.cinema;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for WriteBehindScreenRepository. The database is a StubDatabase, which keeps the screens in memory.
+ * @author hari_rathod
+ * @version 2023.07.04
+ */
+class WriteBehindScreenRepositoryTest {
+    private Path path;
+    private StubDatabase database;
+
+    @BeforeEach
+    public void setUp() throws IOException, ScreenVersionConflictException
+    {
+        path = Files.createTempFile("booking_journal", ".bin");
+        database = new StubDatabase();
+        database.storage.recordScreen(new Screen(1, 10, 10));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException
+    {
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Test that acknowledged bookings that were never written, e.g., because the application crashed, are written
+     * when the repository is next created on the same journal.
+     */
+    @Test
+    public void testAcknowledgedBookingsSurviveARestart() throws IOException, ScreenIdDoesNotExistException
+    {
+        BookingJournal journal = new BookingJournal(path);
+        WriteBehindScreenRepository crashed = new WriteBehindScreenRepository(database, journal, 100, 60000);
+        assertTrue(crashed.bookSeat(1, 2, 3));
+        assertTrue(crashed.bookSeats(1, List.of(new SeatPosition(5, 5), new SeatPosition(6, 5))).isEmpty());
+        assertTrue(database.storage.getScreenById(1).isSeatAvailable(2, 3));
+        // The application crashes before the bookings are written.
+        journal.close();
+
+        BookingJournal reopened = new BookingJournal(path);
+        WriteBehindScreenRepository repository = new WriteBehindScreenRepository(database, reopened, 100, 60000);
+        assertEquals(0, repository.getBacklog());
+        assertEquals(0, reopened.size());
+        Screen screen = database.storage.getScreenById(1);
+        assertFalse(screen.isSeatAvailable(2, 3));
+        assertFalse(screen.isSeatAvailable(5, 5));
+        assertFalse(screen.isSeatAvailable(6, 5));
+        assertEquals(97, screen.getNumberOfAvailableSeats());
+        repository.close();
+    }
+
+    /**
+     * Test that when one seat of a merged booking has been booked by another process, the other seats of the
+     * merged booking are still booked, one at a time, and only the conflicting seat is lost.
+     */
+    @Test
+    public void testConflictingMergedBookingIsWrittenSeatBySeat() throws IOException, ScreenIdDoesNotExistException
+    {
+        WriteBehindScreenRepository repository = new WriteBehindScreenRepository(database, new BookingJournal(path),
+                100, 60000);
+        assertTrue(repository.bookSeat(1, 1, 1));
+        assertTrue(repository.bookSeat(1, 2, 1));
+        assertTrue(repository.bookSeat(1, 3, 1));
+        // Another process books one of the seats before the merged booking is written.
+        assertTrue(database.storage.bookSeat(1, 2, 1));
+
+        repository.flush();
+        assertEquals(2, database.bulkWrites);
+        Screen screen = database.storage.getScreenById(1);
+        assertFalse(screen.isSeatAvailable(1, 1));
+        assertFalse(screen.isSeatAvailable(3, 1));
+        assertEquals(97, screen.getNumberOfAvailableSeats());
+        assertEquals(1, repository.getLostBookings());
+        assertEquals(0, repository.getBacklog());
+        repository.close();
+    }
+
+    /**
+     * Test that the bookings lost to another process are counted, including a merged booking whose seats were all
+     * booked, and that bookings without a conflict are not.
+     */
+    @Test
+    public void testLostBookingsAreCounted() throws IOException, ScreenIdDoesNotExistException
+    {
+        WriteBehindScreenRepository repository = new WriteBehindScreenRepository(database, new BookingJournal(path),
+                100, 60000);
+        assertTrue(repository.bookSeats(1, List.of(new SeatPosition(4, 2), new SeatPosition(5, 2))).isEmpty());
+        assertTrue(repository.bookSeat(1, 7, 3));
+        assertTrue(repository.bookSeat(1, 8, 4));
+        assertTrue(database.storage.bookSeats(1, List.of(new SeatPosition(4, 2), new SeatPosition(5, 2))).isEmpty());
+        assertTrue(database.storage.bookSeat(1, 7, 3));
+
+        repository.flush();
+        assertFalse(database.storage.getScreenById(1).isSeatAvailable(8, 4));
+        assertEquals(2, repository.getLostBookings());
+        assertTrue(repository.getSummary().contains("Lost bookings: 2"));
+        repository.close();
+    }
+
+    /**
+     * A ScreenDataManipulator that keeps the screens in an InMemoryScreenRepository, so no database is needed. Only
+     * the operations used to book seats are stubbed.
+     */
+    private static class StubDatabase extends ScreenDataManipulator {
+        private final InMemoryScreenRepository storage = new InMemoryScreenRepository();
+        private int bulkWrites;
+
+        @Override
+        public Screen getScreenById(int id) throws ScreenIdDoesNotExistException
+        {
+            return storage.getScreenById(id);
+        }
+
+        @Override
+        public int bookSeatsInBulk(List<SeatWordUpdate> updates)
+        {
+            bulkWrites++;
+            int applied = 0;
+            for (SeatWordUpdate update : updates) {
+                try {
+                    if (storage.bookSeats(update.getScreenId(), getSeats(update)).isEmpty()) {
+                        applied++;
+                    }
+                } catch (ScreenIdDoesNotExistException e) {
+                    // Not matched, as in the database.
+                }
+            }
+            return applied;
+        }
+
+        @Override
+        public Map<String, Long> getAvailableSeats(List<SeatWordUpdate> updates)
+        {
+            Map<String, Long> availableSeats = new HashMap<>();
+            for (SeatWordUpdate update : updates) {
+                try {
+                    Screen screen = storage.getScreenById(update.getScreenId());
+                    long available = 0;
+                    for (SeatPosition seat : getSeats(update)) {
+                        if (screen.isSeatAvailable(seat.getColumnNumber(), seat.getRowNumber())) {
+                            available |= 1L << ScreenDocumentConverter.getSeatBit(seat.getColumnNumber());
+                        }
+                    }
+                    availableSeats.put(update.getKey(), available);
+                } catch (ScreenIdDoesNotExistException e) {
+                    // Not mapped, as in the database.
+                }
+            }
+            return availableSeats;
+        }
+
+        /**
+         * Get the seats booked by an update.
+         * @param update The update.
+         * @return The seats.
+         */
+        private static List<SeatPosition> getSeats(SeatWordUpdate update)
+        {
+            List<SeatPosition> seats = new ArrayList<>();
+            for (long remaining = update.getMask(); remaining != 0; remaining &= remaining - 1) {
+                int column = update.getWordIndex() * ScreenDocumentConverter.SEATS_PER_WORD
+                        + Long.numberOfTrailingZeros(remaining) + 1;
+                seats.add(new SeatPosition(column, update.getRowNumber()));
+            }
+            return seats;
+        }
+    }
+}